@@ -0,0 +1,104 @@
+import groovy.json.JsonSlurper
+
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+group = "com.reajason.noone"
+version = rootProject.version
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+dependencies {
+    jmhImplementation(project(":noone-core"))
+}
+
+// ./gradlew :noone-benchmarks:jmh -Pjmh.includes=TlvCodec -Pjmh.quick
+val jmhResults = layout.buildDirectory.file("results/jmh/results.json")
+val quick = providers.gradleProperty("jmh.quick").isPresent
+
+jmh {
+    jmhVersion = libs.versions.jmh.get()
+    resultFormat = "JSON"
+    resultsFile = jmhResults
+    providers.gradleProperty("jmh.includes").orNull?.let { includes = listOf(it) }
+    if (quick) {
+        warmupIterations = 1
+        iterations = 2
+        fork = 1
+        warmup = "500ms"
+        timeOnIteration = "500ms"
+    }
+}
+
+/**
+ * Key of one JMH result row: benchmark method plus its parameter values.
+ */
+fun resultKey(row: Map<*, *>): String {
+    val params = (row["params"] as Map<*, *>?).orEmpty().entries
+        .sortedBy { it.key.toString() }
+        .joinToString(",") { "${it.key}=${it.value}" }
+    return "${row["benchmark"]}[$params]"
+}
+
+@Suppress("UNCHECKED_CAST")
+fun readResults(file: File): Map<String, Map<*, *>> =
+    (JsonSlurper().parse(file) as List<Map<*, *>>).associateBy(::resultKey)
+
+val baselineFile = providers.gradleProperty("jmh.baseline")
+    .map { rootProject.file(it) }
+    .orElse(layout.projectDirectory.file("baseline/results.json").asFile)
+
+// Fails when a benchmark present in both files got slower than the threshold allows:
+// lower score for throughput modes, higher score for time modes.
+//   ./gradlew :noone-benchmarks:jmhRegressionGate -Pjmh.baseline=path/to/results.json -Pjmh.threshold=0.10
+tasks.register("jmhRegressionGate") {
+    group = "verification"
+    description = "Compares JMH results with a baseline and fails on regressions beyond jmh.threshold (default 10%)."
+    val results = jmhResults
+    val baseline = baselineFile
+    val threshold = providers.gradleProperty("jmh.threshold").map { it.toDouble() }.orElse(0.10)
+    doLast {
+        val currentFile = results.get().asFile
+        val baselineResults = baseline.get()
+        check(currentFile.exists()) { "No JMH results at $currentFile, run the jmh task first" }
+        check(baselineResults.exists()) { "No baseline at $baselineResults, run jmhSaveBaseline on the reference build" }
+
+        val limit = threshold.get()
+        val current = readResults(currentFile)
+        val reference = readResults(baselineResults)
+        val regressions = mutableListOf<String>()
+        for ((key, row) in current) {
+            val base = reference[key] ?: continue
+            val score = ((row["primaryMetric"] as Map<*, *>)["score"] as Number).toDouble()
+            val baseScore = ((base["primaryMetric"] as Map<*, *>)["score"] as Number).toDouble()
+            if (baseScore <= 0.0) continue
+            val higherIsBetter = row["mode"] == "thrpt"
+            val change = if (higherIsBetter) (baseScore - score) / baseScore else (score - baseScore) / baseScore
+            val line = "%s: %.4g -> %.4g (%+.1f%%)".format(key, baseScore, score, -change * 100)
+            if (change > limit) regressions += line else logger.lifecycle(line)
+        }
+        val missing = reference.keys - current.keys
+        if (missing.isNotEmpty()) {
+            logger.lifecycle("${missing.size} baseline benchmarks were not run")
+        }
+        if (regressions.isNotEmpty()) {
+            throw GradleException(
+                "JMH regressions beyond ${(limit * 100).toInt()}%:\n" + regressions.joinToString("\n")
+            )
+        }
+    }
+}
+
+tasks.register<Copy>("jmhSaveBaseline") {
+    group = "verification"
+    description = "Copies the latest JMH results to the baseline used by jmhRegressionGate."
+    from(jmhResults)
+    into(baselineFile.map { it.parentFile })
+    rename { baselineFile.get().name }
+}
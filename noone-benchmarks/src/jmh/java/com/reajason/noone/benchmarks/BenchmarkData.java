@@ -0,0 +1,70 @@
+package com.reajason.noone.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Deterministic inputs shaped like real traffic: plugin output is mostly text with some binary, so it compresses
+ * but not perfectly.
+ */
+final class BenchmarkData {
+
+    private static final String[] WORDS = {
+            "drwxr-xr-x", "root", "tomcat", "/usr/local/tomcat/webapps", "index.jsp", "WEB-INF", "classes",
+            "java.lang.String", "200", "4096", "2025-12-27", "application/json", "x86_64", "Linux"
+    };
+
+    private static final int MAX_TEXT_LENGTH = 16 * 1024;
+
+    private BenchmarkData() {
+    }
+
+    static byte[] payload(int size) {
+        Random random = new Random(size);
+        byte[] data = new byte[size];
+        int i = 0;
+        while (i < size) {
+            if (random.nextInt(8) == 0) {
+                int run = Math.min(size - i, 16 + random.nextInt(48));
+                for (int j = 0; j < run; j++) {
+                    data[i++] = (byte) random.nextInt(256);
+                }
+            } else {
+                byte[] word = WORDS[random.nextInt(WORDS.length)].getBytes(StandardCharsets.UTF_8);
+                for (int j = 0; j < word.length && i < size; j++) {
+                    data[i++] = word[j];
+                }
+                if (i < size) {
+                    data[i++] = (byte) (random.nextBoolean() ? ' ' : '\n');
+                }
+            }
+        }
+        return data;
+    }
+
+    /**
+     * A plugin request of roughly {@code size} bytes once serialized, split between text args and a binary field.
+     * The text stays under the 64 KiB string limit of TLV version 1 so both versions can encode it.
+     */
+    static Map<String, Object> pluginRequest(int size) {
+        byte[] payload = payload(size);
+        int textLength = Math.min(size / 2, MAX_TEXT_LENGTH);
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("op", "write");
+        args.put("path", "/usr/local/tomcat/webapps/ROOT/index.jsp");
+        args.put("content", new String(payload, 0, textLength, StandardCharsets.ISO_8859_1));
+        args.put("flags", List.of("overwrite", "mkdirs"));
+        args.put("mode", 420);
+
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("action", "run");
+        request.put("plugin", "file-manager");
+        request.put("args", args);
+        request.put("bytes", Arrays.copyOfRange(payload, textLength, size));
+        return request;
+    }
+}
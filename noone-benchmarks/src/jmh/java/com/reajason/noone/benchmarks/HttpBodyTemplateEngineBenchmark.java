@@ -0,0 +1,60 @@
+package com.reajason.noone.benchmarks;
+
+import com.reajason.noone.core.profile.config.HttpBodyTemplateEngine;
+import com.reajason.noone.core.profile.config.HttpRequestBodyType;
+import com.reajason.noone.core.profile.config.HttpResponseBodyType;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Wraps an encoded payload into each request body type's default template and extracts it back out of a response
+ * rendered from the same template.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HttpBodyTemplateEngineBenchmark {
+
+    @Param({"TEXT", "FORM_URLENCODED", "MULTIPART_FORM_DATA", "JSON", "XML", "BINARY"})
+    public HttpRequestBodyType bodyType;
+
+    @Param({"1024", "65536", "1048576"})
+    public int payloadSize;
+
+    private byte[] payload;
+    private HttpResponseBodyType responseType;
+    private String responseTemplate;
+    private byte[] response;
+
+    @Setup
+    public void setUp() {
+        // the transform pipeline has already encoded the payload, so base64 text is the realistic input
+        payload = Base64.getEncoder().encode(BenchmarkData.payload(payloadSize));
+        // servers answer multipart requests with a plain body, the other types answer in kind
+        responseType = bodyType == HttpRequestBodyType.MULTIPART_FORM_DATA
+                ? HttpResponseBodyType.TEXT
+                : HttpResponseBodyType.valueOf(bodyType.name());
+        responseTemplate = HttpBodyTemplateEngine.defaultRequestTemplate(
+                HttpRequestBodyType.valueOf(responseType.name()));
+        response = responseType == HttpResponseBodyType.BINARY
+                ? HttpBodyTemplateEngine.encodeRequestBody(bodyType, responseTemplate, payload).bytes()
+                : responseTemplate.replace(HttpBodyTemplateEngine.PAYLOAD_PLACEHOLDER,
+                new String(payload, StandardCharsets.US_ASCII)).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public HttpBodyTemplateEngine.EncodedBody encodeRequest() {
+        return HttpBodyTemplateEngine.encodeRequestBody(bodyType, null, payload);
+    }
+
+    @Benchmark
+    public byte[] extractResponse() {
+        return HttpBodyTemplateEngine.extractResponsePayloadBytes(responseType, responseTemplate, response);
+    }
+}
@@ -0,0 +1,50 @@
+package com.reajason.noone.benchmarks;
+
+import com.reajason.noone.core.TlvCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes and parses a plugin request map with each TLV codec version.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TlvCodecBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int payloadSize;
+
+    @Param({"1", "2"})
+    public int codecVersion;
+
+    private Map<String, Object> request;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        request = BenchmarkData.pluginRequest(payloadSize);
+        serialized = TlvCodec.serialize(request, codecVersion);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return TlvCodec.serialize(request, codecVersion);
+    }
+
+    @Benchmark
+    public Map<String, Object> deserialize() {
+        return TlvCodec.deserialize(serialized);
+    }
+
+    @Benchmark
+    public Map<String, Object> deserializeByteBuffer() {
+        return TlvCodec.deserialize(ByteBuffer.wrap(serialized));
+    }
+}
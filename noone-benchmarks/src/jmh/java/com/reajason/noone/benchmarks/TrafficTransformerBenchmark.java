@@ -0,0 +1,54 @@
+package com.reajason.noone.benchmarks;
+
+import com.reajason.noone.core.transform.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One message through {@link TrafficTransformer} for every {@link TransformationSpec} combination, in both
+ * directions. Narrow the matrix with {@code -Pjmh.includes} or JMH's {@code -p} when only one axis matters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrafficTransformerBenchmark {
+
+    private static final String PASSWORD = "benchmark-secret";
+
+    @Param({"NONE", "GZIP", "DEFLATE", "LZ4"})
+    public CompressionAlgorithm compression;
+
+    @Param({"NONE", "XOR", "AES", "TRIPLE_DES"})
+    public EncryptionAlgorithm encryption;
+
+    @Param({"NONE", "BASE64", "HEX", "BIG_INTEGER"})
+    public EncodingAlgorithm encoding;
+
+    @Param({"1024", "65536"})
+    public int payloadSize;
+
+    private TransformationSpec spec;
+    private byte[] payload;
+    private byte[] transformed;
+
+    @Setup
+    public void setUp() {
+        spec = new TransformationSpec(compression, encryption, encoding);
+        payload = BenchmarkData.payload(payloadSize);
+        transformed = TrafficTransformer.outbound(payload, spec, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] outbound() {
+        return TrafficTransformer.outbound(payload, spec, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] inbound() {
+        return TrafficTransformer.inbound(transformed, spec, PASSWORD);
+    }
+}
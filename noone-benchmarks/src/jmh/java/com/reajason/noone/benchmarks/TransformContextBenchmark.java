@@ -0,0 +1,53 @@
+package com.reajason.noone.benchmarks;
+
+import com.reajason.noone.core.transform.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares one request/response round trip through {@link TrafficTransformer}, which derives the key and creates
+ * the cipher per message, against a reused {@link TransformContext}.
+ * <p>
+ * Run with {@code ./gradlew :noone-benchmarks:jmh -Pjmh.includes=TransformContextBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformContextBenchmark {
+
+    private static final String PASSWORD = "benchmark-secret";
+
+    @Param({"AES", "TRIPLE_DES"})
+    public EncryptionAlgorithm encryption;
+
+    @Param({"1024", "65536", "4194304"})
+    public int payloadSize;
+
+    private TransformationSpec spec;
+    private TransformContext context;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        spec = new TransformationSpec(CompressionAlgorithm.NONE, encryption, EncodingAlgorithm.NONE);
+        context = TransformContext.of(new TransformConfig(PASSWORD, spec, spec, null, null, null, null, null));
+        payload = new byte[payloadSize];
+        new Random(42).nextBytes(payload);
+    }
+
+    @Benchmark
+    public byte[] trafficTransformer() {
+        byte[] outbound = TrafficTransformer.outbound(payload, spec, PASSWORD);
+        return TrafficTransformer.inbound(outbound, spec, PASSWORD);
+    }
+
+    @Benchmark
+    public byte[] transformContext() {
+        return context.inbound(context.outbound(payload));
+    }
+}
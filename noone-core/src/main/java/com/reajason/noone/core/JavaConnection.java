@@ -10,6 +10,7 @@ import com.reajason.noone.core.adaptor.ReactorAdaptor;
 import com.reajason.noone.core.adaptor.ServletAdaptor;
 import com.reajason.noone.core.client.Client;
 import com.reajason.noone.core.profile.Profile;
+import com.reajason.noone.core.transform.TransformContext;
 import lombok.SneakyThrows;
 import net.bytebuddy.ByteBuddy;
 import net.bytebuddy.dynamic.DynamicType;
@@ -36,6 +37,15 @@ public class JavaConnection extends ShellConnection {
         super(coreClient, coreProfile, loaderClient, loaderProfile, shellType);
     }
 
+    public JavaConnection(Client coreClient, Profile coreProfile, TransformContext coreTransform) {
+        super(coreClient, coreProfile, coreTransform);
+    }
+
+    public JavaConnection(Client coreClient, Profile coreProfile, TransformContext coreTransform,
+                          Client loaderClient, TransformContext loaderTransform, String shellType) {
+        super(coreClient, coreProfile, coreTransform, loaderClient, loaderTransform, shellType);
+    }
+
     @Override
     public void fillLoadPluginRequestMaps(String pluginName, byte[] pluginCodeBytes, Map<String, Object> requestMap) {
         String className = new ClassReader(pluginCodeBytes).getClassName().replace("/", ".");
@@ -2,6 +2,7 @@ package com.reajason.noone.core;
 
 import com.reajason.noone.core.client.Client;
 import com.reajason.noone.core.profile.Profile;
+import com.reajason.noone.core.transform.TransformContext;
 
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
@@ -17,6 +18,15 @@ public class NodeJsConnection extends ShellConnection {
         super(coreClient, coreProfile, loaderClient, loaderProfile, shellType);
     }
 
+    public NodeJsConnection(Client coreClient, Profile coreProfile, TransformContext coreTransform) {
+        super(coreClient, coreProfile, coreTransform);
+    }
+
+    public NodeJsConnection(Client coreClient, Profile coreProfile, TransformContext coreTransform,
+                            Client loaderClient, TransformContext loaderTransform, String shellType) {
+        super(coreClient, coreProfile, coreTransform, loaderClient, loaderTransform, shellType);
+    }
+
     @Override
     protected byte[] getCoreBytes(String shellType, Profile loaderProfile) {
         return new byte[0];
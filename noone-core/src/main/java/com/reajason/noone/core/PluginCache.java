@@ -1,14 +1,22 @@
 package com.reajason.noone.core;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
-
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The plugins a shell reports as loaded, with their versions (which may be {@code null}).
+ * <p>
+ * Requests on the same shell run concurrently, so reads see an immutable snapshot and the rare writes replace it
+ * atomically.
+ */
 public class PluginCache {
-    private final Map<String, String> entries = new LinkedHashMap<>();
-    private boolean initialized;
+    private final AtomicReference<Map<String, String>> entries = new AtomicReference<>(Collections.emptyMap());
+    private volatile boolean initialized;
 
     public boolean needLoad(String pluginId) {
-        return !entries.containsKey(pluginId);
+        return !entries.get().containsKey(pluginId);
     }
 
     public boolean isOutdated(String pluginId, String serverVersion) {
@@ -20,20 +28,20 @@ public class PluginCache {
     }
 
     public String getVersion(String pluginId) {
-        if (!entries.containsKey(pluginId)) {
-            return null;
-        }
-        return entries.get(pluginId);
+        return entries.get().get(pluginId);
     }
 
     public void put(String pluginId, String version) {
-        entries.put(pluginId, version);
+        entries.updateAndGet(current -> {
+            Map<String, String> next = new LinkedHashMap<>(current);
+            next.put(pluginId, version);
+            return Collections.unmodifiableMap(next);
+        });
         initialized = true;
     }
 
     public void initialize(Map<String, String> snapshot) {
-        entries.clear();
-        entries.putAll(snapshot);
+        entries.set(Collections.unmodifiableMap(new LinkedHashMap<>(snapshot)));
         initialized = true;
     }
 
@@ -0,0 +1,33 @@
+package com.reajason.noone.core;
+
+import java.util.Map;
+
+/**
+ * One plugin load or run in a {@link ShellConnection#runBatch batch}.
+ *
+ * @param action       {@link Constants#ACTION_LOAD} or {@link Constants#ACTION_RUN}
+ * @param pluginName   the plugin to load or run
+ * @param version      the version being loaded; unused by runs
+ * @param pluginBytes  the plugin payload being loaded; unused by runs
+ * @param refresh      whether a load replaces a plugin already on the shell
+ * @param args         the arguments of a run; unused by loads
+ */
+public record PluginCall(String action, String pluginName, String version, byte[] pluginBytes, boolean refresh,
+                         Map<String, Object> args) {
+
+    public static PluginCall load(String pluginName, String version, byte[] pluginBytes) {
+        return new PluginCall(Constants.ACTION_LOAD, pluginName, version, pluginBytes, false, null);
+    }
+
+    public static PluginCall refresh(String pluginName, String version, byte[] pluginBytes) {
+        return new PluginCall(Constants.ACTION_LOAD, pluginName, version, pluginBytes, true, null);
+    }
+
+    public static PluginCall run(String pluginName, Map<String, Object> args) {
+        return new PluginCall(Constants.ACTION_RUN, pluginName, null, null, false, args);
+    }
+
+    public boolean isLoad() {
+        return Constants.ACTION_LOAD.equals(action);
+    }
+}
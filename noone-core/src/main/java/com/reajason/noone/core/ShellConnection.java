@@ -13,31 +13,58 @@ import com.reajason.noone.core.profile.Profile;
 import com.reajason.noone.core.profile.config.HttpBodyTemplateEngine;
 import com.reajason.noone.core.profile.config.HttpRequestBodyType;
 import com.reajason.noone.core.profile.config.HttpResponseBodyType;
-import com.reajason.noone.core.transform.TrafficTransformer;
 import com.reajason.noone.core.transform.TransformConfig;
+import com.reajason.noone.core.transform.TransformContext;
+import lombok.AccessLevel;
 import lombok.Data;
-
+import lombok.Getter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Data
 public abstract class ShellConnection {
     protected Client coreClient;
-    protected TransformConfig coreTransform;
+    protected TransformContext coreTransform;
     protected Client loaderClient;
-    protected TransformConfig loaderTransform;
+    protected TransformContext loaderTransform;
     protected String shellType;
     protected Profile coreProfile;
-    private boolean coreInit = false;
+    private volatile boolean coreInit = false;
+    private volatile int codecVersion = TlvCodec.VERSION_LEGACY;
+    private volatile boolean batchSupported = false;
 
     private final PluginCache pluginCache = new PluginCache();
+    @Getter(AccessLevel.NONE)
+    private final Map<String, CompletableFuture<Void>> pluginLoads = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger inFlight = new AtomicInteger();
     protected PluginNormalizerRegistry normalizerRegistry;
 
     public ShellConnection(Client coreClient, Profile coreProfile) {
+        this(coreClient, coreProfile, TransformContext.of(TransformConfig.fromProfile(coreProfile)));
+    }
+
+    /**
+     * Uses an already built transform for the profile; a {@link TransformContext} is thread-safe, so connections
+     * of the same profile may share one.
+     */
+    public ShellConnection(Client coreClient, Profile coreProfile, TransformContext coreTransform) {
         this.coreClient = coreClient;
         this.coreProfile = coreProfile;
-        this.coreTransform = TransformConfig.fromProfile(coreProfile);
+        this.coreTransform = coreTransform;
         this.normalizerRegistry = new PluginNormalizerRegistry();
         this.normalizerRegistry.register("command-execute", new CommandExecuteNormalizer());
         this.normalizerRegistry.register("file-manager", new FileManagerNormalizer());
@@ -45,9 +72,15 @@ public abstract class ShellConnection {
 
     public ShellConnection(Client coreClient, Profile coreProfile,
                            Client loaderClient, Profile loaderProfile, String shellType) {
-        this(coreClient, coreProfile);
+        this(coreClient, coreProfile, TransformContext.of(TransformConfig.fromProfile(coreProfile)),
+                loaderClient, TransformContext.of(TransformConfig.fromProfile(loaderProfile)), shellType);
+    }
+
+    public ShellConnection(Client coreClient, Profile coreProfile, TransformContext coreTransform,
+                           Client loaderClient, TransformContext loaderTransform, String shellType) {
+        this(coreClient, coreProfile, coreTransform);
         this.loaderClient = loaderClient;
-        this.loaderTransform = TransformConfig.fromProfile(loaderProfile);
+        this.loaderTransform = loaderTransform;
         this.shellType = shellType;
     }
 
@@ -60,29 +93,81 @@ public abstract class ShellConnection {
         }
     }
 
-    protected byte[] transformAndSend(Client client, TransformConfig tc, byte[] payload) {
-        byte[] outbound;
+    /**
+     * Requests sent and not yet answered, so a pool can tell a connection still in use from an idle one.
+     */
+    public int inFlightRequests() {
+        return inFlight.get();
+    }
+
+    protected byte[] transformAndSend(Client client, TransformContext context, byte[] payload) {
+        byte[] encoded = encodeOutbound(context, payload);
+
+        byte[] response;
+        inFlight.incrementAndGet();
         try {
-            outbound = TrafficTransformer.outbound(payload, tc.requestSpec(), tc.password());
+            response = client.send(encoded);
         } catch (RuntimeException e) {
-            throw new RequestSerializeException("Failed to transform outbound payload", e);
+            throw sendFailure(e);
+        } finally {
+            inFlight.decrementAndGet();
         }
+        return decodeInbound(context, response);
+    }
 
+    /**
+     * Like {@link #transformAndSend} through {@link Client#sendAsync}, so no thread waits while the shell answers.
+     * Cancelling the returned future cancels the send.
+     */
+    protected CompletableFuture<byte[]> transformAndSendAsync(Client client, TransformContext context, byte[] payload) {
         byte[] encoded;
         try {
-            encoded = encodePayload(tc, outbound);
+            encoded = encodeOutbound(context, payload);
         } catch (RuntimeException e) {
-            throw new RequestSerializeException("Failed to encode request payload", e);
+            return CompletableFuture.failedFuture(e);
         }
 
-        byte[] response;
+        CompletableFuture<byte[]> sent;
+        inFlight.incrementAndGet();
         try {
-            response = client.send(encoded);
+            sent = client.sendAsync(encoded);
         } catch (RuntimeException e) {
-            if (e instanceof ShellCommunicationException) throw e;
-            throw new ShellRequestException("Failed to send request", false, e);
+            inFlight.decrementAndGet();
+            return CompletableFuture.failedFuture(sendFailure(e));
         }
+        sent.whenComplete((response, failure) -> inFlight.decrementAndGet());
+        return Futures.cancelling(sent.handle((response, failure) -> {
+            if (failure != null) {
+                throw sendFailure(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+            }
+            return decodeInbound(context, response);
+        }), sent);
+    }
+
+    private byte[] encodeOutbound(TransformContext context, byte[] payload) {
+        TransformConfig tc = context.config();
+        byte[] outbound;
+        try {
+            outbound = context.outbound(payload);
+        } catch (RuntimeException e) {
+            throw new RequestSerializeException("Failed to transform outbound payload", e);
+        }
+
+        try {
+            return encodePayload(tc, outbound);
+        } catch (RuntimeException e) {
+            throw new RequestSerializeException("Failed to encode request payload", e);
+        }
+    }
+
+    private RuntimeException sendFailure(Throwable e) {
+        if (e instanceof ShellCommunicationException) return (ShellCommunicationException) e;
+        return new ShellRequestException("Failed to send request", false, e);
+    }
 
+    private byte[] decodeInbound(TransformContext context, byte[] response) {
+        TransformConfig tc = context.config();
         if (response == null || response.length == 0) {
             throw new ResponseDecodeException("Response payload is empty");
         }
@@ -96,7 +181,7 @@ public abstract class ShellConnection {
         }
 
         try {
-            byte[] inbound = TrafficTransformer.inbound(extracted, tc.responseSpec(), tc.password());
+            byte[] inbound = context.inbound(extracted);
             if (inbound == null) {
                 throw new ResponseDecodeException("Decoded response payload is null");
             }
@@ -128,24 +213,43 @@ public abstract class ShellConnection {
     }
 
     protected Map<String, Object> sendRequest(Map<String, Object> requestMap) {
+        return deserialize(exchange(requestMap));
+    }
+
+    protected CompletableFuture<Map<String, Object>> sendRequestAsync(Map<String, Object> requestMap) {
         byte[] bytes;
         try {
-            bytes = TlvCodec.serialize(requestMap);
+            bytes = serialize(requestMap);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<byte[]> sent = transformAndSendAsync(coreClient, coreTransform, bytes);
+        return Futures.cancelling(sent.thenApply(this::deserialize), sent);
+    }
+
+    /**
+     * Sends a request and returns the core's TLV-encoded response as it arrived.
+     */
+    private byte[] exchange(Map<String, Object> requestMap) {
+        return transformAndSend(coreClient, coreTransform, serialize(requestMap));
+    }
+
+    private byte[] serialize(Map<String, Object> requestMap) {
+        try {
+            return TlvCodec.serialize(requestMap, codecVersion);
         } catch (Exception e) {
             if (e instanceof ShellCommunicationException) throw (ShellCommunicationException) e;
             throw new RequestSerializeException("Failed to serialize shell request", e);
         }
+    }
 
-        byte[] result = transformAndSend(coreClient, coreTransform, bytes);
-
-        Map<String, Object> response;
+    private Map<String, Object> deserialize(byte[] result) {
         try {
-            response = TlvCodec.deserialize(result);
+            return TlvCodec.deserialize(result);
         } catch (Exception e) {
             if (e instanceof ShellCommunicationException) throw (ShellCommunicationException) e;
             throw new ResponseDecodeException("Failed to deserialize shell response", e);
         }
-        return response;
     }
 
     public boolean init() {
@@ -175,6 +279,9 @@ public abstract class ShellConnection {
         int code = requireResponseCode(response, Constants.ACTION_STATUS);
         if (code == Constants.SUCCESS) {
             pluginCache.initialize(toPluginCacheMap(response.get(Constants.PLUGIN_CACHES)));
+            negotiateCodecVersion(response.get(Constants.CODEC_VERSION));
+            batchSupported = response.get(Constants.ACTIONS) instanceof Collection<?> actions
+                    && actions.contains(Constants.ACTION_BATCH);
             return true;
         }
         throw new ResponseBusinessException("Shell status request failed: " + errorMessage(response));
@@ -196,6 +303,17 @@ public abstract class ShellConnection {
         if (!refresh && !pluginCache.needLoad(pluginName)) {
             return;
         }
+        Map<String, Object> response = sendRequest(loadRequest(pluginName, version, pluginCodeBytes, refresh));
+        int code = requireResponseCode(response, Constants.ACTION_LOAD);
+        if (code == Constants.SUCCESS) {
+            pluginCache.put(pluginName, version);
+            return;
+        }
+        throw new ResponseBusinessException("Load plugin failed: " + errorMessage(response));
+    }
+
+    private Map<String, Object> loadRequest(String pluginName, String version, byte[] pluginCodeBytes,
+                                            boolean refresh) {
         Map<String, Object> requestMap = new HashMap<>();
         requestMap.put(Constants.ACTION, Constants.ACTION_LOAD);
         requestMap.put(Constants.PLUGIN, pluginName);
@@ -204,13 +322,15 @@ public abstract class ShellConnection {
         }
         requestMap.put(Constants.REFRESH, String.valueOf(refresh));
         fillLoadPluginRequestMaps(pluginName, pluginCodeBytes, requestMap);
-        Map<String, Object> response = sendRequest(requestMap);
-        int code = requireResponseCode(response, Constants.ACTION_LOAD);
-        if (code == Constants.SUCCESS) {
-            pluginCache.put(pluginName, version);
-            return;
-        }
-        throw new ResponseBusinessException("Load plugin failed: " + errorMessage(response));
+        return requestMap;
+    }
+
+    /**
+     * Switches to the newest codec both sides understand; cores that do not report a version stay on the legacy one.
+     */
+    private void negotiateCodecVersion(Object reported) {
+        int version = reported instanceof Number number ? number.intValue() : TlvCodec.VERSION_LEGACY;
+        codecVersion = Math.max(TlvCodec.VERSION_LEGACY, Math.min(version, TlvCodec.CURRENT_VERSION));
     }
 
     private int requireResponseCode(Map<String, Object> response, String action) {
@@ -253,6 +373,36 @@ public abstract class ShellConnection {
         return caches;
     }
 
+    /**
+     * Runs {@code load} for one plugin version unless the same version is already being loaded on this connection;
+     * then it waits for that load and shares its outcome instead of uploading the plugin a second time.
+     */
+    public void loadPluginOnce(String pluginName, String version, Runnable load) {
+        String key = pluginName + "@" + version;
+        CompletableFuture<Void> flight = new CompletableFuture<>();
+        CompletableFuture<Void> running = pluginLoads.putIfAbsent(key, flight);
+        if (running != null) {
+            try {
+                running.join();
+                return;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            load.run();
+            flight.complete(null);
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            pluginLoads.remove(key, flight);
+        }
+    }
+
     public boolean needLoadPlugin(String pluginId) {
         return pluginCache.needLoad(pluginId);
     }
@@ -281,14 +431,174 @@ public abstract class ShellConnection {
             }
         }
 
+        Map<String, Object> response = sendRunRequest(pluginName, pluginArgs);
+        return normalizer.map(n -> n.normalizeResponse(response)).orElse(response);
+    }
+
+    /**
+     * Runs a plugin like {@link #runPlugin} without holding the calling thread while the shell answers, when the
+     * core client sends asynchronously. Cancelling the returned future abandons the request.
+     */
+    public CompletableFuture<Map<String, Object>> runPluginAsync(String pluginName, Map<String, Object> args) {
+        Map<String, Object> pluginArgs = args;
+        var normalizer = normalizerRegistry.find(pluginName);
+        if (normalizer.isPresent()) {
+            pluginArgs = normalizer.get().normalizeArgs(args);
+            if (isLocalFailure(pluginArgs)) {
+                return CompletableFuture.completedFuture(pluginArgs);
+            }
+        }
+
+        CompletableFuture<Map<String, Object>> response = sendRequestAsync(runRequest(pluginName, pluginArgs));
+        if (normalizer.isEmpty()) {
+            return response;
+        }
+        return Futures.cancelling(response.thenApply(normalizer.get()::normalizeResponse), response);
+    }
+
+    /**
+     * Runs a plugin without normalizing its response, so binary values stay {@code byte[]}. For callers that stream
+     * those bytes on rather than serialize the response as JSON.
+     */
+    public Map<String, Object> runPluginRaw(String pluginName, Map<String, Object> args) {
+        Map<String, Object> pluginArgs = args;
+        var normalizer = normalizerRegistry.find(pluginName);
+        if (normalizer.isPresent()) {
+            pluginArgs = normalizer.get().normalizeArgs(args);
+            if (isLocalFailure(pluginArgs)) {
+                return pluginArgs;
+            }
+        }
+        return sendRunRequest(pluginName, pluginArgs);
+    }
+
+    /**
+     * Runs a plugin and writes the core's response to {@code out} as CBOR, transcoded straight from the TLV it
+     * arrived in. The response is not normalized, so binary values stay byte strings. Nothing is written to
+     * {@code out} unless the whole response decodes.
+     *
+     * @return the response's top-level scalar entries, such as {@link Constants#CODE} and {@link Constants#ERROR}
+     */
+    public Map<String, Object> runPluginCbor(String pluginName, Map<String, Object> args, OutputStream out)
+            throws IOException {
+        Map<String, Object> pluginArgs = args;
+        var normalizer = normalizerRegistry.find(pluginName);
+        if (normalizer.isPresent()) {
+            pluginArgs = normalizer.get().normalizeArgs(args);
+            if (isLocalFailure(pluginArgs)) {
+                new CborWriter(out).writeValue(pluginArgs);
+                return pluginArgs;
+            }
+        }
+        Map<String, Object> requestMap = runRequest(pluginName, pluginArgs);
+        byte[] result = exchange(requestMap);
+        ByteArrayOutputStream cbor = new ByteArrayOutputStream(result.length + 16);
+        Map<String, Object> scalars;
+        try {
+            scalars = TlvCborTranscoder.transcode(result, cbor);
+        } catch (Exception e) {
+            throw new ResponseDecodeException("Failed to deserialize shell response", e);
+        }
+        cbor.writeTo(out);
+        return scalars;
+    }
+
+    /**
+     * Sends several plugin loads and runs in one request and returns their responses in the same order. With
+     * {@code parallel} the core may run them concurrently, so only calls that do not depend on each other belong
+     * together; otherwise they run in order, and a run may use a plugin loaded earlier in the batch.
+     * <p>
+     * Each response is what the call would have returned on its own: runs are normalized like {@link #runPlugin},
+     * and a failed call fails only its own entry. Loads of plugins already on the shell are answered locally. Cores
+     * that do not report the {@code batch} action get the calls one request at a time, in order.
+     */
+    public List<Map<String, Object>> runBatch(List<PluginCall> calls, boolean parallel) {
+        List<Map<String, Object>> results = new ArrayList<>(Collections.nCopies(calls.size(), null));
+        List<Map<String, Object>> requests = new ArrayList<>();
+        List<Integer> sent = new ArrayList<>();
+        for (int i = 0; i < calls.size(); i++) {
+            PluginCall call = calls.get(i);
+            if (call.isLoad()) {
+                if (!call.refresh() && !pluginCache.needLoad(call.pluginName())) {
+                    results.set(i, Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, true));
+                    continue;
+                }
+                requests.add(loadRequest(call.pluginName(), call.version(), call.pluginBytes(), call.refresh()));
+            } else {
+                Map<String, Object> pluginArgs = call.args();
+                var normalizer = normalizerRegistry.find(call.pluginName());
+                if (normalizer.isPresent()) {
+                    pluginArgs = normalizer.get().normalizeArgs(pluginArgs);
+                    if (isLocalFailure(pluginArgs)) {
+                        results.set(i, pluginArgs);
+                        continue;
+                    }
+                }
+                requests.add(runRequest(call.pluginName(), pluginArgs));
+            }
+            sent.add(i);
+        }
+
+        List<Map<String, Object>> responses = batchSupported && requests.size() > 1
+                ? sendBatchRequest(requests, parallel)
+                : requests.stream().map(this::sendRequest).toList();
+        for (int j = 0; j < sent.size(); j++) {
+            int i = sent.get(j);
+            PluginCall call = calls.get(i);
+            Map<String, Object> response = responses.get(j);
+            if (call.isLoad()) {
+                if (requireResponseCode(response, Constants.ACTION_LOAD) == Constants.SUCCESS) {
+                    pluginCache.put(call.pluginName(), call.version());
+                }
+                results.set(i, response);
+            } else {
+                results.set(i, normalizerRegistry.find(call.pluginName())
+                        .map(n -> n.normalizeResponse(response))
+                        .orElse(response));
+            }
+        }
+        return results;
+    }
+
+    public List<Map<String, Object>> runBatch(List<PluginCall> calls) {
+        return runBatch(calls, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> sendBatchRequest(List<Map<String, Object>> requests, boolean parallel) {
+        Map<String, Object> requestMap = new HashMap<>();
+        requestMap.put(Constants.ACTION, Constants.ACTION_BATCH);
+        requestMap.put(Constants.CALLS, requests);
+        requestMap.put(Constants.PARALLEL, parallel);
+        Map<String, Object> response = sendRequest(requestMap);
+        if (requireResponseCode(response, Constants.ACTION_BATCH) != Constants.SUCCESS) {
+            throw new ResponseBusinessException("Batch request failed: " + errorMessage(response));
+        }
+        if (!(response.get(Constants.DATA) instanceof List<?> data) || data.size() != requests.size()) {
+            throw new ResponseDecodeException("Batch response does not hold one result per call");
+        }
+        List<Map<String, Object>> responses = new ArrayList<>(data.size());
+        for (Object item : data) {
+            if (!(item instanceof Map<?, ?> result)) {
+                throw new ResponseDecodeException("Batch response holds a result that is not a map");
+            }
+            responses.add((Map<String, Object>) result);
+        }
+        return responses;
+    }
+
+    private Map<String, Object> sendRunRequest(String pluginName, Map<String, Object> pluginArgs) {
+        return sendRequest(runRequest(pluginName, pluginArgs));
+    }
+
+    private static Map<String, Object> runRequest(String pluginName, Map<String, Object> pluginArgs) {
         Map<String, Object> requestMap = new HashMap<>();
         requestMap.put(Constants.ACTION, Constants.ACTION_RUN);
         requestMap.put(Constants.PLUGIN, pluginName);
         if (pluginArgs != null) {
             requestMap.put(Constants.ARGS, pluginArgs);
         }
-        Map<String, Object> response = sendRequest(requestMap);
-        return normalizer.map(n -> n.normalizeResponse(response)).orElse(response);
+        return requestMap;
     }
 
     private boolean isLocalFailure(Map<String, Object> response) {
@@ -0,0 +1,257 @@
+package com.reajason.noone.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.reajason.noone.core.TlvCodec.*;
+
+/**
+ * Rewrites a {@link TlvCodec} message as CBOR while reading it, without building the {@code Map} that
+ * {@link TlvCodec#deserialize(byte[])} would. In {@link TlvCodec#VERSION_2} input, strings and binary values are
+ * copied to the output as they are, since both formats keep them as length-prefixed UTF-8 and raw bytes.
+ * {@code SET} and {@code OBJECT_ARRAY} values become CBOR arrays.
+ *
+ * @author ReaJason
+ */
+public final class TlvCborTranscoder {
+
+    private static final Object CONTAINER = new Object();
+
+    private TlvCborTranscoder() {
+    }
+
+    /**
+     * Writes the TLV map in {@code data} to {@code out} as a CBOR map.
+     *
+     * @return the top-level entries whose values are scalars, such as {@link Constants#CODE} and
+     * {@link Constants#ERROR}, so a caller can tell the outcome without decoding the rest
+     */
+    public static Map<String, Object> transcode(byte[] data, OutputStream out) throws IOException {
+        Source source;
+        if (data != null && data.length > 0 && data[0] == ROOT_V2) {
+            source = new V2Source(ByteBuffer.wrap(data, 1, data.length - 1));
+        } else {
+            LegacySource legacy = new LegacySource(new DataInputStream(new ByteArrayInputStream(
+                    data != null ? data : new byte[0])));
+            if (legacy.readByte() != MAP) {
+                throw new IOException("Root object is not a Map.");
+            }
+            source = legacy;
+        }
+
+        CborWriter writer = new CborWriter(out);
+        Map<String, Object> scalars = new LinkedHashMap<>();
+        int size = source.readLength();
+        writer.writeMapHeader(size);
+        for (int i = 0; i < size; i++) {
+            String key = source.readText();
+            writer.writeText(key);
+            Object value = copyValue(source, writer);
+            if (value != CONTAINER) {
+                scalars.put(key, value);
+            }
+        }
+        return scalars;
+    }
+
+    /**
+     * @return the value when it is a scalar other than a byte array, otherwise {@link #CONTAINER}
+     */
+    private static Object copyValue(Source source, CborWriter writer) throws IOException {
+        byte type = source.readByte();
+        switch (type) {
+            case NULL:
+                writer.writeNull();
+                return null;
+            case STRING: {
+                String text = source.readText();
+                writer.writeText(text);
+                return text;
+            }
+            case INTEGER: {
+                int value = source.readInt();
+                writer.writeLong(value);
+                return value;
+            }
+            case LONG: {
+                long value = source.readLong();
+                writer.writeLong(value);
+                return value;
+            }
+            case DOUBLE: {
+                double value = Double.longBitsToDouble(source.readLong());
+                writer.writeDouble(value);
+                return value;
+            }
+            case BOOLEAN: {
+                boolean value = source.readByte() != 0;
+                writer.writeBoolean(value);
+                return value;
+            }
+            case BYTE_ARRAY:
+                source.copyBytes(writer, source.readLength());
+                return CONTAINER;
+            case SET:
+            case LIST:
+            case OBJECT_ARRAY: {
+                int size = source.readLength();
+                writer.writeArrayHeader(size);
+                for (int i = 0; i < size; i++) {
+                    copyValue(source, writer);
+                }
+                return CONTAINER;
+            }
+            case MAP: {
+                int size = source.readLength();
+                writer.writeMapHeader(size);
+                for (int i = 0; i < size; i++) {
+                    source.copyText(writer);
+                    copyValue(source, writer);
+                }
+                return CONTAINER;
+            }
+            default:
+                throw new IOException("Unknown data type found in stream: " + type);
+        }
+    }
+
+    private interface Source {
+        byte readByte() throws IOException;
+
+        int readLength() throws IOException;
+
+        int readInt() throws IOException;
+
+        long readLong() throws IOException;
+
+        String readText() throws IOException;
+
+        void copyText(CborWriter writer) throws IOException;
+
+        void copyBytes(CborWriter writer, int length) throws IOException;
+    }
+
+    private static final class V2Source implements Source {
+        private final ByteBuffer buf;
+
+        V2Source(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        @Override
+        public byte readByte() throws IOException {
+            require(1);
+            return buf.get();
+        }
+
+        @Override
+        public int readLength() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        throw new IOException("Negative length in stream");
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in stream");
+        }
+
+        @Override
+        public int readInt() throws IOException {
+            require(4);
+            return buf.getInt();
+        }
+
+        @Override
+        public long readLong() throws IOException {
+            require(8);
+            return buf.getLong();
+        }
+
+        @Override
+        public String readText() throws IOException {
+            int length = readLength();
+            require(length);
+            String value = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+            buf.position(buf.position() + length);
+            return value;
+        }
+
+        @Override
+        public void copyText(CborWriter writer) throws IOException {
+            int length = readLength();
+            require(length);
+            writer.writeText(buf.array(), buf.arrayOffset() + buf.position(), length);
+            buf.position(buf.position() + length);
+        }
+
+        @Override
+        public void copyBytes(CborWriter writer, int length) throws IOException {
+            require(length);
+            writer.writeBytes(buf.array(), buf.arrayOffset() + buf.position(), length);
+            buf.position(buf.position() + length);
+        }
+
+        private void require(int length) throws IOException {
+            if (buf.remaining() < length) {
+                throw new EOFException("Unexpected end of stream, need " + length + " bytes");
+            }
+        }
+    }
+
+    private static final class LegacySource implements Source {
+        private final DataInputStream in;
+
+        LegacySource(DataInputStream in) {
+            this.in = in;
+        }
+
+        @Override
+        public byte readByte() throws IOException {
+            return in.readByte();
+        }
+
+        @Override
+        public int readLength() throws IOException {
+            return in.readInt();
+        }
+
+        @Override
+        public int readInt() throws IOException {
+            return in.readInt();
+        }
+
+        @Override
+        public long readLong() throws IOException {
+            return in.readLong();
+        }
+
+        @Override
+        public String readText() throws IOException {
+            return in.readUTF();
+        }
+
+        @Override
+        public void copyText(CborWriter writer) throws IOException {
+            writer.writeText(in.readUTF());
+        }
+
+        @Override
+        public void copyBytes(CborWriter writer, int length) throws IOException {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            writer.writeBytes(bytes, 0, length);
+        }
+    }
+}
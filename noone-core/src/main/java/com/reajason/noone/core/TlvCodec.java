@@ -3,11 +3,19 @@ package com.reajason.noone.core;
 import lombok.SneakyThrows;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
  * Shared TLV (Type-Length-Value) codec for serializing/deserializing maps
  * used by both {@link JavaConnection} and {@link NodeJsConnection}.
+ * <p>
+ * Two wire versions exist. {@link #VERSION_LEGACY} uses fixed 4-byte lengths and {@code writeUTF} strings, which
+ * are limited to 65535 bytes. {@link #VERSION_2} starts with {@link #ROOT_V2}, uses unsigned varint lengths and
+ * length-prefixed UTF-8 strings, and is written into a buffer sized up front. Readers detect the version from the
+ * first byte. Cores advertise the highest version they read through {@link Constants#CODEC_VERSION} in the
+ * {@code status} response and answer in the version of the request.
  *
  * @author ReaJason
  * @since 2025/12/13
@@ -25,6 +33,11 @@ public final class TlvCodec {
     static final byte OBJECT_ARRAY = 0x08;
     static final byte SET = 0x09;
     static final byte MAP = 0x10;
+    static final byte ROOT_V2 = 0x20;
+
+    public static final int VERSION_LEGACY = 1;
+    public static final int VERSION_2 = 2;
+    public static final int CURRENT_VERSION = VERSION_2;
 
     private TlvCodec() {
     }
@@ -37,8 +50,52 @@ public final class TlvCodec {
         return baos.toByteArray();
     }
 
+    /**
+     * Serializes with the given wire version; anything below {@link #VERSION_2} uses the legacy format.
+     */
+    public static byte[] serialize(Map<String, Object> map, int version) {
+        if (version < VERSION_2) {
+            return serialize(map);
+        }
+        byte[] out = new byte[1 + mapBodySize(map)];
+        out[0] = ROOT_V2;
+        Writer writer = new Writer(out, 1);
+        writer.writeMapBody(map);
+        if (writer.pos != out.length) {
+            throw new IllegalStateException("Map was modified during serialization");
+        }
+        return out;
+    }
+
+    /**
+     * Deserializes either wire version. {@code BYTE_ARRAY} values are returned as {@code byte[]}.
+     */
     @SneakyThrows
     public static Map<String, Object> deserialize(byte[] data) {
+        if (data != null && data.length > 0 && data[0] == ROOT_V2) {
+            return new Reader(ByteBuffer.wrap(data, 1, data.length - 1), false).readMapBody();
+        }
+        return deserializeLegacy(data);
+    }
+
+    /**
+     * Deserializes without copying binary values: in {@link #VERSION_2} input every {@code BYTE_ARRAY} value is
+     * returned as a read-only {@link ByteBuffer} slice of {@code data}, so the buffer must not be reused while the
+     * result is in use. Legacy input is copied and decoded as by {@link #deserialize(byte[])}.
+     */
+    @SneakyThrows
+    public static Map<String, Object> deserialize(ByteBuffer data) {
+        ByteBuffer buffer = data.asReadOnlyBuffer();
+        if (buffer.hasRemaining() && buffer.get(buffer.position()) == ROOT_V2) {
+            buffer.position(buffer.position() + 1);
+            return new Reader(buffer, true).readMapBody();
+        }
+        byte[] copy = new byte[buffer.remaining()];
+        buffer.get(copy);
+        return deserializeLegacy(copy);
+    }
+
+    private static Map<String, Object> deserializeLegacy(byte[] data) throws IOException {
         ByteArrayInputStream bais = new ByteArrayInputStream(data);
         DataInputStream dis = new DataInputStream(bais);
         byte type = dis.readByte();
@@ -173,4 +230,334 @@ public final class TlvCodec {
                 throw new IOException("Unknown data type found in stream: " + type);
         }
     }
+
+    static int mapBodySize(Map<String, Object> map) {
+        if (map == null) {
+            return varintSize(0);
+        }
+        int size = varintSize(map.size());
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            size += stringSize(entry.getKey()) + objectSize(entry.getValue());
+        }
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static int objectSize(Object obj) {
+        if (obj == null) {
+            return 1;
+        } else if (obj instanceof String) {
+            return 1 + stringSize((String) obj);
+        } else if (obj instanceof Integer) {
+            return 1 + 4;
+        } else if (obj instanceof Long || obj instanceof Double) {
+            return 1 + 8;
+        } else if (obj instanceof Boolean) {
+            return 1 + 1;
+        } else if (obj instanceof byte[]) {
+            int length = ((byte[]) obj).length;
+            return 1 + varintSize(length) + length;
+        } else if (obj instanceof ByteBuffer) {
+            int length = ((ByteBuffer) obj).remaining();
+            return 1 + varintSize(length) + length;
+        } else if (obj instanceof Set || obj instanceof List) {
+            Collection<?> items = (Collection<?>) obj;
+            int size = 1 + varintSize(items.size());
+            for (Object item : items) {
+                size += objectSize(item);
+            }
+            return size;
+        } else if (obj instanceof Object[]) {
+            Object[] array = (Object[]) obj;
+            int size = 1 + varintSize(array.length);
+            for (Object item : array) {
+                size += objectSize(item);
+            }
+            return size;
+        } else if (obj instanceof Map) {
+            return 1 + mapBodySize((Map<String, Object>) obj);
+        }
+        throw new IllegalArgumentException("Unsupported type for serialization: " + obj.getClass().getName());
+    }
+
+    static int stringSize(String value) {
+        int length = utf8Length(value);
+        return varintSize(length) + length;
+    }
+
+    static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * UTF-8 length matching {@link String#getBytes(java.nio.charset.Charset)}, which writes a lone surrogate as '?'.
+     */
+    static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static final class Writer {
+        private final byte[] buf;
+        private int pos;
+
+        Writer(byte[] buf, int pos) {
+            this.buf = buf;
+            this.pos = pos;
+        }
+
+        void writeMapBody(Map<String, Object> map) {
+            if (map == null) {
+                writeVarint(0);
+                return;
+            }
+            writeVarint(map.size());
+            for (Map.Entry<String, Object> entry : map.entrySet()) {
+                writeString(entry.getKey());
+                writeObject(entry.getValue());
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        void writeObject(Object obj) {
+            if (obj == null) {
+                buf[pos++] = NULL;
+            } else if (obj instanceof String) {
+                buf[pos++] = STRING;
+                writeString((String) obj);
+            } else if (obj instanceof Integer) {
+                buf[pos++] = INTEGER;
+                writeInt((Integer) obj);
+            } else if (obj instanceof Long) {
+                buf[pos++] = LONG;
+                writeLong((Long) obj);
+            } else if (obj instanceof Double) {
+                buf[pos++] = DOUBLE;
+                writeLong(Double.doubleToLongBits((Double) obj));
+            } else if (obj instanceof Boolean) {
+                buf[pos++] = BOOLEAN;
+                buf[pos++] = (byte) ((Boolean) obj ? 1 : 0);
+            } else if (obj instanceof byte[]) {
+                byte[] bytes = (byte[]) obj;
+                buf[pos++] = BYTE_ARRAY;
+                writeVarint(bytes.length);
+                System.arraycopy(bytes, 0, buf, pos, bytes.length);
+                pos += bytes.length;
+            } else if (obj instanceof ByteBuffer) {
+                ByteBuffer bytes = ((ByteBuffer) obj).duplicate();
+                int length = bytes.remaining();
+                buf[pos++] = BYTE_ARRAY;
+                writeVarint(length);
+                bytes.get(buf, pos, length);
+                pos += length;
+            } else if (obj instanceof Set || obj instanceof List) {
+                Collection<?> items = (Collection<?>) obj;
+                buf[pos++] = obj instanceof Set ? SET : LIST;
+                writeVarint(items.size());
+                for (Object item : items) {
+                    writeObject(item);
+                }
+            } else if (obj instanceof Object[]) {
+                Object[] array = (Object[]) obj;
+                buf[pos++] = OBJECT_ARRAY;
+                writeVarint(array.length);
+                for (Object item : array) {
+                    writeObject(item);
+                }
+            } else if (obj instanceof Map) {
+                buf[pos++] = MAP;
+                writeMapBody((Map<String, Object>) obj);
+            } else {
+                throw new IllegalArgumentException("Unsupported type for serialization: " + obj.getClass().getName());
+            }
+        }
+
+        void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            buf[pos++] = (byte) (value >>> 24);
+            buf[pos++] = (byte) (value >>> 16);
+            buf[pos++] = (byte) (value >>> 8);
+            buf[pos++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        void writeString(String value) {
+            writeVarint(utf8Length(value));
+            for (int i = 0, n = value.length(); i < n; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buf[pos++] = (byte) c;
+                } else if (c < 0x800) {
+                    buf[pos++] = (byte) (0xC0 | (c >> 6));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    buf[pos++] = (byte) (0xF0 | (codePoint >> 18));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buf[pos++] = '?';
+                } else {
+                    buf[pos++] = (byte) (0xE0 | (c >> 12));
+                    buf[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buf[pos++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buf;
+        private final boolean sliceBytes;
+
+        Reader(ByteBuffer buf, boolean sliceBytes) {
+            this.buf = buf;
+            this.sliceBytes = sliceBytes;
+        }
+
+        Map<String, Object> readMapBody() throws IOException {
+            int size = readLength();
+            Map<String, Object> map = new HashMap<>(Math.min(size, buf.remaining()));
+            for (int i = 0; i < size; i++) {
+                String key = readString();
+                map.put(key, readObject());
+            }
+            return map;
+        }
+
+        Object readObject() throws IOException {
+            byte type = readByte();
+            switch (type) {
+                case NULL:
+                    return null;
+                case STRING:
+                    return readString();
+                case INTEGER:
+                    require(4);
+                    return buf.getInt();
+                case LONG:
+                    require(8);
+                    return buf.getLong();
+                case DOUBLE:
+                    require(8);
+                    return buf.getDouble();
+                case BOOLEAN:
+                    return readByte() != 0;
+                case BYTE_ARRAY: {
+                    int length = readLength();
+                    require(length);
+                    if (sliceBytes) {
+                        ByteBuffer slice = buf.slice(buf.position(), length);
+                        buf.position(buf.position() + length);
+                        return slice;
+                    }
+                    byte[] bytes = new byte[length];
+                    buf.get(bytes);
+                    return bytes;
+                }
+                case SET: {
+                    int size = readLength();
+                    Set<Object> set = new LinkedHashSet<>(Math.min(size, buf.remaining()));
+                    for (int i = 0; i < size; i++) {
+                        set.add(readObject());
+                    }
+                    return set;
+                }
+                case LIST: {
+                    int size = readLength();
+                    List<Object> list = new ArrayList<>(Math.min(size, buf.remaining()));
+                    for (int i = 0; i < size; i++) {
+                        list.add(readObject());
+                    }
+                    return list;
+                }
+                case OBJECT_ARRAY: {
+                    int length = readLength();
+                    require(length);
+                    Object[] array = new Object[length];
+                    for (int i = 0; i < length; i++) {
+                        array[i] = readObject();
+                    }
+                    return array;
+                }
+                case MAP:
+                    return readMapBody();
+                default:
+                    throw new IOException("Unknown data type found in stream: " + type);
+            }
+        }
+
+        String readString() throws IOException {
+            int length = readLength();
+            require(length);
+            String value;
+            if (buf.hasArray()) {
+                value = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.UTF_8);
+                buf.position(buf.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                buf.get(bytes);
+                value = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+
+        int readLength() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        throw new IOException("Negative length in stream");
+                    }
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in stream");
+        }
+
+        byte readByte() throws IOException {
+            require(1);
+            return buf.get();
+        }
+
+        void require(int length) throws IOException {
+            if (buf.remaining() < length) {
+                throw new EOFException("Unexpected end of stream, need " + length + " bytes");
+            }
+        }
+    }
 }
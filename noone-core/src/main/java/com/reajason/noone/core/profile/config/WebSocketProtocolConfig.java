@@ -29,5 +29,11 @@ public class WebSocketProtocolConfig extends ProtocolConfig {
     private String messageTemplate;
 
     private String responseTemplate;
+
+    /**
+     * Let several requests share one connection. Negotiated per connection, so shells generated before framing
+     * was supported keep working one request at a time.
+     */
+    private boolean multiplex;
 }
 
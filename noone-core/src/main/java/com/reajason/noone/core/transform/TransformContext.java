@@ -0,0 +1,185 @@
+package com.reajason.noone.core.transform;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Precomputed transform state for one {@link TransformConfig}.
+ * <p>
+ * {@link TrafficTransformer} derives the key, builds a {@link SecretKeySpec}, looks up a {@link Cipher} and seeds a
+ * new {@link SecureRandom} on every message. This class does the key work once and keeps a small pool of
+ * initialized-once {@link Cipher} instances per direction, so each message only pays for {@code init} and
+ * {@code doFinal}. The wire format is identical to {@link TrafficTransformer}.
+ * <p>
+ * Ciphers are pooled instead of kept in a {@link ThreadLocal} because requests run on virtual threads, which would
+ * give every request its own fresh thread-local. Instances are thread-safe.
+ */
+public final class TransformContext {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int CIPHER_POOL_SIZE = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final TransformConfig config;
+    private final Pipeline request;
+    private final Pipeline response;
+
+    private TransformContext(TransformConfig config) {
+        this.config = config;
+        this.request = new Pipeline(config.requestSpec(), config.password());
+        this.response = new Pipeline(config.responseSpec(), config.password());
+    }
+
+    public static TransformContext of(TransformConfig config) {
+        return new TransformContext(Objects.requireNonNull(config, "config"));
+    }
+
+    public TransformConfig config() {
+        return config;
+    }
+
+    /**
+     * Applies the request spec the way the client sends it: compress, encrypt, then encode.
+     */
+    public byte[] outbound(byte[] input) {
+        return request.forward(input);
+    }
+
+    /**
+     * Reverses the response spec the way the client reads it: decode, decrypt, then decompress.
+     */
+    public byte[] inbound(byte[] input) {
+        return response.reverse(input);
+    }
+
+    private static final class Pipeline {
+        private final TransformationSpec spec;
+        private final byte[] xorKey;
+        private final SecretKeySpec secretKey;
+        private final String cipherAlgorithm;
+        private final int ivLength;
+        private final BlockingQueue<Cipher> ciphers;
+
+        Pipeline(TransformationSpec spec, String password) {
+            this.spec = spec != null ? spec : TransformationSpec.none();
+            EncryptionAlgorithm encryption = this.spec.encryption();
+            switch (encryption) {
+                case XOR -> {
+                    xorKey = TransformSupport.deriveKey(password, "XOR", encryption.keyLengthBytes());
+                    secretKey = null;
+                    cipherAlgorithm = null;
+                    ivLength = 0;
+                }
+                case AES -> {
+                    xorKey = null;
+                    secretKey = new SecretKeySpec(TransformSupport.deriveKey(password, "AES", encryption.keyLengthBytes()), "AES");
+                    cipherAlgorithm = "AES/CBC/PKCS5Padding";
+                    ivLength = 16;
+                }
+                case TRIPLE_DES -> {
+                    xorKey = null;
+                    secretKey = new SecretKeySpec(TransformSupport.deriveKey(password, "TripleDES", encryption.keyLengthBytes()), "DESede");
+                    cipherAlgorithm = "DESede/CBC/PKCS5Padding";
+                    ivLength = 8;
+                }
+                default -> {
+                    xorKey = null;
+                    secretKey = null;
+                    cipherAlgorithm = null;
+                    ivLength = 0;
+                }
+            }
+            this.ciphers = cipherAlgorithm != null ? new ArrayBlockingQueue<>(CIPHER_POOL_SIZE) : null;
+        }
+
+        byte[] forward(byte[] input) {
+            byte[] data = input != null ? input : new byte[0];
+            if (spec.compression() != CompressionAlgorithm.NONE) {
+                data = TransformSupport.compress(data, spec.compression());
+            }
+            if (spec.encryption() != EncryptionAlgorithm.NONE) {
+                data = encrypt(data);
+            }
+            if (spec.encoding() != EncodingAlgorithm.NONE) {
+                data = TransformSupport.encode(data, spec.encoding());
+            }
+            return data;
+        }
+
+        byte[] reverse(byte[] input) {
+            byte[] data = input != null ? input : new byte[0];
+            if (spec.encoding() != EncodingAlgorithm.NONE) {
+                data = TransformSupport.decode(data, spec.encoding());
+            }
+            if (spec.encryption() != EncryptionAlgorithm.NONE) {
+                data = decrypt(data);
+            }
+            if (spec.compression() != CompressionAlgorithm.NONE) {
+                data = TransformSupport.decompress(data, spec.compression());
+            }
+            return data;
+        }
+
+        private byte[] encrypt(byte[] plaintext) {
+            if (xorKey != null) {
+                return TransformSupport.xor(plaintext, xorKey);
+            }
+            if (secretKey == null) {
+                return plaintext;
+            }
+            Cipher cipher = borrow();
+            try {
+                byte[] iv = new byte[ivLength];
+                RANDOM.nextBytes(iv);
+                cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(iv));
+                byte[] out = new byte[ivLength + cipher.getOutputSize(plaintext.length)];
+                System.arraycopy(iv, 0, out, 0, ivLength);
+                int written = cipher.doFinal(plaintext, 0, plaintext.length, out, ivLength);
+                return written == out.length - ivLength ? out : Arrays.copyOf(out, ivLength + written);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Encrypt failed", e);
+            } finally {
+                ciphers.offer(cipher);
+            }
+        }
+
+        private byte[] decrypt(byte[] ciphertextWithIv) {
+            if (xorKey != null) {
+                return TransformSupport.xor(ciphertextWithIv, xorKey);
+            }
+            if (secretKey == null) {
+                return ciphertextWithIv;
+            }
+            if (ciphertextWithIv.length < ivLength) {
+                throw new IllegalArgumentException("Ciphertext too short");
+            }
+            Cipher cipher = borrow();
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(ciphertextWithIv, 0, ivLength));
+                return cipher.doFinal(ciphertextWithIv, ivLength, ciphertextWithIv.length - ivLength);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Decrypt failed", e);
+            } finally {
+                ciphers.offer(cipher);
+            }
+        }
+
+        private Cipher borrow() {
+            Cipher cipher = ciphers.poll();
+            if (cipher != null) {
+                return cipher;
+            }
+            try {
+                return Cipher.getInstance(cipherAlgorithm);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cipher not available: " + cipherAlgorithm, e);
+            }
+        }
+    }
+}
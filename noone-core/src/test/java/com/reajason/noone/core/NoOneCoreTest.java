@@ -6,8 +6,11 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -107,6 +110,53 @@ class NoOneCoreTest {
         assertEquals("3.0.0", caches.get("testClass3"));
     }
 
+    @Test
+    void testBatchRunsCallsInOrder() throws Exception {
+        String className = "com.reajason.noone.runtime.BatchPlugin";
+        Map<String, Object> load = new HashMap<>();
+        load.put("action", "load");
+        load.put("plugin", "batch-plugin");
+        load.put("className", className);
+        load.put("pluginBytes", createSimplePluginBytes(className));
+        load.put("version", "1.0.0");
+        Map<String, Object> run = new HashMap<>();
+        run.put("action", "run");
+        run.put("plugin", "batch-plugin");
+        run.put("args", new HashMap<>());
+
+        List<Object> results = noOneCore.batch(Map.of("calls", List.of(load, run)));
+
+        assertEquals(2, results.size());
+        assertEquals(0, ((Map<?, ?>) results.get(0)).get("code"));
+        assertEquals("ok", ((Map<?, ?>) results.get(1)).get("data"));
+        assertTrue(((List<?>) noOneCore.getStatus().get("actions")).contains("batch"));
+    }
+
+    @Test
+    void testParallelBatchRunsOnBoundedWorkers() throws Exception {
+        ConcurrencyPlugin plugin = new ConcurrencyPlugin();
+        NoOneCore.loadedPluginCache.put("concurrency-plugin", plugin);
+        List<Object> calls = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Map<String, Object> args = new HashMap<>();
+            args.put("n", i);
+            Map<String, Object> run = new HashMap<>();
+            run.put("action", "run");
+            run.put("plugin", "concurrency-plugin");
+            run.put("args", args);
+            calls.add(run);
+        }
+
+        List<Object> results = noOneCore.batch(Map.of("calls", calls, "parallel", true));
+
+        assertEquals(40, results.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i, ((Map<?, ?>) results.get(i)).get("data"));
+        }
+        assertTrue(plugin.maxRunning.get() > 1, "calls should overlap");
+        assertTrue(plugin.maxRunning.get() <= 8, "at most 8 workers, saw " + plugin.maxRunning.get());
+    }
+
     @Test
     void testCleanCache() throws Exception {
         loadTestClass("testClass", "com.reajason.noone.runtime.CleanPlugin", "1.0.0");
@@ -173,4 +223,30 @@ class NoOneCoreTest {
         writer.visitEnd();
         return writer.toByteArray();
     }
+
+    public static class ConcurrencyPlugin {
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean equals(Object obj) {
+            Map<String, Object> ctx = (Map<String, Object>) obj;
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            ctx.put("result", ctx.get("n"));
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
 }
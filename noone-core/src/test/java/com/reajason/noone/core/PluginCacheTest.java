@@ -3,6 +3,8 @@ package com.reajason.noone.core;
 import org.junit.jupiter.api.Test;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -45,4 +47,19 @@ class PluginCacheTest {
         assertFalse(cache.needLoad("a"));
         assertEquals("1.0", cache.getVersion("a"));
     }
+
+    @Test
+    void shouldKeepConcurrentPuts() {
+        PluginCache cache = new PluginCache();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                String pluginId = "plugin-" + i;
+                executor.submit(() -> cache.put(pluginId, null));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            assertFalse(cache.needLoad("plugin-" + i));
+            assertNull(cache.getVersion("plugin-" + i));
+        }
+    }
 }
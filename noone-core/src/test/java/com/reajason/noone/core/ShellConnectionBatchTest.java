@@ -0,0 +1,164 @@
+package com.reajason.noone.core;
+
+import com.reajason.noone.core.client.Client;
+import com.reajason.noone.core.profile.Profile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.ByteArrayOutputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs batches against a real {@link NoOneCore}, with the client handing each request straight to it.
+ */
+class ShellConnectionBatchTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private ShellConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        NoOneCore.loadedPluginCache.clear();
+        NoOneCore.loadedPluginVersionCache.clear();
+        NoOneCore.globalCaches.clear();
+        Client client = mock(Client.class);
+        when(client.send(any())).thenAnswer(invocation -> {
+            requests.incrementAndGet();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new NoOneCore().equals(new Object[]{invocation.getArgument(0), out});
+            return out.toByteArray();
+        });
+        connection = new CoreConnection(client);
+    }
+
+    @Test
+    void shouldLoadAndRunInOneRequest() {
+        assertTrue(connection.test());
+        assertTrue(connection.isBatchSupported());
+        requests.set(0);
+
+        List<Map<String, Object>> results = connection.runBatch(List.of(
+                PluginCall.load("echo", "1.0.0", pluginBytes("com.reajason.noone.runtime.BatchEchoA")),
+                PluginCall.run("echo", new HashMap<>())));
+
+        assertEquals(1, requests.get());
+        assertEquals(Constants.SUCCESS, results.get(0).get(Constants.CODE));
+        assertEquals(Constants.SUCCESS, results.get(1).get(Constants.CODE));
+        assertEquals("ok", results.get(1).get(Constants.DATA));
+        assertFalse(connection.needLoadPlugin("echo"));
+        assertEquals("1.0.0", connection.getLoadedPluginVersion("echo"));
+    }
+
+    @Test
+    void shouldRunInParallelAndKeepOrder() {
+        assertTrue(connection.test());
+        connection.loadPlugin("echo", "1.0.0", pluginBytes("com.reajason.noone.runtime.BatchEchoB"));
+        requests.set(0);
+
+        List<Map<String, Object>> results = connection.runBatch(List.of(
+                PluginCall.run("echo", new HashMap<>()),
+                PluginCall.run("missing", new HashMap<>()),
+                PluginCall.run("echo", new HashMap<>())), true);
+
+        assertEquals(1, requests.get());
+        assertEquals("ok", results.get(0).get(Constants.DATA));
+        assertEquals(Constants.FAILURE, results.get(1).get(Constants.CODE));
+        assertTrue(String.valueOf(results.get(1).get(Constants.ERROR)).contains("plugin [missing] not found"));
+        assertEquals("ok", results.get(2).get(Constants.DATA));
+    }
+
+    @Test
+    void shouldAnswerLoadOfPluginAlreadyOnShellLocally() {
+        assertTrue(connection.test());
+        connection.loadPlugin("echo", "1.0.0", pluginBytes("com.reajason.noone.runtime.BatchEchoC"));
+        requests.set(0);
+
+        List<Map<String, Object>> results = connection.runBatch(List.of(
+                PluginCall.load("echo", "1.0.0", pluginBytes("com.reajason.noone.runtime.BatchEchoC")),
+                PluginCall.run("echo", new HashMap<>())));
+
+        assertEquals(1, requests.get());
+        assertEquals(Constants.SUCCESS, results.get(0).get(Constants.CODE));
+        assertEquals("ok", results.get(1).get(Constants.DATA));
+    }
+
+    @Test
+    void shouldSendCallsOneByOneWhenCoreDoesNotReportBatch() {
+        List<Map<String, Object>> results = connection.runBatch(List.of(
+                PluginCall.load("echo", "1.0.0", pluginBytes("com.reajason.noone.runtime.BatchEchoD")),
+                PluginCall.run("echo", new HashMap<>())));
+
+        assertFalse(connection.isBatchSupported());
+        assertEquals(2, requests.get());
+        assertEquals(Constants.SUCCESS, results.get(0).get(Constants.CODE));
+        assertEquals("ok", results.get(1).get(Constants.DATA));
+    }
+
+    /**
+     * Fills loads the way {@link JavaConnection} does, without the core generator behind it.
+     */
+    private static class CoreConnection extends ShellConnection {
+
+        CoreConnection(Client client) {
+            super(client, new Profile());
+        }
+
+        @Override
+        protected byte[] getCoreBytes(String shellType, Profile coreProfile) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void fillLoadPluginRequestMaps(String pluginName, byte[] pluginCodeBytes,
+                                              Map<String, Object> requestMap) {
+            requestMap.put(Constants.CLASSNAME, new ClassReader(pluginCodeBytes).getClassName().replace("/", "."));
+            requestMap.put(Constants.PLUGIN_BYTES, pluginCodeBytes);
+        }
+    }
+
+    /**
+     * A plugin whose {@code equals} answers {@code "ok"}.
+     */
+    private static byte[] pluginBytes(String className) {
+        String internalName = className.replace('.', '/');
+        ClassWriter writer = new ClassWriter(0);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC, internalName, null, "java/lang/Object", null);
+
+        MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(1, 1);
+        init.visitEnd();
+
+        MethodVisitor equals = writer.visitMethod(Opcodes.ACC_PUBLIC, "equals", "(Ljava/lang/Object;)Z", null, null);
+        equals.visitCode();
+        equals.visitVarInsn(Opcodes.ALOAD, 1);
+        equals.visitTypeInsn(Opcodes.CHECKCAST, "java/util/Map");
+        equals.visitLdcInsn("result");
+        equals.visitLdcInsn("ok");
+        equals.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/util/Map", "put",
+                "(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
+        equals.visitInsn(Opcodes.POP);
+        equals.visitInsn(Opcodes.ICONST_1);
+        equals.visitInsn(Opcodes.IRETURN);
+        equals.visitMaxs(3, 2);
+        equals.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package com.reajason.noone.core;
+
+import com.reajason.noone.core.client.Client;
+import com.reajason.noone.core.profile.Profile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ShellConnectionPluginLoadTest {
+
+    private ShellConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        connection = new NodeJsConnection(mock(Client.class), new Profile());
+    }
+
+    @Test
+    void shouldLoadOnceForConcurrentRequests() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(() -> connection.loadPluginOnce("file-manager", "1.0.0", () -> {
+                    loads.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                })));
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            awaitWaiters("file-manager@1.0.0", 19);
+            release.countDown();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldShareFailureWithWaitingRequests() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<?> leader = executor.submit(() -> connection.loadPluginOnce("file-manager", "1.0.0", () -> {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("upload failed");
+            }));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            Future<?> follower = executor.submit(() -> connection.loadPluginOnce("file-manager", "1.0.0",
+                    () -> fail("follower must not load")));
+            awaitWaiters("file-manager@1.0.0", 1);
+            release.countDown();
+
+            assertInstanceOf(IllegalStateException.class,
+                    assertThrows(ExecutionException.class, () -> leader.get(10, TimeUnit.SECONDS)).getCause());
+            assertInstanceOf(IllegalStateException.class,
+                    assertThrows(ExecutionException.class, () -> follower.get(10, TimeUnit.SECONDS)).getCause());
+        }
+    }
+
+    @Test
+    void shouldLoadDifferentVersionsIndependently() {
+        AtomicInteger loads = new AtomicInteger();
+
+        connection.loadPluginOnce("file-manager", "1.0.0", () ->
+                connection.loadPluginOnce("file-manager", "2.0.0", loads::incrementAndGet));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldLoadAgainOnceFinished() {
+        AtomicInteger loads = new AtomicInteger();
+
+        connection.loadPluginOnce("file-manager", "1.0.0", loads::incrementAndGet);
+        connection.loadPluginOnce("file-manager", "1.0.0", loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void awaitWaiters(String key, int count) throws InterruptedException {
+        Map<String, CompletableFuture<Void>> loads =
+                (Map<String, CompletableFuture<Void>>) ReflectionTestUtils.getField(connection, "pluginLoads");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (loads.get(key).getNumberOfDependents() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
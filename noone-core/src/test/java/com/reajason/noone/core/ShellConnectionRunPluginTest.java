@@ -0,0 +1,124 @@
+package com.reajason.noone.core;
+
+import com.reajason.noone.core.client.Client;
+import com.reajason.noone.core.client.ResponseDecodeException;
+import com.reajason.noone.core.profile.Profile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+class ShellConnectionRunPluginTest {
+
+    private static final byte[] CHUNK = {0, 1, 2, (byte) 0xff};
+
+    private ShellConnection connection;
+
+    @BeforeEach
+    void setUp() {
+        connection = spy(new NodeJsConnection(mock(Client.class), new Profile()));
+        Map<String, Object> data = new HashMap<>();
+        data.put("bytes", CHUNK);
+        Map<String, Object> response = new HashMap<>();
+        response.put(Constants.CODE, Constants.SUCCESS);
+        response.put(Constants.DATA, data);
+        doReturn(response).when(connection).sendRequest(anyMap());
+    }
+
+    @Test
+    void shouldEncodeBinaryResponseForJson() {
+        Map<String, Object> response = connection.runPlugin("file-manager", Map.of("op", "read-chunk"));
+
+        assertEquals(Base64.getEncoder().encodeToString(CHUNK), data(response).get("bytes"));
+    }
+
+    @Test
+    void shouldKeepBinaryResponseWhenRaw() {
+        Map<String, Object> response = connection.runPluginRaw("file-manager", Map.of("op", "read-chunk"));
+
+        assertArrayEquals(CHUNK, (byte[]) data(response).get("bytes"));
+    }
+
+    @Test
+    void shouldStillNormalizeArgsWhenRaw() {
+        connection.runPluginRaw("file-manager", Map.of("op", "write-chunk",
+                "bytes", Base64.getEncoder().encodeToString(CHUNK)));
+
+        verify(connection).sendRequest(argThat(request -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> args = (Map<String, Object>) request.get(Constants.ARGS);
+            return args.get("bytes") instanceof byte[] bytes && bytes.length == CHUNK.length;
+        }));
+    }
+
+    @Test
+    void shouldRunAsyncAndNormalizeResponse() throws Exception {
+        Client client = mock(Client.class);
+        Map<String, Object> response = new HashMap<>();
+        response.put(Constants.CODE, Constants.SUCCESS);
+        response.put(Constants.DATA, Map.of("bytes", CHUNK));
+        when(client.sendAsync(any())).thenReturn(CompletableFuture.completedFuture(
+                TlvCodec.serialize(response, TlvCodec.VERSION_LEGACY)));
+        ShellConnection asyncConnection = new NodeJsConnection(client, new Profile());
+
+        Map<String, Object> result = asyncConnection.runPluginAsync("file-manager", Map.of("op", "read-chunk"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(Base64.getEncoder().encodeToString(CHUNK), data(result).get("bytes"));
+        verify(client, never()).send(any());
+    }
+
+    @Test
+    void shouldCancelSendWhenAsyncRunIsCancelled() {
+        Client client = mock(Client.class);
+        CompletableFuture<byte[]> sent = new CompletableFuture<>();
+        when(client.sendAsync(any())).thenReturn(sent);
+        ShellConnection asyncConnection = new NodeJsConnection(client, new Profile());
+
+        CompletableFuture<Map<String, Object>> result = asyncConnection.runPluginAsync("file-manager",
+                Map.of("op", "read-chunk"));
+        assertTrue(result.cancel(true));
+
+        assertTrue(sent.isCancelled());
+    }
+
+    @Test
+    void shouldCountRequestsInFlightUntilTheShellAnswers() {
+        Client client = mock(Client.class);
+        CompletableFuture<byte[]> sent = new CompletableFuture<>();
+        when(client.sendAsync(any())).thenReturn(sent);
+        ShellConnection asyncConnection = new NodeJsConnection(client, new Profile());
+
+        asyncConnection.runPluginAsync("file-manager", Map.of("op", "read-chunk"));
+        assertEquals(1, asyncConnection.inFlightRequests());
+
+        sent.complete(new byte[0]);
+        assertEquals(0, asyncConnection.inFlightRequests());
+    }
+
+    @Test
+    void shouldFailAsyncRunWithEmptyResponse() {
+        Client client = mock(Client.class);
+        when(client.sendAsync(any())).thenReturn(CompletableFuture.completedFuture(new byte[0]));
+        ShellConnection asyncConnection = new NodeJsConnection(client, new Profile());
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> asyncConnection
+                .runPluginAsync("system-info", Map.of()).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ResponseDecodeException.class, error.getCause());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> data(Map<String, Object> response) {
+        return (Map<String, Object>) response.get(Constants.DATA);
+    }
+}
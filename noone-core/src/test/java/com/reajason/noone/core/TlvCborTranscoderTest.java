@@ -0,0 +1,106 @@
+package com.reajason.noone.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TlvCborTranscoderTest {
+
+    @Test
+    void shouldEncodeRfc8949Examples() throws IOException {
+        assertEquals("00", hex(0));
+        assertEquals("17", hex(23));
+        assertEquals("1818", hex(24));
+        assertEquals("1903e8", hex(1000));
+        assertEquals("1a000f4240", hex(1000000));
+        assertEquals("1b000000e8d4a51000", hex(1000000000000L));
+        assertEquals("20", hex(-1));
+        assertEquals("3863", hex(-100));
+        assertEquals("fb3ff199999999999a", hex(1.1));
+        assertEquals("f4", hex(false));
+        assertEquals("f6", hex(null));
+        assertEquals("6449455446", hex("IETF"));
+        assertEquals("62c3bc", hex("ü"));
+        assertEquals("4401020304", hex(new byte[]{1, 2, 3, 4}));
+        assertEquals("83010203", hex(List.of(1, 2, 3)));
+        assertEquals("a26161016162820203", hex(linkedMap("a", 1, "b", List.of(2, 3))));
+    }
+
+    @Test
+    void shouldWriteSameBytesAsEncodingTheDecodedMap() throws IOException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("bytes", new byte[]{0, 1, (byte) 0xff});
+        data.put("eof", true);
+        data.put("names", new LinkedHashSet<>(List.of("a", "ü", "😀")));
+        data.put("items", new Object[]{1, 2L, 3.5, null});
+        data.put("nested", linkedMap("k", linkedMap("deep", "v")));
+        Map<String, Object> response = linkedMap(Constants.CODE, Constants.SUCCESS, Constants.DATA, data);
+
+        for (int version : new int[]{TlvCodec.VERSION_LEGACY, TlvCodec.VERSION_2}) {
+            ByteArrayOutputStream transcoded = new ByteArrayOutputStream();
+            TlvCborTranscoder.transcode(TlvCodec.serialize(response, version), transcoded);
+
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new CborWriter(expected).writeValue(response);
+            assertArrayEquals(expected.toByteArray(), transcoded.toByteArray(), "version " + version);
+        }
+    }
+
+    @Test
+    void shouldReturnTopLevelScalars() throws IOException {
+        Map<String, Object> response = linkedMap(Constants.CODE, Constants.FAILURE, Constants.ERROR, "boom");
+        response.put(Constants.DATA, linkedMap("bytes", new byte[]{1}));
+
+        Map<String, Object> scalars = TlvCborTranscoder.transcode(
+                TlvCodec.serialize(response, TlvCodec.VERSION_2), new ByteArrayOutputStream());
+
+        assertEquals(Map.of(Constants.CODE, Constants.FAILURE, Constants.ERROR, "boom"), scalars);
+    }
+
+    @Test
+    void shouldRejectTruncatedInput() {
+        byte[] tlv = TlvCodec.serialize(linkedMap("bytes", new byte[64]), TlvCodec.VERSION_2);
+
+        assertThrows(EOFException.class, () -> TlvCborTranscoder.transcode(
+                Arrays.copyOf(tlv, tlv.length - 1), new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void shouldFallBackForUnknownTypes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CborWriter(out, value -> value.toString()).writeValue(List.of(new StringBuilder("x"), new Object() {
+            @Override
+            public String toString() {
+                return "y";
+            }
+        }));
+
+        assertEquals("8261786179", HexFormat.of().formatHex(out.toByteArray()));
+        assertThrows(IllegalArgumentException.class, () -> new CborWriter(new ByteArrayOutputStream())
+                .writeValue(new Object()));
+    }
+
+    private static String hex(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CborWriter(out).writeValue(value);
+        return HexFormat.of().formatHex(out.toByteArray());
+    }
+
+    private static Map<String, Object> linkedMap(Object... keysAndValues) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            map.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return map;
+    }
+}
@@ -2,6 +2,9 @@ package com.reajason.noone.core;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -101,4 +104,121 @@ class TlvCodecTest {
         assertTrue(decodedByCore.get("pluginCaches") instanceof Map);
         assertEquals(plugins, decodedByCore.get("pluginCaches"));
     }
+
+    @Test
+    void shouldRoundTripAllSupportedTypesWithVersion2() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("nullVal", null);
+        map.put("string", "héllo \uD83D\uDE00 世界");
+        map.put("int", -42);
+        map.put("long", Long.MIN_VALUE);
+        map.put("double", 3.14);
+        map.put("bool", false);
+        map.put("bytes", new byte[]{1, 2, 3});
+        map.put("list", List.of("x", "y"));
+        map.put("array", new Object[]{"a", 1});
+        map.put("set", new LinkedHashSet<>(List.of("b", "a")));
+        map.put("nested", Map.of("key", "value"));
+
+        byte[] serialized = TlvCodec.serialize(map, TlvCodec.VERSION_2);
+        Map<String, Object> decoded = TlvCodec.deserialize(serialized);
+
+        assertEquals(TlvCodec.ROOT_V2, serialized[0]);
+        assertNull(decoded.get("nullVal"));
+        assertEquals("héllo \uD83D\uDE00 世界", decoded.get("string"));
+        assertEquals(-42, decoded.get("int"));
+        assertEquals(Long.MIN_VALUE, decoded.get("long"));
+        assertEquals(3.14, decoded.get("double"));
+        assertEquals(false, decoded.get("bool"));
+        assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) decoded.get("bytes"));
+        assertEquals(List.of("x", "y"), decoded.get("list"));
+        assertArrayEquals(new Object[]{"a", 1}, (Object[]) decoded.get("array"));
+        assertEquals(List.of("b", "a"), new ArrayList<>((Set<?>) decoded.get("set")));
+        assertEquals(Map.of("key", "value"), decoded.get("nested"));
+    }
+
+    @Test
+    void shouldCarryStringsLongerThan64KbWithVersion2() {
+        String large = "输出".repeat(40_000);
+        Map<String, Object> map = Map.of("output", large);
+
+        assertThrows(Exception.class, () -> TlvCodec.serialize(map));
+        assertEquals(large, TlvCodec.deserialize(TlvCodec.serialize(map, TlvCodec.VERSION_2)).get("output"));
+    }
+
+    @Test
+    void shouldWriteLoneSurrogatesLikeStringGetBytes() {
+        String value = "a\uD800b";
+        byte[] serialized = TlvCodec.serialize(Map.of("s", value), TlvCodec.VERSION_2);
+
+        assertEquals(new String(value.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8),
+                TlvCodec.deserialize(serialized).get("s"));
+    }
+
+    @Test
+    void shouldSliceBinaryValuesWhenDeserializingByteBuffer() {
+        byte[] payload = new byte[300];
+        Arrays.fill(payload, (byte) 7);
+        byte[] serialized = TlvCodec.serialize(Map.of("data", payload), TlvCodec.VERSION_2);
+
+        Map<String, Object> decoded = TlvCodec.deserialize(ByteBuffer.wrap(serialized));
+
+        ByteBuffer slice = (ByteBuffer) decoded.get("data");
+        assertTrue(slice.isReadOnly());
+        assertEquals(300, slice.remaining());
+        serialized[serialized.length - 1] = 9;
+        assertEquals(9, slice.get(299));
+    }
+
+    @Test
+    void shouldReadLegacyBytesFromByteBuffer() {
+        Map<String, Object> decoded = TlvCodec.deserialize(ByteBuffer.wrap(TlvCodec.serialize(Map.of("bytes", new byte[]{1}))));
+
+        assertArrayEquals(new byte[]{1}, (byte[]) decoded.get("bytes"));
+    }
+
+    @Test
+    void shouldRejectTruncatedVersion2Input() {
+        byte[] serialized = TlvCodec.serialize(Map.of("data", new byte[16]), TlvCodec.VERSION_2);
+
+        assertThrows(Exception.class, () -> TlvCodec.deserialize(Arrays.copyOf(serialized, serialized.length - 4)));
+    }
+
+    @Test
+    void shouldBeCompatibleWithNoOneCoreVersion2Serialization() throws Exception {
+        NoOneCore core = new NoOneCore();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("data", "x".repeat(70_000));
+        map.put("bytes", new byte[]{4, 5});
+        map.put("nested", Map.of("code", 0));
+
+        Map<String, Object> decodedByCodec = TlvCodec.deserialize(core.serializeV2(map));
+        assertEquals(map.get("data"), decodedByCodec.get("data"));
+        assertArrayEquals(new byte[]{4, 5}, (byte[]) decodedByCodec.get("bytes"));
+        assertEquals(Map.of("code", 0), decodedByCodec.get("nested"));
+
+        Map<String, Object> decodedByCore = core.deserialize(TlvCodec.serialize(map, TlvCodec.VERSION_2));
+        assertEquals(map.get("data"), decodedByCore.get("data"));
+        assertArrayEquals(new byte[]{4, 5}, (byte[]) decodedByCore.get("bytes"));
+    }
+
+    @Test
+    void shouldAnswerStatusInTheRequestVersionAndAdvertiseVersion2() {
+        NoOneCore core = new NoOneCore();
+        Map<String, Object> request = Map.of("action", "status");
+
+        Map<String, Object> legacy = callCore(core, TlvCodec.serialize(request));
+        Map<String, Object> v2 = callCore(core, TlvCodec.serialize(request, TlvCodec.VERSION_2));
+
+        assertEquals(2, legacy.get(Constants.CODEC_VERSION));
+        assertEquals(0, v2.get(Constants.CODE));
+    }
+
+    private Map<String, Object> callCore(NoOneCore core, byte[] request) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        core.equals(new Object[]{request, out});
+        byte[] response = out.toByteArray();
+        assertEquals(request[0], response[0]);
+        return TlvCodec.deserialize(response);
+    }
 }
@@ -0,0 +1,134 @@
+package com.reajason.noone.core.shelltool;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class NoOneStagelessWebSocketTest {
+
+    private static final int WINDOW = 32;
+
+    private final BlockingQueue<byte[]> replies = new LinkedBlockingQueue<>();
+    private NoOneStagelessWebSocket endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        BlockingCore.reset();
+        ReflectionTestUtils.setField(NoOneStagelessWebSocket.class, "coreClass", BlockingCore.class);
+        RemoteEndpoint.Basic remote = mock(RemoteEndpoint.Basic.class);
+        doAnswer(invocation -> {
+            ByteBuffer data = invocation.getArgument(0);
+            byte[] bytes = new byte[data.remaining()];
+            data.get(bytes);
+            replies.add(bytes);
+            return null;
+        }).when(remote).sendBinary(any(ByteBuffer.class));
+        Session session = mock(Session.class);
+        when(session.getBasicRemote()).thenReturn(remote);
+        endpoint = new NoOneStagelessWebSocket();
+        endpoint.onOpen(session, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        BlockingCore.release.countDown();
+        ReflectionTestUtils.setField(NoOneStagelessWebSocket.class, "coreClass", null);
+    }
+
+    @Test
+    void shouldAdvertiseWindowInHelloAck() throws Exception {
+        endpoint.onMessage(ByteBuffer.wrap(frame(0, 0, new byte[]{0, 0, 0, 64})));
+
+        byte[] ack = replies.poll(5, TimeUnit.SECONDS);
+        assertNotNull(ack);
+        assertEquals(1, ack[4]);
+        assertEquals(WINDOW, ack[ack.length - 1]);
+    }
+
+    @Test
+    void shouldRunAtMostTheAdvertisedWindowAndQueueTheRest() throws Exception {
+        int requests = WINDOW + 16;
+        for (int id = 0; id < requests; id++) {
+            endpoint.onMessage(ByteBuffer.wrap(frame(2, id, new byte[]{(byte) id})));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (BlockingCore.running.get() < WINDOW && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(100);
+        assertEquals(WINDOW, BlockingCore.running.get());
+        assertTrue(replies.isEmpty());
+
+        BlockingCore.release.countDown();
+
+        Set<Integer> answered = new HashSet<>();
+        for (int i = 0; i < requests; i++) {
+            byte[] reply = replies.poll(10, TimeUnit.SECONDS);
+            assertNotNull(reply, "missing reply after " + answered.size());
+            int id = ByteBuffer.wrap(reply, 5, 4).getInt();
+            assertEquals((byte) id, reply[reply.length - 1]);
+            answered.add(id);
+        }
+        assertEquals(requests, answered.size());
+        assertEquals(WINDOW, BlockingCore.maxRunning.get());
+    }
+
+    private static byte[] frame(int type, int id, byte[] body) {
+        return ByteBuffer.allocate(9 + body.length)
+                .put(new byte[]{'N', 'O', 'M', 'X', (byte) type})
+                .putInt(id)
+                .put(body)
+                .array();
+    }
+
+    /**
+     * Stands in for the injected core: echoes the payload once {@link #release} opens, counting how many run at once.
+     */
+    public static class BlockingCore {
+        static final AtomicInteger running = new AtomicInteger();
+        static final AtomicInteger maxRunning = new AtomicInteger();
+        static CountDownLatch release;
+
+        static void reset() {
+            running.set(0);
+            maxRunning.set(0);
+            release = new CountDownLatch(1);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            Object[] args = (Object[]) obj;
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ((ByteArrayOutputStream) args[1]).writeBytes((byte[]) args[0]);
+            running.decrementAndGet();
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.reajason.noone.core.transform;
+
+import org.junit.jupiter.api.Test;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransformContextTest {
+
+    private static final String PASSWORD = "secret";
+
+    @Test
+    void shouldInteroperateWithTrafficTransformerForEverySpec() {
+        byte[] input = new byte[4096];
+        new SecureRandom().nextBytes(input);
+
+        for (CompressionAlgorithm compression : CompressionAlgorithm.values()) {
+            for (EncryptionAlgorithm encryption : EncryptionAlgorithm.values()) {
+                for (EncodingAlgorithm encoding : EncodingAlgorithm.values()) {
+                    TransformationSpec spec = new TransformationSpec(compression, encryption, encoding);
+                    TransformContext context = TransformContext.of(new TransformConfig(
+                            PASSWORD, spec, spec, null, null, null, null, null));
+
+                    byte[] viaContext = context.outbound(input);
+                    assertArrayEquals(input, TrafficTransformer.inbound(viaContext, spec, PASSWORD), spec.toString());
+
+                    byte[] viaTransformer = TrafficTransformer.outbound(input, spec, PASSWORD);
+                    assertArrayEquals(input, context.inbound(viaTransformer), spec.toString());
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldUseFreshIvForEveryMessage() {
+        TransformationSpec spec = new TransformationSpec(CompressionAlgorithm.NONE, EncryptionAlgorithm.AES, EncodingAlgorithm.NONE);
+        TransformContext context = TransformContext.of(new TransformConfig(PASSWORD, spec, spec, null, null, null, null, null));
+        byte[] input = "payload".getBytes();
+
+        assertFalse(Arrays.equals(context.outbound(input), context.outbound(input)));
+    }
+
+    @Test
+    void shouldBeSafeForConcurrentUse() throws Exception {
+        TransformationSpec spec = new TransformationSpec(CompressionAlgorithm.GZIP, EncryptionAlgorithm.TRIPLE_DES, EncodingAlgorithm.BASE64);
+        TransformContext context = TransformContext.of(new TransformConfig(PASSWORD, spec, spec, null, null, null, null, null));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                byte[] input = ("message-" + i).getBytes();
+                results.add(executor.submit(() -> Arrays.equals(input, context.inbound(context.outbound(input)))));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRejectTruncatedCiphertext() {
+        TransformationSpec spec = new TransformationSpec(CompressionAlgorithm.NONE, EncryptionAlgorithm.AES, EncodingAlgorithm.NONE);
+        TransformContext context = TransformContext.of(new TransformConfig(PASSWORD, spec, spec, null, null, null, null, null));
+
+        assertThrows(IllegalArgumentException.class, () -> context.inbound(new byte[4]));
+    }
+}
@@ -111,7 +111,9 @@ tasks.named<org.springframework.boot.gradle.tasks.run.BootRun>("bootRun") {
 
 tasks.test {
     jvmArgs("--add-opens", "java.base/java.lang=ALL-UNNAMED")
-    useJUnitPlatform()
+    useJUnitPlatform {
+        excludeTags("benchmark")
+    }
     testLogging {
         events("passed", "skipped", "failed")
         exceptionFormat = org.gradle.api.tasks.testing.logging.TestExceptionFormat.FULL
@@ -119,3 +121,20 @@ tasks.test {
     }
     finalizedBy(tasks.named("jacocoTestReport"))
 }
+
+// ./gradlew :noone-server:startupBenchmark
+tasks.register<Test>("startupBenchmark") {
+    group = "verification"
+    description = "Boot the server deferred and eager and log time-to-ready and post-startup heap (Testcontainers)"
+    jvmArgs("--add-opens", "java.base/java.lang=ALL-UNNAMED")
+    useJUnitPlatform {
+        includeTags("benchmark")
+    }
+    testClassesDirs = sourceSets.test.get().output.classesDirs
+    classpath = sourceSets.test.get().runtimeClasspath
+    testLogging {
+        showStandardStreams = true
+    }
+    outputs.upToDateWhen { false }
+    shouldRunAfter(tasks.test)
+}
@@ -10,15 +10,21 @@ import com.reajason.noone.server.admin.user.User;
 import com.reajason.noone.server.admin.user.UserRepository;
 import com.reajason.noone.server.admin.user.UserStatus;
 import com.reajason.noone.server.config.JwtConfig;
+import com.reajason.noone.server.config.LogWriterProperties;
 import com.reajason.noone.server.config.LoginIpPolicyProperties;
-import com.reajason.noone.server.plugin.PluginService;
-import com.reajason.noone.server.plugin.dto.PluginCreateRequest;
+import com.reajason.noone.server.config.StartupProperties;
+import com.reajason.noone.server.plugin.BuiltinPluginRegistryService;
 import com.reajason.noone.server.plugin.registry.PluginRegistryProperties;
 import com.reajason.noone.server.profile.ProfileEntity;
 import com.reajason.noone.server.profile.ProfileRepository;
 import com.reajason.noone.server.project.Project;
 import com.reajason.noone.server.project.ProjectRepository;
 import com.reajason.noone.server.project.ProjectStatus;
+import com.reajason.noone.server.shell.ShellConnectionPoolProperties;
+import com.reajason.noone.server.shell.ShellDispatchProperties;
+import com.reajason.noone.server.shell.health.ShellHealthCheckProperties;
+import com.reajason.noone.server.shell.oplog.OpLogCaptureProperties;
+import com.reajason.noone.server.shell.transfer.ShellFileTransferProperties;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -26,16 +32,13 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.web.config.EnableSpringDataWebSupport;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
-import tools.jackson.databind.ObjectMapper;
 
-import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -44,8 +47,12 @@ import static org.springframework.data.web.config.EnableSpringDataWebSupport.Pag
 
 @SpringBootApplication
 @EnableJpaAuditing
+@EnableScheduling
 @EnableSpringDataWebSupport(pageSerializationMode = VIA_DTO)
-@EnableConfigurationProperties({JwtConfig.class, PluginRegistryProperties.class, LoginIpPolicyProperties.class})
+@EnableConfigurationProperties({JwtConfig.class, PluginRegistryProperties.class, LoginIpPolicyProperties.class,
+        ShellHealthCheckProperties.class, LogWriterProperties.class, OpLogCaptureProperties.class,
+        ShellConnectionPoolProperties.class, StartupProperties.class, ShellFileTransferProperties.class,
+        ShellDispatchProperties.class})
 public class NooneApplication {
 
     public static void main(String[] args) {
@@ -73,8 +80,7 @@ public class NooneApplication {
         private final PasswordEncoder passwordEncoder;
         private final ProfileRepository profileRepository;
         private final TwoFactorAuthService twoFactorAuthService;
-        private final PluginService pluginService;
-        private final ObjectMapper objectMapper;
+        private final BuiltinPluginRegistryService builtinPluginRegistryService;
 
         @Override
         public void run(String... args) {
@@ -139,19 +145,7 @@ public class NooneApplication {
         }
 
         private void initializePlugins() {
-            PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-            try {
-                Resource[] resources = resolver.getResources("classpath*:plugins/*.json");
-                Arrays.sort(resources, Comparator.comparing(Resource::getFilename, Comparator.nullsLast(String::compareTo)));
-                for (Resource resource : resources) {
-                    try (var inputStream = resource.getInputStream()) {
-                        PluginCreateRequest request = objectMapper.readValue(inputStream, PluginCreateRequest.class);
-                        pluginService.create(request);
-                    }
-                }
-            } catch (IOException e) {
-                throw new IllegalStateException("Failed to import plugins from noone-server resources", e);
-            }
+            builtinPluginRegistryService.importAll();
         }
 
         private void initializeDefaultPermissions() {
@@ -1,31 +1,64 @@
 package com.reajason.noone.server.admin.auth;
 
+import com.reajason.noone.server.config.StartupProperties;
+import com.reajason.noone.server.util.Deferred;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import nl.basjes.parse.useragent.UserAgent;
 import nl.basjes.parse.useragent.UserAgentAnalyzer;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Browser and operating system of a login, from its user agent. The Yauaa analyzer loads thousands of matcher rules,
+ * so it is built per {@link StartupProperties#isDeferHeavyInit()}; until it is ready the regex fallbacks answer.
+ */
 @Component
 public class ClientMetadataResolver {
 
-    private static final UserAgentAnalyzer userAgentAnalyzer = UserAgentAnalyzer
-            .newBuilder().hideMatcherLoadStats()
-            .withCache(5000)
-            .showMinimalVersion()
-            .withField(UserAgent.AGENT_NAME_VERSION)
-            .withField(UserAgent.OPERATING_SYSTEM_NAME_VERSION)
-            .build();
+    @Resource
+    private StartupProperties startupProperties;
+
+    private final Deferred<UserAgentAnalyzer> userAgentAnalyzer =
+            new Deferred<>("user-agent-analyzer", ClientMetadataResolver::buildAnalyzer);
+
+    @PostConstruct
+    void init() {
+        if (!startupProperties.isDeferHeavyInit()) {
+            userAgentAnalyzer.get();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        userAgentAnalyzer.start();
+    }
 
     public ClientMetadata resolve(String userAgent) {
         if (userAgent == null || userAgent.isBlank()) {
             return new ClientMetadata("Unknown browser", "Unknown OS");
         }
-        String os = getOperatingSystem(userAgent);
-        String browser = getBrowser(userAgent);
-        return new ClientMetadata(browser, os);
+        UserAgentAnalyzer analyzer = userAgentAnalyzer.getIfReady();
+        if (analyzer == null) {
+            return new ClientMetadata(formatBrowser(userAgent), formatOperatingSystem(userAgent));
+        }
+        UserAgent.ImmutableUserAgent parsed = analyzer.parse(userAgent);
+        return new ClientMetadata(getBrowser(parsed, userAgent), getOperatingSystem(parsed, userAgent));
+    }
+
+    private static UserAgentAnalyzer buildAnalyzer() {
+        return UserAgentAnalyzer
+                .newBuilder().hideMatcherLoadStats()
+                .withCache(5000)
+                .showMinimalVersion()
+                .withField(UserAgent.AGENT_NAME_VERSION)
+                .withField(UserAgent.OPERATING_SYSTEM_NAME_VERSION)
+                .build();
     }
 
     public static final String UNKNOWN = "";
@@ -49,8 +82,7 @@ public class ClientMetadataResolver {
     private static final Pattern LINUX_PATTERN = Pattern.compile("Linux");
     private static final Pattern CHROMEOS_PATTERN = Pattern.compile("CrOS");
 
-    public static String getBrowser(String userAgent) {
-        UserAgent.ImmutableUserAgent iua = userAgentAnalyzer.parse(userAgent);
+    private static String getBrowser(UserAgent.ImmutableUserAgent iua, String userAgent) {
         String agentNameVersion = iua.get(UserAgent.AGENT_NAME_VERSION).getValue();
         if (StringUtils.isBlank(agentNameVersion) || agentNameVersion.contains("??")) {
             return formatBrowser(userAgent);
@@ -58,8 +90,7 @@ public class ClientMetadataResolver {
         return agentNameVersion;
     }
 
-    public static String getOperatingSystem(String userAgent) {
-        UserAgent.ImmutableUserAgent iua = userAgentAnalyzer.parse(userAgent);
+    private static String getOperatingSystem(UserAgent.ImmutableUserAgent iua, String userAgent) {
         String operatingSystemNameVersion = iua.get(UserAgent.OPERATING_SYSTEM_NAME_VERSION).getValue();
         if (StringUtils.isBlank(operatingSystemNameVersion) || operatingSystemNameVersion.contains("??")) {
             return formatOperatingSystem(userAgent);
@@ -5,6 +5,7 @@ import com.reajason.noone.server.admin.permission.dto.PermissionCreateRequest;
 import com.reajason.noone.server.admin.permission.dto.PermissionQueryRequest;
 import com.reajason.noone.server.admin.permission.dto.PermissionResponse;
 import com.reajason.noone.server.admin.permission.dto.PermissionUpdateRequest;
+import com.reajason.noone.server.admin.user.UserSessionCache;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.data.domain.Page;
@@ -25,6 +26,7 @@ public class PermissionService {
 
     private final PermissionRepository permissionRepository;
     private final PermissionMapper permissionMapper;
+    private final UserSessionCache userSessionCache;
 
     public PermissionResponse create(PermissionCreateRequest request) {
         if (permissionRepository.existsByCodeAndDeletedFalse(request.getCode())) {
@@ -53,6 +55,7 @@ public class PermissionService {
         permissionMapper.updateEntity(permission, request);
 
         Permission savedPermission = permissionRepository.save(permission);
+        userSessionCache.evictAllAuthorities();
         return permissionMapper.toResponse(savedPermission);
     }
 
@@ -60,6 +63,7 @@ public class PermissionService {
         Permission permission = findActivePermission(id);
         permission.setDeleted(Boolean.TRUE);
         permissionRepository.save(permission);
+        userSessionCache.evictAllAuthorities();
     }
 
     @Transactional(readOnly = true)
@@ -7,6 +7,7 @@ import com.reajason.noone.server.admin.role.dto.RoleCreateRequest;
 import com.reajason.noone.server.admin.role.dto.RoleQueryRequest;
 import com.reajason.noone.server.admin.role.dto.RoleResponse;
 import com.reajason.noone.server.admin.role.dto.RoleUpdateRequest;
+import com.reajason.noone.server.admin.user.UserSessionCache;
 import com.reajason.noone.server.audit.AuditAction;
 import com.reajason.noone.server.audit.AuditLog;
 import com.reajason.noone.server.audit.AuditModule;
@@ -30,6 +31,7 @@ public class RoleService {
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
     private final RoleMapper roleMapper;
+    private final UserSessionCache userSessionCache;
 
     @AuditLog(module = AuditModule.ROLE, action = AuditAction.CREATE, targetType = "Role", targetId = "#result.id")
     public RoleResponse create(RoleCreateRequest request) {
@@ -60,6 +62,7 @@ public class RoleService {
         roleMapper.updateEntity(role, request);
 
         Role savedRole = roleRepository.save(role);
+        userSessionCache.evictAllAuthorities();
         return roleMapper.toResponse(savedRole);
     }
 
@@ -68,6 +71,7 @@ public class RoleService {
         Role role = findActiveRole(id);
         role.setDeleted(Boolean.TRUE);
         roleRepository.save(role);
+        userSessionCache.evictAllAuthorities();
     }
 
     @Transactional(readOnly = true)
@@ -96,6 +100,7 @@ public class RoleService {
                         .filter(permission -> !Boolean.TRUE.equals(permission.getDeleted()))
                         .collect(java.util.stream.Collectors.toSet());
         role.setPermissions(permissions);
+        userSessionCache.evictAllAuthorities();
         return roleMapper.toResponse(roleRepository.save(role));
     }
 
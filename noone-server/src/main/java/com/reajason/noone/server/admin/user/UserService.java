@@ -35,6 +35,7 @@ public class UserService {
     private final com.reajason.noone.server.admin.auth.TwoFactorAuthService twoFactorAuthService;
     private final LoginLogRepository loginLogRepository;
     private final UserAuthorityResolver userAuthorityResolver;
+    private final UserSessionCache userSessionCache;
 
     @AuditLog(module = AuditModule.USER, action = AuditAction.CREATE, targetType = "User", targetId = "#result.id")
     public UserResponse create(UserCreateRequest request) {
@@ -71,6 +72,7 @@ public class UserService {
     public UserResponse update(Long id, UserUpdateRequest request) {
         User user = findActiveUser(id);
         userMapper.updateEntity(user, request);
+        userSessionCache.evictAuthorities(user.getUsername());
 
         User savedUser = userRepository.save(user);
         return userMapper.toResponse(savedUser);
@@ -81,6 +83,7 @@ public class UserService {
         User user = findActiveUser(id);
         user.setDeleted(Boolean.TRUE);
         userRepository.save(user);
+        userSessionCache.evictAuthorities(user.getUsername());
     }
 
     @Transactional(readOnly = true)
@@ -113,6 +116,7 @@ public class UserService {
                         .filter(role -> !Boolean.TRUE.equals(role.getDeleted()))
                         .collect(java.util.stream.Collectors.toSet());
         user.setRoles(roles);
+        userSessionCache.evictAuthorities(user.getUsername());
         return userMapper.toResponse(userRepository.save(user));
     }
 
@@ -165,8 +169,8 @@ public class UserService {
     }
 
     public Set<GrantedAuthority> getAuthorities(String username) {
-        User user = getByUsername(username);
-        return userAuthorityResolver.resolveGrantedAuthorities(user);
+        return userSessionCache.getAuthorities(username,
+                name -> userAuthorityResolver.resolveGrantedAuthorities(getByUsername(name)));
     }
 
     public User updateLastLogin(String username, String ipAddress) {
@@ -0,0 +1,153 @@
+package com.reajason.noone.server.admin.user;
+
+import com.reajason.noone.server.config.JwtConfig;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory view of session validity and user authorities consulted on every authenticated request,
+ * plus the pending lastSeen/IP/User-Agent updates that are flushed to the database in batches.
+ * <p>
+ * Entries live at most {@code jwt.session-cache-ttl} and are swept with every touch flush. Evictions run immediately and again after the
+ * surrounding transaction commits, so a concurrent request cannot re-cache data the commit just replaced.
+ *
+ * @author ReaJason
+ */
+@Component
+@RequiredArgsConstructor
+public class UserSessionCache {
+
+    private final JwtConfig jwtConfig;
+
+    private final Map<String, CachedSession> sessions = new ConcurrentHashMap<>();
+    private final Map<String, CachedAuthorities> authorities = new ConcurrentHashMap<>();
+    private final Map<String, PendingTouch> pendingTouches = new ConcurrentHashMap<>();
+
+    /**
+     * Returns {@code true} when the session was recently confirmed valid and its access window is still open.
+     */
+    public boolean isKnownValid(String sessionId) {
+        CachedSession cached = sessions.get(sessionId);
+        if (cached == null) {
+            return false;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (!cached.cachedUntil().isAfter(now) || !cached.accessExpiresAt().isAfter(now)) {
+            sessions.remove(sessionId, cached);
+            return false;
+        }
+        return true;
+    }
+
+    public void putValidSession(String sessionId, LocalDateTime accessExpiresAt) {
+        sessions.put(sessionId, new CachedSession(accessExpiresAt, LocalDateTime.now().plus(jwtConfig.getSessionCacheTtl())));
+    }
+
+    public void evictSession(String sessionId) {
+        runNowAndAfterCommit(() -> {
+            sessions.remove(sessionId);
+            pendingTouches.remove(sessionId);
+        });
+    }
+
+    public Set<GrantedAuthority> getAuthorities(String username, Function<String, Set<GrantedAuthority>> loader) {
+        LocalDateTime now = LocalDateTime.now();
+        CachedAuthorities cached = authorities.get(username);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return cached.authorities();
+        }
+        Set<GrantedAuthority> loaded = Set.copyOf(loader.apply(username));
+        authorities.put(username, new CachedAuthorities(loaded, now.plus(jwtConfig.getSessionCacheTtl())));
+        return loaded;
+    }
+
+    public void evictAuthorities(String username) {
+        runNowAndAfterCommit(() -> authorities.remove(username));
+    }
+
+    /**
+     * Drops every cached authority set, used when a role or permission shared by many users changes.
+     */
+    public void evictAllAuthorities() {
+        runNowAndAfterCommit(authorities::clear);
+    }
+
+    /**
+     * Drops expired sessions and authorities, which are otherwise only removed when their key is read again.
+     */
+    public void removeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        sessions.values().removeIf(cached -> !cached.cachedUntil().isAfter(now) || !cached.accessExpiresAt().isAfter(now));
+        authorities.values().removeIf(cached -> !cached.expiresAt().isAfter(now));
+    }
+
+    int size() {
+        return sessions.size() + authorities.size();
+    }
+
+    /**
+     * Records that a session was used; repeated touches before the next flush collapse into one update.
+     */
+    public void recordTouch(String sessionId, String ipAddress, String userAgent) {
+        PendingTouch touch = new PendingTouch(LocalDateTime.now(), ipAddress, userAgent);
+        pendingTouches.merge(sessionId, touch, PendingTouch::mergeWith);
+    }
+
+    /**
+     * Removes and returns all pending touches.
+     */
+    public Map<String, PendingTouch> drainTouches() {
+        Map<String, PendingTouch> drained = new HashMap<>();
+        for (String sessionId : pendingTouches.keySet()) {
+            PendingTouch touch = pendingTouches.remove(sessionId);
+            if (touch != null) {
+                drained.put(sessionId, touch);
+            }
+        }
+        return drained;
+    }
+
+    /**
+     * Puts touches that failed to flush back, unless a newer touch for the same session arrived meanwhile.
+     */
+    public void requeueTouches(Map<String, PendingTouch> touches) {
+        touches.forEach((sessionId, touch) -> pendingTouches.merge(sessionId, touch, (current, failed) -> failed.mergeWith(current)));
+    }
+
+    private void runNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    private record CachedSession(LocalDateTime accessExpiresAt, LocalDateTime cachedUntil) {
+    }
+
+    private record CachedAuthorities(Set<GrantedAuthority> authorities, LocalDateTime expiresAt) {
+    }
+
+    public record PendingTouch(LocalDateTime lastSeenAt, String ipAddress, String userAgent) {
+        PendingTouch mergeWith(PendingTouch newer) {
+            return new PendingTouch(
+                    newer.lastSeenAt,
+                    newer.ipAddress != null ? newer.ipAddress : ipAddress,
+                    newer.userAgent != null ? newer.userAgent : userAgent);
+        }
+    }
+}
@@ -4,10 +4,13 @@ import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,4 +25,15 @@ public interface UserSessionRepository extends JpaRepository<UserSession, Long>,
     Optional<UserSession> findByUserIdAndSessionId(Long userId, String sessionId);
 
     List<UserSession> findByUserIdOrderByCreatedAtDesc(Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("update UserSession session set session.lastSeenAt = :lastSeenAt, "
+            + "session.ipAddress = coalesce(:ipAddress, session.ipAddress), "
+            + "session.userAgent = coalesce(:userAgent, session.userAgent) "
+            + "where session.sessionId = :sessionId and session.revoked = false")
+    int touch(@Param("sessionId") String sessionId,
+              @Param("lastSeenAt") LocalDateTime lastSeenAt,
+              @Param("ipAddress") String ipAddress,
+              @Param("userAgent") String userAgent);
 }
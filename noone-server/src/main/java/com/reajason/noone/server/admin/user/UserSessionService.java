@@ -3,6 +3,9 @@ package com.reajason.noone.server.admin.user;
 import com.reajason.noone.server.admin.user.dto.UserSessionQueryRequest;
 import com.reajason.noone.server.admin.user.dto.UserSessionResponse;
 import com.reajason.noone.server.api.ResourceNotFoundException;
+import com.reajason.noone.server.config.JwtConfig;
+import com.reajason.noone.server.util.JwtUtil;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -10,22 +13,30 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
 import java.util.HexFormat;
+import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class UserSessionService {
+public class UserSessionService implements SchedulingConfigurer {
 
     private final UserSessionRepository userSessionRepository;
     private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final UserSessionCache userSessionCache;
+    private final JwtConfig jwtConfig;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
     public UserSession createSession(
@@ -51,10 +62,17 @@ public class UserSessionService {
 
     @Transactional(readOnly = true)
     public boolean isSessionValid(String sessionId) {
+        if (userSessionCache.isKnownValid(sessionId)) {
+            return true;
+        }
         return userSessionRepository.findBySessionId(sessionId)
                 .filter(session -> !session.isRevoked())
                 .filter(session -> session.getAccessExpiresAt().isAfter(LocalDateTime.now()))
-                .isPresent();
+                .map(session -> {
+                    userSessionCache.putValidSession(sessionId, session.getAccessExpiresAt());
+                    return true;
+                })
+                .orElse(false);
     }
 
     @Transactional(noRollbackFor = IllegalArgumentException.class)
@@ -87,24 +105,51 @@ public class UserSessionService {
         session.setLastSeenAt(LocalDateTime.now());
         session.setIpAddress(ipAddress);
         session.setUserAgent(userAgent);
+        userSessionCache.evictSession(sessionId);
         return userSessionRepository.save(session);
     }
 
-    @Transactional
+    /**
+     * Queues a lastSeen/IP/User-Agent update; it is written by {@link #flushSessionTouches()}.
+     */
     public void touchSession(String sessionId, String ipAddress, String userAgent) {
-        userSessionRepository.findBySessionId(sessionId).ifPresent(session -> {
-            if (session.isRevoked()) {
-                return;
-            }
-            session.setLastSeenAt(LocalDateTime.now());
-            if (ipAddress != null) {
-                session.setIpAddress(ipAddress);
-            }
-            if (userAgent != null) {
-                session.setUserAgent(userAgent);
-            }
-            userSessionRepository.save(session);
-        });
+        userSessionCache.recordTouch(sessionId, ipAddress, userAgent);
+    }
+
+    /**
+     * Flushes queued touches every {@link JwtConfig#getSessionTouchFlushInterval()}.
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::flushSessionTouches, jwtConfig.getSessionTouchFlushInterval());
+    }
+
+    /**
+     * Writes the queued touches in one transaction of its own, so it runs transactionally also when called from
+     * this bean's own scheduled task and shutdown hook. Also sweeps expired entries from the cache, so sessions
+     * that are never used again do not stay in memory.
+     */
+    public void flushSessionTouches() {
+        userSessionCache.removeExpired();
+        Map<String, UserSessionCache.PendingTouch> touches = userSessionCache.drainTouches();
+        if (touches.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> touches.forEach((sessionId, touch) ->
+                    userSessionRepository.touch(sessionId, touch.lastSeenAt(), touch.ipAddress(), touch.userAgent())));
+        } catch (RuntimeException e) {
+            userSessionCache.requeueTouches(touches);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes touches still queued when the application stops, one statement per session.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushSessionTouches();
     }
 
     @Transactional
@@ -187,6 +232,8 @@ public class UserSessionService {
         session.setRevokedAt(LocalDateTime.now());
         session.setRevokeReason(reason);
         userSessionRepository.save(session);
+        jwtUtil.evictSession(session.getSessionId());
+        userSessionCache.evictSession(session.getSessionId());
     }
 
     private String hash(String value) {
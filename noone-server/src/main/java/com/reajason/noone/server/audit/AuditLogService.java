@@ -14,9 +14,9 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Map;
 
 @Slf4j
@@ -32,7 +32,12 @@ public class AuditLogService {
     @Resource
     private AuditLogMapper auditLogMapper;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Resource
+    private AuditLogWriter auditLogWriter;
+
+    /**
+     * Resolves user and request details on the calling thread and queues the entry for the batched writer.
+     */
     public void record(AuditEntry entry) {
         try {
             AuditLogEntity entity = new AuditLogEntity();
@@ -59,8 +64,11 @@ public class AuditLogService {
 
             // Details
             entity.setDetails(entry.getDetails());
+            entity.setCreatedAt(LocalDateTime.now());
 
-            auditLogRepository.save(entity);
+            if (!auditLogWriter.submit(entity)) {
+                log.debug("Dropped audit log: module={}, action={}", entry.getModule(), entry.getAction());
+            }
         } catch (Exception e) {
             log.warn("Failed to record audit log: module={}, action={}", entry.getModule(), entry.getAction(), e);
         }
@@ -0,0 +1,101 @@
+package com.reajason.noone.server.audit;
+
+import com.reajason.noone.server.config.LogWriterProperties;
+import com.reajason.noone.server.util.BatchingWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes audit logs off the request path, as JDBC batch inserts.
+ */
+@Slf4j
+@Component
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL = "insert into audit_logs "
+            + "(user_id, username, module, action, target_type, target_id, description, success, error_message, "
+            + "duration_ms, ip_address, user_agent, request_method, request_uri, details, created_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, cast(? as jsonb), ?)";
+
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private LogWriterProperties properties;
+
+    private BatchingWriter<AuditLogEntity> writer;
+
+    @PostConstruct
+    void start() {
+        writer = new BatchingWriter<>("audit-log", properties.getCapacity(), properties.getBatchSize(),
+                properties.getFlushInterval(), properties.getOfferTimeout(), properties.getShutdownTimeout(),
+                this::insertBatch);
+    }
+
+    /**
+     * Queues the entry for writing; returns {@code false} if it was dropped because the buffer is full.
+     */
+    public boolean submit(AuditLogEntity entity) {
+        return writer.submit(entity);
+    }
+
+    public BatchingWriter.Stats stats() {
+        return writer.stats();
+    }
+
+    @PreDestroy
+    void stop() {
+        writer.close();
+    }
+
+    void insertBatch(List<AuditLogEntity> entities) {
+        List<Object[]> rows = new ArrayList<>(entities.size());
+        for (AuditLogEntity entity : entities) {
+            rows.add(new Object[]{
+                    entity.getUserId(),
+                    entity.getUsername(),
+                    entity.getModule().name(),
+                    entity.getAction().name(),
+                    entity.getTargetType(),
+                    entity.getTargetId(),
+                    entity.getDescription(),
+                    entity.isSuccess(),
+                    entity.getErrorMessage(),
+                    entity.getDurationMs(),
+                    entity.getIpAddress(),
+                    entity.getUserAgent(),
+                    entity.getRequestMethod(),
+                    entity.getRequestUri(),
+                    toJson(entity.getDetails()),
+                    Timestamp.valueOf(entity.getCreatedAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private String toJson(Map<String, Object> value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JacksonException e) {
+            log.debug("Failed to serialize audit log details", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.reajason.noone.server.config;
+
+import org.springframework.boot.http.converter.autoconfigure.ServerHttpMessageConvertersCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.ObjectMapper;
+
+/**
+ * Registers {@link CborHttpMessageConverter} in the CBOR slot of the server's converters, after JSON, so JSON stays
+ * the answer to {@code Accept: *}{@code /*} and CBOR is only used when a client asks for it.
+ *
+ * @author ReaJason
+ */
+@Configuration
+public class CborConfig {
+
+    @Bean
+    public ServerHttpMessageConvertersCustomizer cborMessageConverterCustomizer(ObjectMapper objectMapper) {
+        return builder -> builder.withCborConverter(new CborHttpMessageConverter(objectMapper));
+    }
+}
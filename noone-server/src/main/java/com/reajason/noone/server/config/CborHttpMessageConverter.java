@@ -0,0 +1,53 @@
+package com.reajason.noone.server.config;
+
+import com.reajason.noone.core.CborWriter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Writes response bodies as CBOR for clients that ask for {@code application/cbor}. Maps, lists, scalars and
+ * {@code byte[]} are written directly, so binary plugin output goes out as byte strings instead of base64 text;
+ * anything else, such as DTOs and pages, is first turned into a tree by the application's {@link ObjectMapper},
+ * so field names and date formats match the JSON responses.
+ *
+ * @author ReaJason
+ */
+public class CborHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+
+    public CborHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_CBOR);
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("CBOR request bodies are not supported", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        new CborWriter(outputMessage.getBody(), this::toTree).writeValue(value);
+    }
+
+    private Object toTree(Object value) {
+        return objectMapper.convertValue(value, Object.class);
+    }
+}
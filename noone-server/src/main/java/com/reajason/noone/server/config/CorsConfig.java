@@ -52,7 +52,12 @@ public class CorsConfig {
         config.setExposedHeaders(Arrays.asList(
                 "Authorization",
                 "Content-Type",
-                "X-Request-ID"));
+                "Content-Disposition",
+                "X-Request-ID",
+                "X-File-Size",
+                "X-File-Offset",
+                "X-Cache",
+                "Age"));
 
         // How long the response from a pre-flight request can be cached (in seconds)
         config.setMaxAge(3600L);
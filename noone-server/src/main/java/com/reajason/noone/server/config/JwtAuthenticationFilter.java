@@ -4,6 +4,7 @@ import com.reajason.noone.server.admin.user.UserService;
 import com.reajason.noone.server.admin.user.UserSessionService;
 import com.reajason.noone.server.util.IpUtils;
 import com.reajason.noone.server.util.JwtUtil;
+import com.reajason.noone.server.util.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,11 +12,15 @@ import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Optional;
 import java.util.Set;
 
 @Slf4j
@@ -26,6 +31,11 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtConfig jwtConfig;
     private final UserService userService;
     private final UserSessionService userSessionService;
+    /**
+     * This filter runs once per request, so async and error re-dispatches of a {@code DeferredResult}, SSE or
+     * streaming response never see it; keeping the context on the request lets the chain reload it there.
+     */
+    private final SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
 
     public JwtAuthenticationFilter(JwtUtil jwtUtil, JwtConfig jwtConfig, UserService userService,
             UserSessionService userSessionService) {
@@ -43,18 +53,20 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         String token = jwtUtil.getTokenFromHeader(authHeader);
 
         if (token != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            if (jwtUtil.validateToken(token)
-                    && jwtUtil.isTokenNotExpired(token)
-                    && "access".equals(jwtUtil.getTokenType(token))) {
+            Optional<VerifiedToken> verified = jwtUtil.verify(token).filter(t -> t.isType("access"));
+            if (verified.isPresent()) {
                 try {
-                    String sessionId = jwtUtil.getSessionId(token);
-                    String username = jwtUtil.getUsernameFromToken(token);
+                    String sessionId = verified.get().sessionId();
+                    String username = verified.get().subject();
                     boolean validSession = sessionId != null && userSessionService.isSessionValid(sessionId);
                     if (username != null && validSession) {
                         Set<GrantedAuthority> authorities = userService.getAuthorities(username);
                         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                                 username, null, authorities);
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        SecurityContext context = SecurityContextHolder.createEmptyContext();
+                        context.setAuthentication(authentication);
+                        SecurityContextHolder.setContext(context);
+                        securityContextRepository.saveContext(context, request, response);
                         userSessionService.touchSession(
                                 sessionId,
                                 IpUtils.getIpAddr(request),
@@ -28,4 +28,21 @@ public class JwtConfig {
     private String header = "Authorization";
     private String prefix = "Bearer ";
     private String secret;
+
+    /**
+     * Maximum number of verified tokens kept in memory; 0 disables the cache.
+     */
+    private int verifiedTokenCacheSize = 10000;
+
+    /**
+     * How long a validated session and its user's authorities are trusted before the database is asked again.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration sessionCacheTtl = Duration.ofSeconds(30);
+
+    /**
+     * Interval, in seconds, at which coalesced session lastSeen/IP/User-Agent updates are written back.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration sessionTouchFlushInterval = Duration.ofSeconds(5);
 }
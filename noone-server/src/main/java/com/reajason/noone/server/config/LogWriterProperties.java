@@ -0,0 +1,38 @@
+package com.reajason.noone.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the background writers that batch shell operation logs and audit logs into the database.
+ */
+@Data
+@ConfigurationProperties(prefix = "noone.log-writer")
+public class LogWriterProperties {
+    /**
+     * Entries buffered per log type before new ones are dropped.
+     */
+    private int capacity = 10000;
+
+    /**
+     * Maximum rows written in one JDBC batch.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Longest time an entry waits for its batch to fill before it is written anyway.
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * How long a request may wait for free space when the buffer is full; zero drops immediately.
+     */
+    private Duration offerTimeout = Duration.ZERO;
+
+    /**
+     * Upper bound for writing out buffered entries on shutdown.
+     */
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+}
@@ -0,0 +1,18 @@
+package com.reajason.noone.server.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * How the server trades startup time against first-use latency.
+ */
+@Data
+@ConfigurationProperties(prefix = "noone.startup")
+public class StartupProperties {
+    /**
+     * Build heavy components that the first requests do not need (the user-agent analyzer, the memshell generator)
+     * in the background once the application is ready, instead of while the context starts. A request that needs
+     * one earlier builds or waits for it; login uses the regex user-agent fallback until the analyzer is ready.
+     */
+    private boolean deferHeavyInit = true;
+}
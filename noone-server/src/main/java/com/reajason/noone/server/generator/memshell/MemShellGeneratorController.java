@@ -9,12 +9,16 @@ import com.reajason.javaweb.packer.*;
 import com.reajason.noone.core.Constants;
 import com.reajason.noone.core.generator.JavaMemShellGenerator;
 import com.reajason.noone.core.generator.config.NoOneConfig;
+import com.reajason.noone.server.config.StartupProperties;
 import com.reajason.noone.server.generator.memshell.dto.MemShellGenerateRequest;
 import com.reajason.noone.server.generator.memshell.dto.MemShellGenerateResponse;
 import com.reajason.noone.server.profile.ProfileEntity;
 import com.reajason.noone.server.profile.ProfileMapper;
 import com.reajason.noone.server.profile.ProfileRepository;
+import com.reajason.noone.server.util.Deferred;
 import lombok.Data;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
@@ -28,15 +32,29 @@ import java.util.*;
 @CrossOrigin("*")
 public class MemShellGeneratorController {
 
-    private final JavaMemShellGenerator javaMemShellGenerator;
+    private final Deferred<JavaMemShellGenerator> javaMemShellGenerator =
+            new Deferred<>("memshell-generator", MemShellGeneratorController::createGenerator);
     private final ProfileRepository profileRepository;
     private final ProfileMapper profileMapper;
 
-    public MemShellGeneratorController(ProfileRepository profileRepository, ProfileMapper profileMapper) {
-        this.javaMemShellGenerator = new JavaMemShellGenerator();
-        this.javaMemShellGenerator.init();
+    public MemShellGeneratorController(ProfileRepository profileRepository, ProfileMapper profileMapper,
+                                       StartupProperties startupProperties) {
         this.profileRepository = profileRepository;
         this.profileMapper = profileMapper;
+        if (!startupProperties.isDeferHeavyInit()) {
+            javaMemShellGenerator.get();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        javaMemShellGenerator.start();
+    }
+
+    private static JavaMemShellGenerator createGenerator() {
+        JavaMemShellGenerator generator = new JavaMemShellGenerator();
+        generator.init();
+        return generator;
     }
 
     @PostMapping("/generate")
@@ -44,7 +62,7 @@ public class MemShellGeneratorController {
         ShellConfig shellConfig = request.getShellConfig();
         ShellToolConfig shellToolConfig = toNoOneConfig(request);
         InjectorConfig injectorConfig = request.getInjectorConfig();
-        MemShellResult generateResult = javaMemShellGenerator.generate(shellConfig, injectorConfig, shellToolConfig);
+        MemShellResult generateResult = javaMemShellGenerator.get().generate(shellConfig, injectorConfig, shellToolConfig);
         Packers packers = Packers.fromName(request.getPackerSpec().getName());
         Packer<?> packer = packers.getInstance();
         if (packer instanceof JarPacker) {
@@ -77,6 +95,8 @@ public class MemShellGeneratorController {
 
     @RequestMapping("/config/servers")
     public Map<String, List<String>> getServers() {
+        // the tool mappings registered by init() are part of what the servers report
+        javaMemShellGenerator.get();
         Map<String, List<String>> servers = new LinkedHashMap<>();
         List<String> supportedServers = ServerFactory.getSupportedServers();
         for (String supportedServer : supportedServers) {
@@ -111,7 +131,7 @@ public class MemShellGeneratorController {
 
     @RequestMapping("/config")
     public Map<String, Map<?, ?>> config() {
-        return javaMemShellGenerator.getConfigMap();
+        return javaMemShellGenerator.get().getConfigMap();
     }
 
     @Data
@@ -1,28 +1,111 @@
 package com.reajason.noone.server.plugin;
 
+import tools.jackson.core.JacksonException;
 import tools.jackson.databind.ObjectMapper;
 import com.reajason.noone.server.plugin.dto.PluginCreateRequest;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class BuiltinPluginRegistryService {
 
-    private final PluginRepository pluginRepository;
+    private final PluginCatalog pluginCatalog;
     private final PluginService pluginService;
     private final ObjectMapper objectMapper;
     private final PathMatchingResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+    private final Map<String, Resource[]> builtinResources = new ConcurrentHashMap<>();
 
+    private static final Pattern BUNDLED_FILENAME = Pattern.compile("([A-Za-z0-9]+)-(.+)-plugin-(.+)\\.json");
+
+    /**
+     * Imports the bundled plugin resources that changed since the last import.
+     * <p>
+     * Only the latest bundled version of each plugin is considered, picked from the file names, and only when it is
+     * not older than the stored plugin; the others are never read. The candidates are hashed as raw bytes and
+     * compared with the hashes recorded on the plugin rows, so an unchanged plugin is neither parsed nor written.
+     * The changed ones are parsed in parallel and written in one transaction.
+     */
+    public void importAll() {
+        Set<String> imported = pluginService.findImportedSourceHashes();
+        Resource[] resources = resources("classpath*:plugins/*.json");
+        Arrays.sort(resources, Comparator.comparing(Resource::getFilename, Comparator.nullsLast(String::compareTo)));
+        List<PluginService.PluginImport> parsed = latestBundled(resources).parallelStream()
+                .map(this::readBytes)
+                .filter(source -> !imported.contains(source.sha256()))
+                .map(source -> new PluginService.PluginImport(parse(source), source.sha256()))
+                .toList();
+        // file names that do not follow the convention are only told apart once parsed
+        Map<String, PluginService.PluginImport> latest = new LinkedHashMap<>();
+        for (PluginService.PluginImport pluginImport : parsed) {
+            PluginCreateRequest request = pluginImport.request();
+            latest.merge(request.getLanguage() + "-" + request.getId(), pluginImport, (current, next) ->
+                    compareVersions(current.request().getVersion(), request.getVersion()) > 0 ? current : next);
+        }
+        List<PluginService.PluginImport> changed = latest.values().stream()
+                .filter(pluginImport -> isNotOlderThanStored(pluginImport.request().getId(),
+                        pluginImport.request().getLanguage(), pluginImport.request().getVersion()))
+                .toList();
+        pluginService.importAll(changed, PluginSource.BUILTIN);
+        log.info("Imported built-in plugins: {} of {} resources changed", changed.size(), resources.length);
+    }
+
+    /**
+     * Keeps the resource named after the latest version of each plugin, as
+     * {@code <language>-<id>-plugin-<version>.json}, unless the stored plugin is newer. Resources named otherwise
+     * are all kept.
+     */
+    private List<Resource> latestBundled(Resource[] resources) {
+        Map<String, BundledFile> latest = new LinkedHashMap<>();
+        List<Resource> selected = new ArrayList<>();
+        for (Resource resource : resources) {
+            Matcher name = BUNDLED_FILENAME.matcher(Objects.toString(resource.getFilename(), ""));
+            if (!name.matches()) {
+                selected.add(resource);
+                continue;
+            }
+            BundledFile file = new BundledFile(resource, name.group(1), name.group(2), name.group(3));
+            latest.merge(file.language() + "-" + file.id(), file, (current, next) ->
+                    compareVersions(current.version(), next.version()) >= 0 ? current : next);
+        }
+        for (BundledFile file : latest.values()) {
+            if (isNotOlderThanStored(file.id(), file.language(), file.version())) {
+                selected.add(file.resource());
+            }
+        }
+        return selected;
+    }
+
+    private boolean isNotOlderThanStored(String pluginId, String language, String version) {
+        return pluginCatalog.find(pluginId, language)
+                .filter(stored -> stored.getVersion() != null)
+                .map(stored -> compareVersions(version, stored.getVersion()) >= 0)
+                .orElse(true);
+    }
+
+    /**
+     * @return the plugin's metadata from {@link PluginCatalog}; its payload is not loaded
+     */
     public Optional<Plugin> findOrRegister(String pluginId, String language) {
-        Optional<Plugin> existing = pluginRepository.findByPluginIdAndLanguage(pluginId, language);
+        Optional<Plugin> existing = pluginCatalog.find(pluginId, language);
         if (existing.isPresent()) {
             return existing;
         }
@@ -33,19 +116,40 @@ public class BuiltinPluginRegistryService {
         }
 
         pluginService.create(builtinPlugin.get(), PluginSource.BUILTIN);
-        return pluginRepository.findByPluginIdAndLanguage(pluginId, language);
+        return pluginCatalog.find(pluginId, language);
     }
 
     private Optional<PluginCreateRequest> findLatestBuiltinPlugin(String pluginId, String language) {
+        // the classpath does not change at runtime, so each pattern is scanned once, even when nothing matches
+        Resource[] resources = builtinResources.computeIfAbsent(language + "-" + pluginId,
+                prefix -> resources("classpath*:plugins/" + prefix + "-plugin-*.json"));
+        return Arrays.stream(resources)
+                .map(this::readPluginRequest)
+                .flatMap(Optional::stream)
+                .filter(request -> pluginId.equals(request.getId()) && language.equals(request.getLanguage()))
+                .max(Comparator.comparing(PluginCreateRequest::getVersion, this::compareVersions));
+    }
+
+    private BuiltinResource readBytes(Resource resource) {
+        try (var inputStream = resource.getInputStream()) {
+            byte[] bytes = inputStream.readAllBytes();
+            return new BuiltinResource(resource.getFilename(), bytes, PluginPayloads.sha256(bytes));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read built-in plugin resource: " + resource.getFilename(), e);
+        }
+    }
+
+    private PluginCreateRequest parse(BuiltinResource source) {
+        try {
+            return objectMapper.readValue(source.bytes(), PluginCreateRequest.class);
+        } catch (JacksonException e) {
+            throw new IllegalStateException("Failed to read built-in plugin resource: " + source.filename(), e);
+        }
+    }
+
+    private Resource[] resources(String pattern) {
         try {
-            Resource[] resources = resourceResolver.getResources(
-                    "classpath*:plugins/" + language + "-" + pluginId + "-plugin-*.json"
-            );
-            return Arrays.stream(resources)
-                    .map(this::readPluginRequest)
-                    .flatMap(Optional::stream)
-                    .filter(request -> pluginId.equals(request.getId()) && language.equals(request.getLanguage()))
-                    .max(Comparator.comparing(PluginCreateRequest::getVersion, this::compareVersions));
+            return resourceResolver.getResources(pattern);
         } catch (IOException e) {
             throw new IllegalStateException("Failed to load built-in plugins from resources", e);
         }
@@ -85,4 +189,10 @@ public class BuiltinPluginRegistryService {
         }
         return left.compareToIgnoreCase(right);
     }
+
+    private record BundledFile(Resource resource, String language, String id, String version) {
+    }
+
+    private record BuiltinResource(String filename, byte[] bytes, String sha256) {
+    }
 }
@@ -1,5 +1,6 @@
 package com.reajason.noone.server.plugin;
 
+import jakarta.annotation.Resource;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.commons.ClassRemapper;
@@ -12,23 +13,31 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 @Service
 public class JavaPluginPayloadService {
 
+    @Resource
+    private PluginPayloadCache pluginPayloadCache;
+
+    /**
+     * Candidates are rewritten only when their bytes are asked for, so a load that succeeds with the first
+     * candidate never remaps the others.
+     */
     public List<JavaPluginCandidate> buildCandidates(Plugin plugin, byte[] originalPayloadBytes) {
         List<String> classNames = candidateClassNames(plugin);
         if (classNames.isEmpty()) {
             return List.of(new JavaPluginCandidate(readClassName(originalPayloadBytes), originalPayloadBytes));
         }
 
-        String sourceInternalName = new ClassReader(originalPayloadBytes).getClassName();
         List<String> shuffled = new ArrayList<>(classNames);
         Collections.shuffle(shuffled);
 
         List<JavaPluginCandidate> candidates = new ArrayList<>(shuffled.size());
         for (String className : shuffled) {
-            candidates.add(new JavaPluginCandidate(className, rewriteClassName(originalPayloadBytes, sourceInternalName, className)));
+            candidates.add(new JavaPluginCandidate(className, () -> pluginPayloadCache.get(plugin, className,
+                    () -> rewriteClassName(originalPayloadBytes, className))));
         }
         return candidates;
     }
@@ -59,15 +68,24 @@ public class JavaPluginPayloadService {
         return new ClassReader(payloadBytes).getClassName().replace('/', '.');
     }
 
-    private byte[] rewriteClassName(byte[] payloadBytes, String sourceInternalName, String targetClassName) {
+    private byte[] rewriteClassName(byte[] payloadBytes, String targetClassName) {
         String targetInternalName = targetClassName.replace('.', '/');
         ClassReader reader = new ClassReader(payloadBytes);
         ClassWriter writer = new ClassWriter(reader, 0);
-        ClassRemapper remapper = new ClassRemapper(writer, new SimpleRemapper(Map.of(sourceInternalName, targetInternalName)));
+        ClassRemapper remapper = new ClassRemapper(writer,
+                new SimpleRemapper(Map.of(reader.getClassName(), targetInternalName)));
         reader.accept(remapper, 0);
         return writer.toByteArray();
     }
 
-    public record JavaPluginCandidate(String className, byte[] payloadBytes) {
+    public record JavaPluginCandidate(String className, Supplier<byte[]> payload) {
+
+        public JavaPluginCandidate(String className, byte[] payloadBytes) {
+            this(className, () -> payloadBytes);
+        }
+
+        public byte[] payloadBytes() {
+            return payload.get();
+        }
     }
 }
@@ -54,9 +54,29 @@ public class Plugin {
     @Column
     private String author;
 
+    /**
+     * Text payload as uploaded; only kept for languages {@link PluginPayloads} cannot decode and for rows stored
+     * before {@link #payloadBytes} existed.
+     */
     @Column(columnDefinition = "text")
     private String payload;
 
+    @Column(columnDefinition = "bytea")
+    private byte[] payloadBytes;
+
+    /**
+     * SHA-256 of {@link #payloadBytes}, the content address of decoded and rewritten payloads.
+     */
+    @Column(length = 64)
+    private String payloadHash;
+
+    /**
+     * SHA-256 of the bundled resource the plugin was last imported from; {@code null} once it is written any other
+     * way, so the next startup imports the resource again.
+     */
+    @Column(length = 64)
+    private String sourceHash;
+
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(columnDefinition = "jsonb")
     private Map<String, Object> actions;
@@ -0,0 +1,92 @@
+package com.reajason.noone.server.plugin;
+
+import jakarta.annotation.Resource;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Plugin metadata for dispatch, kept in memory so running a plugin does not read its row, payload included, from
+ * the database every time. Payloads are read only when a plugin is actually loaded onto a shell.
+ * <p>
+ * The catalog is read once at startup and again after {@link PluginService} changes a plugin. Each snapshot carries
+ * the generation it was read at; invalidation bumps the generation immediately and again after the surrounding
+ * transaction commits, so a snapshot read concurrently with a write is replaced on the next lookup.
+ */
+@Component
+public class PluginCatalog {
+
+    @Resource
+    private PluginRepository pluginRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        snapshot();
+    }
+
+    /**
+     * @return a detached plugin without payload, see {@link PluginSummary#toPlugin()}
+     */
+    public Optional<Plugin> find(String pluginId, String language) {
+        return Optional.ofNullable(snapshot().byKey().get(new Key(pluginId, language))).map(PluginSummary::toPlugin);
+    }
+
+    public List<Plugin> findAllByLanguage(String language) {
+        return snapshot().byLanguage().getOrDefault(language, List.of()).stream()
+                .map(PluginSummary::toPlugin)
+                .toList();
+    }
+
+    public void invalidate() {
+        runNowAndAfterCommit(generation::incrementAndGet);
+    }
+
+    private Snapshot snapshot() {
+        long current = generation.get();
+        Snapshot cached = snapshot;
+        if (cached != null && cached.generation() == current) {
+            return cached;
+        }
+        Snapshot loaded = Snapshot.of(current, pluginRepository.findAllSummaries());
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private void runNowAndAfterCommit(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+
+    private record Key(String pluginId, String language) {
+    }
+
+    private record Snapshot(long generation, Map<Key, PluginSummary> byKey,
+                            Map<String, List<PluginSummary>> byLanguage) {
+
+        static Snapshot of(long generation, List<PluginSummary> summaries) {
+            Map<Key, PluginSummary> byKey = new HashMap<>();
+            Map<String, List<PluginSummary>> byLanguage = new HashMap<>();
+            for (PluginSummary summary : summaries) {
+                byKey.put(new Key(summary.pluginId(), summary.language()), summary);
+                byLanguage.computeIfAbsent(summary.language(), language -> new ArrayList<>()).add(summary);
+            }
+            byLanguage.replaceAll((language, list) -> List.copyOf(list));
+            return new Snapshot(generation, Map.copyOf(byKey), Map.copyOf(byLanguage));
+        }
+    }
+}
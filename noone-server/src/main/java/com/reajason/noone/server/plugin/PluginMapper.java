@@ -14,6 +14,9 @@ public interface PluginMapper {
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
     @Mapping(target = "source", ignore = true)
+    @Mapping(target = "payloadBytes", ignore = true)
+    @Mapping(target = "payloadHash", ignore = true)
+    @Mapping(target = "sourceHash", ignore = true)
     Plugin toEntity(PluginCreateRequest request);
 
     @Mapping(target = "id", source = "pluginId")
@@ -0,0 +1,57 @@
+package com.reajason.noone.server.plugin;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Decoded and rewritten plugin payloads, addressed by the digest of the stored payload so a re-uploaded plugin
+ * never sees the bytes of its previous upload.
+ * <p>
+ * An entry is keyed by plugin, version, language, digest and the class name a Java payload was rewritten to
+ * ({@code null} for the payload as stored). Caching a new digest drops the other digests of the same plugin, so
+ * only the current upload is kept. Returned arrays are shared and must not be modified.
+ */
+@Component
+public class PluginPayloadCache {
+
+    private final Map<Key, byte[]> payloads = new ConcurrentHashMap<>();
+
+    /**
+     * @param className the candidate class name the payload is rewritten to, or {@code null} for the stored payload
+     * @param loader    builds the payload on a miss; plugins without a digest are never cached
+     */
+    public byte[] get(Plugin plugin, String className, Supplier<byte[]> loader) {
+        if (plugin.getPayloadHash() == null) {
+            return loader.get();
+        }
+        Key key = new Key(plugin.getPluginId(), plugin.getVersion(), plugin.getLanguage(),
+                plugin.getPayloadHash(), className);
+        byte[] cached = payloads.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        byte[] loaded = loader.get();
+        byte[] raced = payloads.putIfAbsent(key, loaded);
+        if (raced != null) {
+            return raced;
+        }
+        payloads.keySet().removeIf(other -> other.isOlderUploadOf(key));
+        return loaded;
+    }
+
+    public int size() {
+        return payloads.size();
+    }
+
+    private record Key(String pluginId, String version, String language, String payloadHash, String className) {
+
+        boolean isOlderUploadOf(Key current) {
+            return Objects.equals(pluginId, current.pluginId) && Objects.equals(language, current.language)
+                    && !payloadHash.equals(current.payloadHash);
+        }
+    }
+}
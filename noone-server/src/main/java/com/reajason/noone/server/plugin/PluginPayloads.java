@@ -0,0 +1,64 @@
+package com.reajason.noone.server.plugin;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Plugins are uploaded with a text payload (base64 bytecode for Java and .NET, script source for Node.js) but
+ * stored and loaded as raw bytes.
+ */
+public final class PluginPayloads {
+
+    private PluginPayloads() {
+    }
+
+    /**
+     * Stores the decoded payload in {@link Plugin#getPayloadBytes()} with its digest and clears the text column.
+     * Payloads of unknown languages are kept as text.
+     */
+    public static void store(Plugin plugin) {
+        byte[] bytes = decode(plugin.getPluginId(), plugin.getLanguage(), plugin.getPayload());
+        if (bytes == null) {
+            plugin.setPayloadBytes(null);
+            plugin.setPayloadHash(null);
+            return;
+        }
+        plugin.setPayloadBytes(bytes);
+        plugin.setPayloadHash(sha256(bytes));
+        plugin.setPayload(null);
+    }
+
+    /**
+     * @return the raw payload, or {@code null} when there is none or the language is unknown
+     */
+    public static byte[] decode(String pluginId, String language, String payload) {
+        if (payload == null || payload.isBlank() || language == null) {
+            return null;
+        }
+        return switch (language) {
+            case "java", "dotnet" -> decodeBase64(pluginId, language, payload);
+            case "nodejs" -> payload.getBytes(StandardCharsets.UTF_8);
+            default -> null;
+        };
+    }
+
+    public static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static byte[] decodeBase64(String pluginId, String language, String payload) {
+        try {
+            return Base64.getDecoder().decode(payload);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Invalid base64 payload for plugin [" + pluginId + "] language [" + language + "]", e);
+        }
+    }
+}
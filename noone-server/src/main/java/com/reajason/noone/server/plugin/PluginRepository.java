@@ -2,12 +2,24 @@ package com.reajason.noone.server.plugin;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 public interface PluginRepository extends JpaRepository<Plugin, Long>, JpaSpecificationExecutor<Plugin> {
     Optional<Plugin> findByPluginIdAndLanguage(String pluginId, String language);
 
     List<Plugin> findAllByLanguage(String language);
+
+    List<Plugin> findAllByPluginIdIn(Collection<String> pluginIds);
+
+    @Query("select p.sourceHash from Plugin p where p.sourceHash is not null")
+    Set<String> findAllSourceHashes();
+
+    @Query("select new com.reajason.noone.server.plugin.PluginSummary(p.id, p.pluginId, p.name, p.version, "
+            + "p.language, p.type, p.runMode, p.payloadHash, p.meta, p.updatedAt) from Plugin p")
+    List<PluginSummary> findAllSummaries();
 }
@@ -15,9 +15,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.lang.model.SourceVersion;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +30,7 @@ public class PluginService {
 
     private final PluginRepository pluginRepository;
     private final PluginMapper pluginMapper;
+    private final PluginCatalog pluginCatalog;
 
     public PluginResponse create(PluginCreateRequest request) {
         return create(request, PluginSource.UPLOADED);
@@ -34,10 +39,58 @@ public class PluginService {
     public PluginResponse create(PluginCreateRequest request, PluginSource source) {
         validateRequest(request);
         Optional<Plugin> existing = pluginRepository.findByPluginIdAndLanguage(request.getId(), request.getLanguage());
+        Plugin plugin = merge(existing.orElse(null), request, source, null);
 
+        Plugin savedPlugin = pluginRepository.save(plugin);
+        pluginCatalog.invalidate();
+        return pluginMapper.toResponse(savedPlugin);
+    }
+
+    /**
+     * Creates or updates all given plugins in one transaction, remembering the hash of the resource each one was read
+     * from so an unchanged resource can be skipped next time. When several imports share a plugin id and language
+     * the last one wins.
+     *
+     * @return the number of plugins written
+     */
+    public int importAll(List<PluginImport> imports, PluginSource source) {
+        if (imports.isEmpty()) {
+            return 0;
+        }
+        Set<String> pluginIds = new HashSet<>();
+        for (PluginImport pluginImport : imports) {
+            validateRequest(pluginImport.request());
+            pluginIds.add(pluginImport.request().getId());
+        }
+        Map<String, Plugin> existing = new HashMap<>();
+        for (Plugin plugin : pluginRepository.findAllByPluginIdIn(pluginIds)) {
+            existing.put(importKey(plugin.getPluginId(), plugin.getLanguage()), plugin);
+        }
+
+        Map<String, Plugin> plugins = new LinkedHashMap<>();
+        for (PluginImport pluginImport : imports) {
+            PluginCreateRequest request = pluginImport.request();
+            String key = importKey(request.getId(), request.getLanguage());
+            plugins.put(key, merge(plugins.getOrDefault(key, existing.get(key)), request, source,
+                    pluginImport.sourceHash()));
+        }
+        pluginRepository.saveAll(List.copyOf(plugins.values()));
+        pluginCatalog.invalidate();
+        return plugins.size();
+    }
+
+    /**
+     * @return the resource hashes recorded by {@link #importAll}
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findImportedSourceHashes() {
+        return pluginRepository.findAllSourceHashes();
+    }
+
+    private Plugin merge(Plugin existing, PluginCreateRequest request, PluginSource source, String sourceHash) {
         Plugin plugin;
-        if (existing.isPresent()) {
-            plugin = existing.get();
+        if (existing != null) {
+            plugin = existing;
             plugin.setPluginId(request.getId());
             plugin.setName(request.getName());
             plugin.setVersion(request.getVersion());
@@ -54,9 +107,13 @@ public class PluginService {
             plugin = pluginMapper.toEntity(request);
             plugin.setSource(source);
         }
+        plugin.setSourceHash(sourceHash);
+        PluginPayloads.store(plugin);
+        return plugin;
+    }
 
-        Plugin savedPlugin = pluginRepository.save(plugin);
-        return pluginMapper.toResponse(savedPlugin);
+    private static String importKey(String pluginId, String language) {
+        return pluginId + "@" + language;
     }
 
     @Transactional(readOnly = true)
@@ -74,7 +131,9 @@ public class PluginService {
         if (request.getAuthor() != null) plugin.setAuthor(request.getAuthor());
         if (request.getType() != null) plugin.setType(request.getType());
         if (request.getRunMode() != null) plugin.setRunMode(request.getRunMode());
+        plugin.setSourceHash(null);
         Plugin saved = pluginRepository.save(plugin);
+        pluginCatalog.invalidate();
         return pluginMapper.toResponse(saved);
     }
 
@@ -82,6 +141,7 @@ public class PluginService {
         Plugin plugin = pluginRepository.findById(id)
                 .orElseThrow(() -> new IllegalArgumentException("Plugin not found: " + id));
         pluginRepository.delete(plugin);
+        pluginCatalog.invalidate();
     }
 
     @Transactional(readOnly = true)
@@ -121,4 +181,10 @@ public class PluginService {
             }
         }
     }
+
+    /**
+     * A plugin read from a resource, with the SHA-256 of the resource's bytes.
+     */
+    public record PluginImport(PluginCreateRequest request, String sourceHash) {
+    }
 }
@@ -0,0 +1,35 @@
+package com.reajason.noone.server.plugin;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A plugin without its payload and actions, as {@link PluginCatalog} keeps it.
+ */
+public record PluginSummary(Long id, String pluginId, String name, String version, String language, String type,
+                            String runMode, String payloadHash, Map<String, Object> meta, LocalDateTime updatedAt) {
+
+    public PluginSummary {
+        meta = meta != null ? Collections.unmodifiableMap(new LinkedHashMap<>(meta)) : null;
+    }
+
+    /**
+     * A detached {@link Plugin} holding only this metadata; its payload is read when a load needs it.
+     */
+    public Plugin toPlugin() {
+        Plugin plugin = new Plugin();
+        plugin.setId(id);
+        plugin.setPluginId(pluginId);
+        plugin.setName(name);
+        plugin.setVersion(version);
+        plugin.setLanguage(language);
+        plugin.setType(type);
+        plugin.setRunMode(runMode);
+        plugin.setPayloadHash(payloadHash);
+        plugin.setMeta(meta);
+        plugin.setUpdatedAt(updatedAt);
+        return plugin;
+    }
+}
@@ -1,7 +1,7 @@
 package com.reajason.noone.server.plugin.registry;
 
 import com.reajason.noone.server.plugin.Plugin;
-import com.reajason.noone.server.plugin.PluginRepository;
+import com.reajason.noone.server.plugin.PluginCatalog;
 import com.reajason.noone.server.plugin.PluginService;
 import com.reajason.noone.server.plugin.PluginSource;
 import com.reajason.noone.server.plugin.dto.PluginCreateRequest;
@@ -23,7 +23,7 @@ import java.util.concurrent.atomic.AtomicReference;
 public class PluginRegistryService {
 
     private final PluginRegistryProperties properties;
-    private final PluginRepository pluginRepository;
+    private final PluginCatalog pluginCatalog;
     private final PluginService pluginService;
 
     private final AtomicReference<CachedCatalog> cachedCatalog = new AtomicReference<>();
@@ -61,8 +61,7 @@ public class PluginRegistryService {
             EnrichedCatalogEntry enriched = new EnrichedCatalogEntry();
             BeanUtils.copyProperties(entry, enriched);
 
-            Optional<Plugin> local = pluginRepository.findByPluginIdAndLanguage(
-                    entry.getId(), entry.getLanguage());
+            Optional<Plugin> local = pluginCatalog.find(entry.getId(), entry.getLanguage());
 
             if (local.isPresent()) {
                 Plugin plugin = local.get();
@@ -0,0 +1,90 @@
+package com.reajason.noone.server.profile;
+
+import com.reajason.noone.core.profile.Profile;
+import com.reajason.noone.core.transform.TransformConfig;
+import com.reajason.noone.core.transform.TransformContext;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Profiles as shell connections use them: mapped to the core {@link Profile}, with the transformations parsed and
+ * the transform pipeline built once per profile version.
+ * <p>
+ * Entries stay until {@link ProfileService} changes the profile. Invalidation runs immediately and again after the
+ * surrounding transaction commits, and a load that overlapped an invalidation is returned but not cached, so a
+ * concurrent request cannot re-cache the version the commit just replaced.
+ *
+ * @author ReaJason
+ */
+@Component
+public class CompiledProfileCache {
+
+    @Resource
+    private ProfileRepository profileRepository;
+
+    @Resource
+    private ProfileMapper profileMapper;
+
+    private final Map<Long, CompiledProfile> profiles = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CompiledProfile get(Long profileId) {
+        CompiledProfile cached = profiles.get(profileId);
+        if (cached != null) {
+            return cached;
+        }
+        long seen = invalidations.get();
+        ProfileEntity entity = profileRepository.findById(profileId)
+                .orElseThrow(() -> new IllegalArgumentException("Profile not found: " + profileId));
+        CompiledProfile compiled = compile(entity);
+        if (invalidations.get() == seen) {
+            CompiledProfile raced = profiles.putIfAbsent(profileId, compiled);
+            if (raced != null) {
+                return raced;
+            }
+        }
+        return compiled;
+    }
+
+    public void invalidate(Long profileId) {
+        runNowAndAfterCommit(() -> {
+            invalidations.incrementAndGet();
+            profiles.remove(profileId);
+        });
+    }
+
+    private CompiledProfile compile(ProfileEntity entity) {
+        Profile profile = profileMapper.toProfile(entity);
+        TransformConfig transformConfig = TransformConfig.fromProfile(profile);
+        return new CompiledProfile(entity.getId(), entity.getUpdatedAt(), profile, transformConfig,
+                TransformContext.of(transformConfig));
+    }
+
+    private void runNowAndAfterCommit(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        }
+    }
+
+    /**
+     * One version of a profile. The transform is shared by every connection using this version.
+     *
+     * @param updatedAt identifies the version; connections built from an older one are rebuilt
+     */
+    public record CompiledProfile(Long id, LocalDateTime updatedAt, Profile profile,
+                                  TransformConfig transformConfig, TransformContext transform) {
+    }
+}
@@ -3,10 +3,23 @@ package com.reajason.noone.server.profile;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface ProfileRepository extends JpaRepository<ProfileEntity, Long>, JpaSpecificationExecutor<ProfileEntity> {
     boolean existsByNameAndDeletedFalse(String name);
     boolean existsByNameAndIdNotAndDeletedFalse(String name, Long id);
     Optional<ProfileEntity> findByIdAndDeletedFalse(Long id);
+
+    /**
+     * Selects only id and name, for resolving profile names of a page of shells in one query.
+     */
+    List<ProfileName> findByIdIn(Collection<Long> ids);
+
+    interface ProfileName {
+        Long getId();
+
+        String getName();
+    }
 }
@@ -25,11 +25,14 @@ public class ProfileService {
     private final ProfileRepository profileRepository;
     private final ProfileMapper profileMapper;
     private final PasswordEncoder passwordEncoder;
+    private final CompiledProfileCache compiledProfileCache;
 
-    public ProfileService(ProfileRepository profileRepository, ProfileMapper profileMapper, PasswordEncoder passwordEncoder) {
+    public ProfileService(ProfileRepository profileRepository, ProfileMapper profileMapper, PasswordEncoder passwordEncoder,
+                          CompiledProfileCache compiledProfileCache) {
         this.profileRepository = profileRepository;
         this.profileMapper = profileMapper;
         this.passwordEncoder = passwordEncoder;
+        this.compiledProfileCache = compiledProfileCache;
     }
 
     @AuditLog(module = AuditModule.PROFILE, action = AuditAction.CREATE, targetType = "Profile", targetId = "#result.id")
@@ -67,6 +70,7 @@ public class ProfileService {
 
         profileMapper.updateEntity(profile, request);
         ProfileEntity saved = profileRepository.save(profile);
+        compiledProfileCache.invalidate(id);
         return profileMapper.toResponse(saved);
     }
 
@@ -76,6 +80,7 @@ public class ProfileService {
                 .orElseThrow(() -> new ResourceNotFoundException("Profile not found：" + id));
         profile.setDeleted(Boolean.TRUE);
         profileRepository.save(profile);
+        compiledProfileCache.invalidate(id);
     }
 
     @Transactional(readOnly = true)
@@ -8,72 +8,102 @@ import com.reajason.noone.core.client.*;
 import com.reajason.noone.core.profile.Profile;
 import com.reajason.noone.core.profile.config.*;
 import com.reajason.noone.core.transform.TransformConfig;
-import com.reajason.noone.server.profile.ProfileEntity;
-import com.reajason.noone.server.profile.ProfileMapper;
-import com.reajason.noone.server.profile.ProfileRepository;
+import com.reajason.noone.core.transform.TransformContext;
+import com.reajason.noone.server.profile.CompiledProfileCache;
+import com.reajason.noone.server.profile.CompiledProfileCache.CompiledProfile;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
 import org.springframework.stereotype.Component;
 
 import java.net.URI;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
-
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches one {@link ShellConnection} per shell, rebuilt when the shell or its profiles change. Profiles come from
+ * {@link CompiledProfileCache}, so returning a cached connection touches no database.
+ * <p>
+ * The cache is bounded per protocol by {@link ShellConnectionPoolProperties#getMaxSize()}, evicting the least
+ * recently used connection, and connections unused for {@link ShellConnectionPoolProperties#getIdleTimeout()} are
+ * swept out. Connections with requests in flight are never evicted, so a protocol may run over its limit until they
+ * answer. Evicted connections are disconnected; the next request for the shell rebuilds it, and its plugin cache
+ * is seeded again by the first status check.
+ */
 @Slf4j
 @Component
-public class ShellConnectionPool {
+public class ShellConnectionPool implements SchedulingConfigurer {
 
-    private static final String SIG_DELIMITER = "\n";
+    @Resource
+    private CompiledProfileCache compiledProfileCache;
 
     @Resource
-    private ProfileRepository profileRepository;
+    private ShellConnectionPoolProperties properties;
 
     private final ConcurrentHashMap<Long, CacheEntry> cache = new ConcurrentHashMap<>();
-
-    private final ProfileMapper profileMapper;
-
-    public ShellConnectionPool(ProfileMapper profileMapper) {
-        this.profileMapper = profileMapper;
-    }
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
 
     public ShellConnection getOrCreateCached(Shell shell) {
         if (shell.getId() == null) {
             return createUncached(shell);
         }
 
-        ProfileEntity profile = loadProfile(shell.getProfileId());
-        ProfileEntity loaderProfile;
+        CompiledProfile profile = compiledProfileCache.get(shell.getProfileId());
+        CompiledProfile loaderProfile;
         if (shell.getStaging()) {
-            loaderProfile = loadProfile(shell.getLoaderProfileId());
+            loaderProfile = compiledProfileCache.get(shell.getLoaderProfileId());
         } else {
             loaderProfile = null;
         }
 
-        String signature = signature(shell, profile, loaderProfile);
+        ConnectionSignature signature = ConnectionSignature.of(shell, effectiveLanguage(shell), profile, loaderProfile);
 
-        CacheEntry entry = cache.compute(shell.getId(), (id, existing) -> {
-            if (existing != null && Objects.equals(existing.signature(), signature)) {
-                return existing;
+        while (true) {
+            CacheEntry existing = cache.get(shell.getId());
+            if (existing != null && existing.signature.equals(signature)) {
+                hits.incrementAndGet();
+                existing.touch();
+                return await(existing.connection);
             }
 
-            ShellConnection next = createConnection(shell, profile, loaderProfile);
+            // single flight: only the thread that installs the entry builds the connection, outside the map lock
+            CacheEntry created = new CacheEntry(signature, profile.profile().getProtocolType());
+            boolean installed = existing == null
+                    ? cache.putIfAbsent(shell.getId(), created) == null
+                    : cache.replace(shell.getId(), existing, created);
+            if (!installed) {
+                continue;
+            }
+            misses.incrementAndGet();
             if (existing != null) {
-                safeDisconnect(existing.connection());
+                disconnectWhenReady(existing);
             }
-            return new CacheEntry(signature, next);
-        });
-
-        return entry.connection();
+            try {
+                created.connection.complete(createConnection(shell, profile, loaderProfile));
+            } catch (RuntimeException | Error e) {
+                cache.remove(shell.getId(), created);
+                created.connection.completeExceptionally(e);
+                throw e;
+            }
+            evictOverCapacity(created.protocolType);
+            return created.connection.join();
+        }
     }
 
     public ShellConnection createUncached(Shell shell) {
-        ProfileEntity profile = loadProfile(shell.getProfileId());
-        ProfileEntity loaderProfile = null;
+        CompiledProfile profile = compiledProfileCache.get(shell.getProfileId());
+        CompiledProfile loaderProfile = null;
         if (shell.getStaging()) {
-            loaderProfile = loadProfile(shell.getLoaderProfileId());
+            loaderProfile = compiledProfileCache.get(shell.getLoaderProfileId());
         }
         return createConnection(shell, profile, loaderProfile);
     }
@@ -84,45 +114,117 @@ public class ShellConnectionPool {
         }
         CacheEntry removed = cache.remove(shellId);
         if (removed != null) {
-            safeDisconnect(removed.connection());
+            disconnectWhenReady(removed);
+        }
+    }
+
+    /**
+     * Sweeps for idle connections every {@link ShellConnectionPoolProperties#getSweepInterval()}.
+     */
+    @Override
+    public void configureTasks(ScheduledTaskRegistrar registrar) {
+        registrar.addFixedDelayTask(this::evictIdle, properties.getSweepInterval());
+    }
+
+    /**
+     * Disconnects connections nobody used within the idle timeout.
+     */
+    public void evictIdle() {
+        long idleBefore = System.nanoTime() - properties.getIdleTimeout().toNanos();
+        cache.forEach((shellId, entry) -> {
+            if (isEvictable(entry) && entry.lastAccessNanos - idleBefore <= 0) {
+                evictEntry(shellId, entry);
+            }
+        });
+    }
+
+    public Stats stats() {
+        Map<ProtocolType, Integer> sizes = new EnumMap<>(ProtocolType.class);
+        for (CacheEntry entry : cache.values()) {
+            sizes.merge(entry.protocolType, 1, Integer::sum);
+        }
+        return new Stats(hits.get(), misses.get(), evictions.get(), cache.size(), sizes);
+    }
+
+    /**
+     * Keeps the protocol within its limit by evicting its least recently used idle connections. This scans the cache,
+     * which only happens when a connection is built.
+     */
+    private void evictOverCapacity(ProtocolType protocolType) {
+        Integer max = properties.getMaxSize().get(protocolType);
+        if (max == null) {
+            return;
+        }
+        while (true) {
+            int size = 0;
+            Map.Entry<Long, CacheEntry> eldest = null;
+            for (Map.Entry<Long, CacheEntry> candidate : cache.entrySet()) {
+                CacheEntry entry = candidate.getValue();
+                if (entry.protocolType != protocolType) {
+                    continue;
+                }
+                size++;
+                if (isEvictable(entry)
+                        && (eldest == null || entry.lastAccessNanos - eldest.getValue().lastAccessNanos < 0)) {
+                    eldest = candidate;
+                }
+            }
+            if (size <= max || eldest == null) {
+                return;
+            }
+            evictEntry(eldest.getKey(), eldest.getValue());
         }
     }
 
-    private ProfileEntity loadProfile(Long profileId) {
-        return profileRepository.findById(profileId)
-                .orElseThrow(() -> new IllegalArgumentException("Profile not found: " + profileId));
+    /**
+     * Connections still being built are not candidates, their requests are about to use them; nor are connections
+     * still waiting on a shell, which a disconnect would fail mid-request.
+     */
+    private boolean isEvictable(CacheEntry entry) {
+        return entry.connection.isDone()
+                && !entry.connection.isCompletedExceptionally()
+                && entry.connection.join().inFlightRequests() == 0;
     }
 
-    private ShellConnection createConnection(Shell shell, ProfileEntity profile, ProfileEntity loaderProfile) {
-        Profile coreProfile = profileMapper.toProfile(profile);
-        Client coreClient = buildClient(shell, profile, coreProfile);
+    private void evictEntry(Long shellId, CacheEntry entry) {
+        if (cache.remove(shellId, entry)) {
+            evictions.incrementAndGet();
+            disconnectWhenReady(entry);
+        }
+    }
+
+    private ShellConnection createConnection(Shell shell, CompiledProfile profile, CompiledProfile loaderProfile) {
+        Profile coreProfile = profile.profile();
+        TransformContext coreTransform = profile.transform();
+        Client coreClient = buildClient(shell, profile);
 
         ShellLanguage language = effectiveLanguage(shell);
 
         ShellConnection conn;
         if (shell.getStaging()) {
-            Profile loaderProfileMapped = profileMapper.toProfile(loaderProfile);
-            Client loaderClient = buildClient(shell, loaderProfile, loaderProfileMapped);
+            Client loaderClient = buildClient(shell, loaderProfile);
+            TransformContext loaderTransform = loaderProfile.transform();
 
             conn = switch (language) {
-                case JAVA -> new JavaConnection(coreClient, coreProfile, loaderClient, loaderProfileMapped, shell.getShellType());
-                case NODEJS -> new NodeJsConnection(coreClient, coreProfile, loaderClient, loaderProfileMapped, shell.getShellType());
-                case DOTNET -> new DotNetConnection(coreClient, coreProfile, loaderClient, loaderProfileMapped, shell.getShellType());
+                case JAVA -> new JavaConnection(coreClient, coreProfile, coreTransform, loaderClient, loaderTransform, shell.getShellType());
+                case NODEJS -> new NodeJsConnection(coreClient, coreProfile, coreTransform, loaderClient, loaderTransform, shell.getShellType());
+                case DOTNET -> new DotNetConnection(coreClient, coreProfile, coreTransform, loaderClient, loaderTransform, shell.getShellType());
             };
         } else {
             conn = switch (language) {
-                case JAVA -> new JavaConnection(coreClient, coreProfile);
-                case NODEJS -> new NodeJsConnection(coreClient, coreProfile);
-                case DOTNET -> new DotNetConnection(coreClient, coreProfile);
+                case JAVA -> new JavaConnection(coreClient, coreProfile, coreTransform);
+                case NODEJS -> new NodeJsConnection(coreClient, coreProfile, coreTransform);
+                case DOTNET -> new DotNetConnection(coreClient, coreProfile, coreTransform);
             };
         }
         return conn;
     }
 
-    private Client buildClient(Shell shell, ProfileEntity profile, Profile coreProfile) {
+    private Client buildClient(Shell shell, CompiledProfile compiled) {
+        Profile profile = compiled.profile();
         if (profile.getProtocolType() == ProtocolType.HTTP) {
-            TransformConfig tc = TransformConfig.fromProfile(coreProfile);
-            HttpClientConfig config = buildHttpClientConfig(shell, profile, tc);
+            // the same config the connection transforms with, so a multipart boundary matches the content type
+            HttpClientConfig config = buildHttpClientConfig(shell, profile, compiled.transformConfig());
             return new HttpClient(shell.getUrl(), config);
         } else if (profile.getProtocolType() == ProtocolType.WEBSOCKET) {
             WebSocketClientConfig config = buildWebSocketClientConfig(shell, profile);
@@ -138,7 +240,7 @@ public class ShellConnectionPool {
         return shell.getLanguage() != null ? shell.getLanguage() : ShellLanguage.JAVA;
     }
 
-    private HttpClientConfig buildHttpClientConfig(Shell shell, ProfileEntity profile, TransformConfig tc) {
+    private HttpClientConfig buildHttpClientConfig(Shell shell, Profile profile, TransformConfig tc) {
         HttpClientConfig.HttpClientConfigBuilder builder = HttpClientConfig.builder();
         Map<String, String> requestHeaders = new HashMap<>();
         Map<String, String> requestParams = new HashMap<>();
@@ -175,7 +277,7 @@ public class ShellConnectionPool {
         return builder.build();
     }
 
-    private WebSocketClientConfig buildWebSocketClientConfig(Shell shell, ProfileEntity profile) {
+    private WebSocketClientConfig buildWebSocketClientConfig(Shell shell, Profile profile) {
         WebSocketClientConfig.WebSocketClientConfigBuilder builder = WebSocketClientConfig.builder();
         Map<String, String> requestHeaders = new HashMap<>();
         Map<String, String> requestParams = new HashMap<>();
@@ -188,6 +290,7 @@ public class ShellConnectionPool {
             if (wsConfig.getHandshakeHeaders() != null) {
                 requestHeaders.putAll(wsConfig.getHandshakeHeaders());
             }
+            builder.multiplex(wsConfig.isMultiplex());
         }
 
         if (shell.getCustomHeaders() != null && !shell.getCustomHeaders().isEmpty()) {
@@ -214,7 +317,7 @@ public class ShellConnectionPool {
         return builder.build();
     }
 
-    private DubboClientConfig buildDubboClientConfig(Shell shell, ProfileEntity profile) {
+    private DubboClientConfig buildDubboClientConfig(Shell shell, Profile profile) {
         DubboClientConfig.DubboClientConfigBuilder builder = DubboClientConfig.builder();
         builder.interfaceName(shell.getInterfaceName());
         ProtocolConfig protocolConfig = profile.getProtocolConfig();
@@ -315,41 +418,23 @@ public class ShellConnectionPool {
         }
     }
 
-    private String signature(Shell shell, ProfileEntity profile, ProfileEntity loaderProfile) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("url=").append(nullToEmpty(shell.getUrl())).append(SIG_DELIMITER);
-        sb.append("language=").append(effectiveLanguage(shell).getValue()).append(SIG_DELIMITER);
-        sb.append("staging=").append(Boolean.TRUE.equals(shell.getStaging())).append(SIG_DELIMITER);
-        sb.append("shellType=").append(nullToEmpty(shell.getShellType())).append(SIG_DELIMITER);
-        sb.append("profileId=").append(shell.getProfileId()).append(SIG_DELIMITER);
-        sb.append("protocolType=").append(profile.getProtocolType()).append(SIG_DELIMITER);
-        sb.append("profileUpdatedAt=").append(nullToEmpty(profile.getUpdatedAt())).append(SIG_DELIMITER);
-        sb.append("proxyUrl=").append(nullToEmpty(shell.getProxyUrl())).append(SIG_DELIMITER);
-        sb.append("connectTimeoutMs=").append(shell.getConnectTimeoutMs()).append(SIG_DELIMITER);
-        sb.append("readTimeoutMs=").append(shell.getReadTimeoutMs()).append(SIG_DELIMITER);
-        sb.append("skipSslVerify=").append(shell.getSkipSslVerify()).append(SIG_DELIMITER);
-        sb.append("maxRetries=").append(shell.getMaxRetries()).append(SIG_DELIMITER);
-        sb.append("retryDelayMs=").append(shell.getRetryDelayMs()).append(SIG_DELIMITER);
-        sb.append("customHeaders=").append(stableHeaders(shell.getCustomHeaders())).append(SIG_DELIMITER);
-        if (loaderProfile != null) {
-            sb.append("loaderProfileId=").append(loaderProfile.getId()).append(SIG_DELIMITER);
-            sb.append("loaderProfileUpdatedAt=").append(nullToEmpty(loaderProfile.getUpdatedAt())).append(SIG_DELIMITER);
-        }
-        return sb.toString();
-    }
-
-    private String stableHeaders(Map<String, String> headers) {
-        if (headers == null || headers.isEmpty()) {
-            return "";
+    /**
+     * Waits for a connection another request is building. Blocking on the future parks a virtual thread without
+     * pinning its carrier.
+     */
+    private ShellConnection await(CompletableFuture<ShellConnection> connection) {
+        try {
+            return connection.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
         }
-        return headers.entrySet().stream()
-                .sorted(Map.Entry.comparingByKey())
-                .map(e -> e.getKey() + "=" + e.getValue())
-                .collect(Collectors.joining("&"));
     }
 
-    private String nullToEmpty(Object value) {
-        return value == null ? "" : String.valueOf(value);
+    private void disconnectWhenReady(CacheEntry entry) {
+        entry.connection.thenAccept(this::safeDisconnect);
     }
 
     private void safeDisconnect(ShellConnection connection) {
@@ -360,6 +445,47 @@ public class ShellConnectionPool {
         }
     }
 
-    private record CacheEntry(String signature, ShellConnection connection) {
+    public record Stats(long hits, long misses, long evictions, int size, Map<ProtocolType, Integer> sizeByProtocol) {
+    }
+
+    /**
+     * Everything a cached connection was built from. Comparing two is a field-by-field equals, with no string
+     * building or database access; profiles are identified by id and version.
+     */
+    private record ConnectionSignature(
+            String url, ShellLanguage language, boolean staging, String shellType, String interfaceName,
+            Long profileId, LocalDateTime profileUpdatedAt,
+            Long loaderProfileId, LocalDateTime loaderProfileUpdatedAt,
+            String proxyUrl, Integer connectTimeoutMs, Integer readTimeoutMs, Boolean skipSslVerify,
+            Integer maxRetries, Long retryDelayMs, Map<String, String> customHeaders) {
+
+        static ConnectionSignature of(Shell shell, ShellLanguage language,
+                                      CompiledProfile profile, CompiledProfile loaderProfile) {
+            return new ConnectionSignature(
+                    shell.getUrl(), language, Boolean.TRUE.equals(shell.getStaging()), shell.getShellType(),
+                    shell.getInterfaceName(),
+                    profile.id(), profile.updatedAt(),
+                    loaderProfile != null ? loaderProfile.id() : null,
+                    loaderProfile != null ? loaderProfile.updatedAt() : null,
+                    shell.getProxyUrl(), shell.getConnectTimeoutMs(), shell.getReadTimeoutMs(), shell.getSkipSslVerify(),
+                    shell.getMaxRetries(), shell.getRetryDelayMs(),
+                    shell.getCustomHeaders() == null ? Map.of() : new HashMap<>(shell.getCustomHeaders()));
+        }
+    }
+
+    private static final class CacheEntry {
+        private final ConnectionSignature signature;
+        private final ProtocolType protocolType;
+        private final CompletableFuture<ShellConnection> connection = new CompletableFuture<>();
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private CacheEntry(ConnectionSignature signature, ProtocolType protocolType) {
+            this.signature = signature;
+            this.protocolType = protocolType;
+        }
+
+        private void touch() {
+            lastAccessNanos = System.nanoTime();
+        }
     }
 }
@@ -0,0 +1,35 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.core.profile.config.ProtocolType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "noone.connection-pool")
+public class ShellConnectionPoolProperties {
+    /**
+     * Most cached connections kept per protocol; beyond it the least recently used one is disconnected.
+     * A protocol missing from the map is not bounded.
+     */
+    private Map<ProtocolType, Integer> maxSize = new EnumMap<>(Map.of(
+            ProtocolType.HTTP, 512,
+            ProtocolType.WEBSOCKET, 128,
+            ProtocolType.DUBBO, 64));
+
+    /**
+     * How long a cached connection may go unused before it is disconnected.
+     */
+    private Duration idleTimeout = Duration.ofMinutes(30);
+
+    /**
+     * Seconds between sweeps for idle connections.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration sweepInterval = Duration.ofSeconds(60);
+}
@@ -9,7 +9,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
 
 /**
@@ -25,6 +29,7 @@ import java.util.Map;
 public class ShellController {
 
     private final ShellService shellService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @PreAuthorize("@authorizationService.hasSystemPermission('shell:create')")
@@ -60,6 +65,23 @@ public class ShellController {
         return ResponseEntity.ok(shellService.query(request));
     }
 
+    /**
+     * Streams every matching shell as newline-delimited JSON summaries, for bulk listings and exports.
+     */
+    @GetMapping(value = "/summaries", produces = "application/x-ndjson")
+    @PreAuthorize("@authorizationService.hasSystemPermission('shell:list')")
+    public ResponseEntity<StreamingResponseBody> streamSummaries(ShellQueryRequest request) {
+        StreamingResponseBody body = out -> shellService.streamSummaries(request, summary -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(summary));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok(body);
+    }
+
     @PostMapping("/{id}/test")
     @PreAuthorize("@authorizationService.hasSystemPermission('shell:test')")
     public ResponseEntity<Map<String, Object>> testConnection(@PathVariable Long id) {
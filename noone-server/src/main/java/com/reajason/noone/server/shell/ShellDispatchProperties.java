@@ -0,0 +1,19 @@
+package com.reajason.noone.server.shell;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+@Data
+@ConfigurationProperties(prefix = "noone.dispatch")
+public class ShellDispatchProperties {
+    /**
+     * Seconds a plugin dispatch may wait for the shell before it is answered as timed out and the call is
+     * abandoned. Set on each dispatch, so it is not cut short by the servlet async timeout.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration timeout = Duration.ofSeconds(300);
+}
@@ -6,6 +6,10 @@ import com.reajason.noone.server.shell.dto.ShellResponse;
 import com.reajason.noone.server.shell.dto.ShellUpdateRequest;
 import jakarta.annotation.Resource;
 import org.mapstruct.*;
+import org.springframework.data.domain.Page;
+
+import java.util.*;
+import java.util.stream.Collectors;
 
 /**
  * Mapper for converting between Shell entities and DTOs
@@ -81,17 +85,40 @@ public abstract class ShellMapper {
         }
     }
 
+    public ShellResponse toResponse(Shell shell) {
+        return toResponse(shell, resolveProfileNames(List.of(shell)));
+    }
+
+    /**
+     * Maps a page of shells, resolving all profile names with a single query instead of one per shell.
+     */
+    public Page<ShellResponse> toResponsePage(Page<Shell> shells) {
+        Map<Long, String> profileNames = resolveProfileNames(shells.getContent());
+        return shells.map(shell -> toResponse(shell, profileNames));
+    }
+
     @Mapping(target = "profileName", ignore = true)
-    public abstract ShellResponse toResponse(Shell shell);
+    protected abstract ShellResponse toResponse(Shell shell, @Context Map<Long, String> profileNames);
 
     @AfterMapping
-    protected void afterToResponse(@MappingTarget ShellResponse response, Shell shell) {
+    protected void afterToResponse(@MappingTarget ShellResponse response, Shell shell, @Context Map<Long, String> profileNames) {
         if (response.getLanguage() == null) {
             response.setLanguage(ShellLanguage.JAVA);
         }
         if (shell.getProfileId() != null) {
-            profileRepository.findById(shell.getProfileId())
-                    .ifPresent(profile -> response.setProfileName(profile.getName()));
+            response.setProfileName(profileNames.get(shell.getProfileId()));
+        }
+    }
+
+    private Map<Long, String> resolveProfileNames(Collection<Shell> shells) {
+        Set<Long> profileIds = shells.stream()
+                .map(Shell::getProfileId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        if (profileIds.isEmpty()) {
+            return Map.of();
         }
+        return profileRepository.findByIdIn(profileIds).stream()
+                .collect(Collectors.toMap(ProfileRepository.ProfileName::getId, ProfileRepository.ProfileName::getName));
     }
 }
@@ -1,14 +1,34 @@
 package com.reajason.noone.server.shell;
 
+import com.reajason.noone.core.Constants;
+import com.reajason.noone.server.shell.dto.ShellPluginBatchDispatchRequest;
 import com.reajason.noone.server.shell.dto.ShellPluginDispatchRequest;
 import com.reajason.noone.server.shell.dto.ShellPluginStatusResponse;
 import lombok.RequiredArgsConstructor;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/shells")
@@ -16,16 +36,128 @@ import java.util.Map;
 public class ShellPluginController {
 
     private final ShellPluginService shellPluginService;
+    private final ShellDispatchProperties dispatchProperties;
 
+    static final String CACHE_HEADER = "X-Cache";
+
+    /**
+     * Answers in CBOR when the client prefers {@code application/cbor} to JSON, so binary values in the plugin
+     * response arrive as byte strings instead of base64 text. Responses to actions the plugin caches carry
+     * {@code X-Cache: HIT} or {@code MISS} and an {@code Age} in seconds, so the UI can show how stale they are.
+     * <p>
+     * Neither path holds the request thread while the shell answers. When the browser goes away or the dispatch
+     * times out, the shell call is cancelled instead of running on for nobody.
+     */
     @PostMapping("/{id}/dispatch")
     @PreAuthorize("@authorizationService.hasSystemPermission('shell:dispatch')")
-    public ResponseEntity<Map<String, Object>> dispatch(@PathVariable Long id,
-                                                         @RequestBody ShellPluginDispatchRequest request) {
+    public DeferredResult<ResponseEntity<?>> dispatch(@PathVariable Long id,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                      @RequestBody ShellPluginDispatchRequest request) {
+        Duration timeout = dispatchProperties.getTimeout();
+        DeferredResult<ResponseEntity<?>> deferred = new DeferredResult<>(timeout.toMillis(),
+                () -> ResponseEntity.ok(timedOut(timeout)));
+        HttpHeaders headers = new HttpHeaders();
+        Consumer<ShellPluginResultCache.Result> cacheResult = result -> {
+            headers.set(CACHE_HEADER, result.hit() ? "HIT" : "MISS");
+            headers.set(HttpHeaders.AGE, String.valueOf(TimeUnit.MILLISECONDS.toSeconds(result.ageMillis())));
+        };
+        if (prefersCbor(accept)) {
+            // the CBOR response streams from the shell's TLV, so it runs on a thread of its own
+            runDeferred(deferred, "shell-dispatch-" + id, () -> {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                shellPluginService.dispatchPluginCbor(id, request.getPluginId(), dispatchArgs(request), out, cacheResult);
+                return ResponseEntity.ok().headers(headers).contentType(MediaType.APPLICATION_CBOR)
+                        .body(out.toByteArray());
+            });
+            return deferred;
+        }
+        CompletableFuture<Map<String, Object>> response = shellPluginService.dispatchPluginAsync(
+                id, request.getPluginId(), dispatchArgs(request), cacheResult);
+        // completion covers the browser disconnecting and the timeout; after a result it is a no-op
+        deferred.onCompletion(() -> response.cancel(true));
+        response.whenComplete((body, failure) -> {
+            if (failure == null) {
+                deferred.setResult(ResponseEntity.ok().headers(headers).body(body));
+            } else if (!(failure instanceof CancellationException)) {
+                deferred.setErrorResult(failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure);
+            }
+        });
+        return deferred;
+    }
+
+    /**
+     * Dispatches the calls of one page in a single round trip to the shell and answers their responses in order.
+     * Like {@link #dispatch}, it frees the request thread and is cancelled when the browser goes away or it times out,
+     * in which case every call answers the timeout failure.
+     */
+    @PostMapping("/{id}/dispatch/batch")
+    @PreAuthorize("@authorizationService.hasSystemPermission('shell:dispatch')")
+    public DeferredResult<ResponseEntity<List<Map<String, Object>>>> dispatchBatch(
+            @PathVariable Long id, @RequestBody ShellPluginBatchDispatchRequest request) {
+        for (ShellPluginDispatchRequest call : request.getCalls()) {
+            call.setArgs(dispatchArgs(call));
+        }
+        Duration timeout = dispatchProperties.getTimeout();
+        DeferredResult<ResponseEntity<List<Map<String, Object>>>> deferred = new DeferredResult<>(timeout.toMillis(),
+                () -> ResponseEntity.ok(Collections.nCopies(request.getCalls().size(), timedOut(timeout))));
+        runDeferred(deferred, "shell-dispatch-batch-" + id, () -> ResponseEntity.ok(
+                shellPluginService.dispatchPlugins(id, request.getCalls(), request.isParallel())));
+        return deferred;
+    }
+
+    /**
+     * Runs a blocking dispatch on a virtual thread that carries the caller's security context, and interrupts it
+     * once the request is over. An interrupted virtual thread blocked on a socket closes it, which abandons the
+     * shell call; after a result the interrupt only reaches a thread that is already finishing.
+     */
+    private static <T> void runDeferred(DeferredResult<T> deferred, String name, Callable<T> dispatch) {
+        Runnable task = new DelegatingSecurityContextRunnable(() -> {
+            try {
+                deferred.setResult(dispatch.call());
+            } catch (Exception e) {
+                deferred.setErrorResult(e);
+            }
+        });
+        Thread worker = Thread.ofVirtual().name(name).unstarted(task);
+        deferred.onCompletion(worker::interrupt);
+        worker.start();
+    }
+
+    private static Map<String, Object> timedOut(Duration timeout) {
+        return Map.of(Constants.CODE, Constants.FAILURE,
+                Constants.ERROR, "Dispatch timed out after " + timeout.toSeconds() + "s");
+    }
+
+    static boolean prefersCbor(String accept) {
+        if (StringUtils.isBlank(accept)) {
+            return false;
+        }
+        List<MediaType> mediaTypes;
+        try {
+            mediaTypes = new ArrayList<>(MediaType.parseMediaTypes(accept));
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        mediaTypes.sort(Comparator.comparingDouble(MediaType::getQualityValue).reversed());
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_CBOR)) {
+                return true;
+            }
+            if (mediaType.equalsTypeAndSubtype(MediaType.APPLICATION_JSON) || mediaType.isWildcardSubtype()) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private Map<String, Object> dispatchArgs(ShellPluginDispatchRequest request) {
         Map<String, Object> args = request.getArgs();
         if (StringUtils.isNotBlank(request.getAction())) {
             args.put("action", request.getAction());
         }
-        return ResponseEntity.ok(shellPluginService.dispatchPlugin(id, request.getPluginId(), args));
+        return args;
     }
 
     @GetMapping("/{id}/plugins/statuses")
@@ -1,32 +1,47 @@
 package com.reajason.noone.server.shell;
 
 import com.reajason.noone.server.plugin.Plugin;
+import com.reajason.noone.server.plugin.PluginPayloadCache;
+import com.reajason.noone.server.plugin.PluginPayloads;
+import com.reajason.noone.server.plugin.PluginRepository;
+import jakarta.annotation.Resource;
 import org.springframework.stereotype.Component;
 
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
-
 @Component
 public class ShellPluginPayloadResolver {
 
+    @Resource
+    private PluginPayloadCache pluginPayloadCache;
+    @Resource
+    private PluginRepository pluginRepository;
+
+    /**
+     * Plugins from {@link com.reajason.noone.server.plugin.PluginCatalog} carry no payload; it is read from the
+     * database only when the cache does not hold it yet.
+     */
     public byte[] resolve(ShellLanguage language, Plugin plugin) {
-        if (plugin.getPayload() == null || plugin.getPayload().isBlank()) {
+        return pluginPayloadCache.get(plugin, null, () -> load(language, plugin));
+    }
+
+    private byte[] load(ShellLanguage language, Plugin metadata) {
+        Plugin plugin = withPayload(metadata);
+        byte[] payloadBytes = plugin.getPayloadBytes();
+        if (payloadBytes == null || payloadBytes.length == 0) {
+            // stored before payloads were kept as bytes
+            payloadBytes = PluginPayloads.decode(plugin.getPluginId(), language.getValue(), plugin.getPayload());
+        }
+        if (payloadBytes == null || payloadBytes.length == 0) {
             throw new IllegalArgumentException("Plugin payload is empty: " + plugin.getPluginId());
         }
-        return switch (language) {
-            case JAVA -> decodeBase64Payload(plugin, language);
-            case DOTNET -> validateDotNetAssemblyBytes(plugin, decodeBase64Payload(plugin, language));
-            case NODEJS -> plugin.getPayload().getBytes(StandardCharsets.UTF_8);
-        };
+        return language == ShellLanguage.DOTNET ? validateDotNetAssemblyBytes(plugin, payloadBytes) : payloadBytes;
     }
 
-    private byte[] decodeBase64Payload(Plugin plugin, ShellLanguage language) {
-        try {
-            return Base64.getDecoder().decode(plugin.getPayload());
-        } catch (IllegalArgumentException e) {
-            throw new IllegalArgumentException(
-                    "Invalid base64 payload for plugin [" + plugin.getPluginId() + "] language [" + language.getValue() + "]", e);
+    private Plugin withPayload(Plugin plugin) {
+        if (plugin.getPayloadBytes() != null || plugin.getPayload() != null || plugin.getId() == null) {
+            return plugin;
         }
+        return pluginRepository.findById(plugin.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Plugin not found: " + plugin.getPluginId()));
     }
 
     private byte[] validateDotNetAssemblyBytes(Plugin plugin, byte[] payloadBytes) {
@@ -0,0 +1,267 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.core.Constants;
+import com.reajason.noone.server.plugin.Plugin;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches plugin results per shell for the actions a plugin declares cacheable in its {@code meta}:
+ * <pre>
+ * "cache": {
+ *   "ttl": {"list": 5, "stat": 5},
+ *   "invalidate": ["write-all", "move", "delete", "unzip"]
+ * }
+ * </pre>
+ * {@code ttl} maps an action to the seconds its successful results stay fresh, and {@code invalidate} lists the
+ * actions that change the shell, so running one drops every cached result of that shell. The action {@code *}
+ * matches any action, including none.
+ * <p>
+ * Identical requests arriving while one is in flight wait for it instead of calling the shell again. Only successful
+ * responses are kept, and a result that completes after its shell was invalidated is handed to its waiters but not
+ * stored.
+ */
+@Component
+public class ShellPluginResultCache {
+
+    static final String META_KEY = "cache";
+    static final String ANY_ACTION = "*";
+
+    private final ConcurrentHashMap<Long, ShellEntries> shells = new ConcurrentHashMap<>();
+
+    /**
+     * How long results of {@code action} stay fresh, or {@code null} when the plugin does not cache it.
+     */
+    public Duration ttl(Plugin plugin, String action) {
+        Map<?, ?> ttl = cacheMeta(plugin).get("ttl") instanceof Map<?, ?> map ? map : Map.of();
+        Object seconds = ttl.containsKey(actionKey(action)) ? ttl.get(actionKey(action)) : ttl.get(ANY_ACTION);
+        if (seconds instanceof Number number && number.longValue() > 0) {
+            return Duration.ofSeconds(number.longValue());
+        }
+        return null;
+    }
+
+    /**
+     * Whether running {@code action} changes the shell, so its cached results must be dropped.
+     */
+    public boolean invalidates(Plugin plugin, String action) {
+        if (!(cacheMeta(plugin).get("invalidate") instanceof Collection<?> actions)) {
+            return false;
+        }
+        return actions.contains(actionKey(action)) || actions.contains(ANY_ACTION);
+    }
+
+    /**
+     * Returns the fresh result cached under {@code key}, or joins the call in flight for it, or calls
+     * {@code loader} and caches its response for {@code ttl} when it succeeds.
+     */
+    public Result get(Long shellId, Key key, Duration ttl, Supplier<Map<String, Object>> loader) {
+        return join(getAsync(shellId, key, ttl, () -> CompletableFuture.completedFuture(loader.get())));
+    }
+
+    /**
+     * Like {@link #get}, for a {@code loader} that answers with a future instead of waiting for the shell.
+     * Cancelling the returned future stops waiting for the result, but the call it joined keeps running for the
+     * others waiting on it and is still cached.
+     */
+    public CompletableFuture<Result> getAsync(Long shellId, Key key, Duration ttl,
+                                              Supplier<CompletableFuture<Map<String, Object>>> loader) {
+        ShellEntries entries = shells.computeIfAbsent(shellId, id -> new ShellEntries());
+        while (true) {
+            long generation = entries.generation.get();
+            Entry entry = entries.results.get(key);
+            if (entry != null && entry.isExpired()) {
+                entries.results.remove(key, entry);
+                continue;
+            }
+            if (entry != null) {
+                return entry.future.thenApply(response -> new Result(response, isSuccess(response), entry.ageMillis()));
+            }
+
+            Entry created = new Entry(ttl.toMillis());
+            if (entries.results.putIfAbsent(key, created) != null) {
+                continue;
+            }
+            CompletableFuture<Map<String, Object>> loading;
+            try {
+                loading = loader.get();
+            } catch (RuntimeException | Error e) {
+                entries.results.remove(key, created);
+                created.future.completeExceptionally(e);
+                throw e;
+            }
+            return loading.handle((response, failure) -> {
+                if (failure != null) {
+                    entries.results.remove(key, created);
+                    created.future.completeExceptionally(failure);
+                    throw failure instanceof CompletionException completion ? completion : new CompletionException(failure);
+                }
+                created.complete(response);
+                if (!isSuccess(response) || entries.generation.get() != generation) {
+                    entries.results.remove(key, created);
+                }
+                entries.removeExpired();
+                return new Result(response, false, 0);
+            });
+        }
+    }
+
+    /**
+     * Returns the fresh result cached under {@code key}, waiting for it if it is still in flight, or {@code null}
+     * when there is none. For callers that fetch misses themselves and {@link #put} them back.
+     */
+    public Result peek(Long shellId, Key key) {
+        ShellEntries entries = shells.get(shellId);
+        Entry entry = entries != null ? entries.results.get(key) : null;
+        if (entry == null || entry.isExpired()) {
+            return null;
+        }
+        Map<String, Object> response;
+        try {
+            response = join(entry.future);
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return isSuccess(response) ? new Result(response, true, entry.ageMillis()) : null;
+    }
+
+    /**
+     * The shell's invalidation count, to pass to {@link #put} for a result fetched after reading it.
+     */
+    public long generation(Long shellId) {
+        return shells.computeIfAbsent(shellId, id -> new ShellEntries()).generation.get();
+    }
+
+    /**
+     * Caches a successful {@code response} fetched outside {@link #get}, unless the shell was invalidated since
+     * {@code generation} was read.
+     */
+    public void put(Long shellId, Key key, Duration ttl, Map<String, Object> response, long generation) {
+        ShellEntries entries = shells.computeIfAbsent(shellId, id -> new ShellEntries());
+        if (!isSuccess(response) || entries.generation.get() != generation) {
+            return;
+        }
+        Entry entry = new Entry(ttl.toMillis());
+        entry.complete(response);
+        entries.results.put(key, entry);
+        if (entries.generation.get() != generation) {
+            entries.results.remove(key, entry);
+        }
+        entries.removeExpired();
+    }
+
+    /**
+     * Drops every result cached for the shell. Calls in flight still answer their waiters, but are not stored.
+     */
+    public void invalidate(Long shellId) {
+        ShellEntries entries = shells.get(shellId);
+        if (entries != null) {
+            entries.generation.incrementAndGet();
+            entries.results.clear();
+        }
+    }
+
+    /**
+     * Forgets the shell entirely, for shells that no longer exist.
+     */
+    public void evict(Long shellId) {
+        invalidate(shellId);
+        shells.remove(shellId);
+    }
+
+    int size(Long shellId) {
+        ShellEntries entries = shells.get(shellId);
+        return entries != null ? entries.results.size() : 0;
+    }
+
+    private static Map<?, ?> cacheMeta(Plugin plugin) {
+        if (plugin != null && plugin.getMeta() != null && plugin.getMeta().get(META_KEY) instanceof Map<?, ?> map) {
+            return map;
+        }
+        return Map.of();
+    }
+
+    private static String actionKey(String action) {
+        return action != null ? action : ANY_ACTION;
+    }
+
+    private static boolean isSuccess(Map<String, Object> response) {
+        return response != null && response.get(Constants.CODE) instanceof Number code
+                && code.intValue() == Constants.SUCCESS;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Identifies a result: the plugin and version that produced it, its arguments, and whether it is the raw
+     * response rather than the normalized one.
+     */
+    public record Key(String pluginId, String version, Map<String, Object> args, boolean raw) {
+        public Key {
+            Objects.requireNonNull(pluginId, "pluginId");
+            args = args != null ? Collections.unmodifiableMap(new HashMap<>(args)) : Map.of();
+        }
+    }
+
+    /**
+     * A response and where it came from: {@code hit} is true when a successful response was cached or shared with
+     * an identical call already in flight, and {@code ageMillis} is how long ago it was produced.
+     */
+    public record Result(Map<String, Object> response, boolean hit, long ageMillis) {
+    }
+
+    private static final class ShellEntries {
+        private final ConcurrentHashMap<Key, Entry> results = new ConcurrentHashMap<>();
+        private final AtomicLong generation = new AtomicLong();
+
+        private void removeExpired() {
+            results.values().removeIf(Entry::isExpired);
+        }
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Map<String, Object>> future = new CompletableFuture<>();
+        private final long ttlMillis;
+        private volatile long completedAt;
+
+        private Entry(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+
+        private void complete(Map<String, Object> response) {
+            completedAt = System.currentTimeMillis();
+            future.complete(response);
+        }
+
+        private boolean isExpired() {
+            return future.isDone() && System.currentTimeMillis() - completedAt >= ttlMillis;
+        }
+
+        private long ageMillis() {
+            return future.isDone() ? Math.max(0, System.currentTimeMillis() - completedAt) : 0;
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package com.reajason.noone.server.shell;
 
+import com.reajason.noone.core.CborWriter;
 import com.reajason.noone.core.Constants;
+import com.reajason.noone.core.Futures;
+import com.reajason.noone.core.PluginCall;
 import com.reajason.noone.core.ShellConnection;
 import com.reajason.noone.core.exception.ResponseBusinessException;
 import com.reajason.noone.core.client.ShellRequestException;
-import com.reajason.noone.core.client.ShellResponseException;
 import com.reajason.noone.server.plugin.BuiltinPluginRegistryService;
 import com.reajason.noone.server.plugin.JavaPluginPayloadService;
 import com.reajason.noone.server.plugin.Plugin;
-import com.reajason.noone.server.plugin.PluginRepository;
+import com.reajason.noone.server.plugin.PluginCatalog;
+import com.reajason.noone.server.shell.dto.ShellPluginDispatchRequest;
 import com.reajason.noone.server.shell.dto.ShellPluginStatusResponse;
 import com.reajason.noone.server.shell.oplog.ShellOpLog;
 import com.reajason.noone.server.shell.oplog.ShellOperationType;
@@ -17,11 +20,22 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
 import java.util.*;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs plugins on shells. Dispatch reads the shell and plugin in short transactions of their own, talks to the shell
+ * without one, and writes the outcome through {@link ShellStatusUpdater}.
+ */
 @Slf4j
 @Service
-@Transactional
 public class ShellPluginService {
 
     @Resource
@@ -41,21 +55,170 @@ public class ShellPluginService {
     @Resource
     private BuiltinPluginRegistryService builtinPluginRegistryService;
     @Resource
-    private PluginRepository pluginRepository;
+    private PluginCatalog pluginCatalog;
     @Resource
-    private ShellRepository shellRepository;
+    private ShellPluginResultCache shellPluginResultCache;
 
     private static final String TASK_MANAGER_PLUGIN_ID = "task-manager";
 
     @ShellOpLog(operation = ShellOperationType.DISPATCH, shellId = "#shellId", pluginId = "#pluginId")
     public Map<String, Object> dispatchPlugin(Long shellId, String pluginId, Map<String, Object> args) {
+        try {
+            return dispatch(shellId, pluginId, args, null, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Dispatches like {@link #dispatchPlugin(Long, String, Map)} and, when the plugin declares the action cacheable,
+     * tells {@code cacheResult} whether the response came from {@link ShellPluginResultCache} and how old it is.
+     */
+    @ShellOpLog(operation = ShellOperationType.DISPATCH, shellId = "#shellId", pluginId = "#pluginId")
+    public Map<String, Object> dispatchPlugin(Long shellId, String pluginId, Map<String, Object> args,
+                                              Consumer<ShellPluginResultCache.Result> cacheResult) {
+        try {
+            return dispatch(shellId, pluginId, args, null, cacheResult);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Dispatches like {@link #dispatchPlugin(Long, String, Map, Consumer)} but writes the response to {@code out} as
+     * CBOR, with binary values as byte strings. A plain plugin run is transcoded straight from the shell's TLV
+     * response, and only its top-level scalars, such as {@code code} and {@code error}, are returned and logged.
+     */
+    @ShellOpLog(operation = ShellOperationType.DISPATCH, shellId = "#shellId", pluginId = "#pluginId")
+    public Map<String, Object> dispatchPluginCbor(Long shellId, String pluginId, Map<String, Object> args,
+                                                  OutputStream out,
+                                                  Consumer<ShellPluginResultCache.Result> cacheResult)
+            throws IOException {
+        return dispatch(shellId, pluginId, args, out, cacheResult);
+    }
+
+    private Map<String, Object> dispatch(Long shellId, String pluginId, Map<String, Object> args,
+                                         OutputStream cborOut,
+                                         Consumer<ShellPluginResultCache.Result> cacheResult) throws IOException {
         Shell shell = shellLookupHelper.requireById(shellId);
         ShellLanguage shellLanguage = shell.getLanguage() != null ? shell.getLanguage() : ShellLanguage.JAVA;
         Plugin plugin = findPlugin(pluginId, shellLanguage).orElse(null);
-        String action = args != null ? (String) args.get("action") : null;
-        if (action == null) {
-            action = args != null ? ((String) args.get("op")) : null;
+        String action = dispatchAction(args);
+        boolean isTaskAction = action != null && action.startsWith("_task_");
+        Duration ttl = !isTaskAction && "sync".equals(resolveRunMode(plugin))
+                ? shellPluginResultCache.ttl(plugin, action) : null;
+        if (ttl == null) {
+            try {
+                return run(shell, shellLanguage, plugin, pluginId, action, args, cborOut, cborOut != null);
+            } finally {
+                if (shellPluginResultCache.invalidates(plugin, action)) {
+                    shellPluginResultCache.invalidate(shellId);
+                }
+            }
         }
+
+        String finalAction = action;
+        ShellPluginResultCache.Key key = new ShellPluginResultCache.Key(
+                pluginId, plugin.getVersion(), args, cborOut != null);
+        ShellPluginResultCache.Result result = shellPluginResultCache.get(shellId, key, ttl, () -> {
+            try {
+                return run(shell, shellLanguage, plugin, pluginId, finalAction, args, null, cborOut != null);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        if (cacheResult != null) {
+            cacheResult.accept(result);
+        }
+        if (cborOut != null) {
+            new CborWriter(cborOut).writeValue(result.response());
+        }
+        return result.response();
+    }
+
+    /**
+     * Dispatches like {@link #dispatchPlugin(Long, String, Map, Consumer)} without holding the request thread while
+     * a plain plugin run waits for the shell. Loading a missing plugin, task actions and asynchronous plugins are
+     * still done on the calling thread. Cancelling the returned future abandons the shell call, unless identical
+     * requests share it through {@link ShellPluginResultCache}.
+     */
+    @ShellOpLog(operation = ShellOperationType.DISPATCH, shellId = "#shellId", pluginId = "#pluginId")
+    public CompletableFuture<Map<String, Object>> dispatchPluginAsync(
+            Long shellId, String pluginId, Map<String, Object> args,
+            Consumer<ShellPluginResultCache.Result> cacheResult) {
+        Shell shell = shellLookupHelper.requireById(shellId);
+        ShellLanguage shellLanguage = shell.getLanguage() != null ? shell.getLanguage() : ShellLanguage.JAVA;
+        Plugin plugin = findPlugin(pluginId, shellLanguage).orElse(null);
+        String action = dispatchAction(args);
+        boolean isTaskAction = action != null && action.startsWith("_task_");
+        if (isTaskAction || !"sync".equals(resolveRunMode(plugin))) {
+            try {
+                return CompletableFuture.completedFuture(dispatch(shellId, pluginId, args, null, cacheResult));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        Duration ttl = shellPluginResultCache.ttl(plugin, action);
+        if (ttl == null) {
+            CompletableFuture<Map<String, Object>> response = runAsync(shell, shellLanguage, plugin, pluginId, args);
+            if (!shellPluginResultCache.invalidates(plugin, action)) {
+                return response;
+            }
+            return Futures.cancelling(
+                    response.whenComplete((result, failure) -> shellPluginResultCache.invalidate(shellId)), response);
+        }
+
+        ShellPluginResultCache.Key key = new ShellPluginResultCache.Key(pluginId, plugin.getVersion(), args, false);
+        return shellPluginResultCache.getAsync(shellId, key, ttl,
+                () -> runAsync(shell, shellLanguage, plugin, pluginId, args)).thenApply(result -> {
+            if (cacheResult != null) {
+                cacheResult.accept(result);
+            }
+            return result.response();
+        });
+    }
+
+    /**
+     * Runs a plain plugin on the shell through {@link ShellConnection#runPluginAsync}. The returned future always
+     * completes with a response, failures included, like {@link #run}.
+     */
+    private CompletableFuture<Map<String, Object>> runAsync(Shell shell, ShellLanguage shellLanguage, Plugin plugin,
+                                                           String pluginId, Map<String, Object> args) {
+        Long shellId = shell.getId();
+        CompletableFuture<Map<String, Object>> result;
+        try {
+            ShellConnection connection = shellConnectionPool.getOrCreateCached(shell);
+            ensurePluginCacheSnapshot(connection, shellId);
+            Map<String, Object> loadedAndRan = loadAndRun(connection, plugin, shellLanguage, args, shellId);
+            if (loadedAndRan != null) {
+                result = CompletableFuture.completedFuture(loadedAndRan);
+            } else {
+                ensurePluginLoaded(connection, plugin, shellLanguage, shellId);
+                result = connection.runPluginAsync(pluginId, args);
+            }
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(dispatchFailure(shellId, e));
+        }
+        return Futures.cancelling(result.handle((response, failure) -> {
+            if (failure == null) {
+                return respond(shellId, pluginId, response);
+            }
+            return dispatchFailure(shellId, failure instanceof CompletionException && failure.getCause() != null
+                    ? failure.getCause() : failure);
+        }), result);
+    }
+
+    /**
+     * Runs the plugin on the shell. {@code raw} keeps binary values as {@code byte[]} for a CBOR response; with
+     * {@code cborOut} the response is also written there, transcoded from the shell's TLV when possible.
+     */
+    private Map<String, Object> run(Shell shell, ShellLanguage shellLanguage, Plugin plugin, String pluginId,
+                                    String action, Map<String, Object> args, OutputStream cborOut,
+                                    boolean raw) throws IOException {
+        Long shellId = shell.getId();
+        Map<String, Object> response;
+        boolean written = false;
         try {
             ShellConnection connection = shellConnectionPool.getOrCreateCached(shell);
             ensurePluginCacheSnapshot(connection, shellId);
@@ -65,54 +228,273 @@ public class ShellPluginService {
 
             if (isTaskAction) {
                 String taskOp = action.substring(6);
-                return executeViaTaskManager(connection, shellLanguage, plugin, pluginId, taskOp, args, shellId);
+                response = executeViaTaskManager(connection, shellLanguage, plugin, pluginId, taskOp, args, shellId);
+            } else if ("async".equals(runMode)) {
+                response = executeViaTaskManager(connection, shellLanguage, plugin, pluginId, "submit", args, shellId);
+            } else if ("scheduled".equals(runMode)) {
+                response = executeViaTaskManager(connection, shellLanguage, plugin, pluginId, "schedule", args, shellId);
+            } else {
+                boolean systemInfo = "system-info".equals(pluginId);
+                Map<String, Object> result = raw ? null : loadAndRun(connection, plugin, shellLanguage, args, shellId);
+                if (result == null) {
+                    ensurePluginLoaded(connection, plugin, shellLanguage, shellId);
+                    if (!raw) {
+                        result = connection.runPlugin(pluginId, args);
+                    } else if (systemInfo || cborOut == null) {
+                        result = connection.runPluginRaw(pluginId, args);
+                    } else {
+                        result = connection.runPluginCbor(pluginId, args, cborOut);
+                        written = true;
+                    }
+                }
+                response = respond(shellId, pluginId, result);
             }
+        } catch (Exception e) {
+            response = dispatchFailure(shellId, e);
+        }
+        if (cborOut != null && !written) {
+            new CborWriter(cborOut).writeValue(response);
+        }
+        return response;
+    }
 
-            if ("async".equals(runMode)) {
-                return executeViaTaskManager(connection, shellLanguage, plugin, pluginId, "submit", args, shellId);
+    /**
+     * Turns what the connection returned for a plain run into the dispatch response, and records a successful
+     * run on the shell's status.
+     */
+    private Map<String, Object> respond(Long shellId, String pluginId, Map<String, Object> result) {
+        Map<String, Object> response = shellResponseHelper.handleShellConnectionResult(result);
+        if (shellResponseHelper.isSuccess(response.get(Constants.CODE))) {
+            shellStatusUpdater.markConnected(shellId);
+            if ("system-info".equals(pluginId)) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> data = (Map<String, Object>) response.get("data");
+                shellStatusUpdater.recordSystemInfo(shellId, data);
             }
+        }
+        return response;
+    }
+
+    private Map<String, Object> dispatchFailure(Long shellId, Throwable e) {
+        if (e instanceof ShellRequestException) {
+            markError(shellId);
+        }
+        return shellResponseHelper.failureResponse("Dispatch failed: " + shellResponseHelper.safeMessage(e), e);
+    }
+
+    /**
+     * A call cut short because its request was abandoned, which interrupts the dispatching thread, says nothing
+     * about the shell.
+     */
+    private void markError(Long shellId) {
+        if (!Thread.currentThread().isInterrupted()) {
+            shellStatusUpdater.markError(shellId);
+        }
+    }
 
-            if ("scheduled".equals(runMode)) {
-                return executeViaTaskManager(connection, shellLanguage, plugin, pluginId, "schedule", args, shellId);
+    private static String dispatchAction(Map<String, Object> args) {
+        String action = args != null ? (String) args.get("action") : null;
+        if (action == null) {
+            action = args != null ? ((String) args.get("op")) : null;
+        }
+        return action;
+    }
+
+    /**
+     * Dispatches several plugin calls for one page, such as the panels of a dashboard, and returns their responses
+     * in order. Plain runs go to the shell together in one batch, run concurrently there when {@code parallel} is
+     * set; fresh cached results are answered without the shell, and task actions and asynchronous plugins are
+     * dispatched one by one as {@link #dispatchPlugin(Long, String, Map)} would.
+     */
+    @ShellOpLog(operation = ShellOperationType.DISPATCH, shellId = "#shellId", action = "'batch'")
+    public List<Map<String, Object>> dispatchPlugins(Long shellId, List<ShellPluginDispatchRequest> requests,
+                                                     boolean parallel) {
+        Shell shell = shellLookupHelper.requireById(shellId);
+        ShellLanguage shellLanguage = shell.getLanguage() != null ? shell.getLanguage() : ShellLanguage.JAVA;
+        List<Map<String, Object>> responses = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        List<BatchedRun> runs = new ArrayList<>();
+        boolean invalidate = false;
+        for (int i = 0; i < requests.size(); i++) {
+            String pluginId = requests.get(i).getPluginId();
+            Map<String, Object> args = requests.get(i).getArgs();
+            Plugin plugin = findPlugin(pluginId, shellLanguage).orElse(null);
+            String action = dispatchAction(args);
+            if (plugin == null || (action != null && action.startsWith("_task_"))
+                    || !"sync".equals(resolveRunMode(plugin))) {
+                try {
+                    responses.set(i, dispatch(shellId, pluginId, args, null, null));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                continue;
+            }
+            invalidate |= shellPluginResultCache.invalidates(plugin, action);
+            Duration ttl = shellPluginResultCache.ttl(plugin, action);
+            ShellPluginResultCache.Key key = new ShellPluginResultCache.Key(pluginId, plugin.getVersion(), args, false);
+            ShellPluginResultCache.Result cached = ttl != null ? shellPluginResultCache.peek(shellId, key) : null;
+            if (cached != null) {
+                responses.set(i, cached.response());
+            } else {
+                runs.add(new BatchedRun(i, plugin, args, ttl, key));
+            }
+        }
+        try {
+            if (!runs.isEmpty()) {
+                runBatched(shell, shellLanguage, runs, parallel, responses);
             }
+        } finally {
+            if (invalidate) {
+                shellPluginResultCache.invalidate(shellId);
+            }
+        }
+        return responses;
+    }
 
-            ensurePluginLoaded(connection, plugin, shellLanguage, shellId);
-            Map<String, Object> result = connection.runPlugin(pluginId, args);
-            Map<String, Object> response = shellResponseHelper.handleShellConnectionResult(result);
-            if (shellResponseHelper.isSuccess(response.get(Constants.CODE))) {
-                shellStatusUpdater.markConnected(shellId);
-                if ("system-info".equals(pluginId)) {
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> data = (Map<String, Object>) response.get("data");
-                    shell.setBasicInfo(data);
-
-                    String rawOsName = SystemInfoNormalizer.extractString(data, "os", "name");
-                    String normalizedOs = SystemInfoNormalizer.normalizeOsName(rawOsName);
-                    shell.setOs(normalizedOs);
-
-                    String rawArch = SystemInfoNormalizer.extractString(data, "os", "arch");
-                    shell.setArch(SystemInfoNormalizer.normalizeArch(rawArch, normalizedOs));
-
-                    String runtimeType = SystemInfoNormalizer.extractString(data, "runtime", "type");
-                    String runtimeVer = SystemInfoNormalizer.extractString(data, "runtime", "version");
-                    if (runtimeType != null && runtimeVer != null) {
-                        shell.setRuntimeVersion(runtimeType + " " + runtimeVer);
-                    } else if (runtimeVer != null) {
-                        shell.setRuntimeVersion(runtimeVer);
+    /**
+     * Sends the runs in one batch, preceded by loads of the plugins the shell is missing. A batch carrying loads
+     * runs in order whatever {@code parallel} says, so each run follows its plugin's load. A Java load that clashes
+     * with a class already on the shell goes on with the remaining candidates one request at a time, and that
+     * plugin's runs are sent again once it is loaded.
+     */
+    private void runBatched(Shell shell, ShellLanguage shellLanguage, List<BatchedRun> runs, boolean parallel,
+                            List<Map<String, Object>> responses) {
+        Long shellId = shell.getId();
+        long generation = shellPluginResultCache.generation(shellId);
+        try {
+            ShellConnection connection = shellConnectionPool.getOrCreateCached(shell);
+            ensurePluginCacheSnapshot(connection, shellId);
+            Map<String, BatchedLoad> loads = new LinkedHashMap<>();
+            for (BatchedRun run : runs) {
+                String pluginId = run.plugin().getPluginId();
+                if (!loads.containsKey(pluginId) && connection.needLoadPlugin(pluginId)) {
+                    BatchedLoad load = batchedLoad(connection, run.plugin(), shellLanguage, shellId);
+                    if (load != null) {
+                        loads.put(pluginId, load);
                     }
-
-                    shellRepository.save(shell);
                 }
             }
+            List<PluginCall> calls = new ArrayList<>(loads.size() + runs.size());
+            loads.values().forEach(load -> calls.add(load.call()));
+            runs.forEach(run -> calls.add(PluginCall.run(run.plugin().getPluginId(), run.args())));
+            List<Map<String, Object>> results = connection.runBatch(calls, parallel && loads.isEmpty());
+
+            Map<String, Exception> loadFailures = new HashMap<>();
+            Set<String> reloaded = new HashSet<>();
+            int index = 0;
+            for (BatchedLoad load : loads.values()) {
+                Map<String, Object> loaded = results.get(index++);
+                if (shellResponseHelper.isSuccess(loaded.get(Constants.CODE))) {
+                    continue;
+                }
+                String pluginId = load.plugin().getPluginId();
+                try {
+                    retryBatchedLoad(connection, load, loaded);
+                    reloaded.add(pluginId);
+                } catch (Exception e) {
+                    loadFailures.put(pluginId, e);
+                }
+            }
+            for (BatchedRun run : runs) {
+                String pluginId = run.plugin().getPluginId();
+                Map<String, Object> result = results.get(index++);
+                Exception loadFailure = loadFailures.get(pluginId);
+                if (loadFailure != null) {
+                    responses.set(run.index(), shellResponseHelper.failureResponse(
+                            "Dispatch failed: " + shellResponseHelper.safeMessage(loadFailure), loadFailure));
+                    continue;
+                }
+                if (reloaded.contains(pluginId)) {
+                    result = connection.runPlugin(pluginId, run.args());
+                }
+                Map<String, Object> response = shellResponseHelper.handleShellConnectionResult(result);
+                if (shellResponseHelper.isSuccess(response.get(Constants.CODE))) {
+                    shellStatusUpdater.markConnected(shellId);
+                    if ("system-info".equals(pluginId)) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> data = (Map<String, Object>) response.get("data");
+                        shellStatusUpdater.recordSystemInfo(shellId, data);
+                    }
+                    if (run.ttl() != null) {
+                        shellPluginResultCache.put(shellId, run.key(), run.ttl(), response, generation);
+                    }
+                }
+                responses.set(run.index(), response);
+            }
+        } catch (ShellRequestException e) {
+            markError(shellId);
+            fail(runs, responses, e);
+        } catch (Exception e) {
+            fail(runs, responses, e);
+        }
+    }
+
+    /**
+     * Prepares the load of a missing plugin for a batch, or loads it right away and returns {@code null} when the
+     * core takes no batches or a Java plugin has no candidate class names to try.
+     */
+    private BatchedLoad batchedLoad(ShellConnection connection, Plugin plugin, ShellLanguage shellLanguage,
+                                    Long shellId) {
+        if (!connection.isBatchSupported()) {
+            ensurePluginLoaded(connection, plugin, shellLanguage, shellId);
+            return null;
+        }
+        byte[] payloadBytes = shellPluginPayloadResolver.resolve(shellLanguage, plugin);
+        List<JavaPluginPayloadService.JavaPluginCandidate> candidates = shellLanguage == ShellLanguage.JAVA
+                ? javaPluginPayloadService.buildCandidates(plugin, payloadBytes)
+                : List.of();
+        if (shellLanguage == ShellLanguage.JAVA && candidates.isEmpty()) {
+            ensurePluginLoaded(connection, plugin, shellLanguage, shellId);
+            return null;
+        }
+        byte[] first = candidates.isEmpty() ? payloadBytes : candidates.getFirst().payloadBytes();
+        return new BatchedLoad(plugin, candidates, PluginCall.load(plugin.getPluginId(), plugin.getVersion(), first));
+    }
+
+    private void retryBatchedLoad(ShellConnection connection, BatchedLoad load, Map<String, Object> loaded) {
+        ResponseBusinessException failure = new ResponseBusinessException(
+                "Load plugin failed: " + loaded.get(Constants.ERROR));
+        List<JavaPluginPayloadService.JavaPluginCandidate> candidates = load.candidates();
+        if (candidates.size() < 2 || !isDuplicateJavaClassLoad(failure)) {
+            throw failure;
+        }
+        log.debug("Retrying Java plugin {} with another candidate class name {}",
+                load.plugin().getPluginId(), candidates.get(1).className());
+        loadJavaCandidates(connection, load.plugin(), candidates.subList(1, candidates.size()), false,
+                new ArrayList<>(List.of(failure)));
+    }
 
-            return response;
+    private void fail(List<BatchedRun> runs, List<Map<String, Object>> responses, Exception e) {
+        for (BatchedRun run : runs) {
+            responses.set(run.index(), shellResponseHelper.failureResponse(
+                    "Dispatch failed: " + shellResponseHelper.safeMessage(e), e));
+        }
+    }
+
+    private record BatchedRun(int index, Plugin plugin, Map<String, Object> args, Duration ttl,
+                              ShellPluginResultCache.Key key) {
+    }
+
+    private record BatchedLoad(Plugin plugin, List<JavaPluginPayloadService.JavaPluginCandidate> candidates,
+                               PluginCall call) {
+    }
+
+    /**
+     * Returns a connection to the shell with the plugin loaded, for callers that drive the plugin themselves over
+     * many calls instead of through {@link #dispatchPlugin}.
+     */
+    public ShellConnection connectWithPlugin(Long shellId, String pluginId) {
+        Shell shell = shellLookupHelper.requireById(shellId);
+        ShellLanguage shellLanguage = shell.getLanguage() != null ? shell.getLanguage() : ShellLanguage.JAVA;
+        Plugin plugin = findPlugin(pluginId, shellLanguage)
+                .orElseThrow(() -> new IllegalArgumentException("Plugin not found: " + pluginId));
+        try {
+            ShellConnection connection = shellConnectionPool.getOrCreateCached(shell);
+            ensurePluginCacheSnapshot(connection, shellId);
+            ensurePluginLoaded(connection, plugin, shellLanguage, shellId);
+            return connection;
         } catch (ShellRequestException e) {
             shellStatusUpdater.markError(shellId);
-            return shellResponseHelper.failureResponse("Dispatch failed: " + shellResponseHelper.safeMessage(e), e);
-        } catch (ShellResponseException e) {
-            return shellResponseHelper.failureResponse("Dispatch failed: " + shellResponseHelper.safeMessage(e), e);
-        } catch (Exception e) {
-            return shellResponseHelper.failureResponse("Dispatch failed: " + shellResponseHelper.safeMessage(e), e);
+            throw e;
         }
     }
 
@@ -140,7 +522,7 @@ public class ShellPluginService {
     public Map<String, ShellPluginStatusResponse> getAllPluginStatuses(Long shellId) {
         Shell shell = shellLookupHelper.requireById(shellId);
         ShellLanguage shellLanguage = shell.getLanguage() != null ? shell.getLanguage() : ShellLanguage.JAVA;
-        List<Plugin> plugins = pluginRepository.findAllByLanguage(shellLanguage.getValue());
+        List<Plugin> plugins = pluginCatalog.findAllByLanguage(shellLanguage.getValue());
         ShellConnection connection = shellConnectionPool.getOrCreateCached(shell);
         Map<String, ShellPluginStatusResponse> result = new LinkedHashMap<>();
         for (Plugin plugin : plugins) {
@@ -199,9 +581,55 @@ public class ShellPluginService {
         return response;
     }
 
+    /**
+     * Loads a missing plugin and runs it in one round trip when the core takes batches. Returns {@code null} when
+     * there was nothing to load or another request loaded it meanwhile, leaving the run to the caller. A Java load
+     * that clashes with a class already on the shell goes on with the remaining candidates one request at a time.
+     */
+    private Map<String, Object> loadAndRun(ShellConnection connection, Plugin plugin, ShellLanguage shellLanguage,
+                                           Map<String, Object> args, Long shellId) {
+        if (plugin == null || !connection.isBatchSupported() || !connection.needLoadPlugin(plugin.getPluginId())) {
+            return null;
+        }
+        String pluginId = plugin.getPluginId();
+        AtomicReference<Map<String, Object>> ran = new AtomicReference<>();
+        connection.loadPluginOnce(pluginId, plugin.getVersion(), () -> {
+            if (!connection.needLoadPlugin(pluginId)) {
+                return;
+            }
+            byte[] payloadBytes = shellPluginPayloadResolver.resolve(shellLanguage, plugin);
+            List<JavaPluginPayloadService.JavaPluginCandidate> candidates = shellLanguage == ShellLanguage.JAVA
+                    ? javaPluginPayloadService.buildCandidates(plugin, payloadBytes)
+                    : List.of();
+            if (shellLanguage == ShellLanguage.JAVA && candidates.isEmpty()) {
+                loadPlugin(connection, plugin, shellLanguage, false, shellId);
+                return;
+            }
+            byte[] first = candidates.isEmpty() ? payloadBytes : candidates.getFirst().payloadBytes();
+            List<Map<String, Object>> results = connection.runBatch(List.of(
+                    PluginCall.load(pluginId, plugin.getVersion(), first),
+                    PluginCall.run(pluginId, args)));
+            Map<String, Object> loaded = results.get(0);
+            if (shellResponseHelper.isSuccess(loaded.get(Constants.CODE))) {
+                ran.set(results.get(1));
+                return;
+            }
+            ResponseBusinessException failure = new ResponseBusinessException(
+                    "Load plugin failed: " + loaded.get(Constants.ERROR));
+            if (candidates.size() < 2 || !isDuplicateJavaClassLoad(failure)) {
+                throw failure;
+            }
+            log.debug("Retrying Java plugin {} with another candidate class name {}",
+                    pluginId, candidates.get(1).className());
+            loadJavaCandidates(connection, plugin, candidates.subList(1, candidates.size()), false,
+                    new ArrayList<>(List.of(failure)));
+        });
+        return ran.get();
+    }
+
     private void ensurePluginLoaded(ShellConnection connection, Plugin plugin, ShellLanguage shellLanguage, Long shellId) {
         if (plugin != null && connection.needLoadPlugin(plugin.getPluginId())) {
-            loadPlugin(connection, plugin, shellLanguage, false, shellId);
+            loadPluginOnce(connection, plugin, shellLanguage, false, shellId);
         }
     }
 
@@ -213,14 +641,31 @@ public class ShellPluginService {
         }
         Plugin plugin = pluginOptional.get();
         if (connection.needLoadPlugin(pluginId)) {
-            loadPlugin(connection, plugin, shellLanguage, false, shellId);
+            loadPluginOnce(connection, plugin, shellLanguage, false, shellId);
             return;
         }
         if (connection.isPluginOutdated(pluginId, plugin.getVersion())) {
-            loadPlugin(connection, plugin, shellLanguage, true, shellId);
+            loadPluginOnce(connection, plugin, shellLanguage, true, shellId);
         }
     }
 
+    /**
+     * Loads a plugin a request found missing or outdated. Concurrent requests on the same shell for the same
+     * version wait for one upload; the check is repeated inside so a request that arrives just after a load
+     * finished does not upload again.
+     */
+    private void loadPluginOnce(ShellConnection connection, Plugin plugin, ShellLanguage shellLanguage,
+                                boolean refresh, Long shellId) {
+        connection.loadPluginOnce(plugin.getPluginId(), plugin.getVersion(), () -> {
+            boolean stillNeeded = refresh
+                    ? connection.isPluginOutdated(plugin.getPluginId(), plugin.getVersion())
+                    : connection.needLoadPlugin(plugin.getPluginId());
+            if (stillNeeded) {
+                loadPlugin(connection, plugin, shellLanguage, refresh, shellId);
+            }
+        });
+    }
+
     private void ensurePluginCacheSnapshot(ShellConnection connection, Long shellId) {
         if (!connection.isPluginCacheInitialized()) {
             shellCoreInitHelper.initCoreIfNeeded(connection, shellId);
@@ -239,8 +684,18 @@ public class ShellPluginService {
             return;
         }
 
-        List<Exception> failures = new ArrayList<>();
-        for (JavaPluginPayloadService.JavaPluginCandidate candidate : javaPluginPayloadService.buildCandidates(plugin, payloadBytes)) {
+        loadJavaCandidates(connection, plugin, javaPluginPayloadService.buildCandidates(plugin, payloadBytes),
+                forceRefresh, new ArrayList<>());
+    }
+
+    /**
+     * Tries each candidate class name in turn until the shell accepts one, moving on only when the previous one
+     * clashed with a class already defined there.
+     */
+    private void loadJavaCandidates(ShellConnection connection, Plugin plugin,
+                                    List<JavaPluginPayloadService.JavaPluginCandidate> candidates,
+                                    boolean forceRefresh, List<Exception> failures) {
+        for (JavaPluginPayloadService.JavaPluginCandidate candidate : candidates) {
             try {
                 if (forceRefresh) {
                     connection.refreshPlugin(plugin.getPluginId(), plugin.getVersion(), candidate.payloadBytes());
@@ -2,6 +2,12 @@ package com.reajason.noone.server.shell;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
 
 /**
  * Shell repository interface
@@ -9,6 +15,16 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
  * @author ReaJason
  * @since 2025/12/27
  */
-public interface ShellRepository extends JpaRepository<Shell, Long>, JpaSpecificationExecutor<Shell> {
+public interface ShellRepository extends JpaRepository<Shell, Long>, JpaSpecificationExecutor<Shell>,
+        ShellRepositoryCustom {
+
+    @Modifying
+    @Query("update Shell s set s.status = :status, s.lastOnlineAt = :lastOnlineAt where s.id in :ids")
+    int markOnline(@Param("ids") Collection<Long> ids,
+                   @Param("status") ShellStatus status,
+                   @Param("lastOnlineAt") LocalDateTime lastOnlineAt);
 
+    @Modifying
+    @Query("update Shell s set s.status = :status where s.id in :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") ShellStatus status);
 }
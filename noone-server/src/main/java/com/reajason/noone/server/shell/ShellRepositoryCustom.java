@@ -0,0 +1,20 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.server.shell.dto.ShellSummaryResponse;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+/**
+ * Shell queries that Spring Data cannot derive, implemented by {@link ShellRepositoryImpl}
+ *
+ * @author ReaJason
+ */
+public interface ShellRepositoryCustom {
+
+    /**
+     * Streams summary rows matching {@code spec} with the profile name joined in, ordered by id; must be consumed
+     * inside a transaction and closed.
+     */
+    Stream<ShellSummaryResponse> streamSummaries(Specification<Shell> spec);
+}
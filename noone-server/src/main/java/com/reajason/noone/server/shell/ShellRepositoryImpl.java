@@ -0,0 +1,52 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.server.profile.ProfileEntity;
+import com.reajason.noone.server.shell.dto.ShellSummaryResponse;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.stream.Stream;
+
+/**
+ * Criteria-based summary projection, so the streamed listing applies the same {@link Specification} as the paged one
+ *
+ * @author ReaJason
+ */
+class ShellRepositoryImpl implements ShellRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<ShellSummaryResponse> streamSummaries(Specification<Shell> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ShellSummaryResponse> query = cb.createQuery(ShellSummaryResponse.class);
+        Root<Shell> shell = query.from(Shell.class);
+        Join<Shell, ProfileEntity> profile = shell.join(ProfileEntity.class, JoinType.LEFT);
+        profile.on(cb.equal(profile.get("id"), shell.get("profileId")));
+
+        query.select(cb.construct(ShellSummaryResponse.class,
+                shell.get("id"), shell.get("name"), shell.get("url"), shell.get("staging"),
+                shell.get("language"), shell.get("shellType"), shell.get("status"), shell.get("projectId"),
+                shell.get("profileId"), profile.get("name"), shell.get("os"), shell.get("arch"),
+                shell.get("runtimeVersion"), shell.get("lastOnlineAt"), shell.get("createdAt"), shell.get("updatedAt")));
+        Predicate predicate = spec.toPredicate(shell, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(shell.get("id")));
+
+        return entityManager.createQuery(query)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, 500)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
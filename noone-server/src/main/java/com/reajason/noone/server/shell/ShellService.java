@@ -19,18 +19,22 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Shell service with JavaManager integration
+ * <p>
+ * Only methods that touch nothing but the database are transactional. Operations that talk to a shell read what
+ * they need first, run the remote call without a transaction, and record the outcome through
+ * {@link ShellStatusUpdater}, so a slow shell never holds a pooled connection.
  *
  * @author ReaJason
  * @since 2025/12/27
  */
 @Slf4j
 @Service
-@Transactional
 public class ShellService {
 
     @Resource
@@ -39,6 +43,9 @@ public class ShellService {
     @Resource
     private ShellConnectionPool shellConnectionPool;
 
+    @Resource
+    private ShellPluginResultCache shellPluginResultCache;
+
     @Resource
     private ShellMapper shellMapper;
 
@@ -48,6 +55,8 @@ public class ShellService {
     private ShellLookupHelper shellLookupHelper;
     @Resource
     private ShellCoreInitHelper shellCoreInitHelper;
+    @Resource
+    private ShellStatusUpdater shellStatusUpdater;
 
     // ==================== Shell Management Operations ====================
 
@@ -55,6 +64,7 @@ public class ShellService {
      * Create a new shell connection (without automatic connection test)
      */
     @AuditLog(module = AuditModule.SHELL, action = AuditAction.CREATE, targetType = "Shell", targetId = "#result.id")
+    @Transactional
     public ShellResponse create(ShellCreateRequest request) {
         validateRuntimeConfig(request.getStaging(), request.getLoaderProfileId());
         Shell shell = shellMapper.toEntity(request);
@@ -77,6 +87,7 @@ public class ShellService {
      * Update shell connection
      */
     @AuditLog(module = AuditModule.SHELL, action = AuditAction.UPDATE, targetType = "Shell", targetId = "#id")
+    @Transactional
     public ShellResponse update(Long id, ShellUpdateRequest request) {
         Shell shell = shellLookupHelper.requireById(id);
         boolean staging = request.getStaging() != null ? request.getStaging() : Boolean.TRUE.equals(shell.getStaging());
@@ -87,6 +98,7 @@ public class ShellService {
 
         shellMapper.updateEntity(shell, request);
         Shell saved = shellRepository.save(shell);
+        shellPluginResultCache.invalidate(id);
         return shellMapper.toResponse(saved);
     }
 
@@ -94,10 +106,12 @@ public class ShellService {
      * Delete shell connection
      */
     @AuditLog(module = AuditModule.SHELL, action = AuditAction.DELETE, targetType = "Shell", targetId = "#id")
+    @Transactional
     public void delete(Long id) {
         Shell shell = shellLookupHelper.requireById(id);
         shellRepository.delete(shell);
         shellConnectionPool.evict(id);
+        shellPluginResultCache.evict(id);
     }
 
     /**
@@ -111,6 +125,21 @@ public class ShellService {
 
         Pageable pageable = PageRequest.of(request.getPage(), request.getPageSize(), sort);
 
+        return shellMapper.toResponsePage(shellRepository.findAll(buildSpecification(request), pageable));
+    }
+
+    /**
+     * Stream lightweight summaries of every shell matching the filters, ordered by id.
+     * Rows are read with a server-side cursor and never include {@code basicInfo}.
+     */
+    @Transactional(readOnly = true)
+    public void streamSummaries(ShellQueryRequest request, Consumer<ShellSummaryResponse> consumer) {
+        try (Stream<ShellSummaryResponse> summaries = shellRepository.streamSummaries(buildSpecification(request))) {
+            summaries.forEach(consumer);
+        }
+    }
+
+    private Specification<Shell> buildSpecification(ShellQueryRequest request) {
         Specification<Shell> spec = Specification.unrestricted();
 
         if (request.getStatus() != null && !request.getStatus().isBlank()) {
@@ -132,7 +161,7 @@ public class ShellService {
             spec = spec.and((root, query, cb) -> cb.equal(root.get("language"), language));
         }
 
-        return shellRepository.findAll(spec, pageable).map(shellMapper::toResponse);
+        return spec;
     }
 
     /**
@@ -148,17 +177,14 @@ public class ShellService {
             boolean connected = connection.test();
 
             if (connected) {
-                shell.setStatus(ShellStatus.CONNECTED);
-                shell.setLastOnlineAt(LocalDateTime.now());
+                shellStatusUpdater.markConnected(id);
             } else {
-                shell.setStatus(ShellStatus.ERROR);
+                shellStatusUpdater.markError(id);
             }
-            shellRepository.save(shell);
 
             return connected;
         } catch (Exception e) {
-            shell.setStatus(ShellStatus.ERROR);
-            shellRepository.save(shell);
+            shellStatusUpdater.markError(id);
             log.error("Connection test failed for shell: {}", id, e);
 
             return false;
@@ -219,12 +245,10 @@ public class ShellService {
             }
 
             if (connected) {
-                shell.setStatus(ShellStatus.CONNECTED);
-                shell.setLastOnlineAt(LocalDateTime.now());
+                shellStatusUpdater.markConnected(id);
             } else {
-                shell.setStatus(ShellStatus.ERROR);
+                shellStatusUpdater.markError(id);
             }
-            shellRepository.save(shell);
 
             long durationMs = System.currentTimeMillis() - start;
 
@@ -236,8 +260,7 @@ public class ShellService {
                     "recovered", recovered
             );
         } catch (Exception e) {
-            shell.setStatus(ShellStatus.ERROR);
-            shellRepository.save(shell);
+            shellStatusUpdater.markError(id);
             log.error("Ping failed for shell: {}", id, e);
 
             long durationMs = System.currentTimeMillis() - start;
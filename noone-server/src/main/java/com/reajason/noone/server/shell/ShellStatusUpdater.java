@@ -7,6 +7,7 @@ import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Map;
 
 @Slf4j
@@ -26,6 +27,51 @@ public class ShellStatusUpdater {
         updateStatus(shellId, ShellStatus.ERROR, null);
     }
 
+    /**
+     * Writes the outcome of many probes with one update per status instead of one save per shell.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void applyBatch(Collection<Long> connectedIds, Collection<Long> errorIds, LocalDateTime onlineAt) {
+        if (!connectedIds.isEmpty()) {
+            shellRepository.markOnline(connectedIds, ShellStatus.CONNECTED, onlineAt);
+        }
+        if (!errorIds.isEmpty()) {
+            shellRepository.updateStatus(errorIds, ShellStatus.ERROR);
+        }
+    }
+
+    /**
+     * Stores a system-info result on the shell. Loads the current row so status changes written meanwhile by other
+     * requests are kept.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void recordSystemInfo(Long shellId, Map<String, Object> data) {
+        try {
+            Shell shell = shellRepository.findById(shellId)
+                    .orElseThrow(() -> new IllegalArgumentException("Shell not found: " + shellId));
+            shell.setBasicInfo(data);
+
+            String rawOsName = SystemInfoNormalizer.extractString(data, "os", "name");
+            String normalizedOs = SystemInfoNormalizer.normalizeOsName(rawOsName);
+            shell.setOs(normalizedOs);
+
+            String rawArch = SystemInfoNormalizer.extractString(data, "os", "arch");
+            shell.setArch(SystemInfoNormalizer.normalizeArch(rawArch, normalizedOs));
+
+            String runtimeType = SystemInfoNormalizer.extractString(data, "runtime", "type");
+            String runtimeVer = SystemInfoNormalizer.extractString(data, "runtime", "version");
+            if (runtimeType != null && runtimeVer != null) {
+                shell.setRuntimeVersion(runtimeType + " " + runtimeVer);
+            } else if (runtimeVer != null) {
+                shell.setRuntimeVersion(runtimeVer);
+            }
+
+            shellRepository.save(shell);
+        } catch (Exception e) {
+            log.warn("Failed to record system info: shellId={}", shellId, e);
+        }
+    }
+
     private void updateStatus(Long shellId, ShellStatus status, LocalDateTime lastOnlineAt) {
         try {
             Shell shell = shellRepository.findById(shellId)
@@ -0,0 +1,16 @@
+package com.reajason.noone.server.shell.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ShellPluginBatchDispatchRequest {
+    private List<ShellPluginDispatchRequest> calls = new ArrayList<>();
+    /**
+     * Whether the calls may run concurrently on the shell; only set it when no call depends on an earlier one.
+     * Calls still run in order when a plugin has to be loaded first.
+     */
+    private boolean parallel;
+}
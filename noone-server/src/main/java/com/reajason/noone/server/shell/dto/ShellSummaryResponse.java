@@ -0,0 +1,36 @@
+package com.reajason.noone.server.shell.dto;
+
+import com.reajason.noone.server.shell.ShellLanguage;
+import com.reajason.noone.server.shell.ShellStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight shell row for bulk listings, without connection settings or basic info
+ *
+ * @author ReaJason
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShellSummaryResponse {
+    private Long id;
+    private String name;
+    private String url;
+    private Boolean staging;
+    private ShellLanguage language;
+    private String shellType;
+    private ShellStatus status;
+    private Long projectId;
+    private Long profileId;
+    private String profileName;
+    private String os;
+    private String arch;
+    private String runtimeVersion;
+    private LocalDateTime lastOnlineAt;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,74 @@
+package com.reajason.noone.server.shell.health;
+
+import com.reajason.noone.server.shell.Shell;
+import com.reajason.noone.server.shell.health.dto.ShellHealthCheckRequest;
+import com.reajason.noone.server.shell.health.dto.ShellHealthCheckSummary;
+import com.reajason.noone.server.shell.health.dto.ShellHealthResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulk health check streamed as server-sent events: one {@code result} event per shell as it completes,
+ * then a single {@code summary} event.
+ *
+ * @author ReaJason
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/shells/health-check")
+@RequiredArgsConstructor
+public class ShellHealthCheckController {
+
+    private static final long EMITTER_GRACE_MS = 30_000;
+
+    private final ShellHealthCheckService shellHealthCheckService;
+    private final ShellHealthCheckProperties properties;
+
+    @PostMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("@authorizationService.hasSystemPermission('shell:test')")
+    public SseEmitter check(@RequestBody(required = false) ShellHealthCheckRequest request) {
+        List<Shell> shells = shellHealthCheckService.resolveTargets(request);
+        SseEmitter emitter = new SseEmitter(properties.getDeadline().toMillis() + EMITTER_GRACE_MS);
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(e -> open.set(false));
+
+        Thread.ofVirtual().name("shell-health-check").start(() -> {
+            try {
+                ShellHealthCheckSummary summary = shellHealthCheckService.run(shells, result -> send(emitter, open, result));
+                if (open.get()) {
+                    emitter.send(SseEmitter.event().name("summary").data(summary));
+                    emitter.complete();
+                }
+            } catch (Exception e) {
+                log.warn("Bulk health check failed", e);
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * Stops sending once the client went away; the run itself continues so statuses are still written.
+     */
+    private void send(SseEmitter emitter, AtomicBoolean open, ShellHealthResult result) {
+        if (!open.get()) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name("result").data(result));
+        } catch (IOException | IllegalStateException e) {
+            open.set(false);
+            log.debug("Health check client disconnected", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.reajason.noone.server.shell.health;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+@Data
+@ConfigurationProperties(prefix = "noone.health-check")
+public class ShellHealthCheckProperties {
+    /**
+     * Maximum number of shells probed at the same time across the whole run.
+     */
+    private int maxConcurrency = 64;
+
+    /**
+     * Maximum number of shells of one project probed at the same time.
+     */
+    private int perProjectConcurrency = 16;
+
+    /**
+     * Maximum number of shells behind the same proxy probed at the same time.
+     */
+    private int perProxyConcurrency = 8;
+
+    /**
+     * Time budget, in seconds, for a whole run; shells not answered by then are reported as timed out.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration deadline = Duration.ofSeconds(60);
+
+    /**
+     * Number of status changes collected before they are written back in one statement per status.
+     */
+    private int writeBatchSize = 100;
+}
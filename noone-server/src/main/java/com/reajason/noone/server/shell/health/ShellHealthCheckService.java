@@ -0,0 +1,255 @@
+package com.reajason.noone.server.shell.health;
+
+import com.reajason.noone.core.ShellConnection;
+import com.reajason.noone.server.shell.*;
+import com.reajason.noone.server.shell.health.dto.ShellHealthCheckRequest;
+import com.reajason.noone.server.shell.health.dto.ShellHealthCheckSummary;
+import com.reajason.noone.server.shell.health.dto.ShellHealthResult;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Probes many shells concurrently, one virtual thread per shell.
+ * <p>
+ * Each probe holds a permit from its project, its proxy and the global limit while it talks to the shell. Results
+ * are handed to the caller as they complete; shells still pending when the deadline passes are reported as
+ * {@link ShellHealthState#TIMEOUT} and their late answers are dropped. Status changes are buffered and written with
+ * one update statement per status.
+ *
+ * @author ReaJason
+ */
+@Slf4j
+@Service
+public class ShellHealthCheckService {
+
+    @Resource
+    private ShellRepository shellRepository;
+
+    @Resource
+    private ShellConnectionPool shellConnectionPool;
+
+    @Resource
+    private ShellStatusUpdater shellStatusUpdater;
+
+    @Resource
+    private ShellResponseHelper shellResponseHelper;
+
+    @Resource
+    private ShellHealthCheckProperties properties;
+
+    public List<Shell> resolveTargets(ShellHealthCheckRequest request) {
+        if (request != null && request.getShellIds() != null && !request.getShellIds().isEmpty()) {
+            return shellRepository.findAllById(request.getShellIds());
+        }
+        if (request != null && request.getProjectId() != null) {
+            return shellRepository.findAll((root, query, cb) -> cb.equal(root.get("projectId"), request.getProjectId()));
+        }
+        return shellRepository.findAll();
+    }
+
+    /**
+     * Checks the given shells and blocks until all answered or the deadline passed. The listener is called once per
+     * shell, never concurrently.
+     */
+    public ShellHealthCheckSummary run(List<Shell> shells, Consumer<ShellHealthResult> listener) {
+        long start = System.nanoTime();
+        long deadline = start + properties.getDeadline().toNanos();
+        Limits limits = new Limits();
+        Run run = new Run(listener);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<?>> futures = new ArrayList<>(shells.size());
+            for (Shell shell : shells) {
+                futures.add(executor.submit(() -> probe(shell, deadline, limits, run)));
+            }
+            awaitAll(futures, deadline);
+        } finally {
+            // expire first, so probes failing from the interrupt below are not recorded as errors
+            run.expire(shells, elapsedMillis(start));
+            executor.shutdownNow();
+        }
+        run.flush();
+        return run.summary(elapsedMillis(start));
+    }
+
+    private void awaitAll(List<Future<?>> futures, long deadline) {
+        for (Future<?> future : futures) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            try {
+                future.get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return;
+            } catch (ExecutionException e) {
+                log.warn("Health check probe failed unexpectedly", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void probe(Shell shell, long deadline, Limits limits, Run run) {
+        List<Semaphore> held = new ArrayList<>(3);
+        try {
+            for (Semaphore permit : limits.permitsFor(shell)) {
+                if (!permit.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+                held.add(permit);
+            }
+            long start = System.nanoTime();
+            ShellHealthState state;
+            String error = null;
+            try {
+                ShellConnection connection = shellConnectionPool.getOrCreateCached(shell);
+                state = connection.checkStatus() ? ShellHealthState.CONNECTED : ShellHealthState.ERROR;
+            } catch (Exception e) {
+                log.debug("Health check failed for shell: {}", shell.getId(), e);
+                state = ShellHealthState.ERROR;
+                error = shellResponseHelper.safeMessage(e);
+            }
+            run.report(new ShellHealthResult(shell.getId(), shell.getName(), state, elapsedMillis(start), error));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            held.forEach(Semaphore::release);
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private final class Limits {
+        private final Semaphore global = new Semaphore(Math.max(1, properties.getMaxConcurrency()));
+        private final Map<Long, Semaphore> projects = new ConcurrentHashMap<>();
+        private final Map<String, Semaphore> proxies = new ConcurrentHashMap<>();
+
+        /**
+         * Always in project, proxy, global order so probes never wait on each other in a cycle.
+         */
+        List<Semaphore> permitsFor(Shell shell) {
+            List<Semaphore> permits = new ArrayList<>(3);
+            if (shell.getProjectId() != null) {
+                permits.add(projects.computeIfAbsent(shell.getProjectId(),
+                        id -> new Semaphore(Math.max(1, properties.getPerProjectConcurrency()))));
+            }
+            if (shell.getProxyUrl() != null && !shell.getProxyUrl().isBlank()) {
+                permits.add(proxies.computeIfAbsent(shell.getProxyUrl(),
+                        url -> new Semaphore(Math.max(1, properties.getPerProxyConcurrency()))));
+            }
+            permits.add(global);
+            return permits;
+        }
+    }
+
+    private final class Run {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Consumer<ShellHealthResult> listener;
+        private final Set<Long> reported = new HashSet<>();
+        private final EnumMap<ShellHealthState, Integer> counts = new EnumMap<>(ShellHealthState.class);
+        private List<Long> connectedIds = new ArrayList<>();
+        private List<Long> errorIds = new ArrayList<>();
+        private boolean expired;
+
+        Run(Consumer<ShellHealthResult> listener) {
+            this.listener = listener;
+        }
+
+        void report(ShellHealthResult result) {
+            boolean flush;
+            lock.lock();
+            try {
+                if (expired || !reported.add(result.shellId())) {
+                    return;
+                }
+                counts.merge(result.state(), 1, Integer::sum);
+                if (result.state() == ShellHealthState.CONNECTED) {
+                    connectedIds.add(result.shellId());
+                } else if (result.state() == ShellHealthState.ERROR) {
+                    errorIds.add(result.shellId());
+                }
+                notifyListener(result);
+                flush = connectedIds.size() + errorIds.size() >= properties.getWriteBatchSize();
+            } finally {
+                lock.unlock();
+            }
+            if (flush) {
+                flush();
+            }
+        }
+
+        /**
+         * Reports every shell that has not answered yet as timed out and ignores any later answer.
+         */
+        void expire(List<Shell> shells, long elapsedMs) {
+            lock.lock();
+            try {
+                expired = true;
+                for (Shell shell : shells) {
+                    if (reported.add(shell.getId())) {
+                        counts.merge(ShellHealthState.TIMEOUT, 1, Integer::sum);
+                        notifyListener(new ShellHealthResult(shell.getId(), shell.getName(),
+                                ShellHealthState.TIMEOUT, elapsedMs, "Health check deadline exceeded"));
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void flush() {
+            List<Long> connected;
+            List<Long> error;
+            lock.lock();
+            try {
+                connected = connectedIds;
+                error = errorIds;
+                connectedIds = new ArrayList<>();
+                errorIds = new ArrayList<>();
+            } finally {
+                lock.unlock();
+            }
+            if (connected.isEmpty() && error.isEmpty()) {
+                return;
+            }
+            try {
+                shellStatusUpdater.applyBatch(connected, error, LocalDateTime.now());
+            } catch (Exception e) {
+                log.warn("Failed to write health check statuses: connected={}, error={}", connected.size(), error.size(), e);
+            }
+        }
+
+        ShellHealthCheckSummary summary(long durationMs) {
+            lock.lock();
+            try {
+                return new ShellHealthCheckSummary(reported.size(),
+                        counts.getOrDefault(ShellHealthState.CONNECTED, 0),
+                        counts.getOrDefault(ShellHealthState.ERROR, 0),
+                        counts.getOrDefault(ShellHealthState.TIMEOUT, 0),
+                        durationMs);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void notifyListener(ShellHealthResult result) {
+            try {
+                listener.accept(result);
+            } catch (Exception e) {
+                log.debug("Health check listener failed for shell: {}", result.shellId(), e);
+            }
+        }
+    }
+}
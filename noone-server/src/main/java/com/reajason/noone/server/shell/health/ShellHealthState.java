@@ -0,0 +1,15 @@
+package com.reajason.noone.server.shell.health;
+
+/**
+ * Outcome of probing one shell during a bulk health check
+ *
+ * @author ReaJason
+ */
+public enum ShellHealthState {
+    CONNECTED,
+    ERROR,
+    /**
+     * The run deadline passed before the shell answered; its stored status is left untouched.
+     */
+    TIMEOUT
+}
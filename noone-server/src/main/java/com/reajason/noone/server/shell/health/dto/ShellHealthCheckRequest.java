@@ -0,0 +1,16 @@
+package com.reajason.noone.server.shell.health.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO for a bulk health check; without shell ids every shell (of the project, if given) is checked
+ *
+ * @author ReaJason
+ */
+@Data
+public class ShellHealthCheckRequest {
+    private List<Long> shellIds;
+    private Long projectId;
+}
@@ -0,0 +1,9 @@
+package com.reajason.noone.server.shell.health.dto;
+
+/**
+ * Totals sent as the final event of a bulk health check
+ *
+ * @author ReaJason
+ */
+public record ShellHealthCheckSummary(int total, int connected, int error, int timeout, long durationMs) {
+}
@@ -0,0 +1,11 @@
+package com.reajason.noone.server.shell.health.dto;
+
+import com.reajason.noone.server.shell.health.ShellHealthState;
+
+/**
+ * Health check outcome of a single shell, streamed to the client as soon as it is known
+ *
+ * @author ReaJason
+ */
+public record ShellHealthResult(Long shellId, String name, ShellHealthState state, long latencyMs, String error) {
+}
@@ -0,0 +1,124 @@
+package com.reajason.noone.server.shell.oplog;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Estimates the UTF-8 size of the JSON Jackson would write for a value, without writing it.
+ * <p>
+ * The walk stops as soon as the running total passes the limit, so a huge result costs no more than the limit to
+ * measure. Binary values count as their base64 length; unknown objects count as their {@code toString()}.
+ */
+final class JsonSizeEstimator {
+
+    private final long limit;
+    private long size;
+
+    private JsonSizeEstimator(long limit) {
+        this.limit = limit;
+    }
+
+    /**
+     * Returns the estimated size, or some value greater than {@code limit} once the limit is exceeded.
+     */
+    static long estimate(Object value, long limit) {
+        JsonSizeEstimator estimator = new JsonSizeEstimator(limit);
+        estimator.walk(value);
+        return estimator.size;
+    }
+
+    static long base64Length(long bytes) {
+        return (bytes + 2) / 3 * 4;
+    }
+
+    private boolean walk(Object value) {
+        if (value == null) {
+            return add(4);
+        }
+        if (value instanceof CharSequence text) {
+            return addString(text);
+        }
+        if (value instanceof Boolean bool) {
+            return add(bool ? 4 : 5);
+        }
+        if (value instanceof Number || value instanceof Character || value instanceof Enum<?>) {
+            return addString(value.toString()) && add(value instanceof Number ? -2 : 0);
+        }
+        if (value instanceof byte[] bytes) {
+            return add(2 + base64Length(bytes.length));
+        }
+        if (value instanceof ByteBuffer buffer) {
+            return add(2 + base64Length(buffer.remaining()));
+        }
+        if (value instanceof Map<?, ?> map) {
+            boolean first = true;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (!add(first ? 2 : 1) || !addString(String.valueOf(entry.getKey())) || !add(1) || !walk(entry.getValue())) {
+                    return false;
+                }
+                first = false;
+            }
+            return !first || add(2);
+        }
+        if (value instanceof Collection<?> collection) {
+            boolean first = true;
+            for (Object item : collection) {
+                if (!add(first ? 2 : 1) || !walk(item)) {
+                    return false;
+                }
+                first = false;
+            }
+            return !first || add(2);
+        }
+        if (value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            for (int i = 0; i < length; i++) {
+                if (!add(i == 0 ? 2 : 1) || !walk(Array.get(value, i))) {
+                    return false;
+                }
+            }
+            return length > 0 || add(2);
+        }
+        return addString(value.toString());
+    }
+
+    private boolean addString(CharSequence text) {
+        if (!add(2)) {
+            return false;
+        }
+        int length = text.length();
+        if (!add(length)) {
+            return false;
+        }
+        // count the bytes beyond one per char, checking the limit every few thousand chars
+        long extra = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                if (c == '"' || c == '\\' || c == '\n' || c == '\r' || c == '\t' || c == '\b' || c == '\f') {
+                    extra += 1;
+                } else if (c < 0x20) {
+                    extra += 5;
+                }
+            } else if (c < 0x800 || Character.isSurrogate(c)) {
+                extra += 1;
+            } else {
+                extra += 2;
+            }
+            if ((i & 0xFFF) == 0xFFF) {
+                if (!add(extra)) {
+                    return false;
+                }
+                extra = 0;
+            }
+        }
+        return add(extra);
+    }
+
+    private boolean add(long bytes) {
+        size += bytes;
+        return size <= limit;
+    }
+}
@@ -0,0 +1,19 @@
+package com.reajason.noone.server.shell.oplog;
+
+/**
+ * How much of a plugin's args and result is kept in the operation log.
+ */
+public enum OpLogCaptureMode {
+    /**
+     * Keep everything, falling back to {@link #PREVIEW} when the JSON would exceed the size limit.
+     */
+    FULL,
+    /**
+     * Keep the structure with long strings cut to head and tail and long lists cut to their first and last items.
+     */
+    PREVIEW,
+    /**
+     * Keep only {@code code}, {@code error}, the estimated size and a SHA-256 over the content.
+     */
+    DIGEST
+}
@@ -0,0 +1,35 @@
+package com.reajason.noone.server.shell.oplog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "noone.oplog.capture")
+public class OpLogCaptureProperties {
+    /**
+     * Largest estimated JSON size, in bytes, stored as-is in {@link OpLogCaptureMode#FULL} mode.
+     */
+    private long maxSize = 10 * 1024 * 1024;
+
+    /**
+     * Characters kept per string in a preview, split between head and tail.
+     */
+    private int previewChars = 2048;
+
+    /**
+     * Items kept per list or map in a preview, split between head and tail for lists.
+     */
+    private int previewItems = 200;
+
+    private OpLogCaptureMode defaultMode = OpLogCaptureMode.FULL;
+
+    /**
+     * Mode per {@code pluginId} or {@code pluginId:action}; the more specific key wins. In YAML, quote keys
+     * containing ':' as {@code "[file-manager:download]"}.
+     */
+    private Map<String, OpLogCaptureMode> rules = new LinkedHashMap<>(Map.of(
+            "file-manager:download", OpLogCaptureMode.DIGEST));
+}
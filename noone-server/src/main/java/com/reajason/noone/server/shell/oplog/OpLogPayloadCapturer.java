@@ -0,0 +1,253 @@
+package com.reajason.noone.server.shell.oplog;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Turns plugin args and results into what the operation log stores, according to {@link OpLogCaptureProperties}.
+ * <p>
+ * Binary values are never stored; in every mode they are replaced by {@code {"_bytes": length}}. Maps that need no
+ * change are returned as-is, so the common small result is not copied. Args are never reduced to a digest, since
+ * they are what identifies the operation; a {@link OpLogCaptureMode#DIGEST} rule previews them instead.
+ */
+@Component
+@RequiredArgsConstructor
+public class OpLogPayloadCapturer {
+
+    static final String CAPTURE_KEY = "_capture";
+    static final String BYTES_KEY = "_bytes";
+
+    private final OpLogCaptureProperties properties;
+
+    public Map<String, Object> captureResult(String pluginId, String action, Map<String, Object> result) {
+        if (result == null) {
+            return null;
+        }
+        return switch (modeFor(pluginId, action)) {
+            case FULL -> full(result);
+            case PREVIEW -> preview(result);
+            case DIGEST -> digest(result);
+        };
+    }
+
+    public Map<String, Object> captureArgs(String pluginId, String action, Map<String, Object> args) {
+        if (args == null) {
+            return null;
+        }
+        return modeFor(pluginId, action) == OpLogCaptureMode.FULL ? full(args) : preview(args);
+    }
+
+    OpLogCaptureMode modeFor(String pluginId, String action) {
+        Map<String, OpLogCaptureMode> rules = properties.getRules();
+        if (pluginId != null && rules != null) {
+            OpLogCaptureMode mode = action != null ? rules.get(pluginId + ":" + action) : null;
+            if (mode == null) {
+                mode = rules.get(pluginId);
+            }
+            if (mode != null) {
+                return mode;
+            }
+        }
+        return properties.getDefaultMode() != null ? properties.getDefaultMode() : OpLogCaptureMode.FULL;
+    }
+
+    private Map<String, Object> full(Map<String, Object> payload) {
+        if (JsonSizeEstimator.estimate(payload, properties.getMaxSize()) > properties.getMaxSize()) {
+            return preview(payload);
+        }
+        return castMap(stripBinary(payload));
+    }
+
+    private Map<String, Object> preview(Map<String, Object> payload) {
+        Map<String, Object> preview = new LinkedHashMap<>(castMap(previewValue(payload)));
+        preview.put(CAPTURE_KEY, OpLogCaptureMode.PREVIEW.name());
+        preview.put("_truncated", true);
+        return preview;
+    }
+
+    private Map<String, Object> digest(Map<String, Object> payload) {
+        Map<String, Object> digest = new LinkedHashMap<>();
+        if (payload.containsKey("code")) {
+            digest.put("code", payload.get("code"));
+        }
+        if (payload.get("error") instanceof CharSequence error) {
+            digest.put("error", previewString(error.toString()));
+        }
+        digest.put(CAPTURE_KEY, OpLogCaptureMode.DIGEST.name());
+        digest.put("_originalSize", JsonSizeEstimator.estimate(payload, Long.MAX_VALUE));
+        MessageDigest sha256 = sha256();
+        hash(payload, sha256);
+        digest.put("sha256", HexFormat.of().formatHex(sha256.digest()));
+        return digest;
+    }
+
+    /**
+     * Returns the value itself when it holds no binary anywhere, otherwise a copy with binaries replaced.
+     */
+    private Object stripBinary(Object value) {
+        if (value instanceof byte[] bytes) {
+            return Map.of(BYTES_KEY, bytes.length);
+        }
+        if (value instanceof ByteBuffer buffer) {
+            return Map.of(BYTES_KEY, buffer.remaining());
+        }
+        if (value instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = null;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object stripped = stripBinary(entry.getValue());
+                if (stripped != entry.getValue() && copy == null) {
+                    copy = new LinkedHashMap<>(map);
+                }
+                if (copy != null) {
+                    copy.put(entry.getKey(), stripped);
+                }
+            }
+            return copy != null ? copy : map;
+        }
+        if (value instanceof Collection<?> collection) {
+            List<Object> copy = null;
+            int index = 0;
+            for (Object item : collection) {
+                Object stripped = stripBinary(item);
+                if (stripped != item && copy == null) {
+                    copy = new ArrayList<>(collection);
+                }
+                if (copy != null) {
+                    copy.set(index, stripped);
+                }
+                index++;
+            }
+            return copy != null ? copy : collection;
+        }
+        if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> copy = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                copy.add(stripBinary(Array.get(value, i)));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private Object previewValue(Object value) {
+        if (value instanceof CharSequence text) {
+            return previewString(text.toString());
+        }
+        if (value instanceof byte[] || value instanceof ByteBuffer) {
+            return stripBinary(value);
+        }
+        if (value instanceof Map<?, ?> map) {
+            int limit = Math.max(1, properties.getPreviewItems());
+            Map<Object, Object> copy = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (copy.size() == limit) {
+                    copy.put("_omittedEntries", map.size() - limit);
+                    break;
+                }
+                copy.put(entry.getKey(), previewValue(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof Collection<?> collection) {
+            return previewList(new ArrayList<>(collection));
+        }
+        if (value != null && value.getClass().isArray()) {
+            int length = Array.getLength(value);
+            List<Object> items = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                items.add(Array.get(value, i));
+            }
+            return previewList(items);
+        }
+        return value;
+    }
+
+    private List<Object> previewList(List<?> items) {
+        int limit = Math.max(2, properties.getPreviewItems());
+        if (items.size() <= limit) {
+            return items.stream().map(this::previewValue).toList();
+        }
+        int head = limit / 2;
+        int tail = limit - head;
+        List<Object> preview = new ArrayList<>(limit + 1);
+        for (Object item : items.subList(0, head)) {
+            preview.add(previewValue(item));
+        }
+        preview.add("… " + (items.size() - limit) + " items omitted …");
+        for (Object item : items.subList(items.size() - tail, items.size())) {
+            preview.add(previewValue(item));
+        }
+        return preview;
+    }
+
+    private String previewString(String text) {
+        int limit = Math.max(2, properties.getPreviewChars());
+        if (text.length() <= limit) {
+            return text;
+        }
+        int head = limit / 2;
+        int tailStart = text.length() - (limit - head);
+        if (Character.isHighSurrogate(text.charAt(head - 1))) {
+            head--;
+        }
+        if (Character.isLowSurrogate(text.charAt(tailStart))) {
+            tailStart++;
+        }
+        return text.substring(0, head)
+                + "… " + (tailStart - head) + " chars omitted …"
+                + text.substring(tailStart);
+    }
+
+    private void hash(Object value, MessageDigest digest) {
+        if (value instanceof byte[] bytes) {
+            digest.update(bytes);
+        } else if (value instanceof ByteBuffer buffer) {
+            digest.update(buffer.duplicate());
+        } else if (value instanceof Map<?, ?> map) {
+            digest.update((byte) '{');
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                digest.update(String.valueOf(entry.getKey()).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) ':');
+                hash(entry.getValue(), digest);
+            }
+            digest.update((byte) '}');
+        } else if (value instanceof Collection<?> collection) {
+            digest.update((byte) '[');
+            for (Object item : collection) {
+                hash(item, digest);
+                digest.update((byte) ',');
+            }
+            digest.update((byte) ']');
+        } else if (value != null && value.getClass().isArray()) {
+            digest.update((byte) '[');
+            for (int i = 0, length = Array.getLength(value); i < length; i++) {
+                hash(Array.get(value, i), digest);
+                digest.update((byte) ',');
+            }
+            digest.update((byte) ']');
+        } else {
+            digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> castMap(Object value) {
+        return (Map<String, Object>) value;
+    }
+}
@@ -21,6 +21,9 @@ import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 @Aspect
@@ -33,52 +36,78 @@ public class ShellOpLogAspect {
     );
 
     private final ApplicationEventPublisher eventPublisher;
+    private final OpLogPayloadCapturer payloadCapturer;
     private final ExpressionParser parser = new SpelExpressionParser();
     private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+    /**
+     * Publishes once the operation is over: when the method returns, or, for a method returning a
+     * {@link CompletableFuture}, when that future completes, with its value as the result.
+     */
     @Around("@annotation(shellOpLog)")
     public Object around(ProceedingJoinPoint joinPoint, ShellOpLog shellOpLog) throws Throwable {
         long start = System.currentTimeMillis();
         String username = getCurrentUsername();
-        Object result = null;
-        boolean success = true;
-        String errorMessage = null;
-
+        Object result;
         try {
             result = joinPoint.proceed();
-            return result;
         } catch (Throwable e) {
-            success = false;
-            errorMessage = e.getMessage();
+            publish(joinPoint, shellOpLog, username, null, false, e.getMessage(), start);
             throw e;
-        } finally {
-            long durationMs = System.currentTimeMillis() - start;
-            try {
-                Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
-                var context = new MethodBasedEvaluationContext(
-                        joinPoint.getTarget(), method, joinPoint.getArgs(), parameterNameDiscoverer);
-                if (result != null) {
-                    context.setVariable("result", result);
+        }
+        if (result instanceof CompletableFuture<?> future) {
+            future.whenComplete((value, failure) -> {
+                if (failure == null) {
+                    publish(joinPoint, shellOpLog, username, value, true, null, start);
+                } else {
+                    publish(joinPoint, shellOpLog, username, null, false, failureMessage(failure), start);
                 }
+            });
+        } else {
+            publish(joinPoint, shellOpLog, username, result, true, null, start);
+        }
+        return result;
+    }
 
-                Long shellId = evaluateSpelAsLong(shellOpLog.shellId(), context);
-                String pluginId = evaluateSpel(shellOpLog.pluginId(), context);
-                String action = evaluateSpel(shellOpLog.action(), context);
+    private void publish(ProceedingJoinPoint joinPoint, ShellOpLog shellOpLog, String username, Object result,
+                         boolean success, String errorMessage, long start) {
+        long durationMs = System.currentTimeMillis() - start;
+        try {
+            Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+            var context = new MethodBasedEvaluationContext(
+                    joinPoint.getTarget(), method, joinPoint.getArgs(), parameterNameDiscoverer);
+            if (result != null) {
+                context.setVariable("result", result);
+            }
 
-                Map<String, Object> capturedArgs = captureArgs(joinPoint);
-                Map<String, Object> capturedResult = wrapResult(result);
+            Long shellId = evaluateSpelAsLong(shellOpLog.shellId(), context);
+            String pluginId = evaluateSpel(shellOpLog.pluginId(), context);
+            String action = evaluateSpel(shellOpLog.action(), context);
 
-                eventPublisher.publishEvent(new ShellOperationLogEvent(
-                        shellId, username, shellOpLog.operation(),
-                        pluginId, action, capturedArgs, capturedResult,
-                        success, errorMessage, durationMs
-                ));
-            } catch (Exception e) {
-                log.warn("Failed to publish ShellOperationLogEvent", e);
-            }
+            Map<String, Object> args = captureArgs(joinPoint);
+            String payloadAction = action != null && !action.isBlank() ? action : argsAction(args);
+            Map<String, Object> capturedArgs = payloadCapturer.captureArgs(pluginId, payloadAction, args);
+            Map<String, Object> capturedResult = payloadCapturer.captureResult(pluginId, payloadAction, wrapResult(result));
+
+            eventPublisher.publishEvent(new ShellOperationLogEvent(
+                    shellId, username, shellOpLog.operation(),
+                    pluginId, action, capturedArgs, capturedResult,
+                    success, errorMessage, durationMs
+            ));
+        } catch (Exception e) {
+            log.warn("Failed to publish ShellOperationLogEvent", e);
         }
     }
 
+    private String failureMessage(Throwable failure) {
+        if (failure instanceof CancellationException) {
+            return "Cancelled";
+        }
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure;
+        return cause.getMessage();
+    }
+
     @SuppressWarnings("unchecked")
     private Map<String, Object> wrapResult(Object result) {
         if (result == null) {
@@ -90,6 +119,24 @@ public class ShellOpLogAspect {
         return Map.of("value", result);
     }
 
+    /**
+     * Plugin dispatches carry their action inside the args, as {@code action} or {@code op}.
+     */
+    private String argsAction(Map<String, Object> args) {
+        for (Object value : args.values()) {
+            if (value instanceof Map<?, ?> map) {
+                Object action = map.get("action");
+                if (action == null) {
+                    action = map.get("op");
+                }
+                if (action instanceof String text) {
+                    return text;
+                }
+            }
+        }
+        return null;
+    }
+
     private Map<String, Object> captureArgs(ProceedingJoinPoint joinPoint) {
         MethodSignature sig = (MethodSignature) joinPoint.getSignature();
         Method method = sig.getMethod();
@@ -12,23 +12,16 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import tools.jackson.core.JacksonException;
-import tools.jackson.databind.ObjectMapper;
 
-import java.util.HashMap;
+import java.time.LocalDateTime;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 
 @Slf4j
 @Service
 public class ShellOperationLogService {
 
-    private static final int MAX_RESULT_SIZE = 10 * 1024 * 1024; // 10MB
-    private static final Set<String> SKIP_RESULT_ACTIONS = Set.of("download");
-
     @Resource
     private ShellOperationLogRepository repository;
 
@@ -36,37 +29,21 @@ public class ShellOperationLogService {
     private ShellOperationLogMapper mapper;
 
     @Resource
-    private ObjectMapper objectMapper;
+    private ShellOperationLogWriter writer;
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    /**
+     * Queues an operation log attributed to the current user; the row is written asynchronously in a batch.
+     */
     public void record(Long shellId, ShellOperationType operation, String pluginId,
                        String action, Map<String, Object> args, Map<String, Object> result,
                        boolean success, String errorMessage, long durationMs) {
-        try {
-            String username = getCurrentUsername();
-
-            ShellOperationLog opLog = new ShellOperationLog();
-            opLog.setShellId(shellId);
-            opLog.setUsername(username);
-            opLog.setOperation(operation);
-            opLog.setPluginId(pluginId);
-            opLog.setAction(action);
-            opLog.setArgs(args);
-            opLog.setSuccess(success);
-            opLog.setErrorMessage(truncate(errorMessage, 2000));
-            opLog.setDurationMs(durationMs);
-
-            if (shouldStoreResult(pluginId, action)) {
-                opLog.setResult(truncateResult(result));
-            }
-
-            repository.save(opLog);
-        } catch (Exception e) {
-            log.warn("Failed to record shell operation log: shellId={}, operation={}", shellId, operation, e);
-        }
+        record(new ShellOperationLogEvent(shellId, getCurrentUsername(), operation, pluginId, action,
+                args, result, success, errorMessage, durationMs));
     }
 
-    @Transactional
+    /**
+     * Queues an operation log for the batched writer.
+     */
     public void record(ShellOperationLogEvent event) {
         try {
             ShellOperationLog opLog = new ShellOperationLog();
@@ -79,12 +56,13 @@ public class ShellOperationLogService {
             opLog.setSuccess(event.success());
             opLog.setErrorMessage(truncate(event.errorMessage(), 2000));
             opLog.setDurationMs(event.durationMs());
+            opLog.setCreatedAt(LocalDateTime.now());
 
-            if (shouldStoreResult(event.pluginId(), event.action())) {
-                opLog.setResult(truncateResult(event.result()));
-            }
+            opLog.setResult(event.result());
 
-            repository.save(opLog);
+            if (!writer.submit(opLog)) {
+                log.debug("Dropped shell operation log: shellId={}, operation={}", event.shellId(), event.operation());
+            }
         } catch (Exception e) {
             log.warn("Failed to record shell operation log from event: shellId={}, operation={}",
                     event.shellId(), event.operation(), e);
@@ -144,40 +122,6 @@ public class ShellOperationLogService {
                 shellId, username, pluginId).map(mapper::toResponse);
     }
 
-    private boolean shouldStoreResult(String pluginId, String action) {
-        if (action != null
-                && "file-manager".equals(pluginId)
-                && SKIP_RESULT_ACTIONS.contains(action)) {
-            return false;
-        }
-        return true;
-    }
-
-    private Map<String, Object> truncateResult(Map<String, Object> result) {
-        if (result == null) {
-            return null;
-        }
-        try {
-            String json = objectMapper.writeValueAsString(result);
-            if (json.length() <= MAX_RESULT_SIZE) {
-                return result;
-            }
-            // Too large, store only metadata
-            Map<String, Object> meta = new HashMap<>();
-            if (result.containsKey("code")) {
-                meta.put("code", result.get("code"));
-            }
-            if (result.containsKey("error")) {
-                meta.put("error", result.get("error"));
-            }
-            meta.put("_truncated", true);
-            meta.put("_originalSize", json.length());
-            return meta;
-        } catch (JacksonException e) {
-            return null;
-        }
-    }
-
     private String getCurrentUsername() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null) {
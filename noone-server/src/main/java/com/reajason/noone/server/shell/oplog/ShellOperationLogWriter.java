@@ -0,0 +1,98 @@
+package com.reajason.noone.server.shell.oplog;
+
+import com.reajason.noone.server.config.LogWriterProperties;
+import com.reajason.noone.server.util.BatchingWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes shell operation logs off the request path, as JDBC batch inserts.
+ * <p>
+ * Args and results arrive already bounded by {@link OpLogPayloadCapturer}, so they are serialized here once,
+ * on the writer thread.
+ */
+@Slf4j
+@Component
+public class ShellOperationLogWriter {
+
+    private static final String INSERT_SQL = "insert into shell_operation_logs "
+            + "(shell_id, username, operation, plugin_id, action, args, result, success, error_message, duration_ms, created_at) "
+            + "values (?, ?, ?, ?, ?, cast(? as jsonb), cast(? as jsonb), ?, ?, ?, ?)";
+
+    @Resource
+    private JdbcTemplate jdbcTemplate;
+
+    @Resource
+    private ObjectMapper objectMapper;
+
+    @Resource
+    private LogWriterProperties properties;
+
+    private BatchingWriter<ShellOperationLog> writer;
+
+    @PostConstruct
+    void start() {
+        writer = new BatchingWriter<>("shell-oplog", properties.getCapacity(), properties.getBatchSize(),
+                properties.getFlushInterval(), properties.getOfferTimeout(), properties.getShutdownTimeout(),
+                this::insertBatch);
+    }
+
+    /**
+     * Queues the log for writing; returns {@code false} if it was dropped because the buffer is full.
+     */
+    public boolean submit(ShellOperationLog opLog) {
+        return writer.submit(opLog);
+    }
+
+    public BatchingWriter.Stats stats() {
+        return writer.stats();
+    }
+
+    @PreDestroy
+    void stop() {
+        writer.close();
+    }
+
+    void insertBatch(List<ShellOperationLog> logs) {
+        List<Object[]> rows = new ArrayList<>(logs.size());
+        for (ShellOperationLog opLog : logs) {
+            rows.add(new Object[]{
+                    opLog.getShellId(),
+                    opLog.getUsername(),
+                    opLog.getOperation().name(),
+                    opLog.getPluginId(),
+                    opLog.getAction(),
+                    toJson(opLog.getArgs()),
+                    toJson(opLog.getResult()),
+                    opLog.isSuccess(),
+                    opLog.getErrorMessage(),
+                    opLog.getDurationMs(),
+                    Timestamp.valueOf(opLog.getCreatedAt())
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private String toJson(Map<String, Object> value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JacksonException e) {
+            log.debug("Failed to serialize shell operation log field", e);
+            return null;
+        }
+    }
+}
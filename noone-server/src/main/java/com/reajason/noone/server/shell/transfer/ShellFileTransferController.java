@@ -0,0 +1,87 @@
+package com.reajason.noone.server.shell.transfer;
+
+import com.reajason.noone.server.shell.transfer.dto.ShellFileUploadResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streams files to and from a shell chunk by chunk, instead of carrying their bytes inside dispatch JSON.
+ * Both directions resume from an {@code offset}. An upload is the raw request body rather than a multipart part,
+ * so it is bounded by {@link ShellFileTransferProperties#getMaxUploadSize()} instead of the global multipart limits,
+ * and a download runs under its own {@link ShellFileTransferProperties#getDownloadTimeout()}.
+ *
+ * @author ReaJason
+ */
+@RestController
+@RequestMapping("/api/shells/{id}/files")
+@RequiredArgsConstructor
+public class ShellFileTransferController {
+
+    static final String FILE_SIZE_HEADER = "X-File-Size";
+    static final String FILE_OFFSET_HEADER = "X-File-Offset";
+
+    private final ShellFileTransferService shellFileTransferService;
+    private final ShellFileTransferProperties properties;
+
+    @GetMapping("/download")
+    @PreAuthorize("@authorizationService.hasSystemPermission('shell:dispatch')")
+    public ResponseEntity<StreamingResponseBody> download(@PathVariable Long id,
+                                                          @RequestParam String path,
+                                                          @RequestParam(defaultValue = "0") long offset,
+                                                          HttpServletRequest request) {
+        AsyncWebRequest asyncWebRequest = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asyncWebRequest != null) {
+            asyncWebRequest.setTimeout(properties.getDownloadTimeout().toMillis());
+        }
+        ShellFileTransferService.Download download = shellFileTransferService.openDownload(id, path, offset);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(download.contentLength())
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName(download.path()), StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .header(FILE_SIZE_HEADER, String.valueOf(download.fileSize()))
+                .header(FILE_OFFSET_HEADER, String.valueOf(download.offset()))
+                .body(download::transferTo);
+    }
+
+    @PostMapping(value = "/upload", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("@authorizationService.hasSystemPermission('shell:dispatch')")
+    public ResponseEntity<ShellFileUploadResponse> upload(@PathVariable Long id,
+                                                          @RequestParam String path,
+                                                          @RequestParam(defaultValue = "0") long offset,
+                                                          HttpServletRequest request) throws IOException {
+        long maxUploadSize = properties.getMaxUploadSize().toBytes();
+        if (request.getContentLengthLong() > maxUploadSize) {
+            throw new MaxUploadSizeExceededException(maxUploadSize);
+        }
+        try (InputStream input = request.getInputStream()) {
+            return ResponseEntity.ok(shellFileTransferService.upload(id, path, offset, input));
+        }
+    }
+
+    static String fileName(String path) {
+        String normalized = path.replace('\\', '/');
+        int slash = normalized.lastIndexOf('/', normalized.length() - 2);
+        String name = normalized.substring(slash + 1);
+        if (name.endsWith("/")) {
+            name = name.substring(0, name.length() - 1);
+        }
+        return name.isEmpty() ? "download" : name;
+    }
+}
@@ -0,0 +1,36 @@
+package com.reajason.noone.server.shell.transfer;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.convert.DurationUnit;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+
+@Data
+@ConfigurationProperties(prefix = "noone.file-transfer")
+public class ShellFileTransferProperties {
+    /**
+     * Bytes moved per file-manager call.
+     */
+    private int chunkSize = 256 * 1024;
+
+    /**
+     * Most chunks of one download read from the shell ahead of the client; bounds the memory a download holds.
+     */
+    private int maxChunksInFlight = 4;
+
+    /**
+     * Largest body one upload request may carry. Uploads are streamed rather than parsed as multipart, so the
+     * global multipart limits do not apply to them.
+     */
+    private DataSize maxUploadSize = DataSize.ofGigabytes(4);
+
+    /**
+     * Seconds a download may take before the servlet container ends it, in place of the shorter default async
+     * timeout that applies to every other endpoint.
+     */
+    @DurationUnit(ChronoUnit.SECONDS)
+    private Duration downloadTimeout = Duration.ofHours(1);
+}
@@ -0,0 +1,277 @@
+package com.reajason.noone.server.shell.transfer;
+
+import com.reajason.noone.core.Constants;
+import com.reajason.noone.core.ShellConnection;
+import com.reajason.noone.server.api.ResourceNotFoundException;
+import com.reajason.noone.server.shell.ShellPluginResultCache;
+import com.reajason.noone.server.shell.ShellPluginService;
+import com.reajason.noone.server.shell.ShellResponseHelper;
+import com.reajason.noone.server.shell.transfer.dto.ShellFileUploadResponse;
+import jakarta.annotation.Resource;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Moves files between clients and shells through the file-manager plugin's {@code read-chunk} and
+ * {@code write-chunk} actions, one chunk at a time, so a transfer holds a few chunks in memory whatever the file's
+ * size.
+ * <p>
+ * A download reads up to {@link ShellFileTransferProperties#getMaxChunksInFlight()} chunks ahead of the client on
+ * virtual threads and writes them out in order. An upload writes one chunk while reading the next from the client;
+ * writes stay in order because the plugin rejects an offset past the end of the file.
+ */
+@Service
+public class ShellFileTransferService {
+
+    static final String PLUGIN_ID = "file-manager";
+
+    private static final Set<String> CLIENT_ERRORS = Set.of("INVALID_ARG", "OFFSET_OUT_OF_RANGE", "NOT_DIRECTORY");
+
+    @Resource
+    private ShellPluginService shellPluginService;
+    @Resource
+    private ShellResponseHelper shellResponseHelper;
+    @Resource
+    private ShellPluginResultCache shellPluginResultCache;
+    @Resource
+    private ShellFileTransferProperties properties;
+
+    /**
+     * Reads the first chunk from {@code offset}, so a missing file or a bad offset fails before any response is
+     * committed, and returns a download that streams the rest.
+     */
+    public Download openDownload(Long shellId, String path, long offset) {
+        requirePath(path);
+        requireOffset(offset);
+        ShellConnection connection = shellPluginService.connectWithPlugin(shellId, PLUGIN_ID);
+        return new Download(connection, path, readChunk(connection, path, offset));
+    }
+
+    /**
+     * Writes {@code input} to {@code path} starting at {@code offset}. An offset of 0 replaces the file; a larger
+     * one resumes an earlier upload and must not be past the file's current end.
+     *
+     * @throws MaxUploadSizeExceededException once {@code input} runs past
+     *                                        {@link ShellFileTransferProperties#getMaxUploadSize()}; the chunks
+     *                                        before it stay written, so the upload can be resumed
+     */
+    public ShellFileUploadResponse upload(Long shellId, String path, long offset, InputStream input) throws IOException {
+        requirePath(path);
+        requireOffset(offset);
+        ShellConnection connection = shellPluginService.connectWithPlugin(shellId, PLUGIN_ID);
+        int chunkSize = chunkSize();
+        long maxUploadSize = properties.getMaxUploadSize().toBytes();
+        long position = offset;
+        long fileSize = offset;
+        String remotePath = path;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            byte[] chunk = input.readNBytes(chunkSize);
+            boolean first = true;
+            do {
+                byte[] current = chunk;
+                long chunkOffset = position;
+                if (chunkOffset - offset + current.length > maxUploadSize) {
+                    throw new MaxUploadSizeExceededException(maxUploadSize);
+                }
+                boolean truncate = first && offset == 0;
+                Future<Map<String, Object>> pending = executor.submit(
+                        () -> writeChunk(connection, path, chunkOffset, current, truncate));
+                try {
+                    chunk = current.length < chunkSize ? new byte[0] : input.readNBytes(chunkSize);
+                } catch (IOException e) {
+                    pending.cancel(true);
+                    throw e;
+                }
+                Map<String, Object> written = await(pending);
+                position += current.length;
+                fileSize = asLong(written.get("fileSize"), position);
+                remotePath = StringUtils.defaultIfBlank((String) written.get("path"), remotePath);
+                first = false;
+            } while (chunk.length > 0);
+        } finally {
+            shellPluginResultCache.invalidate(shellId);
+        }
+        return new ShellFileUploadResponse(remotePath, offset, position - offset, fileSize);
+    }
+
+    /**
+     * A download whose first chunk has been read. {@link #transferTo} sends the rest of the file as it was sized
+     * when the download was opened.
+     */
+    public final class Download {
+        private final ShellConnection connection;
+        private final String requestedPath;
+        private final Chunk first;
+
+        private Download(ShellConnection connection, String requestedPath, Chunk first) {
+            this.connection = connection;
+            this.requestedPath = requestedPath;
+            this.first = first;
+        }
+
+        public String path() {
+            return first.path() != null ? first.path() : requestedPath;
+        }
+
+        public long offset() {
+            return first.offset();
+        }
+
+        public long fileSize() {
+            return first.fileSize();
+        }
+
+        public long contentLength() {
+            return fileSize() - offset();
+        }
+
+        public void transferTo(OutputStream out) throws IOException {
+            out.write(first.bytes());
+            long fileSize = fileSize();
+            long next = first.offset() + first.bytes().length;
+            if (next >= fileSize) {
+                return;
+            }
+            int chunkSize = chunkSize();
+            int maxInFlight = Math.max(1, properties.getMaxChunksInFlight());
+            Deque<Future<Chunk>> inFlight = new ArrayDeque<>(maxInFlight);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                try {
+                    while (next < fileSize || !inFlight.isEmpty()) {
+                        while (next < fileSize && inFlight.size() < maxInFlight) {
+                            long chunkOffset = next;
+                            inFlight.add(executor.submit(
+                                    () -> readChunk(connection, requestedPath, chunkOffset, chunkSize)));
+                            next += chunkSize;
+                        }
+                        Chunk chunk = await(inFlight.poll());
+                        long expected = Math.min(chunkSize, fileSize - chunk.offset());
+                        if (chunk.bytes().length != expected) {
+                            throw new IllegalStateException("File changed during download: " + path());
+                        }
+                        out.write(chunk.bytes());
+                    }
+                } finally {
+                    inFlight.forEach(pending -> pending.cancel(true));
+                }
+            }
+        }
+    }
+
+    record Chunk(String path, long offset, byte[] bytes, long fileSize) {
+    }
+
+    private Chunk readChunk(ShellConnection connection, String path, long offset) {
+        return readChunk(connection, path, offset, chunkSize());
+    }
+
+    private Chunk readChunk(ShellConnection connection, String path, long offset, int length) {
+        Map<String, Object> args = new HashMap<>();
+        args.put("op", "read-chunk");
+        args.put("path", path);
+        args.put("offset", offset);
+        args.put("length", length);
+        Map<String, Object> data = call(connection, args);
+        byte[] bytes = toBytes(data.get("bytes"));
+        return new Chunk((String) data.get("path"), offset, bytes,
+                asLong(data.get("fileSize"), offset + bytes.length));
+    }
+
+    private Map<String, Object> writeChunk(ShellConnection connection, String path, long offset, byte[] bytes,
+                                           boolean truncate) {
+        Map<String, Object> args = new HashMap<>();
+        args.put("op", "write-chunk");
+        args.put("path", path);
+        args.put("offset", offset);
+        args.put("bytes", bytes);
+        args.put("truncate", truncate);
+        return call(connection, args);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> call(ShellConnection connection, Map<String, Object> args) {
+        Map<String, Object> response = shellResponseHelper.handleShellConnectionResult(
+                connection.runPluginRaw(PLUGIN_ID, args));
+        if (!shellResponseHelper.isSuccess(response.get(Constants.CODE))) {
+            throw new IllegalStateException("File transfer failed: " + response.get(Constants.ERROR));
+        }
+        if (!(response.get(Constants.DATA) instanceof Map<?, ?> data)) {
+            throw new IllegalStateException("File transfer failed: file-manager returned no result");
+        }
+        Object errorCode = data.get("errorCode");
+        if (errorCode != null) {
+            String message = "File transfer failed: " + data.get(Constants.ERROR);
+            if ("NOT_FOUND".equals(errorCode)) {
+                throw new ResourceNotFoundException(message);
+            }
+            if (CLIENT_ERRORS.contains(String.valueOf(errorCode))) {
+                throw new IllegalArgumentException(message);
+            }
+            throw new IllegalStateException(message);
+        }
+        return (Map<String, Object>) data;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("File transfer interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private int chunkSize() {
+        return Math.max(1, properties.getChunkSize());
+    }
+
+    private static byte[] toBytes(Object raw) {
+        if (raw instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (raw instanceof String text) {
+            return Base64.getDecoder().decode(text);
+        }
+        if (raw == null) {
+            return new byte[0];
+        }
+        throw new IllegalStateException("Unsupported chunk type: " + raw.getClass().getName());
+    }
+
+    private static long asLong(Object raw, long defaultValue) {
+        return raw instanceof Number number ? number.longValue() : defaultValue;
+    }
+
+    private static void requirePath(String path) {
+        if (StringUtils.isBlank(path)) {
+            throw new IllegalArgumentException("path is required");
+        }
+    }
+
+    private static void requireOffset(long offset) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must be >= 0");
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.reajason.noone.server.shell.transfer.dto;
+
+/**
+ * Outcome of a streamed upload: where it started, how many bytes were written and the file's size afterwards
+ *
+ * @author ReaJason
+ */
+public record ShellFileUploadResponse(String path, long offset, long written, long fileSize) {
+}
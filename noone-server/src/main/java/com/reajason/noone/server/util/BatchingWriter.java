@@ -0,0 +1,172 @@
+package com.reajason.noone.server.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Bounded queue drained by one background thread that hands items to a sink in batches of up to
+ * {@code batchSize}, or whatever arrived within {@code flushInterval} of the first item.
+ * <p>
+ * Producers never do the sink's work: when the queue is full {@link #submit} waits at most {@code offerTimeout}
+ * and then drops the item, counting it in {@link Stats#dropped()}. {@link #close()} stops accepting items and
+ * drains what is queued, bounded by {@code shutdownTimeout}.
+ *
+ * @author ReaJason
+ */
+@Slf4j
+public class BatchingWriter<T> implements AutoCloseable {
+
+    private static final long DROP_WARN_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final Duration shutdownTimeout;
+    private final Consumer<List<T>> sink;
+    private final Thread drainer;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicInteger highWaterMark = new AtomicInteger();
+    private final AtomicLong lastDropWarn = new AtomicLong(System.nanoTime() - DROP_WARN_INTERVAL_NANOS);
+
+    private volatile boolean accepting = true;
+
+    public BatchingWriter(String name, int capacity, int batchSize, Duration flushInterval,
+                          Duration offerTimeout, Duration shutdownTimeout, Consumer<List<T>> sink) {
+        this.name = name;
+        this.capacity = Math.max(1, capacity);
+        this.queue = new ArrayBlockingQueue<>(this.capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = Math.max(1, flushInterval.toNanos());
+        this.offerTimeoutNanos = Math.max(0, offerTimeout.toNanos());
+        this.shutdownTimeout = shutdownTimeout;
+        this.sink = sink;
+        this.drainer = Thread.ofPlatform().daemon().name(name + "-writer").unstarted(this::drainLoop);
+        this.drainer.start();
+    }
+
+    /**
+     * Queues an item for writing. Returns {@code false} when the item was dropped because the writer is closed
+     * or the queue stayed full for the whole offer timeout.
+     */
+    public boolean submit(T item) {
+        if (!accepting) {
+            recordDrop();
+            return false;
+        }
+        boolean queued;
+        try {
+            queued = offerTimeoutNanos == 0
+                    ? queue.offer(item)
+                    : queue.offer(item, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            recordDrop();
+            return false;
+        }
+        submitted.incrementAndGet();
+        highWaterMark.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    public Stats stats() {
+        return new Stats(submitted.get(), written.get(), dropped.get(), failed.get(), batches.get(),
+                queue.size(), capacity, highWaterMark.get());
+    }
+
+    /**
+     * Stops accepting items and waits for the queued ones to be written.
+     */
+    @Override
+    public void close() {
+        accepting = false;
+        try {
+            drainer.join(shutdownTimeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (drainer.isAlive()) {
+            log.warn("{} writer did not finish within {}, {} items left unwritten", name, shutdownTimeout, queue.size());
+            drainer.interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<T> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long flushAt = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = flushAt - System.nanoTime();
+                    T next = remaining > 0 && accepting ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+    }
+
+    private void write(List<T> batch) {
+        try {
+            sink.accept(batch);
+            written.addAndGet(batch.size());
+            batches.incrementAndGet();
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            log.warn("{} writer failed to write a batch of {} items", name, batch.size(), e);
+        }
+    }
+
+    private void recordDrop() {
+        long total = dropped.incrementAndGet();
+        long now = System.nanoTime();
+        long last = lastDropWarn.get();
+        if (now - last >= DROP_WARN_INTERVAL_NANOS && lastDropWarn.compareAndSet(last, now)) {
+            log.warn("{} writer queue is full or closed, {} items dropped so far (capacity {})", name, total, capacity);
+        }
+    }
+
+    /**
+     * Counters since startup. {@code queued} is the current depth, {@code highWaterMark} the deepest it has been.
+     */
+    public record Stats(long submitted, long written, long dropped, long failed, long batches,
+                        int queued, int capacity, int highWaterMark) {
+    }
+}
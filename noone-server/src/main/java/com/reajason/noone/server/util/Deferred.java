@@ -0,0 +1,73 @@
+package com.reajason.noone.server.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * A component that is expensive to build and not needed to start serving requests. It is built exactly once, either
+ * on a background virtual thread by {@link #start()} or by the first {@link #get()} on the caller's thread, whichever
+ * comes first; callers of {@link #get()} that arrive while it is being built wait for it.
+ *
+ * @author ReaJason
+ */
+@Slf4j
+public class Deferred<T> {
+
+    private final String name;
+    private final Supplier<T> factory;
+    private final AtomicBoolean claimed = new AtomicBoolean();
+    private final CompletableFuture<T> value = new CompletableFuture<>();
+
+    public Deferred(String name, Supplier<T> factory) {
+        this.name = name;
+        this.factory = factory;
+    }
+
+    /**
+     * Builds the value in the background unless it is already built or being built.
+     */
+    public void start() {
+        if (claimed.compareAndSet(false, true)) {
+            Thread.ofVirtual().name(name).start(this::build);
+        }
+    }
+
+    /**
+     * @return the value, building it on this thread or waiting for the build in progress
+     */
+    public T get() {
+        if (claimed.compareAndSet(false, true)) {
+            build();
+        }
+        try {
+            return value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the value if it has been built, otherwise {@code null}; never waits or starts a build
+     */
+    public T getIfReady() {
+        return value.isDone() && !value.isCompletedExceptionally() ? value.join() : null;
+    }
+
+    private void build() {
+        long start = System.nanoTime();
+        try {
+            value.complete(factory.get());
+            log.debug("Built {} in {} ms", name, (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException | Error e) {
+            log.warn("Failed to build {}", name, e);
+            value.completeExceptionally(e);
+        }
+    }
+}
@@ -3,11 +3,13 @@ package com.reajason.noone.server.util;
 import com.reajason.noone.server.config.JwtConfig;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
@@ -21,7 +23,9 @@ import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Getter
@@ -34,6 +38,15 @@ public class JwtUtil {
 
     private SecretKey signingKey;
 
+    @Getter(AccessLevel.NONE)
+    private JwtParser parser;
+
+    /**
+     * Verified claims keyed by token signature, so repeated requests with the same token skip the HMAC check.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Map<String, CachedToken> verifiedTokens = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         if (StringUtils.hasText(jwtConfig.getSecret())) {
@@ -43,6 +56,7 @@ public class JwtUtil {
             signingKey = Jwts.SIG.HS512.key().build();
             log.warn("JWT secret is not configured in jwt.secret, using a randomly generated key. Issued tokens will be invalidated upon server restart.");
         }
+        parser = Jwts.parser().verifyWith(signingKey).build();
     }
 
     public String generateToken(Authentication authentication) {
@@ -100,6 +114,49 @@ public class JwtUtil {
         return buildToken(username, tokenId, expiration, claims);
     }
 
+    /**
+     * Verifies the token once and returns all of its claims, or empty when the token is invalid or expired.
+     * Results are cached by token signature until the token expires or its session is evicted.
+     */
+    public Optional<VerifiedToken> verify(String token) {
+        if (!StringUtils.hasText(token)) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        String signature = getTokenSignature(token);
+        CachedToken cached = verifiedTokens.get(signature);
+        if (cached != null && cached.token().equals(token)) {
+            if (cached.verified().isExpiredAt(now)) {
+                verifiedTokens.remove(signature, cached);
+                return Optional.empty();
+            }
+            return Optional.of(cached.verified());
+        }
+
+        VerifiedToken verified;
+        try {
+            verified = toVerifiedToken(parseClaims(token));
+        } catch (JwtException | IllegalArgumentException e) {
+            log.debug("JWT token verification failed: {}", e.getMessage());
+            return Optional.empty();
+        }
+        if (verified.isExpiredAt(now)) {
+            return Optional.empty();
+        }
+        cacheVerifiedToken(signature, token, verified);
+        return Optional.of(verified);
+    }
+
+    /**
+     * Drops cached verification results of every token issued for the given session.
+     */
+    public void evictSession(String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        verifiedTokens.values().removeIf(cached -> sessionId.equals(cached.verified().sessionId()));
+    }
+
     public String getSessionId(String token) {
         return parseClaims(token).get("sessionId", String.class);
     }
@@ -175,11 +232,33 @@ public class JwtUtil {
     }
 
     private Claims parseClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        JwtParser jwtParser = parser != null ? parser : Jwts.parser().verifyWith(getSigningKey()).build();
+        return jwtParser.parseSignedClaims(token).getPayload();
+    }
+
+    private VerifiedToken toVerifiedToken(Claims claims) {
+        return new VerifiedToken(
+                claims.getSubject(),
+                claims.getId(),
+                claims.get("tokenType", String.class),
+                claims.get("sessionId", String.class),
+                claims.get("authorities", String.class),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    private void cacheVerifiedToken(String signature, String token, VerifiedToken verified) {
+        int maxSize = jwtConfig.getVerifiedTokenCacheSize();
+        if (verified.expiration() == null || maxSize <= 0) {
+            return;
+        }
+        if (verifiedTokens.size() >= maxSize) {
+            Instant now = Instant.now();
+            verifiedTokens.values().removeIf(cached -> cached.verified().isExpiredAt(now));
+            if (verifiedTokens.size() >= maxSize) {
+                return;
+            }
+        }
+        verifiedTokens.put(signature, new CachedToken(token, verified));
     }
 
     private String buildToken(String username, String tokenId, Duration expiration, Map<String, Object> claims) {
@@ -201,4 +280,7 @@ public class JwtUtil {
         }
         return claims;
     }
+
+    private record CachedToken(String token, VerifiedToken verified) {
+    }
 }
@@ -0,0 +1,24 @@
+package com.reajason.noone.server.util;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT whose signature has already been verified, so callers can read every
+ * field without parsing the token again.
+ */
+public record VerifiedToken(
+        String subject,
+        String tokenId,
+        String tokenType,
+        String sessionId,
+        String authorities,
+        Instant expiration) {
+
+    public boolean isType(String type) {
+        return type != null && type.equals(tokenType);
+    }
+
+    public boolean isExpiredAt(Instant now) {
+        return expiration != null && expiration.isBefore(now);
+    }
+}
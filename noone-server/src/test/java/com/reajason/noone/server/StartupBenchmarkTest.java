@@ -0,0 +1,106 @@
+package com.reajason.noone.server;
+
+import com.reajason.noone.server.util.Deferred;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ReflectionUtils;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the whole server with heavy components deferred and then built eagerly, and logs time-to-ready and the heap
+ * in use once every {@link Deferred} component is built. Both boots share one JVM; the deferred one runs first so
+ * warm class loading only flatters the eager boot.
+ * <p>
+ * Tagged {@code benchmark}, so it stays out of {@code test}; run it with {@code ./gradlew :noone-server:startupBenchmark}.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupBenchmarkTest.class);
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(DockerImageName.parse("postgres:17.6"));
+
+    @BeforeAll
+    static void startDatabase() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        postgres.stop();
+    }
+
+    @Test
+    void shouldRecordTimeToReadyAndHeapPerStartupMode() {
+        StartupSample deferred = boot(true);
+        StartupSample eager = boot(false);
+
+        log.info("startup deferred: ready in {} ms, heap {} MiB, {} deferred components still building when ready",
+                deferred.readyMillis(), deferred.heapMiB(), deferred.pendingAtReady());
+        log.info("startup eager: ready in {} ms, heap {} MiB, {} deferred components still building when ready",
+                eager.readyMillis(), eager.heapMiB(), eager.pendingAtReady());
+        assertEquals(0, eager.pendingAtReady(), "eager startup builds every deferred component before it is ready");
+    }
+
+    private StartupSample boot(boolean deferHeavyInit) {
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(NooneApplication.class)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl(),
+                        "spring.datasource.username=" + postgres.getUsername(),
+                        "spring.datasource.password=" + postgres.getPassword(),
+                        "noone.startup.defer-heavy-init=" + deferHeavyInit)
+                .run()) {
+            long readyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            List<Deferred<?>> components = deferredComponents(context);
+            assertFalse(components.isEmpty());
+            int pendingAtReady = 0;
+            for (Deferred<?> component : components) {
+                if (component.getIfReady() == null) {
+                    pendingAtReady++;
+                }
+                // the heap is only comparable once the background builds are done
+                assertNotNull(component.get());
+            }
+            return new StartupSample(readyMillis, usedHeapAfterGc() / (1024 * 1024), pendingAtReady);
+        }
+    }
+
+    private static List<Deferred<?>> deferredComponents(ConfigurableApplicationContext context) {
+        List<Deferred<?>> components = new ArrayList<>();
+        for (Object bean : context.getBeansOfType(Object.class, false, false).values()) {
+            Object target = AopProxyUtils.getSingletonTarget(bean) != null ? AopProxyUtils.getSingletonTarget(bean) : bean;
+            ReflectionUtils.doWithFields(target.getClass(), field -> {
+                ReflectionUtils.makeAccessible(field);
+                components.add((Deferred<?>) ReflectionUtils.getField(field, target));
+            }, field -> Deferred.class.isAssignableFrom(field.getType()) && !Modifier.isStatic(field.getModifiers()));
+        }
+        return components;
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private record StartupSample(long readyMillis, long heapMiB, int pendingAtReady) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.reajason.noone.server.admin.auth;
+
+import com.reajason.noone.server.config.StartupProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ClientMetadataResolverTest {
+
+    private static final String CHROME_ON_WINDOWS = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) "
+            + "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+
+    @Test
+    void shouldUseRegexFallbackUntilAnalyzerIsReady() {
+        ClientMetadataResolver resolver = new ClientMetadataResolver();
+        ReflectionTestUtils.setField(resolver, "startupProperties", new StartupProperties());
+        resolver.init();
+
+        ClientMetadata metadata = resolver.resolve(CHROME_ON_WINDOWS);
+
+        assertEquals("Chrome120", metadata.browser());
+        assertEquals("Windows10", metadata.os());
+    }
+}
@@ -5,6 +5,7 @@ import com.reajason.noone.server.admin.permission.dto.PermissionCreateRequest;
 import com.reajason.noone.server.admin.permission.dto.PermissionQueryRequest;
 import com.reajason.noone.server.admin.permission.dto.PermissionResponse;
 import com.reajason.noone.server.admin.permission.dto.PermissionUpdateRequest;
+import com.reajason.noone.server.admin.user.UserSessionCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -36,6 +37,9 @@ class PermissionServiceTest {
     @Mock
     private PermissionMapper permissionMapper;
 
+    @Mock
+    private UserSessionCache userSessionCache;
+
     @InjectMocks
     private PermissionService permissionService;
 
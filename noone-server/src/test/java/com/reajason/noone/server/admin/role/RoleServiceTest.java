@@ -7,6 +7,7 @@ import com.reajason.noone.server.admin.role.dto.RoleCreateRequest;
 import com.reajason.noone.server.admin.role.dto.RoleQueryRequest;
 import com.reajason.noone.server.admin.role.dto.RoleResponse;
 import com.reajason.noone.server.admin.role.dto.RoleUpdateRequest;
+import com.reajason.noone.server.admin.user.UserSessionCache;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -42,6 +43,9 @@ class RoleServiceTest {
     @Mock
     private RoleMapper roleMapper;
 
+    @Mock
+    private UserSessionCache userSessionCache;
+
     @InjectMocks
     private RoleService roleService;
 
@@ -239,6 +243,7 @@ class RoleServiceTest {
         assertThat(role.getPermissions()).containsExactlyInAnyOrder(activeA, activeB);
         verify(permissionRepository).findAllById(permissionIds);
         verify(roleRepository).save(role);
+        verify(userSessionCache).evictAllAuthorities();
     }
 
     @Test
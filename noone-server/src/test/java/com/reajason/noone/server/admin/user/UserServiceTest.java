@@ -54,6 +54,9 @@ class UserServiceTest {
     @Mock
     private UserAuthorityResolver userAuthorityResolver;
 
+    @Mock
+    private UserSessionCache userSessionCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -1,19 +1,29 @@
 package com.reajason.noone.server.admin.user;
 
+import com.reajason.noone.server.config.JwtConfig;
+import com.reajason.noone.server.util.JwtUtil;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HexFormat;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +35,20 @@ class UserSessionServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private JwtUtil jwtUtil;
+
+    @Spy
+    private JwtConfig jwtConfig = new JwtConfig();
+
+    @Spy
+    private UserSessionCache userSessionCache = new UserSessionCache(jwtConfig);
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
     @InjectMocks
     private UserSessionService userSessionService;
 
@@ -96,6 +120,115 @@ class UserSessionServiceTest {
         verify(userSessionRepository, never()).findBySessionId("session-2");
     }
 
+    @Test
+    void shouldEvictVerifiedTokensWhenSessionIsRevoked() {
+        UserSession session = UserSession.builder()
+                .sessionId("session-3")
+                .refreshTokenHash(hash("refresh-token-id"))
+                .accessExpiresAt(LocalDateTime.now().plusMinutes(30))
+                .refreshExpiresAt(LocalDateTime.now().plusDays(1))
+                .revoked(false)
+                .build();
+        when(userSessionRepository.findBySessionId("session-3")).thenReturn(Optional.of(session));
+
+        userSessionService.revokeSession("session-3", "LOGOUT");
+
+        assertThat(session.isRevoked()).isTrue();
+        verify(jwtUtil).evictSession("session-3");
+    }
+
+    @Test
+    void shouldServeRepeatedValidityChecksFromCacheUntilSessionIsRevoked() {
+        UserSession session = UserSession.builder()
+                .sessionId("session-4")
+                .refreshTokenHash(hash("refresh-token-id"))
+                .accessExpiresAt(LocalDateTime.now().plusMinutes(30))
+                .refreshExpiresAt(LocalDateTime.now().plusDays(1))
+                .revoked(false)
+                .build();
+        when(userSessionRepository.findBySessionId("session-4")).thenReturn(Optional.of(session));
+
+        assertThat(userSessionService.isSessionValid("session-4")).isTrue();
+        assertThat(userSessionService.isSessionValid("session-4")).isTrue();
+        verify(userSessionRepository, times(1)).findBySessionId("session-4");
+
+        userSessionService.revokeSession("session-4", "LOGOUT");
+
+        assertThat(userSessionService.isSessionValid("session-4")).isFalse();
+        verify(userSessionRepository, times(3)).findBySessionId("session-4");
+    }
+
+    @Test
+    void shouldCoalesceTouchesIntoOneUpdatePerSession() {
+        userSessionService.touchSession("session-5", "10.0.0.1", "ua-1");
+        userSessionService.touchSession("session-5", "10.0.0.2", null);
+        userSessionService.touchSession("session-6", null, "ua-6");
+
+        verifyNoInteractions(userSessionRepository);
+
+        userSessionService.flushSessionTouches();
+        userSessionService.flushSessionTouches();
+
+        verify(userSessionRepository).touch(eq("session-5"), any(LocalDateTime.class), eq("10.0.0.2"), eq("ua-1"));
+        verify(userSessionRepository).touch(eq("session-6"), any(LocalDateTime.class), isNull(), eq("ua-6"));
+        verifyNoMoreInteractions(userSessionRepository);
+    }
+
+    @Test
+    void shouldRequeueTouchesWhenFlushFails() {
+        userSessionService.touchSession("session-7", "10.0.0.7", "ua-7");
+        when(userSessionRepository.touch(eq("session-7"), any(LocalDateTime.class), eq("10.0.0.7"), eq("ua-7")))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(1);
+
+        assertThatThrownBy(() -> userSessionService.flushSessionTouches())
+                .isInstanceOf(IllegalStateException.class);
+        userSessionService.flushSessionTouches();
+
+        verify(userSessionRepository, times(2))
+                .touch(eq("session-7"), any(LocalDateTime.class), eq("10.0.0.7"), eq("ua-7"));
+    }
+
+    @Test
+    void shouldFlushOnShutdownInItsOwnTransaction() {
+        userSessionService.touchSession("session-8", "10.0.0.8", "ua-8");
+
+        userSessionService.flushOnShutdown();
+
+        verify(transactionManager).getTransaction(any());
+        verify(transactionManager).commit(any());
+        verify(userSessionRepository).touch(eq("session-8"), any(LocalDateTime.class), eq("10.0.0.8"), eq("ua-8"));
+    }
+
+    @Test
+    void shouldSweepExpiredCacheEntriesOnFlush() {
+        JwtConfig cacheConfig = (JwtConfig) ReflectionTestUtils.getField(userSessionCache, "jwtConfig");
+        userSessionCache.putValidSession("closed-browser", LocalDateTime.now().minusSeconds(1));
+        userSessionCache.putValidSession("active", LocalDateTime.now().plusMinutes(5));
+        cacheConfig.setSessionCacheTtl(Duration.ZERO);
+        userSessionCache.getAuthorities("gone", username -> Set.of());
+        cacheConfig.setSessionCacheTtl(Duration.ofMinutes(5));
+        userSessionCache.getAuthorities("alice", username -> Set.of());
+
+        userSessionService.flushSessionTouches();
+
+        assertThat(userSessionCache.size()).isEqualTo(2);
+        assertThat(userSessionCache.isKnownValid("active")).isTrue();
+        verifyNoInteractions(userSessionRepository);
+    }
+
+    @Test
+    void shouldFlushTouchesAtConfiguredInterval() {
+        jwtConfig.setSessionTouchFlushInterval(Duration.ofSeconds(12));
+        ScheduledTaskRegistrar registrar = new ScheduledTaskRegistrar();
+
+        userSessionService.configureTasks(registrar);
+
+        assertThat(registrar.getFixedDelayTaskList())
+                .singleElement()
+                .satisfies(task -> assertThat(task.getIntervalDuration()).isEqualTo(Duration.ofSeconds(12)));
+    }
+
     private String hash(String value) {
         try {
             MessageDigest digest = MessageDigest.getInstance("SHA-256");
@@ -0,0 +1,101 @@
+package com.reajason.noone.server.config;
+
+import com.reajason.noone.server.admin.user.UserService;
+import com.reajason.noone.server.admin.user.UserSessionService;
+import com.reajason.noone.server.util.JwtUtil;
+import com.reajason.noone.server.util.VerifiedToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringJUnitWebConfig(AsyncDispatchSecurityTest.Config.class)
+class AsyncDispatchSecurityTest {
+
+    @MockitoBean
+    private JwtUtil jwtUtil;
+
+    @MockitoBean
+    private JwtConfig jwtConfig;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private UserSessionService userSessionService;
+
+    @Autowired
+    private WebApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+    }
+
+    @Test
+    void shouldKeepJwtAuthenticationOnAsyncDispatch() throws Exception {
+        when(jwtConfig.getHeader()).thenReturn("Authorization");
+        when(jwtUtil.getTokenFromHeader("Bearer access-token")).thenReturn("access-token");
+        when(jwtUtil.verify("access-token")).thenReturn(Optional.of(
+                new VerifiedToken("alice", "token-1", "access", "session-1", "shell:read", Instant.now().plusSeconds(60))));
+        when(userSessionService.isSessionValid("session-1")).thenReturn(true);
+        when(userService.getAuthorities("alice")).thenReturn(Set.copyOf(AuthorityUtils.createAuthorityList("shell:read")));
+
+        MvcResult result = mockMvc.perform(get("/deferred").header("Authorization", "Bearer access-token"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("done"));
+    }
+
+    @Test
+    void shouldStillRejectAnonymousRequests() throws Exception {
+        mockMvc.perform(get("/deferred"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Configuration
+    @EnableWebMvc
+    @Import({SecurityConfig.class, JwtAuthenticationFilter.class, DeferredController.class})
+    static class Config {
+    }
+
+    @RestController
+    static class DeferredController {
+
+        @GetMapping("/deferred")
+        DeferredResult<String> deferred() {
+            DeferredResult<String> deferred = new DeferredResult<>();
+            Thread.ofVirtual().start(() -> deferred.setResult("done"));
+            return deferred;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.reajason.noone.server.config;
+
+import com.reajason.noone.core.CborWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CborHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = JsonMapper.builder().build();
+    private final CborHttpMessageConverter converter = new CborHttpMessageConverter(objectMapper);
+
+    @Test
+    void shouldWriteBinaryValuesAsByteStrings() throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", 0);
+        body.put("data", Map.of("bytes", new byte[]{1, 2, 3}));
+
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(body, MediaType.APPLICATION_CBOR, message);
+
+        assertEquals(MediaType.APPLICATION_CBOR, message.getHeaders().getContentType());
+        assertArrayEquals(cbor(body), message.getBodyAsBytes());
+    }
+
+    @Test
+    void shouldWriteObjectsAsTheirJsonTree() throws IOException {
+        Summary summary = new Summary("shell-1", 3);
+
+        MockHttpOutputMessage message = new MockHttpOutputMessage();
+        converter.write(summary, MediaType.APPLICATION_CBOR, message);
+
+        Map<String, Object> expected = new LinkedHashMap<>();
+        expected.put("name", "shell-1");
+        expected.put("count", 3);
+        assertArrayEquals(cbor(expected), message.getBodyAsBytes());
+    }
+
+    @Test
+    void shouldNotReadRequestBodies() {
+        assertFalse(converter.canRead(Map.class, MediaType.APPLICATION_CBOR));
+        assertTrue(converter.canWrite(Map.class, MediaType.APPLICATION_CBOR));
+    }
+
+    @Test
+    void shouldComeAfterJsonSoJsonStaysTheDefault() {
+        HttpMessageConverters.ServerBuilder builder = HttpMessageConverters.forServer().registerDefaults();
+        new CborConfig().cborMessageConverterCustomizer(objectMapper).customize(builder);
+
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        builder.build().forEach(converters::add);
+
+        int cbor = -1;
+        int json = -1;
+        for (int i = 0; i < converters.size(); i++) {
+            HttpMessageConverter<?> candidate = converters.get(i);
+            if (candidate instanceof CborHttpMessageConverter) {
+                cbor = i;
+            } else if (json < 0 && candidate.getSupportedMediaTypes().contains(MediaType.APPLICATION_JSON)) {
+                json = i;
+            }
+        }
+        assertTrue(cbor >= 0, "CBOR converter registered");
+        assertTrue(json >= 0 && json < cbor, "JSON converter before CBOR: " + converters);
+    }
+
+    private static byte[] cbor(Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CborWriter(out).writeValue(value);
+        return out.toByteArray();
+    }
+
+    record Summary(String name, int count) {
+    }
+}
@@ -3,6 +3,7 @@ package com.reajason.noone.server.config;
 import com.reajason.noone.server.admin.user.UserService;
 import com.reajason.noone.server.admin.user.UserSessionService;
 import com.reajason.noone.server.util.JwtUtil;
+import com.reajason.noone.server.util.VerifiedToken;
 import jakarta.servlet.FilterChain;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +15,8 @@ import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.time.Instant;
+import java.util.Optional;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -52,11 +55,7 @@ class JwtAuthenticationFilterTest {
 
         when(jwtConfig.getHeader()).thenReturn("Authorization");
         when(jwtUtil.getTokenFromHeader("Bearer access-token")).thenReturn("access-token");
-        when(jwtUtil.validateToken("access-token")).thenReturn(true);
-        when(jwtUtil.isTokenNotExpired("access-token")).thenReturn(true);
-        when(jwtUtil.getTokenType("access-token")).thenReturn("access");
-        when(jwtUtil.getSessionId("access-token")).thenReturn("session-1");
-        when(jwtUtil.getUsernameFromToken("access-token")).thenReturn("alice");
+        when(jwtUtil.verify("access-token")).thenReturn(Optional.of(accessToken("alice", "session-1")));
         when(userSessionService.isSessionValid("session-1")).thenReturn(true);
         when(userService.getAuthorities("alice")).thenReturn(Set.copyOf(AuthorityUtils.createAuthorityList("user:read")));
 
@@ -76,11 +75,7 @@ class JwtAuthenticationFilterTest {
 
         when(jwtConfig.getHeader()).thenReturn("Authorization");
         when(jwtUtil.getTokenFromHeader("Bearer access-token")).thenReturn("access-token");
-        when(jwtUtil.validateToken("access-token")).thenReturn(true);
-        when(jwtUtil.isTokenNotExpired("access-token")).thenReturn(true);
-        when(jwtUtil.getTokenType("access-token")).thenReturn("access");
-        when(jwtUtil.getSessionId("access-token")).thenReturn("session-1");
-        when(jwtUtil.getUsernameFromToken("access-token")).thenReturn("alice");
+        when(jwtUtil.verify("access-token")).thenReturn(Optional.of(accessToken("alice", "session-1")));
         when(userSessionService.isSessionValid("session-1")).thenReturn(false);
 
         filter.doFilter(request, response, filterChain);
@@ -89,4 +84,27 @@ class JwtAuthenticationFilterTest {
         verify(userService, never()).getAuthorities(anyString());
         verify(userSessionService, never()).touchSession(anyString(), any(), any());
     }
+
+    @Test
+    void shouldSkipAuthenticationWhenTokenIsNotAccessToken() throws Exception {
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter(jwtUtil, jwtConfig, userService, userSessionService);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer refresh-token");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(jwtConfig.getHeader()).thenReturn("Authorization");
+        when(jwtUtil.getTokenFromHeader("Bearer refresh-token")).thenReturn("refresh-token");
+        when(jwtUtil.verify("refresh-token")).thenReturn(Optional.of(new VerifiedToken(
+                "alice", "token-1", "refresh", "session-1", null, Instant.now().plusSeconds(60))));
+
+        filter.doFilter(request, response, filterChain);
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(userSessionService, never()).isSessionValid(anyString());
+        verify(jwtUtil, times(1)).verify("refresh-token");
+    }
+
+    private VerifiedToken accessToken(String username, String sessionId) {
+        return new VerifiedToken(username, "token-1", "access", sessionId, "user:read", Instant.now().plusSeconds(60));
+    }
 }
@@ -3,8 +3,21 @@ package com.reajason.noone.server.plugin;
 import tools.jackson.databind.ObjectMapper;
 import com.reajason.noone.server.plugin.dto.PluginResponse;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -18,15 +31,15 @@ class BuiltinPluginRegistryServiceTest {
 
     @Test
     void shouldReturnExistingPluginWithoutRegisteringBuiltin() {
-        PluginRepository pluginRepository = mock(PluginRepository.class);
+        PluginCatalog pluginCatalog = mock(PluginCatalog.class);
         PluginService pluginService = mock(PluginService.class);
         BuiltinPluginRegistryService service = new BuiltinPluginRegistryService(
-                pluginRepository,
+                pluginCatalog,
                 pluginService,
                 new ObjectMapper()
         );
         Plugin plugin = plugin("system-info", "0.0.9", "java");
-        when(pluginRepository.findByPluginIdAndLanguage("system-info", "java")).thenReturn(Optional.of(plugin));
+        when(pluginCatalog.find("system-info", "java")).thenReturn(Optional.of(plugin));
 
         Optional<Plugin> result = service.findOrRegister("system-info", "java");
 
@@ -37,15 +50,15 @@ class BuiltinPluginRegistryServiceTest {
 
     @Test
     void shouldRegisterLatestBuiltinPluginWhenServerRecordIsMissing() {
-        PluginRepository pluginRepository = mock(PluginRepository.class);
+        PluginCatalog pluginCatalog = mock(PluginCatalog.class);
         PluginService pluginService = mock(PluginService.class);
         BuiltinPluginRegistryService service = new BuiltinPluginRegistryService(
-                pluginRepository,
+                pluginCatalog,
                 pluginService,
                 new ObjectMapper()
         );
         Plugin registered = plugin("file-manager", "0.0.1", "java");
-        when(pluginRepository.findByPluginIdAndLanguage("file-manager", "java"))
+        when(pluginCatalog.find("file-manager", "java"))
                 .thenReturn(Optional.empty())
                 .thenReturn(Optional.of(registered));
         when(pluginService.create(any(), any())).thenReturn(new PluginResponse());
@@ -63,14 +76,14 @@ class BuiltinPluginRegistryServiceTest {
 
     @Test
     void shouldReturnEmptyWhenBuiltinPluginDoesNotExist() {
-        PluginRepository pluginRepository = mock(PluginRepository.class);
+        PluginCatalog pluginCatalog = mock(PluginCatalog.class);
         PluginService pluginService = mock(PluginService.class);
         BuiltinPluginRegistryService service = new BuiltinPluginRegistryService(
-                pluginRepository,
+                pluginCatalog,
                 pluginService,
                 new ObjectMapper()
         );
-        when(pluginRepository.findByPluginIdAndLanguage("not-exists", "java")).thenReturn(Optional.empty());
+        when(pluginCatalog.find("not-exists", "java")).thenReturn(Optional.empty());
 
         Optional<Plugin> result = service.findOrRegister("not-exists", "java");
 
@@ -78,6 +91,144 @@ class BuiltinPluginRegistryServiceTest {
         verify(pluginService, never()).create(any(), any());
     }
 
+    @Test
+    void shouldScanClasspathOncePerMissingPlugin() throws Exception {
+        PluginCatalog pluginCatalog = mock(PluginCatalog.class);
+        BuiltinPluginRegistryService service = new BuiltinPluginRegistryService(
+                pluginCatalog,
+                mock(PluginService.class),
+                new ObjectMapper()
+        );
+        PathMatchingResourcePatternResolver resourceResolver = spy(new PathMatchingResourcePatternResolver());
+        ReflectionTestUtils.setField(service, "resourceResolver", resourceResolver);
+        when(pluginCatalog.find("not-exists", "java")).thenReturn(Optional.empty());
+
+        service.findOrRegister("not-exists", "java");
+        service.findOrRegister("not-exists", "java");
+
+        verify(resourceResolver, times(1)).getResources("classpath*:plugins/java-not-exists-plugin-*.json");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldImportOnlyChangedBuiltinResources() {
+        PluginService pluginService = mock(PluginService.class);
+        BuiltinPluginRegistryService service = new BuiltinPluginRegistryService(
+                mock(PluginCatalog.class),
+                pluginService,
+                new ObjectMapper()
+        );
+        ArgumentCaptor<List<PluginService.PluginImport>> imports = ArgumentCaptor.forClass(List.class);
+        when(pluginService.findImportedSourceHashes()).thenReturn(Set.of());
+
+        service.importAll();
+
+        verify(pluginService).importAll(imports.capture(), eq(PluginSource.BUILTIN));
+        List<PluginService.PluginImport> firstBoot = imports.getValue();
+        assertFalse(firstBoot.isEmpty());
+        assertTrue(firstBoot.stream().anyMatch(i -> "system-info".equals(i.request().getId())
+                && "java".equals(i.request().getLanguage())));
+
+        Set<String> recorded = firstBoot.stream().map(PluginService.PluginImport::sourceHash).collect(Collectors.toSet());
+        PluginService.PluginImport changed = firstBoot.getFirst();
+        Set<String> afterChange = new HashSet<>(recorded);
+        afterChange.remove(changed.sourceHash());
+        reset(pluginService);
+        when(pluginService.findImportedSourceHashes()).thenReturn(afterChange);
+
+        service.importAll();
+
+        verify(pluginService).importAll(imports.capture(), eq(PluginSource.BUILTIN));
+        assertEquals(List.of(changed.request().getId()),
+                imports.getValue().stream().map(i -> i.request().getId()).toList());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldNotWriteOlderBundledVersionsBackOnEveryBoot() throws Exception {
+        PluginCatalog pluginCatalog = mock(PluginCatalog.class);
+        PluginService pluginService = mock(PluginService.class);
+        BuiltinPluginRegistryService service = new BuiltinPluginRegistryService(
+                pluginCatalog,
+                pluginService,
+                new ObjectMapper()
+        );
+        PathMatchingResourcePatternResolver resourceResolver = mock(PathMatchingResourcePatternResolver.class);
+        ReflectionTestUtils.setField(service, "resourceResolver", resourceResolver);
+        Resource older = pluginResource("java-demo-plugin-0.0.1.json", "0.0.1");
+        Resource newer = pluginResource("java-demo-plugin-0.0.2.json", "0.0.2");
+        when(resourceResolver.getResources("classpath*:plugins/*.json")).thenReturn(new Resource[]{newer, older});
+        ArgumentCaptor<List<PluginService.PluginImport>> imports = ArgumentCaptor.forClass(List.class);
+        when(pluginService.findImportedSourceHashes()).thenReturn(Set.of());
+
+        service.importAll();
+
+        verify(pluginService).importAll(imports.capture(), eq(PluginSource.BUILTIN));
+        assertEquals(List.of("0.0.2"), imports.getValue().stream().map(i -> i.request().getVersion()).toList());
+
+        reset(pluginService);
+        when(pluginService.findImportedSourceHashes()).thenReturn(Set.of(imports.getValue().getFirst().sourceHash()));
+        when(pluginCatalog.find("demo", "java")).thenReturn(Optional.of(plugin("demo", "0.0.2", "java")));
+
+        service.importAll();
+
+        verify(pluginService).importAll(eq(List.of()), eq(PluginSource.BUILTIN));
+    }
+
+    @Test
+    void shouldNotReadBundledVersionsOlderThanTheLatestOrTheStoredOne() throws Exception {
+        PluginCatalog pluginCatalog = mock(PluginCatalog.class);
+        PluginService pluginService = mock(PluginService.class);
+        BuiltinPluginRegistryService service = new BuiltinPluginRegistryService(
+                pluginCatalog,
+                pluginService,
+                new ObjectMapper()
+        );
+        PathMatchingResourcePatternResolver resourceResolver = mock(PathMatchingResourcePatternResolver.class);
+        ReflectionTestUtils.setField(service, "resourceResolver", resourceResolver);
+        AtomicInteger olderReads = new AtomicInteger();
+        AtomicInteger newerReads = new AtomicInteger();
+        Resource older = pluginResource("java-demo-plugin-0.0.9.json", "0.0.9", olderReads);
+        Resource newer = pluginResource("java-demo-plugin-0.0.10.json", "0.0.10", newerReads);
+        when(resourceResolver.getResources("classpath*:plugins/*.json")).thenReturn(new Resource[]{older, newer});
+        when(pluginService.findImportedSourceHashes()).thenReturn(Set.of());
+
+        service.importAll();
+
+        assertEquals(0, olderReads.get());
+        assertEquals(1, newerReads.get());
+
+        when(pluginCatalog.find("demo", "java")).thenReturn(Optional.of(plugin("demo", "0.1.0", "java")));
+
+        service.importAll();
+
+        assertEquals(0, olderReads.get());
+        assertEquals(1, newerReads.get());
+        verify(pluginService).importAll(eq(List.of()), eq(PluginSource.BUILTIN));
+    }
+
+    private static Resource pluginResource(String filename, String version) {
+        return pluginResource(filename, version, new AtomicInteger());
+    }
+
+    private static Resource pluginResource(String filename, String version, AtomicInteger reads) {
+        String json = """
+                {"id": "demo", "name": "Demo", "version": "%s", "language": "java", "type": "webshell"}
+                """.formatted(version);
+        return new ByteArrayResource(json.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return filename;
+            }
+
+            @Override
+            public InputStream getInputStream() throws IOException {
+                reads.incrementAndGet();
+                return super.getInputStream();
+            }
+        };
+    }
+
     private Plugin plugin(String pluginId, String version, String language) {
         Plugin plugin = new Plugin();
         plugin.setPluginId(pluginId);
@@ -1,10 +1,12 @@
 package com.reajason.noone.server.plugin;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.List;
 import java.util.Map;
@@ -12,10 +14,18 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 class JavaPluginPayloadServiceTest {
 
     private final JavaPluginPayloadService service = new JavaPluginPayloadService();
+    private final PluginPayloadCache pluginPayloadCache = new PluginPayloadCache();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "pluginPayloadCache", pluginPayloadCache);
+    }
 
     @Test
     void shouldRewriteJavaPluginBytecodeToCandidateClassNames() {
@@ -36,6 +46,54 @@ class JavaPluginPayloadServiceTest {
         }
     }
 
+    @Test
+    void shouldRewriteOnlyCandidatesThatAreAskedFor() {
+        Plugin plugin = cachedPlugin("sha-1");
+        byte[] original = simpleClassBytes("com.reajason.noone.plugin.TestPlugin");
+
+        List<JavaPluginPayloadService.JavaPluginCandidate> candidates = service.buildCandidates(plugin, original);
+        assertEquals(0, pluginPayloadCache.size());
+
+        byte[] first = candidates.getFirst().payloadBytes();
+        assertEquals(1, pluginPayloadCache.size());
+        assertEquals(candidates.getFirst().className().replace('.', '/'), new ClassReader(first).getClassName());
+    }
+
+    @Test
+    void shouldReuseRewrittenPayloadForSameContent() {
+        Plugin plugin = cachedPlugin("sha-1");
+        byte[] original = simpleClassBytes("com.reajason.noone.plugin.TestPlugin");
+
+        Map<String, byte[]> first = rewriteAll(plugin, original);
+        Map<String, byte[]> second = rewriteAll(plugin, original);
+
+        first.forEach((className, bytes) -> assertSame(bytes, second.get(className)));
+
+        Plugin reuploaded = cachedPlugin("sha-2");
+        Map<String, byte[]> third = rewriteAll(reuploaded, original);
+        first.forEach((className, bytes) -> assertNotSame(bytes, third.get(className)));
+        assertEquals(2, pluginPayloadCache.size());
+    }
+
+    private Map<String, byte[]> rewriteAll(Plugin plugin, byte[] original) {
+        return service.buildCandidates(plugin, original).stream().collect(Collectors.toMap(
+                JavaPluginPayloadService.JavaPluginCandidate::className,
+                JavaPluginPayloadService.JavaPluginCandidate::payloadBytes));
+    }
+
+    private Plugin cachedPlugin(String payloadHash) {
+        Plugin plugin = new Plugin();
+        plugin.setPluginId("test-plugin");
+        plugin.setVersion("0.0.1");
+        plugin.setLanguage("java");
+        plugin.setPayloadHash(payloadHash);
+        plugin.setMeta(Map.of(
+                "classNames",
+                List.of("com.reajason.noone.runtime.TestPluginA", "com.reajason.noone.runtime.TestPluginB")
+        ));
+        return plugin;
+    }
+
     private byte[] simpleClassBytes(String className) {
         String internalName = className.replace('.', '/');
         ClassWriter writer = new ClassWriter(0);
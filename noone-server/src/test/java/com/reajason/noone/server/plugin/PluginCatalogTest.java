@@ -0,0 +1,103 @@
+package com.reajason.noone.server.plugin;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PluginCatalogTest {
+
+    private PluginCatalog catalog;
+    private PluginRepository pluginRepository;
+
+    @BeforeEach
+    void setUp() {
+        catalog = new PluginCatalog();
+        pluginRepository = mock(PluginRepository.class);
+        ReflectionTestUtils.setField(catalog, "pluginRepository", pluginRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldServeLookupsFromOneRead() {
+        when(pluginRepository.findAllSummaries()).thenReturn(List.of(
+                summary(1L, "system-info", "java", "0.0.1"),
+                summary(2L, "file-manager", "java", "0.0.2"),
+                summary(3L, "system-info", "nodejs", "0.0.3")));
+
+        catalog.warmUp();
+        Optional<Plugin> plugin = catalog.find("system-info", "nodejs");
+
+        assertTrue(plugin.isPresent());
+        assertEquals("0.0.3", plugin.get().getVersion());
+        assertEquals("sha-3", plugin.get().getPayloadHash());
+        assertNull(plugin.get().getPayloadBytes());
+        assertEquals(List.of("system-info", "file-manager"),
+                catalog.findAllByLanguage("java").stream().map(Plugin::getPluginId).toList());
+        assertTrue(catalog.find("missing", "java").isEmpty());
+        assertTrue(catalog.findAllByLanguage("dotnet").isEmpty());
+        verify(pluginRepository, times(1)).findAllSummaries();
+        verifyNoMoreInteractions(pluginRepository);
+    }
+
+    @Test
+    void shouldRereadAfterInvalidation() {
+        when(pluginRepository.findAllSummaries())
+                .thenReturn(List.of(summary(1L, "system-info", "java", "0.0.1")))
+                .thenReturn(List.of(summary(1L, "system-info", "java", "0.0.2")));
+
+        assertEquals("0.0.1", catalog.find("system-info", "java").orElseThrow().getVersion());
+        catalog.invalidate();
+
+        assertEquals("0.0.2", catalog.find("system-info", "java").orElseThrow().getVersion());
+    }
+
+    @Test
+    void shouldInvalidateAgainAfterCommit() {
+        when(pluginRepository.findAllSummaries())
+                .thenReturn(List.of(summary(1L, "system-info", "java", "0.0.1")))
+                .thenReturn(List.of(summary(1L, "system-info", "java", "0.0.2")));
+        TransactionSynchronizationManager.initSynchronization();
+
+        catalog.invalidate();
+        // a concurrent lookup reads the catalog before the write commits
+        assertEquals("0.0.1", catalog.find("system-info", "java").orElseThrow().getVersion());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals("0.0.2", catalog.find("system-info", "java").orElseThrow().getVersion());
+    }
+
+    @Test
+    void shouldNotKeepSnapshotReadDuringInvalidation() {
+        when(pluginRepository.findAllSummaries()).thenAnswer(invocation -> {
+            catalog.invalidate();
+            return List.of(summary(1L, "system-info", "java", "0.0.1"));
+        });
+
+        catalog.find("system-info", "java");
+        catalog.find("system-info", "java");
+
+        verify(pluginRepository, times(2)).findAllSummaries();
+    }
+
+    private PluginSummary summary(Long id, String pluginId, String language, String version) {
+        return new PluginSummary(id, pluginId, pluginId, version, language, "action", "sync", "sha-" + id,
+                Map.of("classNames", List.of("com.example." + pluginId)), LocalDateTime.of(2026, 1, 1, 0, 0));
+    }
+}
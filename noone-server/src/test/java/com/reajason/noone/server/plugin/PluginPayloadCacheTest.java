@@ -0,0 +1,71 @@
+package com.reajason.noone.server.plugin;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PluginPayloadCacheTest {
+
+    private final PluginPayloadCache cache = new PluginPayloadCache();
+
+    @Test
+    void shouldLoadPayloadOncePerContent() {
+        AtomicInteger loads = new AtomicInteger();
+        Plugin plugin = plugin("sha-1");
+
+        byte[] first = cache.get(plugin, null, () -> new byte[]{(byte) loads.incrementAndGet()});
+        byte[] second = cache.get(plugin, null, () -> new byte[]{(byte) loads.incrementAndGet()});
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void shouldKeepCandidatesApart() {
+        Plugin plugin = plugin("sha-1");
+
+        byte[] original = cache.get(plugin, null, () -> new byte[]{0});
+        byte[] rewritten = cache.get(plugin, "com.example.A", () -> new byte[]{1});
+
+        assertArrayEquals(new byte[]{0}, original);
+        assertArrayEquals(new byte[]{1}, rewritten);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void shouldDropPreviousUploadOfSamePlugin() {
+        cache.get(plugin("sha-1"), null, () -> new byte[]{1});
+        cache.get(plugin("sha-1"), "com.example.A", () -> new byte[]{1});
+        Plugin other = plugin("sha-9");
+        other.setPluginId("other-plugin");
+        cache.get(other, null, () -> new byte[]{9});
+
+        byte[] reuploaded = cache.get(plugin("sha-2"), null, () -> new byte[]{2});
+
+        assertArrayEquals(new byte[]{2}, reuploaded);
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void shouldNotCachePluginWithoutDigest() {
+        AtomicInteger loads = new AtomicInteger();
+        Plugin plugin = plugin(null);
+
+        cache.get(plugin, null, () -> new byte[]{(byte) loads.incrementAndGet()});
+        cache.get(plugin, null, () -> new byte[]{(byte) loads.incrementAndGet()});
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    private Plugin plugin(String payloadHash) {
+        Plugin plugin = new Plugin();
+        plugin.setPluginId("test-plugin");
+        plugin.setVersion("0.0.1");
+        plugin.setLanguage("java");
+        plugin.setPayloadHash(payloadHash);
+        return plugin;
+    }
+}
@@ -1,5 +1,6 @@
 package com.reajason.noone.server.plugin;
 
+import com.reajason.noone.server.plugin.dto.PluginCreateRequest;
 import com.reajason.noone.server.plugin.dto.PluginResponse;
 import com.reajason.noone.server.plugin.dto.PluginUpdateRequest;
 import org.junit.jupiter.api.Test;
@@ -8,12 +9,19 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -25,6 +33,9 @@ class PluginServiceTest {
     @Mock
     private PluginMapper pluginMapper;
 
+    @Mock
+    private PluginCatalog pluginCatalog;
+
     @InjectMocks
     private PluginService pluginService;
 
@@ -81,6 +92,7 @@ class PluginServiceTest {
         assertThat(result.getDescription()).isEqualTo("New Description");
         assertThat(result.getAuthor()).isEqualTo("New Author");
         verify(pluginRepository).save(plugin);
+        verify(pluginCatalog).invalidate();
     }
 
     @Test
@@ -91,6 +103,7 @@ class PluginServiceTest {
         pluginService.delete(1L);
 
         verify(pluginRepository).delete(plugin);
+        verify(pluginCatalog).invalidate();
     }
 
     @Test
@@ -102,6 +115,91 @@ class PluginServiceTest {
                 .hasMessageContaining("Plugin not found: 999");
     }
 
+    @Test
+    void shouldStoreDecodedPayloadBytesOnCreate() {
+        PluginCreateRequest request = new PluginCreateRequest();
+        request.setId("test-plugin");
+        request.setName("Test Plugin");
+        request.setVersion("1.0.0");
+        request.setLanguage("java");
+        request.setType("action");
+        request.setPayload(Base64.getEncoder().encodeToString("class-bytes".getBytes(StandardCharsets.UTF_8)));
+        request.setMeta(Map.of("classNames", List.of("com.reajason.noone.runtime.TestPlugin")));
+        Plugin existing = buildPlugin(1L, "test-plugin", "Test Plugin");
+        existing.setPayload("stale");
+
+        when(pluginRepository.findByPluginIdAndLanguage("test-plugin", "java")).thenReturn(Optional.of(existing));
+        when(pluginRepository.save(existing)).thenReturn(existing);
+
+        pluginService.create(request);
+
+        assertThat(existing.getPayload()).isNull();
+        assertThat(existing.getPayloadBytes()).isEqualTo("class-bytes".getBytes(StandardCharsets.UTF_8));
+        assertThat(existing.getPayloadHash()).isEqualTo(PluginPayloads.sha256("class-bytes".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void shouldRejectInvalidBase64PayloadOnCreate() {
+        PluginCreateRequest request = new PluginCreateRequest();
+        request.setId("test-plugin");
+        request.setLanguage("dotnet");
+        request.setPayload("not base64!");
+        Plugin plugin = buildPlugin(null, "test-plugin", "Test Plugin");
+        plugin.setLanguage("dotnet");
+        plugin.setPayload("not base64!");
+
+        when(pluginRepository.findByPluginIdAndLanguage("test-plugin", "dotnet")).thenReturn(Optional.empty());
+        when(pluginMapper.toEntity(request)).thenReturn(plugin);
+
+        assertThatThrownBy(() -> pluginService.create(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid base64 payload for plugin [test-plugin]");
+    }
+
+    @Test
+    void shouldImportPluginsInOneBatch() {
+        Plugin existing = buildPlugin(1L, "system-info", "System Info");
+        existing.setVersion("0.0.1");
+        Plugin created = new Plugin();
+        PluginCreateRequest updated = importRequest("system-info", "0.0.2");
+        PluginCreateRequest added = importRequest("file-manager", "0.0.1");
+
+        when(pluginRepository.findAllByPluginIdIn(Set.of("system-info", "file-manager"))).thenReturn(List.of(existing));
+        when(pluginMapper.toEntity(added)).thenReturn(created);
+
+        int written = pluginService.importAll(List.of(
+                new PluginService.PluginImport(updated, "hash-1"),
+                new PluginService.PluginImport(added, "hash-2")), PluginSource.BUILTIN);
+
+        assertThat(written).isEqualTo(2);
+        assertThat(existing.getVersion()).isEqualTo("0.0.2");
+        assertThat(existing.getSourceHash()).isEqualTo("hash-1");
+        assertThat(created.getSourceHash()).isEqualTo("hash-2");
+        assertThat(created.getSource()).isEqualTo(PluginSource.BUILTIN);
+        verify(pluginRepository).saveAll(List.of(existing, created));
+        verify(pluginRepository, never()).save(any(Plugin.class));
+        verify(pluginCatalog).invalidate();
+    }
+
+    @Test
+    void shouldSkipWritesWhenNothingChanged() {
+        assertThat(pluginService.importAll(List.of(), PluginSource.BUILTIN)).isZero();
+
+        verifyNoInteractions(pluginRepository, pluginCatalog);
+    }
+
+    private PluginCreateRequest importRequest(String pluginId, String version) {
+        PluginCreateRequest request = new PluginCreateRequest();
+        request.setId(pluginId);
+        request.setName(pluginId);
+        request.setVersion(version);
+        request.setLanguage("java");
+        request.setType("action");
+        request.setPayload(Base64.getEncoder().encodeToString(pluginId.getBytes(StandardCharsets.UTF_8)));
+        request.setMeta(Map.of("classNames", List.of("com.reajason.noone.runtime.TestPlugin")));
+        return request;
+    }
+
     private Plugin buildPlugin(Long id, String pluginId, String name) {
         Plugin plugin = new Plugin();
         plugin.setId(id);
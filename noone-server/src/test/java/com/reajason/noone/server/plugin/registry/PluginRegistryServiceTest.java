@@ -1,7 +1,7 @@
 package com.reajason.noone.server.plugin.registry;
 
 import com.reajason.noone.server.plugin.Plugin;
-import com.reajason.noone.server.plugin.PluginRepository;
+import com.reajason.noone.server.plugin.PluginCatalog;
 import com.reajason.noone.server.plugin.PluginService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,7 +19,7 @@ import static org.mockito.Mockito.when;
 class PluginRegistryServiceTest {
 
     @Mock
-    private PluginRepository pluginRepository;
+    private PluginCatalog pluginCatalog;
 
     @Mock
     private PluginRegistryProperties properties;
@@ -44,7 +44,7 @@ class PluginRegistryServiceTest {
                 .language("java")
                 .build();
 
-        when(pluginRepository.findByPluginIdAndLanguage("test-plugin", "java"))
+        when(pluginCatalog.find("test-plugin", "java"))
                 .thenReturn(Optional.of(localPlugin));
 
         List<EnrichedCatalogEntry> result = pluginRegistryService.enrichCatalog(List.of(entry));
@@ -70,7 +70,7 @@ class PluginRegistryServiceTest {
                 .language("java")
                 .build();
 
-        when(pluginRepository.findByPluginIdAndLanguage("test-plugin", "java"))
+        when(pluginCatalog.find("test-plugin", "java"))
                 .thenReturn(Optional.of(localPlugin));
 
         List<EnrichedCatalogEntry> result = pluginRegistryService.enrichCatalog(List.of(entry));
@@ -90,7 +90,7 @@ class PluginRegistryServiceTest {
         entry.setVersion("1.0.0");
         entry.setLanguage("python");
 
-        when(pluginRepository.findByPluginIdAndLanguage("new-plugin", "python"))
+        when(pluginCatalog.find("new-plugin", "python"))
                 .thenReturn(Optional.empty());
 
         List<EnrichedCatalogEntry> result = pluginRegistryService.enrichCatalog(List.of(entry));
@@ -0,0 +1,112 @@
+package com.reajason.noone.server.profile;
+
+import com.reajason.noone.core.profile.Profile;
+import com.reajason.noone.server.profile.CompiledProfileCache.CompiledProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CompiledProfileCacheTest {
+
+    private static final LocalDateTime VERSION = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private CompiledProfileCache cache;
+    private ProfileRepository profileRepository;
+    private ProfileMapper profileMapper;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CompiledProfileCache();
+        profileRepository = mock(ProfileRepository.class);
+        profileMapper = mock(ProfileMapper.class);
+        ReflectionTestUtils.setField(cache, "profileRepository", profileRepository);
+        ReflectionTestUtils.setField(cache, "profileMapper", profileMapper);
+        when(profileMapper.toProfile(any(ProfileEntity.class))).thenAnswer(invocation -> new Profile());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void shouldLoadAndCompileProfileOnce() {
+        when(profileRepository.findById(1L)).thenReturn(Optional.of(entity(1L, VERSION)));
+
+        CompiledProfile first = cache.get(1L);
+        CompiledProfile second = cache.get(1L);
+
+        assertSame(first, second);
+        assertEquals(VERSION, first.updatedAt());
+        assertNotNull(first.transform());
+        assertSame(first.transformConfig(), first.transform().config());
+        verify(profileRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void shouldReloadAfterInvalidation() {
+        when(profileRepository.findById(1L))
+                .thenReturn(Optional.of(entity(1L, VERSION)))
+                .thenReturn(Optional.of(entity(1L, VERSION.plusMinutes(1))));
+
+        CompiledProfile before = cache.get(1L);
+        cache.invalidate(1L);
+        CompiledProfile after = cache.get(1L);
+
+        assertEquals(VERSION, before.updatedAt());
+        assertEquals(VERSION.plusMinutes(1), after.updatedAt());
+    }
+
+    @Test
+    void shouldInvalidateAgainAfterCommit() {
+        when(profileRepository.findById(1L))
+                .thenReturn(Optional.of(entity(1L, VERSION)))
+                .thenReturn(Optional.of(entity(1L, VERSION.plusMinutes(1))));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.invalidate(1L);
+        // a concurrent request reads the old row before the update commits
+        assertEquals(VERSION, cache.get(1L).updatedAt());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertEquals(VERSION.plusMinutes(1), cache.get(1L).updatedAt());
+    }
+
+    @Test
+    void shouldNotCacheLoadThatOverlappedInvalidation() {
+        when(profileRepository.findById(1L)).thenAnswer(invocation -> {
+            cache.invalidate(1L);
+            return Optional.of(entity(1L, VERSION));
+        });
+
+        cache.get(1L);
+        cache.get(1L);
+
+        verify(profileRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void shouldRejectMissingProfile() {
+        when(profileRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> cache.get(9L));
+    }
+
+    private ProfileEntity entity(long id, LocalDateTime updatedAt) {
+        ProfileEntity entity = new ProfileEntity();
+        entity.setId(id);
+        entity.setUpdatedAt(updatedAt);
+        return entity;
+    }
+}
@@ -42,6 +42,9 @@ class ProfileServiceTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private CompiledProfileCache compiledProfileCache;
+
     @InjectMocks
     private ProfileService profileService;
 
@@ -139,6 +142,7 @@ class ProfileServiceTest {
         assertThat(updateRequestCaptor.getValue().getName()).isEqualTo("after-update");
         assertThat(updateRequestCaptor.getValue().getPassword()).isEqualTo("encoded-new-pass-123");
         verify(profileRepository).save(stored);
+        verify(compiledProfileCache).invalidate(20L);
     }
 
     @Test
@@ -221,6 +225,7 @@ class ProfileServiceTest {
 
         assertThat(stored.getDeleted()).isTrue();
         verify(profileRepository).save(stored);
+        verify(compiledProfileCache).invalidate(40L);
         verify(profileRepository, never()).deleteById(any());
     }
 
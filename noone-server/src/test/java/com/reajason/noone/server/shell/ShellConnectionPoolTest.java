@@ -0,0 +1,240 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.core.ShellConnection;
+import com.reajason.noone.core.profile.Profile;
+import com.reajason.noone.core.profile.config.ProtocolType;
+import com.reajason.noone.core.transform.TransformConfig;
+import com.reajason.noone.core.transform.TransformContext;
+import com.reajason.noone.server.profile.CompiledProfileCache;
+import com.reajason.noone.server.profile.CompiledProfileCache.CompiledProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShellConnectionPoolTest {
+
+    private static final long SLOW_PROFILE = 1L;
+    private static final long FAST_PROFILE = 2L;
+    private static final LocalDateTime VERSION = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    private ShellConnectionPool pool;
+    private CompiledProfileCache compiledProfileCache;
+    private ShellConnectionPoolProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        compiledProfileCache = mock(CompiledProfileCache.class);
+        properties = new ShellConnectionPoolProperties();
+        pool = new ShellConnectionPool();
+        ReflectionTestUtils.setField(pool, "compiledProfileCache", compiledProfileCache);
+        ReflectionTestUtils.setField(pool, "properties", properties);
+        when(compiledProfileCache.get(FAST_PROFILE)).thenReturn(compiled(FAST_PROFILE, VERSION, dubboProfile()));
+    }
+
+    @Test
+    void shouldCreateConnectionOnceForConcurrentRequests() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Profile slowProfile = slowProfile(release, new CountDownLatch(1));
+        when(compiledProfileCache.get(SLOW_PROFILE)).thenReturn(compiled(SLOW_PROFILE, VERSION, slowProfile));
+        Shell shell = shell(1L, SLOW_PROFILE);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<ShellConnection>> futures = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                futures.add(executor.submit(() -> pool.getOrCreateCached(shell)));
+            }
+            release.countDown();
+
+            ShellConnection first = futures.getFirst().get(10, TimeUnit.SECONDS);
+            for (Future<ShellConnection> future : futures) {
+                assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+        }
+        verify(slowProfile, times(1)).getProtocolConfig();
+    }
+
+    @Test
+    void shouldNotBlockOtherShellsWhileOneIsCreating() throws Exception {
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompiledProfile slowProfile = compiled(SLOW_PROFILE, VERSION, slowProfile(release, slowStarted));
+        when(compiledProfileCache.get(SLOW_PROFILE)).thenReturn(slowProfile);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<ShellConnection> slow = executor.submit(() -> pool.getOrCreateCached(shell(1L, SLOW_PROFILE)));
+            assertTrue(slowStarted.await(10, TimeUnit.SECONDS));
+
+            // shells are created concurrently, whatever map bin their ids land in
+            for (long id = 2; id <= 64; id++) {
+                assertNotNull(pool.getOrCreateCached(shell(id, FAST_PROFILE)));
+            }
+            assertFalse(slow.isDone());
+
+            release.countDown();
+            assertNotNull(slow.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void shouldRetryCreationAfterFailure() {
+        Profile failingOnce = spy(dubboProfile());
+        when(failingOnce.getProtocolConfig()).thenThrow(new IllegalStateException("boom")).thenReturn(null);
+        when(compiledProfileCache.get(SLOW_PROFILE)).thenReturn(compiled(SLOW_PROFILE, VERSION, failingOnce));
+        Shell shell = shell(1L, SLOW_PROFILE);
+
+        assertThrows(IllegalStateException.class, () -> pool.getOrCreateCached(shell));
+
+        ShellConnection connection = pool.getOrCreateCached(shell);
+        assertSame(connection, pool.getOrCreateCached(shell));
+    }
+
+    @Test
+    void shouldReplaceConnectionWhenSignatureChanges() {
+        Shell shell = shell(1L, FAST_PROFILE);
+
+        ShellConnection first = pool.getOrCreateCached(shell);
+        shell.setUrl("dubbo://127.0.0.1:20881/com.example.Other");
+        ShellConnection second = pool.getOrCreateCached(shell);
+
+        assertNotSame(first, second);
+        assertSame(second, pool.getOrCreateCached(shell));
+    }
+
+    @Test
+    void shouldReplaceConnectionWhenProfileVersionChanges() {
+        Shell shell = shell(1L, FAST_PROFILE);
+        ShellConnection first = pool.getOrCreateCached(shell);
+        assertSame(first, pool.getOrCreateCached(shell));
+
+        when(compiledProfileCache.get(FAST_PROFILE))
+                .thenReturn(compiled(FAST_PROFILE, VERSION.plusMinutes(1), dubboProfile()));
+
+        assertNotSame(first, pool.getOrCreateCached(shell));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedConnectionBeyondProtocolLimit() {
+        properties.setMaxSize(Map.of(ProtocolType.DUBBO, 2));
+        Shell first = shell(1L, FAST_PROFILE);
+        Shell second = shell(2L, FAST_PROFILE);
+        Shell third = shell(3L, FAST_PROFILE);
+
+        ShellConnection firstConnection = pool.getOrCreateCached(first);
+        ShellConnection secondConnection = pool.getOrCreateCached(second);
+        pool.getOrCreateCached(first);
+        pool.getOrCreateCached(third);
+
+        ShellConnectionPool.Stats stats = pool.stats();
+        assertEquals(2, stats.size());
+        assertEquals(1, stats.evictions());
+        assertEquals(Map.of(ProtocolType.DUBBO, 2), stats.sizeByProtocol());
+        assertSame(firstConnection, pool.getOrCreateCached(first));
+        assertNotSame(secondConnection, pool.getOrCreateCached(second));
+    }
+
+    @Test
+    void shouldNotEvictConnectionsWithRequestsInFlight() {
+        properties.setMaxSize(Map.of(ProtocolType.DUBBO, 1));
+        Shell first = shell(1L, FAST_PROFILE);
+        ShellConnection busy = pool.getOrCreateCached(first);
+        AtomicInteger inFlight = (AtomicInteger) ReflectionTestUtils.getField(busy, "inFlight");
+        inFlight.incrementAndGet();
+
+        pool.getOrCreateCached(shell(2L, FAST_PROFILE));
+        properties.setIdleTimeout(Duration.ZERO);
+        pool.evictIdle();
+
+        assertEquals(1, pool.stats().size());
+        assertSame(busy, pool.getOrCreateCached(first));
+
+        inFlight.decrementAndGet();
+        pool.evictIdle();
+        assertEquals(0, pool.stats().size());
+    }
+
+    @Test
+    void shouldEvictIdleConnections() {
+        Shell shell = shell(1L, FAST_PROFILE);
+        ShellConnection connection = pool.getOrCreateCached(shell);
+
+        pool.evictIdle();
+        assertEquals(1, pool.stats().size());
+
+        properties.setIdleTimeout(Duration.ZERO);
+        pool.evictIdle();
+        assertEquals(0, pool.stats().size());
+        assertEquals(1, pool.stats().evictions());
+        assertNotSame(connection, pool.getOrCreateCached(shell));
+    }
+
+    @Test
+    void shouldSweepAtConfiguredInterval() {
+        properties.setSweepInterval(Duration.ofSeconds(15));
+        ScheduledTaskRegistrar registrar = new ScheduledTaskRegistrar();
+
+        pool.configureTasks(registrar);
+
+        assertEquals(1, registrar.getFixedDelayTaskList().size());
+        assertEquals(Duration.ofSeconds(15), registrar.getFixedDelayTaskList().getFirst().getIntervalDuration());
+    }
+
+    @Test
+    void shouldCountHitsAndMisses() {
+        Shell shell = shell(1L, FAST_PROFILE);
+
+        pool.getOrCreateCached(shell);
+        pool.getOrCreateCached(shell);
+        pool.getOrCreateCached(shell);
+        pool.evict(shell.getId());
+
+        ShellConnectionPool.Stats stats = pool.stats();
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0, stats.evictions());
+        assertEquals(0, stats.size());
+    }
+
+    /**
+     * A profile whose protocol config is only read while its connection is built; reading it blocks.
+     */
+    private Profile slowProfile(CountDownLatch release, CountDownLatch started) {
+        Profile profile = spy(dubboProfile());
+        when(profile.getProtocolConfig()).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+        return profile;
+    }
+
+    private Profile dubboProfile() {
+        Profile profile = new Profile();
+        profile.setProtocolType(ProtocolType.DUBBO);
+        return profile;
+    }
+
+    private CompiledProfile compiled(long id, LocalDateTime updatedAt, Profile profile) {
+        TransformConfig transformConfig = TransformConfig.fromProfile(dubboProfile());
+        return new CompiledProfile(id, updatedAt, profile, transformConfig, TransformContext.of(transformConfig));
+    }
+
+    private Shell shell(long id, long profileId) {
+        Shell shell = new Shell();
+        shell.setId(id);
+        shell.setUrl("dubbo://127.0.0.1:20880/com.example.Service");
+        shell.setProfileId(profileId);
+        return shell;
+    }
+}
@@ -0,0 +1,85 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.server.profile.ProfileRepository;
+import com.reajason.noone.server.shell.dto.ShellResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class ShellMapperTest {
+
+    private ShellMapper shellMapper;
+    private ProfileRepository profileRepository;
+
+    @BeforeEach
+    void setUp() {
+        shellMapper = new ShellMapperImpl();
+        profileRepository = mock(ProfileRepository.class);
+        ReflectionTestUtils.setField(shellMapper, "profileRepository", profileRepository);
+    }
+
+    @Test
+    void shouldResolveProfileNamesOncePerPage() {
+        when(profileRepository.findByIdIn(any())).thenReturn(List.of(profileName(10L, "default"), profileName(20L, "aes")));
+        Page<Shell> shells = new PageImpl<>(List.of(shell(1L, 10L), shell(2L, 20L), shell(3L, 10L)));
+
+        Page<ShellResponse> responses = shellMapper.toResponsePage(shells);
+
+        assertEquals(List.of("default", "aes", "default"),
+                responses.map(ShellResponse::getProfileName).getContent());
+        verify(profileRepository, times(1)).findByIdIn(argThat(ids -> Set.copyOf(ids).equals(Set.of(10L, 20L))));
+        verify(profileRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void shouldSkipProfileLookupForEmptyPage() {
+        Page<ShellResponse> responses = shellMapper.toResponsePage(Page.empty());
+
+        assertEquals(0, responses.getNumberOfElements());
+        verifyNoInteractions(profileRepository);
+    }
+
+    @Test
+    void shouldLeaveProfileNameEmptyWhenProfileIsMissing() {
+        when(profileRepository.findByIdIn(any())).thenReturn(List.of());
+
+        ShellResponse response = shellMapper.toResponse(shell(1L, 99L));
+
+        assertNull(response.getProfileName());
+        assertEquals(ShellLanguage.JAVA, response.getLanguage());
+    }
+
+    private static Shell shell(Long id, Long profileId) {
+        Shell shell = new Shell();
+        shell.setId(id);
+        shell.setName("shell-" + id);
+        shell.setUrl("http://localhost/" + id);
+        shell.setProfileId(profileId);
+        return shell;
+    }
+
+    private static ProfileRepository.ProfileName profileName(Long id, String name) {
+        return new ProfileRepository.ProfileName() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getName() {
+                return name;
+            }
+        };
+    }
+}
@@ -0,0 +1,122 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.core.Constants;
+import com.reajason.noone.server.shell.dto.ShellPluginDispatchRequest;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ShellPluginDispatchAcceptTest {
+
+    @Test
+    void shouldAnswerInCborOnlyWhenClientPrefersIt() {
+        assertTrue(ShellPluginController.prefersCbor("application/cbor"));
+        assertTrue(ShellPluginController.prefersCbor("application/cbor, application/json;q=0.5"));
+        assertTrue(ShellPluginController.prefersCbor("application/json;q=0.5, application/cbor"));
+
+        assertFalse(ShellPluginController.prefersCbor(null));
+        assertFalse(ShellPluginController.prefersCbor("*/*"));
+        assertFalse(ShellPluginController.prefersCbor("application/json, application/cbor"));
+        assertFalse(ShellPluginController.prefersCbor("application/json, */*;q=0.1"));
+        assertFalse(ShellPluginController.prefersCbor("application/cbor;q=0.2, */*"));
+        assertFalse(ShellPluginController.prefersCbor("not a media type"));
+    }
+
+    @Test
+    void shouldAnswerJsonDispatchOnceShellReplies() throws Exception {
+        ShellPluginService service = mock(ShellPluginService.class);
+        ShellPluginController controller = new ShellPluginController(service, new ShellDispatchProperties());
+        CompletableFuture<Map<String, Object>> response = new CompletableFuture<>();
+        when(service.dispatchPluginAsync(eq(1L), eq("system-info"), any(), any())).thenReturn(response);
+        ShellPluginDispatchRequest request = new ShellPluginDispatchRequest();
+        request.setPluginId("system-info");
+        request.setArgs(new HashMap<>());
+
+        DeferredResult<ResponseEntity<?>> deferred = controller.dispatch(1L, null, request);
+
+        assertFalse(deferred.hasResult());
+        response.complete(Map.of(Constants.CODE, Constants.SUCCESS));
+        assertTrue(deferred.hasResult());
+        assertEquals(Map.of(Constants.CODE, Constants.SUCCESS), ((ResponseEntity<?>) deferred.getResult()).getBody());
+    }
+
+    @Test
+    void shouldDispatchCborOffTheRequestThreadAndInterruptItWhenTheClientLeaves() throws Exception {
+        ShellPluginService service = mock(ShellPluginService.class);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(service.dispatchPluginCbor(eq(1L), eq("file-manager"), any(), any(), any())).thenAnswer(invocation -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Map.of();
+        });
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(
+                new ShellPluginController(service, new ShellDispatchProperties())).build();
+
+        MvcResult result = mockMvc.perform(post("/api/shells/1/dispatch")
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"pluginId\":\"file-manager\",\"args\":{}}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onComplete(new AsyncEvent(asyncContext));
+        }
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void shouldAnswerBatchDispatchFromWorkerThread() throws Exception {
+        ShellPluginService service = mock(ShellPluginService.class);
+        Map<String, Object> success = Map.of(Constants.CODE, Constants.SUCCESS);
+        when(service.dispatchPlugins(eq(1L), any(), eq(false))).thenReturn(List.of(success, success));
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(
+                new ShellPluginController(service, new ShellDispatchProperties())).build();
+
+        MvcResult result = mockMvc.perform(post("/api/shells/1/dispatch/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"calls\":[{\"pluginId\":\"system-info\",\"args\":{}},"
+                                + "{\"pluginId\":\"file-manager\",\"args\":{}}]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].code").value(Constants.SUCCESS));
+    }
+}
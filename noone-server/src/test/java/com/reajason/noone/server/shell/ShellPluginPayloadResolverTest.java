@@ -0,0 +1,60 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.server.plugin.Plugin;
+import com.reajason.noone.server.plugin.PluginPayloadCache;
+import com.reajason.noone.server.plugin.PluginRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShellPluginPayloadResolverTest {
+
+    private ShellPluginPayloadResolver resolver;
+    private PluginRepository pluginRepository;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new ShellPluginPayloadResolver();
+        pluginRepository = mock(PluginRepository.class);
+        ReflectionTestUtils.setField(resolver, "pluginPayloadCache", new PluginPayloadCache());
+        ReflectionTestUtils.setField(resolver, "pluginRepository", pluginRepository);
+    }
+
+    @Test
+    void shouldReadPayloadOfCatalogPluginOnlyOnce() {
+        Plugin stored = plugin();
+        stored.setPayloadBytes(new byte[]{'M', 'Z', 1});
+        when(pluginRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+        byte[] first = resolver.resolve(ShellLanguage.DOTNET, plugin());
+        byte[] second = resolver.resolve(ShellLanguage.DOTNET, plugin());
+
+        assertArrayEquals(new byte[]{'M', 'Z', 1}, first);
+        assertSame(first, second);
+        verify(pluginRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void shouldRejectDotNetPayloadThatIsNotAnAssembly() {
+        Plugin stored = plugin();
+        stored.setPayloadBytes(new byte[]{1, 2, 3});
+        when(pluginRepository.findById(1L)).thenReturn(Optional.of(stored));
+
+        assertThrows(IllegalArgumentException.class, () -> resolver.resolve(ShellLanguage.DOTNET, plugin()));
+    }
+
+    private Plugin plugin() {
+        Plugin plugin = new Plugin();
+        plugin.setId(1L);
+        plugin.setPluginId("system-info");
+        plugin.setVersion("0.0.1");
+        plugin.setLanguage("dotnet");
+        plugin.setPayloadHash("sha-1");
+        return plugin;
+    }
+}
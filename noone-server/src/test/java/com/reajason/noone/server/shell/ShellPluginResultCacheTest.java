@@ -0,0 +1,181 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.core.Constants;
+import com.reajason.noone.server.plugin.Plugin;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShellPluginResultCacheTest {
+
+    private static final Long SHELL_ID = 1L;
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    private final ShellPluginResultCache cache = new ShellPluginResultCache();
+
+    @Test
+    void shouldReadTtlAndInvalidatingActionsFromPluginMeta() {
+        Plugin plugin = new Plugin();
+        plugin.setMeta(Map.of("cache", Map.of(
+                "ttl", Map.of("list", 5, "*", 30),
+                "invalidate", List.of("delete"))));
+
+        assertEquals(Duration.ofSeconds(5), cache.ttl(plugin, "list"));
+        assertEquals(Duration.ofSeconds(30), cache.ttl(plugin, "stat"));
+        assertEquals(Duration.ofSeconds(30), cache.ttl(plugin, null));
+        assertTrue(cache.invalidates(plugin, "delete"));
+        assertFalse(cache.invalidates(plugin, "list"));
+
+        assertNull(cache.ttl(new Plugin(), "list"));
+        assertNull(cache.ttl(null, "list"));
+        assertFalse(cache.invalidates(null, "delete"));
+    }
+
+    @Test
+    void shouldServeFreshResultsFromCache() {
+        AtomicInteger calls = new AtomicInteger();
+
+        ShellPluginResultCache.Result first = cache.get(SHELL_ID, key("/"), TTL, () -> success(calls.incrementAndGet()));
+        ShellPluginResultCache.Result second = cache.get(SHELL_ID, key("/"), TTL, () -> success(calls.incrementAndGet()));
+        ShellPluginResultCache.Result other = cache.get(SHELL_ID, key("/tmp"), TTL, () -> success(calls.incrementAndGet()));
+
+        assertFalse(first.hit());
+        assertTrue(second.hit());
+        assertSame(first.response(), second.response());
+        assertFalse(other.hit());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldCallAgainOnceExpired() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        Duration ttl = Duration.ofMillis(20);
+
+        cache.get(SHELL_ID, key("/"), ttl, () -> success(calls.incrementAndGet()));
+        Thread.sleep(40);
+        ShellPluginResultCache.Result result = cache.get(SHELL_ID, key("/"), ttl, () -> success(calls.incrementAndGet()));
+
+        assertFalse(result.hit());
+        assertEquals(2, calls.get());
+        assertEquals(1, cache.size(SHELL_ID));
+    }
+
+    @Test
+    void shouldNotCacheFailures() {
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, Object> failure = Map.of(Constants.CODE, Constants.FAILURE, Constants.ERROR, "boom");
+
+        cache.get(SHELL_ID, key("/"), TTL, () -> {
+            calls.incrementAndGet();
+            return failure;
+        });
+        ShellPluginResultCache.Result result = cache.get(SHELL_ID, key("/"), TTL, () -> success(calls.incrementAndGet()));
+
+        assertFalse(result.hit());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldNotReportJoinedFailureAsHit() {
+        Map<String, Object> failure = Map.of(Constants.CODE, Constants.FAILURE, Constants.ERROR, "boom");
+        CompletableFuture<Map<String, Object>> loading = new CompletableFuture<>();
+
+        CompletableFuture<ShellPluginResultCache.Result> leader = cache.getAsync(SHELL_ID, key("/"), TTL, () -> loading);
+        CompletableFuture<ShellPluginResultCache.Result> follower = cache.getAsync(SHELL_ID, key("/"), TTL,
+                () -> fail("follower must join the call in flight"));
+        loading.complete(failure);
+
+        assertEquals(failure, follower.join().response());
+        assertFalse(follower.join().hit());
+        assertFalse(leader.join().hit());
+        assertEquals(0, cache.size(SHELL_ID));
+    }
+
+    @Test
+    void shouldCoalesceConcurrentIdenticalRequests() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        int requests = 8;
+
+        List<Future<ShellPluginResultCache.Result>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            futures.add(executor.submit(() -> cache.get(SHELL_ID, key("/"), TTL, () -> {
+                started.countDown();
+                await(release);
+                return success(calls.incrementAndGet());
+            })));
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            for (int i = 1; i < requests; i++) {
+                futures.add(executor.submit(() -> cache.get(SHELL_ID, key("/"), TTL,
+                        () -> success(calls.incrementAndGet()))));
+            }
+            Thread.sleep(50);
+            release.countDown();
+
+            int hits = 0;
+            for (Future<ShellPluginResultCache.Result> future : futures) {
+                ShellPluginResultCache.Result result = future.get(10, TimeUnit.SECONDS);
+                assertEquals(success(1), result.response());
+                hits += result.hit() ? 1 : 0;
+            }
+            assertEquals(requests - 1, hits);
+        }
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void shouldNotStoreResultCompletingAfterInvalidation() {
+        AtomicInteger calls = new AtomicInteger();
+
+        ShellPluginResultCache.Result result = cache.get(SHELL_ID, key("/"), TTL, () -> {
+            cache.invalidate(SHELL_ID);
+            return success(calls.incrementAndGet());
+        });
+        ShellPluginResultCache.Result next = cache.get(SHELL_ID, key("/"), TTL, () -> success(calls.incrementAndGet()));
+
+        assertEquals(success(1), result.response());
+        assertFalse(next.hit());
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void shouldInvalidateOnlyTheGivenShell() {
+        cache.get(SHELL_ID, key("/"), TTL, () -> success(1));
+        cache.get(2L, key("/"), TTL, () -> success(1));
+
+        cache.invalidate(SHELL_ID);
+
+        assertEquals(0, cache.size(SHELL_ID));
+        assertEquals(1, cache.size(2L));
+    }
+
+    private static ShellPluginResultCache.Key key(String path) {
+        return new ShellPluginResultCache.Key("file-manager", "0.0.1", Map.of("op", "list", "path", path), false);
+    }
+
+    private static Map<String, Object> success(int value) {
+        return Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, Map.of("value", value));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,27 +1,37 @@
 package com.reajason.noone.server.shell;
 
+import com.reajason.noone.core.CborWriter;
 import com.reajason.noone.core.Constants;
+import com.reajason.noone.core.PluginCall;
 import com.reajason.noone.core.ShellConnection;
 import com.reajason.noone.core.client.RequestSendException;
 import com.reajason.noone.core.client.ResponseDecodeException;
 import com.reajason.noone.server.plugin.BuiltinPluginRegistryService;
 import com.reajason.noone.server.plugin.JavaPluginPayloadService;
 import com.reajason.noone.server.plugin.Plugin;
-import com.reajason.noone.server.plugin.PluginRepository;
+import com.reajason.noone.server.plugin.PluginPayloadCache;
+import com.reajason.noone.server.plugin.PluginCatalog;
+import com.reajason.noone.server.shell.dto.ShellPluginDispatchRequest;
 import com.reajason.noone.server.shell.dto.ShellPluginStatusResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
@@ -31,44 +41,44 @@ import static org.mockito.Mockito.*;
 class ShellPluginServiceTest {
 
     private ShellPluginService shellPluginService;
-    private ShellRepository shellRepository;
     private ShellConnectionPool shellConnectionPool;
     private ShellStatusUpdater shellStatusUpdater;
     private JavaPluginPayloadService javaPluginPayloadService;
     private BuiltinPluginRegistryService builtinPluginRegistryService;
-    private PluginRepository pluginRepository;
+    private PluginCatalog pluginCatalog;
     private ShellLookupHelper shellLookupHelper;
     private ShellCoreInitHelper shellCoreInitHelper;
 
     @BeforeEach
     void setUp() {
         shellPluginService = new ShellPluginService();
-        shellRepository = mock(ShellRepository.class);
         shellConnectionPool = mock(ShellConnectionPool.class);
         shellStatusUpdater = mock(ShellStatusUpdater.class);
         javaPluginPayloadService = mock(JavaPluginPayloadService.class);
         builtinPluginRegistryService = mock(BuiltinPluginRegistryService.class);
-        pluginRepository = mock(PluginRepository.class);
+        pluginCatalog = mock(PluginCatalog.class);
         shellLookupHelper = mock(ShellLookupHelper.class);
         shellCoreInitHelper = mock(ShellCoreInitHelper.class);
 
-        ReflectionTestUtils.setField(shellPluginService, "shellRepository", shellRepository);
         ReflectionTestUtils.setField(shellPluginService, "shellConnectionPool", shellConnectionPool);
         ReflectionTestUtils.setField(shellPluginService, "shellStatusUpdater", shellStatusUpdater);
         ReflectionTestUtils.setField(shellPluginService, "javaPluginPayloadService", javaPluginPayloadService);
         ReflectionTestUtils.setField(shellPluginService, "builtinPluginRegistryService", builtinPluginRegistryService);
-        ReflectionTestUtils.setField(shellPluginService, "pluginRepository", pluginRepository);
+        ReflectionTestUtils.setField(shellPluginService, "pluginCatalog", pluginCatalog);
         ReflectionTestUtils.setField(shellPluginService, "shellResponseHelper", new ShellResponseHelper());
         ReflectionTestUtils.setField(shellPluginService, "shellLookupHelper", shellLookupHelper);
-        ReflectionTestUtils.setField(shellPluginService, "shellPluginPayloadResolver", new ShellPluginPayloadResolver());
+        ShellPluginPayloadResolver shellPluginPayloadResolver = new ShellPluginPayloadResolver();
+        ReflectionTestUtils.setField(shellPluginPayloadResolver, "pluginPayloadCache", new PluginPayloadCache());
+        ReflectionTestUtils.setField(shellPluginService, "shellPluginPayloadResolver", shellPluginPayloadResolver);
         ReflectionTestUtils.setField(shellPluginService, "shellCoreInitHelper", shellCoreInitHelper);
+        ReflectionTestUtils.setField(shellPluginService, "shellPluginResultCache", new ShellPluginResultCache());
     }
 
     @Test
     void shouldMarkErrorWhenRequestPhaseFails() {
         Long shellId = 1L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.needLoadPlugin("command-execute")).thenReturn(false);
@@ -88,7 +98,7 @@ class ShellPluginServiceTest {
     void shouldNotChangeStatusWhenResponsePhaseFails() {
         Long shellId = 2L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.needLoadPlugin("system-info")).thenReturn(false);
@@ -108,7 +118,7 @@ class ShellPluginServiceTest {
     void shouldNotChangeStatusWhenPluginReturnsFailureCode() {
         Long shellId = 3L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.needLoadPlugin("command-execute")).thenReturn(false);
@@ -139,11 +149,77 @@ class ShellPluginServiceTest {
         verify(shellStatusUpdater, never()).markConnected(anyLong());
     }
 
+    @Test
+    void shouldTranscodePluginResponseStraightToCbor() throws Exception {
+        Long shellId = 30L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.needLoadPlugin("file-manager")).thenReturn(false);
+        byte[] transcoded = {(byte) 0xa1, 0x64, 'c', 'o', 'd', 'e', 0x00};
+        when(connection.runPluginCbor(eq("file-manager"), any(), any())).thenAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(2).write(transcoded);
+            return Map.of(Constants.CODE, Constants.SUCCESS);
+        });
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Map<String, Object> response = shellPluginService.dispatchPluginCbor(shellId, "file-manager",
+                Map.of("op", "read-all"), out, null);
+
+        assertEquals(Map.of(Constants.CODE, Constants.SUCCESS), response);
+        assertArrayEquals(transcoded, out.toByteArray());
+        verify(connection, never()).runPlugin(anyString(), any());
+        verify(shellStatusUpdater).markConnected(shellId);
+    }
+
+    @Test
+    void shouldWriteFailureAsCborWhenDispatchFails() throws Exception {
+        Long shellId = 31L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.needLoadPlugin("command-execute")).thenReturn(false);
+        when(connection.runPluginCbor(eq("command-execute"), any(), any()))
+                .thenThrow(new RequestSendException("send failed", 2, new RuntimeException("io")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        Map<String, Object> response = shellPluginService.dispatchPluginCbor(shellId, "command-execute",
+                Map.of("cmd", "id"), out, null);
+
+        assertEquals(Constants.FAILURE, response.get(Constants.CODE));
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new CborWriter(expected).writeValue(response);
+        assertArrayEquals(expected.toByteArray(), out.toByteArray());
+        verify(shellStatusUpdater).markError(shellId);
+    }
+
+    @Test
+    void shouldRecordSystemInfoFromUnnormalizedResponseInCborMode() throws Exception {
+        Long shellId = 32L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.needLoadPlugin("system-info")).thenReturn(false);
+        Map<String, Object> data = Map.of("os", Map.of("name", "Linux"));
+        when(connection.runPluginRaw(eq("system-info"), any()))
+                .thenReturn(Map.of(Constants.CODE, Constants.SUCCESS, "data", data));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        shellPluginService.dispatchPluginCbor(shellId, "system-info", Map.of(), out, null);
+
+        verify(shellStatusUpdater).recordSystemInfo(shellId, data);
+        assertTrue(out.size() > 0);
+        verify(connection, never()).runPluginCbor(anyString(), any(), any());
+    }
+
     @Test
     void shouldLoadPluginBeforeRunWhenNotCachedAndPluginExists() {
         Long shellId = 6L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.isPluginCacheInitialized()).thenReturn(true);
@@ -166,13 +242,36 @@ class ShellPluginServiceTest {
         );
         verify(connection).runPlugin(eq("system-info"), any());
         verify(shellStatusUpdater).markConnected(shellId);
+        verify(shellStatusUpdater).recordSystemInfo(eq(shellId), any());
+    }
+
+    @Test
+    void shouldNotUploadPluginThatConcurrentRequestLoadedMeanwhile() {
+        Long shellId = 16L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        // missing when checked, loaded by the time this request's turn to load comes
+        when(connection.needLoadPlugin("system-info")).thenReturn(true, false);
+        when(builtinPluginRegistryService.findOrRegister("system-info", "java"))
+                .thenReturn(Optional.of(plugin("system-info", "plugin-bytes")));
+        when(connection.runPlugin(eq("system-info"), any()))
+                .thenReturn(Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, Map.of()));
+
+        shellPluginService.dispatchPlugin(shellId, "system-info", Map.of());
+
+        verify(connection).loadPluginOnce(eq("system-info"), eq("0.0.1"), any());
+        verify(connection, never()).loadPlugin(anyString(), anyString(), any(byte[].class));
+        verify(connection).runPlugin(eq("system-info"), any());
     }
 
     @Test
     void shouldSkipLoadPluginWhenPluginMetadataDoesNotExist() {
         Long shellId = 7L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.isPluginCacheInitialized()).thenReturn(true);
@@ -192,7 +291,7 @@ class ShellPluginServiceTest {
     void shouldInjectFailureCodeWhenResultContainsErrorWithoutCode() {
         Long shellId = 8L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.needLoadPlugin("command-execute")).thenReturn(false);
@@ -211,7 +310,7 @@ class ShellPluginServiceTest {
     void shouldMarkErrorWhenPluginLoadThrowsRequestPhaseException() {
         Long shellId = 9L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.isPluginCacheInitialized()).thenReturn(true);
@@ -238,7 +337,7 @@ class ShellPluginServiceTest {
     void shouldNotChangeStatusWhenPluginLoadThrowsResponsePhaseException() {
         Long shellId = 10L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.isPluginCacheInitialized()).thenReturn(true);
@@ -266,7 +365,7 @@ class ShellPluginServiceTest {
         Long shellId = 11L;
         Shell shell = shell(shellId);
         shell.setLanguage(ShellLanguage.DOTNET);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.isPluginCacheInitialized()).thenReturn(true);
@@ -289,7 +388,7 @@ class ShellPluginServiceTest {
     void shouldContinueDispatchWhenPluginVersionIsOutdated() {
         Long shellId = 12L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.isPluginCacheInitialized()).thenReturn(true);
@@ -309,7 +408,7 @@ class ShellPluginServiceTest {
     void shouldReturnPluginStatusForShell() {
         Long shellId = 13L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.test()).thenReturn(true);
@@ -332,7 +431,7 @@ class ShellPluginServiceTest {
         Long shellId = 14L;
         Shell shell = shell(shellId);
         shell.setLanguage(ShellLanguage.NODEJS);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         AtomicReference<String> shellVersion = new AtomicReference<>("0.0.0");
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
@@ -357,7 +456,7 @@ class ShellPluginServiceTest {
     void shouldLoadAutoRegisteredBuiltinPluginBeforeRun() {
         Long shellId = 15L;
         Shell shell = shell(shellId);
-        ShellConnection connection = mock(ShellConnection.class);
+        ShellConnection connection = mockConnection();
         when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
         when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
         when(connection.isPluginCacheInitialized()).thenReturn(true);
@@ -378,6 +477,322 @@ class ShellPluginServiceTest {
         verify(connection).runPlugin(eq("file-manager"), any());
     }
 
+    @Test
+    void shouldServeCacheableActionFromCacheUntilMutatingActionRuns() {
+        Long shellId = 16L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        Plugin plugin = plugin("file-manager", "plugin-bytes");
+        plugin.setMeta(Map.of("cache", Map.of(
+                "ttl", Map.of("list", 60),
+                "invalidate", List.of("delete"))));
+        when(builtinPluginRegistryService.findOrRegister("file-manager", "java")).thenReturn(Optional.of(plugin));
+        when(connection.runPlugin(eq("file-manager"), any()))
+                .thenReturn(Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, Map.of("files", List.of())));
+        List<ShellPluginResultCache.Result> results = new ArrayList<>();
+
+        shellPluginService.dispatchPlugin(shellId, "file-manager", Map.of("op", "list", "path", "/"), results::add);
+        shellPluginService.dispatchPlugin(shellId, "file-manager", Map.of("op", "list", "path", "/"), results::add);
+        shellPluginService.dispatchPlugin(shellId, "file-manager", Map.of("op", "delete", "path", "/a"), results::add);
+        shellPluginService.dispatchPlugin(shellId, "file-manager", Map.of("op", "list", "path", "/"), results::add);
+
+        assertEquals(List.of(false, true, false), results.stream().map(ShellPluginResultCache.Result::hit).toList());
+        verify(connection, times(2)).runPlugin(eq("file-manager"), argThat(args -> "list".equals(args.get("op"))));
+        verify(connection).runPlugin(eq("file-manager"), argThat(args -> "delete".equals(args.get("op"))));
+    }
+
+    @Test
+    void shouldWriteCachedRawResponseAsCbor() throws Exception {
+        Long shellId = 17L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        Plugin plugin = plugin("file-manager", "plugin-bytes");
+        plugin.setMeta(Map.of("cache", Map.of("ttl", Map.of("stat", 60))));
+        when(builtinPluginRegistryService.findOrRegister("file-manager", "java")).thenReturn(Optional.of(plugin));
+        Map<String, Object> raw = Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, Map.of("size", 1));
+        when(connection.runPluginRaw(eq("file-manager"), any())).thenReturn(raw);
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+        shellPluginService.dispatchPluginCbor(shellId, "file-manager", Map.of("op", "stat"), first, null);
+        shellPluginService.dispatchPluginCbor(shellId, "file-manager", Map.of("op", "stat"), second, null);
+
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        new CborWriter(expected).writeValue(raw);
+        assertArrayEquals(expected.toByteArray(), first.toByteArray());
+        assertArrayEquals(expected.toByteArray(), second.toByteArray());
+        verify(connection).runPluginRaw(eq("file-manager"), any());
+        verify(connection, never()).runPluginCbor(anyString(), any(), any());
+        verify(connection, never()).runPlugin(anyString(), any());
+    }
+
+    @Test
+    void shouldLoadAndRunInOneBatchWhenCoreTakesBatches() {
+        Long shellId = 18L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        when(connection.isBatchSupported()).thenReturn(true);
+        when(connection.needLoadPlugin("command-execute")).thenReturn(true);
+        when(builtinPluginRegistryService.findOrRegister("command-execute", "java"))
+                .thenReturn(Optional.of(plugin("command-execute", "plugin-bytes")));
+        when(javaPluginPayloadService.buildCandidates(any(), any()))
+                .thenReturn(List.of(new JavaPluginPayloadService.JavaPluginCandidate(
+                        "com.reajason.noone.runtime.CommandA", "a".getBytes(StandardCharsets.UTF_8))));
+        when(connection.runBatch(anyList())).thenReturn(List.of(
+                Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, true),
+                Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, "uid=0")));
+
+        Map<String, Object> response = shellPluginService.dispatchPlugin(shellId, "command-execute", Map.of("cmd", "id"));
+
+        assertEquals("uid=0", response.get(Constants.DATA));
+        verify(connection).runBatch(argThat(calls -> calls.size() == 2
+                && calls.get(0).equals(PluginCall.load("command-execute", "0.0.1", calls.get(0).pluginBytes()))
+                && calls.get(1).equals(PluginCall.run("command-execute", Map.of("cmd", "id")))));
+        verify(connection, never()).loadPlugin(anyString(), any(), any(byte[].class));
+        verify(connection, never()).runPlugin(anyString(), any());
+        verify(shellStatusUpdater).markConnected(shellId);
+    }
+
+    @Test
+    void shouldTryRemainingCandidatesWhenBatchedLoadClashes() {
+        Long shellId = 19L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        when(connection.isBatchSupported()).thenReturn(true);
+        when(connection.needLoadPlugin("command-execute")).thenReturn(true, true, false);
+        when(builtinPluginRegistryService.findOrRegister("command-execute", "java"))
+                .thenReturn(Optional.of(plugin("command-execute", "plugin-bytes")));
+        byte[] second = "b".getBytes(StandardCharsets.UTF_8);
+        when(javaPluginPayloadService.buildCandidates(any(), any())).thenReturn(List.of(
+                new JavaPluginPayloadService.JavaPluginCandidate(
+                        "com.reajason.noone.runtime.CommandA", "a".getBytes(StandardCharsets.UTF_8)),
+                new JavaPluginPayloadService.JavaPluginCandidate("com.reajason.noone.runtime.CommandB", second)));
+        when(connection.runBatch(anyList())).thenReturn(List.of(
+                Map.of(Constants.CODE, Constants.FAILURE, Constants.ERROR, "attempted duplicate class definition"),
+                Map.of(Constants.CODE, Constants.FAILURE, Constants.ERROR, "plugin [command-execute] not found")));
+        when(connection.runPlugin(eq("command-execute"), any()))
+                .thenReturn(Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, "uid=0"));
+
+        Map<String, Object> response = shellPluginService.dispatchPlugin(shellId, "command-execute", Map.of("cmd", "id"));
+
+        assertEquals("uid=0", response.get(Constants.DATA));
+        verify(connection).loadPlugin("command-execute", "0.0.1", second);
+        verify(connection).runPlugin(eq("command-execute"), any());
+    }
+
+    @Test
+    void shouldDispatchPageCallsInOneBatchAndServeCachedOnesLocally() {
+        Long shellId = 20L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        Plugin fileManager = plugin("file-manager", "plugin-bytes");
+        fileManager.setMeta(Map.of("cache", Map.of("ttl", Map.of("list", 60))));
+        when(builtinPluginRegistryService.findOrRegister("file-manager", "java")).thenReturn(Optional.of(fileManager));
+        when(builtinPluginRegistryService.findOrRegister("system-info", "java"))
+                .thenReturn(Optional.of(plugin("system-info", "plugin-bytes")));
+        when(builtinPluginRegistryService.findOrRegister("process-monitor", "java"))
+                .thenReturn(Optional.of(plugin("process-monitor", "plugin-bytes")));
+        Map<String, Object> files = Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, Map.of("files", List.of()));
+        when(connection.runPlugin(eq("file-manager"), any())).thenReturn(files);
+        Map<String, Object> systemData = Map.of("os", Map.of("name", "Linux"));
+        when(connection.runBatch(anyList(), eq(true))).thenReturn(List.of(
+                Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, systemData),
+                Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, List.of())));
+        shellPluginService.dispatchPlugin(shellId, "file-manager", Map.of("op", "list", "path", "/"));
+
+        List<Map<String, Object>> responses = shellPluginService.dispatchPlugins(shellId, List.of(
+                dispatchRequest("system-info", Map.of()),
+                dispatchRequest("file-manager", Map.of("op", "list", "path", "/")),
+                dispatchRequest("process-monitor", Map.of())), true);
+
+        assertEquals(3, responses.size());
+        assertEquals(systemData, responses.get(0).get(Constants.DATA));
+        assertEquals(files, responses.get(1));
+        assertEquals(List.of(), responses.get(2).get(Constants.DATA));
+        verify(connection).runBatch(argThat(calls -> calls.equals(List.of(
+                PluginCall.run("system-info", Map.of()),
+                PluginCall.run("process-monitor", Map.of())))), eq(true));
+        verify(connection, times(1)).runPlugin(anyString(), any());
+        verify(shellStatusUpdater).recordSystemInfo(shellId, systemData);
+    }
+
+    @Test
+    void shouldLoadMissingPluginsAheadOfPageRunsInOrder() {
+        Long shellId = 33L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        when(connection.isBatchSupported()).thenReturn(true);
+        when(connection.needLoadPlugin("process-monitor")).thenReturn(true);
+        when(builtinPluginRegistryService.findOrRegister("system-info", "java"))
+                .thenReturn(Optional.of(plugin("system-info", "plugin-bytes")));
+        when(builtinPluginRegistryService.findOrRegister("process-monitor", "java"))
+                .thenReturn(Optional.of(plugin("process-monitor", "plugin-bytes")));
+        byte[] candidate = "a".getBytes(StandardCharsets.UTF_8);
+        when(javaPluginPayloadService.buildCandidates(any(), any())).thenReturn(List.of(
+                new JavaPluginPayloadService.JavaPluginCandidate("com.reajason.noone.runtime.ProcessA", candidate)));
+        when(connection.runBatch(anyList(), eq(false))).thenReturn(List.of(
+                Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, true),
+                Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, Map.of()),
+                Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, List.of())));
+
+        List<Map<String, Object>> responses = shellPluginService.dispatchPlugins(shellId, List.of(
+                dispatchRequest("system-info", Map.of()),
+                dispatchRequest("process-monitor", Map.of())), true);
+
+        assertEquals(List.of(), responses.get(1).get(Constants.DATA));
+        verify(connection).runBatch(argThat(calls -> calls.equals(List.of(
+                PluginCall.load("process-monitor", "0.0.1", candidate),
+                PluginCall.run("system-info", Map.of()),
+                PluginCall.run("process-monitor", Map.of())))), eq(false));
+        verify(connection, never()).loadPlugin(anyString(), any(), any(byte[].class));
+        verify(connection, never()).runPlugin(anyString(), any());
+    }
+
+    @Test
+    void shouldRerunPageCallsAfterBatchedLoadClashes() {
+        Long shellId = 34L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        when(connection.isBatchSupported()).thenReturn(true);
+        when(connection.needLoadPlugin("process-monitor")).thenReturn(true);
+        when(builtinPluginRegistryService.findOrRegister("process-monitor", "java"))
+                .thenReturn(Optional.of(plugin("process-monitor", "plugin-bytes")));
+        byte[] second = "b".getBytes(StandardCharsets.UTF_8);
+        when(javaPluginPayloadService.buildCandidates(any(), any())).thenReturn(List.of(
+                new JavaPluginPayloadService.JavaPluginCandidate(
+                        "com.reajason.noone.runtime.ProcessA", "a".getBytes(StandardCharsets.UTF_8)),
+                new JavaPluginPayloadService.JavaPluginCandidate("com.reajason.noone.runtime.ProcessB", second)));
+        when(connection.runBatch(anyList(), eq(false))).thenReturn(List.of(
+                Map.of(Constants.CODE, Constants.FAILURE, Constants.ERROR, "attempted duplicate class definition"),
+                Map.of(Constants.CODE, Constants.FAILURE, Constants.ERROR, "plugin [process-monitor] not found"),
+                Map.of(Constants.CODE, Constants.FAILURE, Constants.ERROR, "plugin [process-monitor] not found")));
+        when(connection.runPlugin(eq("process-monitor"), any()))
+                .thenReturn(Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, List.of()));
+
+        List<Map<String, Object>> responses = shellPluginService.dispatchPlugins(shellId, List.of(
+                dispatchRequest("process-monitor", Map.of("sort", "cpu")),
+                dispatchRequest("process-monitor", Map.of("sort", "mem"))), false);
+
+        assertEquals(Constants.SUCCESS, responses.get(0).get(Constants.CODE));
+        assertEquals(Constants.SUCCESS, responses.get(1).get(Constants.CODE));
+        verify(connection).loadPlugin("process-monitor", "0.0.1", second);
+        verify(connection, times(2)).runPlugin(eq("process-monitor"), any());
+    }
+
+    @Test
+    void shouldDispatchAsyncWithoutWaitingForShell() throws Exception {
+        Long shellId = 22L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        CompletableFuture<Map<String, Object>> shellCall = new CompletableFuture<>();
+        when(connection.runPluginAsync(eq("command-execute"), any())).thenReturn(shellCall);
+
+        CompletableFuture<Map<String, Object>> response = shellPluginService.dispatchPluginAsync(
+                shellId, "command-execute", Map.of("cmd", "id"), null);
+
+        assertFalse(response.isDone());
+        shellCall.complete(Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, "uid=0"));
+        assertEquals("uid=0", response.get().get(Constants.DATA));
+        verify(shellStatusUpdater).markConnected(shellId);
+        verify(connection, never()).runPlugin(anyString(), any());
+    }
+
+    @Test
+    void shouldMarkErrorWhenAsyncRunFailsInRequestPhase() throws Exception {
+        Long shellId = 23L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        when(connection.runPluginAsync(eq("command-execute"), any())).thenReturn(CompletableFuture.failedFuture(
+                new RequestSendException("send failed", 2, new RuntimeException("io"))));
+
+        Map<String, Object> response = shellPluginService.dispatchPluginAsync(
+                shellId, "command-execute", Map.of("cmd", "id"), null).get();
+
+        assertEquals(Constants.FAILURE, response.get(Constants.CODE));
+        assertEquals("REQUEST", response.get("phase"));
+        verify(shellStatusUpdater).markError(shellId);
+    }
+
+    @Test
+    void shouldCancelShellCallWhenAsyncDispatchIsCancelled() {
+        Long shellId = 24L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        CompletableFuture<Map<String, Object>> shellCall = new CompletableFuture<>();
+        when(connection.runPluginAsync(eq("command-execute"), any())).thenReturn(shellCall);
+
+        CompletableFuture<Map<String, Object>> response = shellPluginService.dispatchPluginAsync(
+                shellId, "command-execute", Map.of("cmd", "sleep 60"), null);
+        assertTrue(response.cancel(true));
+
+        assertTrue(shellCall.isCancelled());
+        verify(shellStatusUpdater, never()).markError(anyLong());
+    }
+
+    @Test
+    void shouldShareAsyncCallForIdenticalCacheableRequests() throws Exception {
+        Long shellId = 25L;
+        Shell shell = shell(shellId);
+        ShellConnection connection = mockConnection();
+        when(shellLookupHelper.requireById(shellId)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(connection.isPluginCacheInitialized()).thenReturn(true);
+        Plugin plugin = plugin("file-manager", "plugin-bytes");
+        plugin.setMeta(Map.of("cache", Map.of("ttl", Map.of("list", 60))));
+        when(builtinPluginRegistryService.findOrRegister("file-manager", "java")).thenReturn(Optional.of(plugin));
+        CompletableFuture<Map<String, Object>> shellCall = new CompletableFuture<>();
+        when(connection.runPluginAsync(eq("file-manager"), any())).thenReturn(shellCall);
+        List<ShellPluginResultCache.Result> results = new ArrayList<>();
+
+        CompletableFuture<Map<String, Object>> first = shellPluginService.dispatchPluginAsync(
+                shellId, "file-manager", Map.of("op", "list", "path", "/"), results::add);
+        CompletableFuture<Map<String, Object>> second = shellPluginService.dispatchPluginAsync(
+                shellId, "file-manager", Map.of("op", "list", "path", "/"), results::add);
+        shellCall.complete(Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, Map.of("files", List.of())));
+
+        assertEquals(first.get(), second.get());
+        assertEquals(2, results.size());
+        assertEquals(1, results.stream().filter(ShellPluginResultCache.Result::hit).count());
+        verify(connection, times(1)).runPluginAsync(eq("file-manager"), any());
+    }
+
+    private ShellPluginDispatchRequest dispatchRequest(String pluginId, Map<String, Object> args) {
+        ShellPluginDispatchRequest request = new ShellPluginDispatchRequest();
+        request.setPluginId(pluginId);
+        request.setArgs(args);
+        return request;
+    }
+
     private Shell shell(Long id) {
         Shell shell = new Shell();
         shell.setId(id);
@@ -402,4 +817,16 @@ class ShellPluginServiceTest {
         }
         return plugin;
     }
+
+    /**
+     * A connection mock whose single-flight plugin load runs the load it is given.
+     */
+    private ShellConnection mockConnection() {
+        ShellConnection connection = mock(ShellConnection.class);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(2).run();
+            return null;
+        }).when(connection).loadPluginOnce(anyString(), any(), any());
+        return connection;
+    }
 }
@@ -0,0 +1,231 @@
+package com.reajason.noone.server.shell;
+
+import com.reajason.noone.core.Constants;
+import com.reajason.noone.core.ShellConnection;
+import com.reajason.noone.server.plugin.BuiltinPluginRegistryService;
+import com.reajason.noone.server.plugin.JavaPluginPayloadService;
+import com.reajason.noone.server.plugin.PluginCatalog;
+import com.reajason.noone.server.plugin.PluginPayloadCache;
+import com.reajason.noone.server.plugin.PluginRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs many slow shell calls through the real transaction proxies and checks that none of them holds a database
+ * connection while waiting on the shell.
+ */
+class ShellRemoteCallConnectionUsageTest {
+
+    private static final int SLOW_SHELLS = 20;
+
+    private AnnotationConfigApplicationContext context;
+    private CountingDataSource dataSource;
+    private ShellLookupHelper shellLookupHelper;
+    private ShellConnectionPool shellConnectionPool;
+    private ShellRepository shellRepository;
+    private BuiltinPluginRegistryService builtinPluginRegistryService;
+    private CountDownLatch entered;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void setUp() {
+        shellLookupHelper = mock(ShellLookupHelper.class);
+        shellConnectionPool = mock(ShellConnectionPool.class);
+        shellRepository = mock(ShellRepository.class);
+        builtinPluginRegistryService = mock(BuiltinPluginRegistryService.class);
+
+        // mocks are registered as finished singletons so the @Resource fields they inherit are left alone
+        context = new AnnotationConfigApplicationContext();
+        ConfigurableListableBeanFactory beanFactory = context.getBeanFactory();
+        beanFactory.registerSingleton("shellRepository", shellRepository);
+        beanFactory.registerSingleton("shellLookupHelper", shellLookupHelper);
+        beanFactory.registerSingleton("shellConnectionPool", shellConnectionPool);
+        beanFactory.registerSingleton("builtinPluginRegistryService", builtinPluginRegistryService);
+        beanFactory.registerSingleton("shellCoreInitHelper", mock(ShellCoreInitHelper.class));
+        beanFactory.registerSingleton("shellMapper", mock(ShellMapper.class));
+        beanFactory.registerSingleton("javaPluginPayloadService", mock(JavaPluginPayloadService.class));
+        beanFactory.registerSingleton("pluginRepository", mock(PluginRepository.class));
+        beanFactory.registerSingleton("pluginCatalog", mock(PluginCatalog.class));
+        context.register(Config.class);
+        context.refresh();
+        dataSource = context.getBean(CountingDataSource.class);
+        entered = new CountDownLatch(SLOW_SHELLS);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        context.close();
+    }
+
+    @Test
+    void pingShouldNotHoldConnectionsWhileShellsAreSlow() throws Exception {
+        ShellService shellService = context.getBean(ShellService.class);
+        for (long id = 1; id <= SLOW_SHELLS; id++) {
+            ShellConnection connection = slowShell(id);
+            when(connection.checkStatus()).thenAnswer(invocation -> awaitRelease(true));
+        }
+
+        List<Map<String, Object>> results = runConcurrently(shellService::ping);
+
+        results.forEach(result -> assertEquals(true, result.get("connected")));
+    }
+
+    @Test
+    void dispatchShouldNotHoldConnectionsWhileShellsAreSlow() throws Exception {
+        ShellPluginService shellPluginService = context.getBean(ShellPluginService.class);
+        when(builtinPluginRegistryService.findOrRegister(anyString(), anyString())).thenReturn(Optional.empty());
+        for (long id = 1; id <= SLOW_SHELLS; id++) {
+            ShellConnection connection = slowShell(id);
+            when(connection.isPluginCacheInitialized()).thenReturn(true);
+            when(connection.runPlugin(eq("command-execute"), any())).thenAnswer(invocation ->
+                    awaitRelease(Map.of(Constants.CODE, Constants.SUCCESS, Constants.DATA, Map.of())));
+        }
+
+        List<Map<String, Object>> results = runConcurrently(id ->
+                shellPluginService.dispatchPlugin(id, "command-execute", Map.of("cmd", "id")));
+
+        results.forEach(result -> assertEquals(Constants.SUCCESS, result.get(Constants.CODE)));
+    }
+
+    private <T> List<T> runConcurrently(Function<Long, T> call) throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<T>> futures = new ArrayList<>();
+            for (long id = 1; id <= SLOW_SHELLS; id++) {
+                long shellId = id;
+                futures.add(executor.submit(() -> call.apply(shellId)));
+            }
+
+            assertTrue(entered.await(10, TimeUnit.SECONDS), "all shells should be waiting on the remote call");
+            assertEquals(0, dataSource.active.get(), "no connection may be held during remote calls");
+            assertEquals(0, dataSource.peak.get(), "reads before the remote call must not leave connections open");
+
+            release.countDown();
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get(10, TimeUnit.SECONDS));
+            }
+
+            assertEquals(0, dataSource.active.get());
+            // one short write transaction per shell to record the outcome
+            assertEquals(SLOW_SHELLS, dataSource.acquired.get());
+            return results;
+        }
+    }
+
+    private ShellConnection slowShell(long id) {
+        Shell shell = new Shell();
+        shell.setId(id);
+        shell.setLanguage(ShellLanguage.JAVA);
+        shell.setStaging(false);
+        shell.setStatus(ShellStatus.DISCONNECTED);
+        ShellConnection connection = mock(ShellConnection.class);
+        when(shellLookupHelper.requireById(id)).thenReturn(shell);
+        when(shellConnectionPool.getOrCreateCached(shell)).thenReturn(connection);
+        when(shellRepository.findById(id)).thenReturn(Optional.of(shell));
+        return connection;
+    }
+
+    private <T> T awaitRelease(T value) throws InterruptedException {
+        entered.countDown();
+        assertTrue(release.await(10, TimeUnit.SECONDS));
+        return value;
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class Config {
+
+        @Bean
+        CountingDataSource dataSource() {
+            return new CountingDataSource();
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        ShellService shellService() {
+            return new ShellService();
+        }
+
+        @Bean
+        ShellPluginService shellPluginService() {
+            return new ShellPluginService();
+        }
+
+        @Bean
+        ShellPluginResultCache shellPluginResultCache() {
+            return new ShellPluginResultCache();
+        }
+
+        @Bean
+        ShellStatusUpdater shellStatusUpdater() {
+            return new ShellStatusUpdater();
+        }
+
+        @Bean
+        ShellResponseHelper shellResponseHelper() {
+            return new ShellResponseHelper();
+        }
+
+        @Bean
+        ShellPluginPayloadResolver shellPluginPayloadResolver() {
+            return new ShellPluginPayloadResolver();
+        }
+
+        @Bean
+        PluginPayloadCache pluginPayloadCache() {
+            return new PluginPayloadCache();
+        }
+    }
+
+    /**
+     * Hands out mock connections and tracks how many are checked out, like a pool would.
+     */
+    static class CountingDataSource extends org.springframework.jdbc.datasource.AbstractDataSource {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger peak = new AtomicInteger();
+        final AtomicInteger acquired = new AtomicInteger();
+
+        @Override
+        public Connection getConnection() throws java.sql.SQLException {
+            acquired.incrementAndGet();
+            peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Connection connection = mock(Connection.class);
+            when(connection.getAutoCommit()).thenReturn(true);
+            doAnswer(invocation -> active.decrementAndGet()).when(connection).close();
+            return connection;
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws java.sql.SQLException {
+            return getConnection();
+        }
+    }
+}
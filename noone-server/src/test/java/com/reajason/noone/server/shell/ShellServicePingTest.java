@@ -9,8 +9,6 @@ import org.springframework.test.util.ReflectionTestUtils;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNotNull;
-import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -21,6 +19,7 @@ class ShellServicePingTest {
     private ShellConnectionPool shellConnectionPool;
     private ShellLookupHelper shellLookupHelper;
     private ShellCoreInitHelper shellCoreInitHelper;
+    private ShellStatusUpdater shellStatusUpdater;
 
     @BeforeEach
     void setUp() {
@@ -29,12 +28,14 @@ class ShellServicePingTest {
         shellConnectionPool = mock(ShellConnectionPool.class);
         shellLookupHelper = mock(ShellLookupHelper.class);
         shellCoreInitHelper = mock(ShellCoreInitHelper.class);
+        shellStatusUpdater = mock(ShellStatusUpdater.class);
 
         ReflectionTestUtils.setField(shellService, "shellRepository", shellRepository);
         ReflectionTestUtils.setField(shellService, "shellConnectionPool", shellConnectionPool);
         ReflectionTestUtils.setField(shellService, "shellResponseHelper", new ShellResponseHelper());
         ReflectionTestUtils.setField(shellService, "shellLookupHelper", shellLookupHelper);
         ReflectionTestUtils.setField(shellService, "shellCoreInitHelper", shellCoreInitHelper);
+        ReflectionTestUtils.setField(shellService, "shellStatusUpdater", shellStatusUpdater);
 
         when(shellRepository.save(any(Shell.class))).thenAnswer(invocation -> invocation.getArgument(0));
     }
@@ -71,7 +72,7 @@ class ShellServicePingTest {
         assertEquals(false, result.get("recoveryAttempted"));
         assertEquals(false, result.get("recovered"));
         assertEquals("CONNECTED", result.get("status"));
-        assertTrue(shell.getLastOnlineAt() != null);
+        verify(shellStatusUpdater).markConnected(shellId);
         verify(shellCoreInitHelper, never()).initCoreIfNeeded(any(), anyLong());
         verify(connection, times(1)).checkStatus();
     }
@@ -94,7 +95,7 @@ class ShellServicePingTest {
         assertEquals(true, result.get("recoveryAttempted"));
         assertEquals(true, result.get("recovered"));
         assertEquals("CONNECTED", result.get("status"));
-        assertNotNull(shell.getLastOnlineAt());
+        verify(shellStatusUpdater).markConnected(shellId);
         verify(shellCoreInitHelper).initCoreIfNeeded(connection, shellId);
         verify(connection, times(2)).checkStatus();
     }
@@ -116,7 +117,7 @@ class ShellServicePingTest {
         assertEquals(false, result.get("recoveryAttempted"));
         assertEquals(false, result.get("recovered"));
         assertEquals("ERROR", result.get("status"));
-        assertEquals(ShellStatus.ERROR, shell.getStatus());
+        verify(shellStatusUpdater).markError(shellId);
         verify(shellCoreInitHelper, never()).initCoreIfNeeded(any(), anyLong());
         verify(connection, times(1)).checkStatus();
     }
@@ -0,0 +1,119 @@
+package com.reajason.noone.server.shell.health;
+
+import com.reajason.noone.core.ShellConnection;
+import com.reajason.noone.server.shell.*;
+import com.reajason.noone.server.shell.health.dto.ShellHealthCheckSummary;
+import com.reajason.noone.server.shell.health.dto.ShellHealthResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ShellHealthCheckServiceTest {
+
+    private ShellHealthCheckService service;
+    private ShellConnectionPool shellConnectionPool;
+    private ShellStatusUpdater shellStatusUpdater;
+    private ShellHealthCheckProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        service = new ShellHealthCheckService();
+        shellConnectionPool = mock(ShellConnectionPool.class);
+        shellStatusUpdater = mock(ShellStatusUpdater.class);
+        properties = new ShellHealthCheckProperties();
+
+        ReflectionTestUtils.setField(service, "shellRepository", mock(ShellRepository.class));
+        ReflectionTestUtils.setField(service, "shellConnectionPool", shellConnectionPool);
+        ReflectionTestUtils.setField(service, "shellStatusUpdater", shellStatusUpdater);
+        ReflectionTestUtils.setField(service, "shellResponseHelper", new ShellResponseHelper());
+        ReflectionTestUtils.setField(service, "properties", properties);
+    }
+
+    @Test
+    void shouldReportEveryShellAndWriteStatusesInOneBatch() throws Exception {
+        ShellConnection online = mock(ShellConnection.class);
+        when(online.checkStatus()).thenReturn(true);
+        ShellConnection offline = mock(ShellConnection.class);
+        when(offline.checkStatus()).thenThrow(new IllegalStateException("refused"));
+        List<Shell> shells = List.of(shell(1L, 1L, null), shell(2L, 1L, null), shell(3L, 2L, null));
+        when(shellConnectionPool.getOrCreateCached(any())).thenAnswer(invocation ->
+                ((Shell) invocation.getArgument(0)).getId() == 3L ? offline : online);
+
+        List<ShellHealthResult> results = new CopyOnWriteArrayList<>();
+        ShellHealthCheckSummary summary = service.run(shells, results::add);
+
+        assertEquals(3, results.size());
+        assertEquals(new ShellHealthCheckSummary(3, 2, 1, 0, summary.durationMs()), summary);
+        assertEquals("refused", results.stream().filter(r -> r.shellId() == 3L).findFirst().orElseThrow().error());
+        verify(shellStatusUpdater, times(1)).applyBatch(
+                argThat(ids -> Set.copyOf(ids).equals(Set.of(1L, 2L))), eq(List.of(3L)), any());
+    }
+
+    @Test
+    void shouldLimitConcurrencyPerProxy() throws Exception {
+        properties.setPerProxyConcurrency(2);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ShellConnection connection = mock(ShellConnection.class);
+        when(connection.checkStatus()).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(20);
+            inFlight.decrementAndGet();
+            return true;
+        });
+        when(shellConnectionPool.getOrCreateCached(any())).thenReturn(connection);
+        List<Shell> shells = new ArrayList<>();
+        for (long id = 1; id <= 10; id++) {
+            shells.add(shell(id, id, "socks://127.0.0.1:1080"));
+        }
+
+        ShellHealthCheckSummary summary = service.run(shells, result -> {
+        });
+
+        assertEquals(10, summary.connected());
+        assertTrue(maxInFlight.get() <= 2, "max in flight " + maxInFlight.get());
+    }
+
+    @Test
+    void shouldTimeOutPendingShellsAtDeadlineWithoutTouchingTheirStatus() throws Exception {
+        properties.setDeadline(Duration.ofMillis(200));
+        CountDownLatch never = new CountDownLatch(1);
+        ShellConnection hanging = mock(ShellConnection.class);
+        when(hanging.checkStatus()).thenAnswer(invocation -> {
+            never.await();
+            return true;
+        });
+        ShellConnection online = mock(ShellConnection.class);
+        when(online.checkStatus()).thenReturn(true);
+        when(shellConnectionPool.getOrCreateCached(any())).thenAnswer(invocation ->
+                ((Shell) invocation.getArgument(0)).getId() == 1L ? hanging : online);
+
+        List<ShellHealthResult> results = new CopyOnWriteArrayList<>();
+        ShellHealthCheckSummary summary = service.run(List.of(shell(1L, null, null), shell(2L, null, null)), results::add);
+
+        assertEquals(1, summary.connected());
+        assertEquals(1, summary.timeout());
+        assertEquals(ShellHealthState.TIMEOUT,
+                results.stream().filter(r -> r.shellId() == 1L).findFirst().orElseThrow().state());
+        verify(shellStatusUpdater).applyBatch(eq(List.of(2L)), eq(List.of()), any());
+    }
+
+    private static Shell shell(Long id, Long projectId, String proxyUrl) {
+        Shell shell = new Shell();
+        shell.setId(id);
+        shell.setName("shell-" + id);
+        shell.setProjectId(projectId);
+        shell.setProxyUrl(proxyUrl);
+        return shell;
+    }
+}
@@ -0,0 +1,112 @@
+package com.reajason.noone.server.shell.oplog;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpLogPayloadCapturerTest {
+
+    private OpLogCaptureProperties properties;
+    private OpLogPayloadCapturer capturer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new OpLogCaptureProperties();
+        capturer = new OpLogPayloadCapturer(properties);
+    }
+
+    @Test
+    void shouldKeepSmallResultWithoutCopying() {
+        Map<String, Object> result = Map.of("code", 0, "data", List.of("a", "b"));
+
+        assertSame(result, capturer.captureResult("system-info", null, result));
+    }
+
+    @Test
+    void shouldFallBackToPreviewWhenOverSizeLimit() {
+        properties.setMaxSize(1024);
+        properties.setPreviewChars(100);
+        properties.setPreviewItems(10);
+        List<String> lines = IntStream.range(0, 1000).mapToObj(i -> "line-" + i).toList();
+        Map<String, Object> result = Map.of("code", 0, "output", "x".repeat(5000), "lines", lines);
+
+        Map<String, Object> captured = capturer.captureResult("command-execute", null, result);
+
+        assertEquals("PREVIEW", captured.get("_capture"));
+        assertEquals(0, captured.get("code"));
+        String output = (String) captured.get("output");
+        assertTrue(output.startsWith("x".repeat(50)) && output.endsWith("x".repeat(50)));
+        assertTrue(output.contains("4900 chars omitted"));
+        List<?> previewLines = (List<?>) captured.get("lines");
+        assertEquals(11, previewLines.size());
+        assertEquals("line-0", previewLines.getFirst());
+        assertEquals("line-999", previewLines.getLast());
+    }
+
+    @Test
+    void shouldDigestFileDownloadsByDefault() {
+        byte[] content = "hello".getBytes(StandardCharsets.UTF_8);
+        Map<String, Object> result = Map.of("code", 0, "data", content);
+
+        Map<String, Object> captured = capturer.captureResult("file-manager", "download", result);
+
+        assertEquals("DIGEST", captured.get("_capture"));
+        assertEquals(0, captured.get("code"));
+        assertEquals(64, ((String) captured.get("sha256")).length());
+        assertFalse(captured.containsKey("data"));
+        assertEquals(captured.get("sha256"), capturer.captureResult("file-manager", "download", Map.of("code", 0, "data", content.clone())).get("sha256"));
+    }
+
+    @Test
+    void shouldPreferActionRuleOverPluginRule() {
+        properties.setRules(Map.of("file-manager", OpLogCaptureMode.PREVIEW, "file-manager:list", OpLogCaptureMode.FULL));
+
+        assertEquals(OpLogCaptureMode.FULL, capturer.modeFor("file-manager", "list"));
+        assertEquals(OpLogCaptureMode.PREVIEW, capturer.modeFor("file-manager", "read"));
+        assertEquals(OpLogCaptureMode.FULL, capturer.modeFor("system-info", null));
+    }
+
+    @Test
+    void shouldReplaceNestedBinaryInArgsAndNeverDigestThem() {
+        Map<String, Object> args = new LinkedHashMap<>();
+        args.put("path", "/tmp/a");
+        args.put("chunks", List.of(new byte[10], "tail"));
+
+        Map<String, Object> captured = capturer.captureArgs("file-manager", "download", args);
+
+        assertEquals("/tmp/a", captured.get("path"));
+        assertEquals(List.of(Map.of("_bytes", 10), "tail"), captured.get("chunks"));
+    }
+
+    @Test
+    void shouldEstimateJsonSizeLikeJackson() {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("text", "héllo \"世界\" 😀\n");
+        value.put("n", 12345);
+        value.put("d", 3.5);
+        value.put("b", true);
+        value.put("nil", null);
+        value.put("list", List.of(1, "two", List.of()));
+        value.put("bytes", new byte[]{1, 2, 3, 4});
+        value.put("mode", OpLogCaptureMode.FULL);
+
+        long expected = JsonMapper.builder().build().writeValueAsBytes(value).length;
+
+        assertEquals(expected, JsonSizeEstimator.estimate(value, Long.MAX_VALUE));
+    }
+
+    @Test
+    void shouldStopEstimatingOnceOverLimit() {
+        List<String> huge = Collections.nCopies(1_000_000, "x".repeat(100));
+
+        long estimate = JsonSizeEstimator.estimate(Map.of("items", huge), 10_000);
+
+        assertTrue(estimate > 10_000 && estimate < 20_000, "estimate " + estimate);
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,7 +35,7 @@ class ShellOpLogAspectTest {
 
     @BeforeEach
     void setUp() {
-        aspect = new ShellOpLogAspect(eventPublisher);
+        aspect = new ShellOpLogAspect(eventPublisher, new OpLogPayloadCapturer(new OpLogCaptureProperties()));
         SecurityContextHolder.getContext().setAuthentication(
                 new TestingAuthenticationToken("admin", null));
     }
@@ -97,8 +98,65 @@ class ShellOpLogAspectTest {
         assertEquals("connection refused", event.errorMessage());
     }
 
+    @Test
+    void shouldNotCaptureBinaryNestedInDispatchArgs() throws Throwable {
+        ShellOpLog annotation = mock(ShellOpLog.class);
+        when(annotation.operation()).thenReturn(ShellOperationType.DISPATCH);
+        when(annotation.shellId()).thenReturn("#shellId");
+        when(annotation.pluginId()).thenReturn("#pluginId");
+        when(annotation.action()).thenReturn("");
+
+        Map<String, Object> args = Map.of("op", "upload", "path", "/tmp/a.bin", "bytes", new byte[4096]);
+        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{1L, "file-manager", args});
+        when(joinPoint.proceed()).thenReturn(Map.of("code", 0));
+
+        Method method = SampleService.class.getMethod("uploadMethod", Long.class, String.class, Map.class);
+        when(methodSignature.getMethod()).thenReturn(method);
+        when(methodSignature.getParameterTypes()).thenReturn(new Class[]{Long.class, String.class, Map.class});
+
+        aspect.around(joinPoint, annotation);
+
+        ArgumentCaptor<ShellOperationLogEvent> captor = ArgumentCaptor.forClass(ShellOperationLogEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        @SuppressWarnings("unchecked")
+        Map<String, Object> capturedArgs = (Map<String, Object>) captor.getValue().args().get("args");
+        assertEquals("/tmp/a.bin", capturedArgs.get("path"));
+        assertEquals(Map.of("_bytes", 4096), capturedArgs.get("bytes"));
+    }
+
+    @Test
+    void shouldPublishWhenReturnedFutureCompletes() throws Throwable {
+        ShellOpLog annotation = mock(ShellOpLog.class);
+        when(annotation.operation()).thenReturn(ShellOperationType.DISPATCH);
+        when(annotation.shellId()).thenReturn("#shellId");
+        when(annotation.pluginId()).thenReturn("#pluginId");
+        when(annotation.action()).thenReturn("");
+
+        CompletableFuture<Map<String, Object>> response = new CompletableFuture<>();
+        when(joinPoint.getSignature()).thenReturn(methodSignature);
+        when(joinPoint.getArgs()).thenReturn(new Object[]{1L, "system-info"});
+        when(joinPoint.proceed()).thenReturn(response);
+
+        Method method = SampleService.class.getMethod("dispatchAsyncMethod", Long.class, String.class);
+        when(methodSignature.getMethod()).thenReturn(method);
+        when(methodSignature.getParameterTypes()).thenReturn(new Class[]{Long.class, String.class});
+
+        assertSame(response, aspect.around(joinPoint, annotation));
+        verify(eventPublisher, never()).publishEvent(any());
+
+        response.complete(Map.of("code", 0));
+
+        ArgumentCaptor<ShellOperationLogEvent> captor = ArgumentCaptor.forClass(ShellOperationLogEvent.class);
+        verify(eventPublisher).publishEvent(captor.capture());
+        assertTrue(captor.getValue().success());
+        assertEquals(Map.of("code", 0), captor.getValue().result());
+    }
+
     public static class SampleService {
         public boolean testMethod(Long id) { return true; }
         public Map<String, Object> dispatchMethod(Long shellId, String pluginId) { return Map.of(); }
+        public CompletableFuture<Map<String, Object>> dispatchAsyncMethod(Long shellId, String pluginId) { return null; }
+        public Map<String, Object> uploadMethod(Long shellId, String pluginId, Map<String, Object> args) { return Map.of(); }
     }
 }
@@ -6,12 +6,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import tools.jackson.databind.ObjectMapper;
 
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,11 +25,11 @@ class ShellOperationLogServiceRecordEventTest {
     private ShellOperationLogMapper mapper;
 
     @Mock
-    private ObjectMapper objectMapper;
+    private ShellOperationLogWriter writer;
 
     @Test
-    void shouldPersistOperationLogFromEvent() throws Exception {
-        when(objectMapper.writeValueAsString(any())).thenReturn("{\"code\":1}");
+    void shouldQueueOperationLogFromEvent() {
+        when(writer.submit(any())).thenReturn(true);
 
         ShellOperationLogEvent event = new ShellOperationLogEvent(
                 1L, "testuser", ShellOperationType.DISPATCH,
@@ -42,7 +40,8 @@ class ShellOperationLogServiceRecordEventTest {
         service.record(event);
 
         ArgumentCaptor<ShellOperationLog> captor = ArgumentCaptor.forClass(ShellOperationLog.class);
-        verify(repository).save(captor.capture());
+        verify(writer).submit(captor.capture());
+        verifyNoInteractions(repository);
 
         ShellOperationLog saved = captor.getValue();
         assertEquals(1L, saved.getShellId());
@@ -52,5 +51,7 @@ class ShellOperationLogServiceRecordEventTest {
         assertEquals("list", saved.getAction());
         assertTrue(saved.isSuccess());
         assertEquals(42L, saved.getDurationMs());
+        assertEquals(Map.of("code", 1), saved.getResult());
+        assertNotNull(saved.getCreatedAt());
     }
 }
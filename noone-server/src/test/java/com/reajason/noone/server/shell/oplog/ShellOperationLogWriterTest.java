@@ -0,0 +1,66 @@
+package com.reajason.noone.server.shell.oplog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ShellOperationLogWriterTest {
+
+    @InjectMocks
+    private ShellOperationLogWriter writer;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Spy
+    private ObjectMapper objectMapper = JsonMapper.builder().build();
+
+    @Test
+    void shouldInsertBatchWithJsonColumns() {
+        writer.insertBatch(List.of(opLog(Map.of("code", 0)), opLog(null)));
+
+        List<Object[]> rows = captureRows();
+        assertEquals(2, rows.size());
+        assertEquals("DISPATCH", rows.getFirst()[2]);
+        assertEquals("{\"path\":\"/\"}", rows.getFirst()[5]);
+        assertEquals("{\"code\":0}", rows.getFirst()[6]);
+        assertNull(rows.get(1)[6]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> captureRows() {
+        ArgumentCaptor<List<Object[]>> captor = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), captor.capture());
+        return captor.getValue();
+    }
+
+    private static ShellOperationLog opLog(Map<String, Object> result) {
+        ShellOperationLog opLog = new ShellOperationLog();
+        opLog.setShellId(1L);
+        opLog.setUsername("admin");
+        opLog.setOperation(ShellOperationType.DISPATCH);
+        opLog.setPluginId("command-execute");
+        opLog.setArgs(Map.of("path", "/"));
+        opLog.setResult(result);
+        opLog.setSuccess(true);
+        opLog.setDurationMs(3L);
+        opLog.setCreatedAt(LocalDateTime.now());
+        return opLog;
+    }
+}
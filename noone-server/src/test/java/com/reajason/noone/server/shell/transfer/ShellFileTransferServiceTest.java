@@ -0,0 +1,233 @@
+package com.reajason.noone.server.shell.transfer;
+
+import com.reajason.noone.core.Constants;
+import com.reajason.noone.core.ShellConnection;
+import com.reajason.noone.server.shell.ShellPluginResultCache;
+import com.reajason.noone.server.shell.ShellPluginService;
+import com.reajason.noone.server.shell.ShellResponseHelper;
+import com.reajason.noone.server.shell.transfer.dto.ShellFileUploadResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ShellFileTransferServiceTest {
+
+    private static final long SHELL_ID = 1L;
+    private static final String PATH = "/tmp/data.bin";
+
+    private ShellFileTransferService service;
+    private ShellFileTransferProperties properties;
+    private ShellConnection connection;
+    private ShellPluginResultCache shellPluginResultCache;
+    private final RemoteFile remote = new RemoteFile();
+
+    @BeforeEach
+    void setUp() {
+        properties = new ShellFileTransferProperties();
+        properties.setChunkSize(10);
+        properties.setMaxChunksInFlight(3);
+        ShellPluginService shellPluginService = mock(ShellPluginService.class);
+        connection = mock(ShellConnection.class);
+        shellPluginResultCache = mock(ShellPluginResultCache.class);
+        when(shellPluginService.connectWithPlugin(SHELL_ID, ShellFileTransferService.PLUGIN_ID)).thenReturn(connection);
+        when(connection.runPluginRaw(eq(ShellFileTransferService.PLUGIN_ID), anyMap()))
+                .thenAnswer(invocation -> remote.handle(invocation.getArgument(1)));
+
+        service = new ShellFileTransferService();
+        ReflectionTestUtils.setField(service, "shellPluginService", shellPluginService);
+        ReflectionTestUtils.setField(service, "shellResponseHelper", new ShellResponseHelper());
+        ReflectionTestUtils.setField(service, "properties", properties);
+        ReflectionTestUtils.setField(service, "shellPluginResultCache", shellPluginResultCache);
+    }
+
+    @Test
+    void shouldStreamWholeFileInOrderWithBoundedChunksInFlight() throws Exception {
+        remote.content = bytes(95);
+        remote.readDelayMillis = 5;
+
+        ShellFileTransferService.Download download = service.openDownload(SHELL_ID, PATH, 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        download.transferTo(out);
+
+        assertEquals(95, download.fileSize());
+        assertEquals(95, download.contentLength());
+        assertArrayEquals(remote.content, out.toByteArray());
+        assertEquals(10, remote.reads.get());
+        assertTrue(remote.maxConcurrentReads.get() <= properties.getMaxChunksInFlight(),
+                "reads in flight: " + remote.maxConcurrentReads.get());
+    }
+
+    @Test
+    void shouldResumeDownloadFromOffset() throws Exception {
+        remote.content = bytes(25);
+
+        ShellFileTransferService.Download download = service.openDownload(SHELL_ID, PATH, 12);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        download.transferTo(out);
+
+        assertEquals(12, download.offset());
+        assertEquals(13, download.contentLength());
+        assertArrayEquals(Arrays.copyOfRange(remote.content, 12, 25), out.toByteArray());
+    }
+
+    @Test
+    void shouldStreamEmptyFile() throws Exception {
+        remote.content = new byte[0];
+
+        ShellFileTransferService.Download download = service.openDownload(SHELL_ID, PATH, 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        download.transferTo(out);
+
+        assertEquals(0, download.contentLength());
+        assertEquals(0, out.size());
+        assertEquals(1, remote.reads.get());
+    }
+
+    @Test
+    void shouldFailDownloadWhenFileShrinks() {
+        remote.content = bytes(40);
+        ShellFileTransferService.Download download = service.openDownload(SHELL_ID, PATH, 0);
+        remote.content = bytes(15);
+
+        assertThrows(IllegalStateException.class, () -> download.transferTo(new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void shouldRejectOffsetPastEndBeforeStreaming() {
+        remote.content = bytes(5);
+
+        assertThrows(IllegalArgumentException.class, () -> service.openDownload(SHELL_ID, PATH, 6));
+    }
+
+    @Test
+    void shouldUploadInOrderAndTruncateOnlyFirstChunk() throws Exception {
+        remote.content = bytes(50);
+        byte[] upload = bytes(33);
+
+        ShellFileUploadResponse response = service.upload(SHELL_ID, PATH, 0, new ByteArrayInputStream(upload));
+
+        assertArrayEquals(upload, remote.content);
+        assertEquals(new ShellFileUploadResponse(PATH, 0, 33, 33), response);
+        assertEquals(List.of(0L, 10L, 20L, 30L), remote.writeOffsets);
+        assertEquals(List.of(true, false, false, false), remote.writeTruncates);
+        verify(shellPluginResultCache).invalidate(SHELL_ID);
+    }
+
+    @Test
+    void shouldResumeUploadFromOffset() throws Exception {
+        remote.content = bytes(20);
+        byte[] rest = bytes(15);
+
+        ShellFileUploadResponse response = service.upload(SHELL_ID, PATH, 20, new ByteArrayInputStream(rest));
+
+        assertEquals(35, remote.content.length);
+        assertArrayEquals(rest, Arrays.copyOfRange(remote.content, 20, 35));
+        assertEquals(new ShellFileUploadResponse(PATH, 20, 15, 35), response);
+        assertFalse(remote.writeTruncates.contains(true));
+    }
+
+    @Test
+    void shouldCreateEmptyFileForEmptyUpload() throws Exception {
+        remote.content = bytes(8);
+
+        ShellFileUploadResponse response = service.upload(SHELL_ID, PATH, 0, new ByteArrayInputStream(new byte[0]));
+
+        assertEquals(0, remote.content.length);
+        assertEquals(0, response.written());
+        assertEquals(List.of(true), remote.writeTruncates);
+    }
+
+    @Test
+    void shouldStopUploadAtMaxUploadSize() {
+        properties.setMaxUploadSize(DataSize.ofBytes(25));
+
+        assertThrows(MaxUploadSizeExceededException.class,
+                () -> service.upload(SHELL_ID, PATH, 0, new ByteArrayInputStream(bytes(33))));
+
+        assertEquals(20, remote.content.length);
+        verify(shellPluginResultCache).invalidate(SHELL_ID);
+    }
+
+    @Test
+    void shouldRejectBlankPath() {
+        assertThrows(IllegalArgumentException.class, () -> service.openDownload(SHELL_ID, " ", 0));
+        verifyNoInteractions(connection);
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 7 + 3);
+        }
+        return bytes;
+    }
+
+    /**
+     * Answers file-manager chunk calls the way the plugin does, against an in-memory file.
+     */
+    private static class RemoteFile {
+        volatile byte[] content = new byte[0];
+        volatile long readDelayMillis;
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger concurrentReads = new AtomicInteger();
+        final AtomicInteger maxConcurrentReads = new AtomicInteger();
+        final List<Long> writeOffsets = new ArrayList<>();
+        final List<Boolean> writeTruncates = new ArrayList<>();
+
+        Map<String, Object> handle(Map<String, Object> args) throws InterruptedException {
+            Map<String, Object> data = new HashMap<>();
+            data.put("path", PATH);
+            long offset = ((Number) args.get("offset")).longValue();
+            if ("read-chunk".equals(args.get("op"))) {
+                reads.incrementAndGet();
+                maxConcurrentReads.accumulateAndGet(concurrentReads.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(readDelayMillis);
+                    byte[] current = content;
+                    if (offset > current.length) {
+                        data.put("errorCode", "OFFSET_OUT_OF_RANGE");
+                        data.put("error", "offset exceeds file size");
+                    } else {
+                        int length = (int) Math.min(((Number) args.get("length")).longValue(), current.length - offset);
+                        data.put("bytes", Arrays.copyOfRange(current, (int) offset, (int) offset + length));
+                        data.put("fileSize", (long) current.length);
+                    }
+                } finally {
+                    concurrentReads.decrementAndGet();
+                }
+            } else {
+                synchronized (this) {
+                    boolean truncate = (Boolean) args.get("truncate");
+                    writeOffsets.add(offset);
+                    writeTruncates.add(truncate);
+                    byte[] current = truncate ? new byte[0] : content;
+                    byte[] bytes = (byte[]) args.get("bytes");
+                    byte[] next = Arrays.copyOf(current, (int) Math.max(current.length, offset + bytes.length));
+                    System.arraycopy(bytes, 0, next, (int) offset, bytes.length);
+                    content = next;
+                    data.put("fileSize", (long) next.length);
+                }
+            }
+            Map<String, Object> response = new HashMap<>();
+            response.put(Constants.CODE, Constants.SUCCESS);
+            response.put(Constants.DATA, data);
+            return response;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.reajason.noone.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchingWriterTest {
+
+    @Test
+    void shouldWriteFullBatchesWithoutWaitingForTheInterval() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        CountDownLatch written = new CountDownLatch(2);
+        BatchingWriter<Integer> writer = new BatchingWriter<>("test", 100, 3, Duration.ofSeconds(30),
+                Duration.ZERO, Duration.ofSeconds(5), batch -> {
+            batches.add(List.copyOf(batch));
+            written.countDown();
+        });
+
+        for (int i = 0; i < 6; i++) {
+            assertTrue(writer.submit(i));
+        }
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of(List.of(0, 1, 2), List.of(3, 4, 5)), batches);
+        writer.close();
+    }
+
+    @Test
+    void shouldFlushPartialBatchAfterInterval() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        BatchingWriter<String> writer = new BatchingWriter<>("test", 100, 50, Duration.ofMillis(50),
+                Duration.ZERO, Duration.ofSeconds(5), batch -> written.countDown());
+
+        writer.submit("only");
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        writer.close();
+        assertEquals(1, writer.stats().written());
+    }
+
+    @Test
+    void shouldDropAndCountWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        BatchingWriter<Integer> writer = new BatchingWriter<>("test", 2, 1, Duration.ofMillis(10),
+                Duration.ZERO, Duration.ofSeconds(5), batch -> {
+            sinkEntered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        writer.submit(0);
+        assertTrue(sinkEntered.await(5, TimeUnit.SECONDS));
+        assertTrue(writer.submit(1));
+        assertTrue(writer.submit(2));
+        assertFalse(writer.submit(3));
+
+        BatchingWriter.Stats stats = writer.stats();
+        assertEquals(1, stats.dropped());
+        assertEquals(2, stats.highWaterMark());
+        release.countDown();
+        writer.close();
+        assertEquals(3, writer.stats().written());
+    }
+
+    @Test
+    void shouldDrainQueuedItemsOnCloseAndRejectLaterOnes() {
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        BatchingWriter<Integer> writer = new BatchingWriter<>("test", 1000, 100, Duration.ofSeconds(30),
+                Duration.ZERO, Duration.ofSeconds(5), written::addAll);
+
+        for (int i = 0; i < 250; i++) {
+            writer.submit(i);
+        }
+        writer.close();
+
+        assertEquals(250, written.size());
+        assertFalse(writer.submit(999));
+        assertEquals(1, writer.stats().dropped());
+    }
+
+    @Test
+    void shouldCountFailedBatchesAndKeepRunning() throws Exception {
+        CountDownLatch second = new CountDownLatch(1);
+        BatchingWriter<Integer> writer = new BatchingWriter<>("test", 10, 1, Duration.ofMillis(10),
+                Duration.ZERO, Duration.ofSeconds(5), batch -> {
+            if (batch.getFirst() == 0) {
+                throw new IllegalStateException("db down");
+            }
+            second.countDown();
+        });
+
+        writer.submit(0);
+        writer.submit(1);
+
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+        writer.close();
+        assertEquals(1, writer.stats().failed());
+        assertEquals(1, writer.stats().written());
+    }
+}
@@ -0,0 +1,67 @@
+package com.reajason.noone.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeferredTest {
+
+    @Test
+    void shouldBuildOnceForConcurrentCallers() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Deferred<Object> deferred = new Deferred<>("test", () -> {
+            builds.incrementAndGet();
+            await(release);
+            return new Object();
+        });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            deferred.start();
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(executor.submit(deferred::get));
+            }
+            assertNull(deferred.getIfReady());
+            release.countDown();
+
+            Object first = futures.getFirst().get(10, TimeUnit.SECONDS);
+            for (Future<Object> future : futures) {
+                assertSame(first, future.get(10, TimeUnit.SECONDS));
+            }
+            assertSame(first, deferred.getIfReady());
+        }
+        assertEquals(1, builds.get());
+    }
+
+    @Test
+    void shouldBuildOnCallerWhenNotStarted() {
+        Deferred<String> deferred = new Deferred<>("test", Thread.currentThread()::getName);
+
+        assertEquals(Thread.currentThread().getName(), deferred.get());
+    }
+
+    @Test
+    void shouldRethrowBuildFailure() {
+        Deferred<Object> deferred = new Deferred<>("test", () -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertThrows(IllegalStateException.class, deferred::get);
+        assertThrows(IllegalStateException.class, deferred::get);
+        assertNull(deferred.getIfReady());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.reajason.noone.server.util;
+
+import com.reajason.noone.server.config.JwtConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtUtilTest {
+
+    private JwtConfig jwtConfig;
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtConfig = new JwtConfig();
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtConfig", jwtConfig);
+        jwtUtil.init();
+    }
+
+    @Test
+    void shouldVerifyAccessTokenOnceAndServeClaimsFromCache() {
+        String token = jwtUtil.generateAccessToken("alice", "user:read", "session-1", "token-1");
+
+        Optional<VerifiedToken> first = jwtUtil.verify(token);
+        Optional<VerifiedToken> second = jwtUtil.verify(token);
+
+        assertThat(first).isPresent();
+        assertThat(first.get().subject()).isEqualTo("alice");
+        assertThat(first.get().sessionId()).isEqualTo("session-1");
+        assertThat(first.get().tokenId()).isEqualTo("token-1");
+        assertThat(first.get().authorities()).isEqualTo("user:read");
+        assertThat(first.get().isType("access")).isTrue();
+        assertThat(second).containsSame(first.get());
+        assertThat(cachedTokens()).hasSize(1);
+    }
+
+    @Test
+    void shouldRejectTamperedPayloadEvenWhenSignatureIsCached() {
+        String token = jwtUtil.generateAccessToken("alice", "user:read", "session-1", "token-1");
+        assertThat(jwtUtil.verify(token)).isPresent();
+
+        String[] parts = token.split("\\.");
+        String forgedPayload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("{\"sub\":\"admin\",\"tokenType\":\"access\"}".getBytes());
+        String forged = parts[0] + "." + forgedPayload + "." + parts[2];
+
+        assertThat(jwtUtil.verify(forged)).isEmpty();
+    }
+
+    @Test
+    void shouldRejectExpiredToken() {
+        jwtConfig.setExpiration(Duration.ofSeconds(-1));
+        String token = jwtUtil.generateAccessToken("alice", "user:read", "session-1", "token-1");
+
+        assertThat(jwtUtil.verify(token)).isEmpty();
+        assertThat(cachedTokens()).isEmpty();
+    }
+
+    @Test
+    void shouldEvictCachedTokensOfRevokedSession() {
+        String first = jwtUtil.generateAccessToken("alice", "user:read", "session-1", "token-1");
+        String second = jwtUtil.generateAccessToken("bob", "user:read", "session-2", "token-2");
+        jwtUtil.verify(first);
+        jwtUtil.verify(second);
+
+        jwtUtil.evictSession("session-1");
+
+        assertThat(cachedTokens()).hasSize(1);
+        assertThat(cachedTokens().values()).noneMatch(cached -> cached.toString().contains("session-1"));
+    }
+
+    @Test
+    void shouldStopCachingWhenCacheIsFull() {
+        jwtConfig.setVerifiedTokenCacheSize(1);
+        String first = jwtUtil.generateAccessToken("alice", "user:read", "session-1", "token-1");
+        String second = jwtUtil.generateAccessToken("bob", "user:read", "session-2", "token-2");
+
+        assertThat(jwtUtil.verify(first)).isPresent();
+        assertThat(jwtUtil.verify(second)).isPresent();
+        assertThat(cachedTokens()).hasSize(1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> cachedTokens() {
+        return (Map<String, Object>) ReflectionTestUtils.getField(jwtUtil, "verifiedTokens");
+    }
+}
@@ -0,0 +1,71 @@
+package com.reajason.noone.core.client;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A semaphore whose waiters are futures rather than parked threads, so blocking and asynchronous requests can
+ * share one connection's turns. Permits are handed out in arrival order; a waiter that is cancelled or failed
+ * before its turn gives the permit to the next one.
+ */
+final class AsyncGate {
+
+    private final Semaphore permits;
+    private final Queue<CompletableFuture<Void>> waiters = new ConcurrentLinkedQueue<>();
+
+    AsyncGate(int permits) {
+        this.permits = new Semaphore(permits);
+    }
+
+    /**
+     * Returns a future that completes once the caller holds a permit. Cancel it to stop waiting.
+     */
+    CompletableFuture<Void> acquire() {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        waiters.add(waiter);
+        drain();
+        return waiter;
+    }
+
+    /**
+     * Waits on this thread for a permit.
+     *
+     * @return whether a permit is held; {@code false} when none came within {@code timeoutMs}
+     */
+    boolean acquire(long timeoutMs) throws InterruptedException {
+        CompletableFuture<Void> waiter = acquire();
+        try {
+            waiter.get(timeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            // a permit granted after the timeout is kept rather than lost
+            return !waiter.cancel(false);
+        } catch (InterruptedException e) {
+            if (!waiter.cancel(false)) {
+                release();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    void release() {
+        permits.release();
+        drain();
+    }
+
+    private void drain() {
+        while (!waiters.isEmpty() && permits.tryAcquire()) {
+            CompletableFuture<Void> waiter = waiters.poll();
+            if (waiter == null || !waiter.complete(null)) {
+                permits.release();
+            }
+        }
+    }
+}
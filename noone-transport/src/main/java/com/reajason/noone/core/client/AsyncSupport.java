@@ -0,0 +1,77 @@
+package com.reajason.noone.core.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Timers and cancellation hooks shared by the {@link Client#sendAsync(byte[])} implementations. One daemon thread
+ * fires every retry delay and response timeout; it only completes futures or starts calls, and never waits on a
+ * shell itself. Reconnects, which do wait on a handshake, get threads of their own.
+ */
+final class AsyncSupport {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "noone-transport-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final ExecutorService RECONNECTS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "noone-transport-reconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private AsyncSupport() {
+    }
+
+    static ScheduledFuture<?> schedule(Runnable task, long delayMs) {
+        return TIMER.schedule(task, Math.max(0, delayMs), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs a reconnect, which blocks on the handshake, off the connection's callback threads and off the common
+     * pool. A failure completes the returned future with the reconnect's own exception.
+     */
+    static CompletableFuture<Void> reconnect(Runnable task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        RECONNECTS.execute(() -> {
+            try {
+                task.run();
+                done.complete(null);
+            } catch (Throwable e) {
+                done.completeExceptionally(e);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Fails {@code future} with {@code error} unless it completes within {@code timeoutMs}.
+     */
+    static <T> CompletableFuture<T> timeout(CompletableFuture<T> future, long timeoutMs,
+                                            Supplier<? extends RuntimeException> error) {
+        if (future.isDone()) {
+            return future;
+        }
+        ScheduledFuture<?> timer = schedule(() -> future.completeExceptionally(error.get()), timeoutMs);
+        future.whenComplete((value, failure) -> timer.cancel(false));
+        return future;
+    }
+
+    /**
+     * Runs {@code action} once {@code future} has been cancelled by its caller.
+     */
+    static void onCancel(CompletableFuture<?> future, Runnable action) {
+        future.whenComplete((value, failure) -> {
+            if (future.isCancelled()) {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,5 +1,7 @@
 package com.reajason.noone.core.client;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 通信客户端抽象接口
  * 支持多种协议实现（HTTP、WebSocket、TCP 等）
@@ -30,6 +32,25 @@ public interface Client {
 
     byte[] send(byte[] payload);
 
+    /**
+     * 异步发送请求，等待响应期间不占用调用线程。取消返回的 future 会放弃该请求：已发出的请求不再等待响应，
+     * 尚未发出的请求不再发送。
+     * <p>
+     * 默认实现在调用线程上执行 {@link #send(byte[])}，返回已完成的 future。
+     *
+     * @param payload 请求数据
+     * @return 响应数据
+     */
+    default CompletableFuture<byte[]> sendAsync(byte[] payload) {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        try {
+            response.complete(send(payload));
+        } catch (RuntimeException e) {
+            response.completeExceptionally(e);
+        }
+        return response;
+    }
+
     /**
      * 获取服务器地址
      *
@@ -11,6 +11,9 @@ import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Dubbo RPC client using GenericService for protocol-agnostic invocation.
@@ -32,7 +35,13 @@ public class DubboClient implements Client {
     private volatile ReferenceConfig<GenericService> referenceConfig;
     private volatile GenericService genericService;
     private volatile boolean connected;
-    private final Object sendLock = new Object();
+    // a lock rather than a monitor: a blocking invocation must not pin a virtual thread's carrier
+    private final ReentrantLock sendLock = new ReentrantLock();
+    /**
+     * The reconnect started by a failed asynchronous invocation; later failures wait for it instead of starting
+     * their own.
+     */
+    private final AtomicReference<CompletableFuture<Void>> reconnecting = new AtomicReference<>();
 
     public DubboClient(String url, DubboClientConfig config) {
         this.url = url;
@@ -93,8 +102,11 @@ public class DubboClient implements Client {
 
     @Override
     public byte[] send(byte[] payload) {
-        synchronized (sendLock) {
+        sendLock.lock();
+        try {
             return doSend(payload, true);
+        } finally {
+            sendLock.unlock();
         }
     }
 
@@ -125,6 +137,120 @@ public class DubboClient implements Client {
         return convertResult(result);
     }
 
+    /**
+     * Invokes through {@code $invokeAsync}, so no thread waits for the shell and concurrent calls are not queued
+     * behind each other. A failed invocation reconnects once and is retried, like {@link #send(byte[])}.
+     * Cancelling the returned future cancels the invocation in flight.
+     */
+    @Override
+    public CompletableFuture<byte[]> sendAsync(byte[] payload) {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        invokeAsync(payload, response, true);
+        return response;
+    }
+
+    private void invokeAsync(byte[] payload, CompletableFuture<byte[]> response, boolean allowReconnect) {
+        if (response.isDone()) {
+            return;
+        }
+        GenericService service = null;
+        CompletableFuture<Object> invocation;
+        try {
+            service = connectedService();
+            invocation = service.$invokeAsync(
+                    config.getMethodName(),
+                    config.getParameterTypes(),
+                    new Object[]{payload}
+            );
+        } catch (Exception e) {
+            retryAsync(service, payload, response, allowReconnect, e);
+            return;
+        }
+        GenericService invoked = service;
+        AsyncSupport.onCancel(response, () -> invocation.cancel(true));
+        invocation.whenComplete((result, failure) -> {
+            if (failure != null) {
+                retryAsync(invoked, payload, response, allowReconnect, failure);
+                return;
+            }
+            try {
+                response.complete(convertResult(result));
+            } catch (RuntimeException e) {
+                response.completeExceptionally(e);
+            }
+        });
+    }
+
+    private void retryAsync(GenericService failed, byte[] payload, CompletableFuture<byte[]> response,
+                            boolean allowReconnect, Throwable failure) {
+        if (response.isDone()) {
+            return;
+        }
+        if (!allowReconnect) {
+            response.completeExceptionally(new RequestSendException(
+                    "Dubbo invocation failed after reconnect: " + failure.getMessage(), 2, failure));
+            return;
+        }
+        reconnectAsync(failed).whenComplete((ignored, reconnectFailure) -> {
+            if (reconnectFailure != null) {
+                response.completeExceptionally(reconnectFailure);
+                return;
+            }
+            invokeAsync(payload, response, false);
+        });
+    }
+
+    /**
+     * Replaces the reference {@code failed} was obtained from, once for all the invocations that failed on it.
+     */
+    private CompletableFuture<Void> reconnectAsync(GenericService failed) {
+        while (true) {
+            CompletableFuture<Void> running = reconnecting.get();
+            if (running != null) {
+                return running;
+            }
+            CompletableFuture<Void> next = new CompletableFuture<>();
+            if (!reconnecting.compareAndSet(null, next)) {
+                continue;
+            }
+            AsyncSupport.reconnect(() -> {
+                sendLock.lock();
+                try {
+                    // a blocking send may already have replaced the reference
+                    if (failed == null || genericService == failed || !connected) {
+                        reconnect();
+                    }
+                } finally {
+                    sendLock.unlock();
+                }
+            }).whenComplete((ignored, reconnectFailure) -> {
+                reconnecting.compareAndSet(next, null);
+                if (reconnectFailure != null) {
+                    next.completeExceptionally(reconnectFailure);
+                } else {
+                    next.complete(null);
+                }
+            });
+            return next;
+        }
+    }
+
+    private GenericService connectedService() {
+        GenericService service = genericService;
+        if (connected && service != null) {
+            return service;
+        }
+        sendLock.lock();
+        try {
+            if (!connected || genericService == null) {
+                connect();
+            }
+            return genericService;
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
     private String resolveInterfaceName() {
         if (config.getInterfaceName() != null && !config.getInterfaceName().isEmpty()) {
             return config.getInterfaceName();
@@ -8,6 +8,8 @@ import okhttp3.*;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * HTTP client implementation. Pure transport -- no template engine or traffic transformation.
@@ -64,6 +66,71 @@ public class HttpClient implements Client {
         return executeWithRetry(request);
     }
 
+    /**
+     * Sends through OkHttp's dispatcher, so no thread waits while the shell answers. Retries wait on a timer
+     * rather than a sleeping thread, and cancelling the returned future cancels the call in flight.
+     */
+    @Override
+    public CompletableFuture<byte[]> sendAsync(byte[] payload) {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        Request request;
+        try {
+            request = buildRequest(payload);
+        } catch (RuntimeException e) {
+            response.completeExceptionally(new ShellRequestException("Failed to build HTTP request", false, e));
+            return response;
+        }
+        AtomicReference<Call> current = new AtomicReference<>();
+        AsyncSupport.onCancel(response, () -> {
+            Call call = current.get();
+            if (call != null) {
+                call.cancel();
+            }
+        });
+        enqueue(request, response, current, 1, config.getRetryDelayMs());
+        return response;
+    }
+
+    private void enqueue(Request request, CompletableFuture<byte[]> response, AtomicReference<Call> current,
+                         int attempt, long delay) {
+        if (response.isDone()) {
+            return;
+        }
+        Call call = client.newCall(request);
+        current.set(call);
+        // a cancel that raced with the line above saw the previous call
+        if (response.isCancelled()) {
+            call.cancel();
+            return;
+        }
+        call.enqueue(new Callback() {
+            @Override
+            public void onResponse(Call call, Response httpResponse) {
+                try (Response closing = httpResponse) {
+                    response.complete(readBody(closing));
+                } catch (IOException e) {
+                    onFailure(call, e);
+                } catch (RuntimeException e) {
+                    response.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call call, IOException e) {
+                if (response.isDone()) {
+                    return;
+                }
+                if (attempt >= config.getMaxRetries() + 1) {
+                    response.completeExceptionally(new RequestSendException("HTTP request failed after " + attempt
+                            + " attempt(s), due to " + e.getMessage(), attempt, e));
+                    return;
+                }
+                long next = config.isExponentialBackoff() ? delay * 2 : delay;
+                AsyncSupport.schedule(() -> enqueue(request, response, current, attempt + 1, next), delay);
+            }
+        });
+    }
+
     private Request buildRequest(byte[] payload) {
         String method = config.getRequestMethod() != null
                 ? config.getRequestMethod().toUpperCase()
@@ -111,19 +178,7 @@ public class HttpClient implements Client {
 
         while (attempts < maxAttempts) {
             try (Response response = client.newCall(request).execute()) {
-                Integer expectedResponseStatusCode = config.getExpectedResponseStatusCode();
-                int code = response.code();
-                if (expectedResponseStatusCode != null
-                        && expectedResponseStatusCode > 0
-                        && expectedResponseStatusCode != code) {
-                    throw new ResponseStatusException(expectedResponseStatusCode, code);
-                }
-                ResponseBody body = response.body();
-                byte[] bytes = body.bytes();
-                if (bytes == null) {
-                    throw new ResponseDecodeException("HTTP response body bytes are null, status: " + code);
-                }
-                return bytes;
+                return readBody(response);
             } catch (ResponseStatusException | ResponseDecodeException e) {
                 throw e;
             } catch (IOException e) {
@@ -154,6 +209,22 @@ public class HttpClient implements Client {
         throw new RequestSendException("HTTP request failed with unknown transport error", attempts, null);
     }
 
+    private byte[] readBody(Response response) throws IOException {
+        Integer expectedResponseStatusCode = config.getExpectedResponseStatusCode();
+        int code = response.code();
+        if (expectedResponseStatusCode != null
+                && expectedResponseStatusCode > 0
+                && expectedResponseStatusCode != code) {
+            throw new ResponseStatusException(expectedResponseStatusCode, code);
+        }
+        ResponseBody body = response.body();
+        byte[] bytes = body.bytes();
+        if (bytes == null) {
+            throw new ResponseDecodeException("HTTP response body bytes are null, status: " + code);
+        }
+        return bytes;
+    }
+
     private RequestInterruptedException interruptedRequest(Throwable throwable, String message) {
         InterruptedException interruptedException = findInterruptedException(throwable);
         Thread.currentThread().interrupt();
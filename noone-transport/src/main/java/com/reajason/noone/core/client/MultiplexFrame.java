@@ -0,0 +1,94 @@
+package com.reajason.noone.core.client;
+
+import java.util.Arrays;
+
+/**
+ * Framing used by {@link WebSocketClient} when several requests share one connection.
+ * <pre>
+ * magic "NOMX" (4 bytes) | type (1 byte) | id (4 bytes, big-endian) | body
+ * </pre>
+ * The client opens with a {@link #HELLO} whose body is the window it wants; a shell that supports framing answers
+ * with a {@link #HELLO_ACK} carrying the window it accepts. Every {@link #DATA} frame carries one profile-wrapped
+ * payload and the reply reuses the request's id. The WebSocket shell template parses the same layout on its own,
+ * so changes here must be mirrored there.
+ *
+ * @author ReaJason
+ */
+final class MultiplexFrame {
+
+    static final byte[] MAGIC = {'N', 'O', 'M', 'X'};
+    static final byte HELLO = 0;
+    static final byte HELLO_ACK = 1;
+    static final byte DATA = 2;
+    static final int HEADER_LENGTH = MAGIC.length + 1 + 4;
+
+    final byte type;
+    final int id;
+    final byte[] body;
+
+    private MultiplexFrame(byte type, int id, byte[] body) {
+        this.type = type;
+        this.id = id;
+        this.body = body;
+    }
+
+    static byte[] hello(int window) {
+        return encode(HELLO, 0, intBytes(window));
+    }
+
+    static byte[] data(int id, byte[] payload) {
+        return encode(DATA, id, payload);
+    }
+
+    static byte[] encode(byte type, int id, byte[] body) {
+        byte[] frame = new byte[HEADER_LENGTH + body.length];
+        System.arraycopy(MAGIC, 0, frame, 0, MAGIC.length);
+        frame[MAGIC.length] = type;
+        writeInt(frame, MAGIC.length + 1, id);
+        System.arraycopy(body, 0, frame, HEADER_LENGTH, body.length);
+        return frame;
+    }
+
+    /**
+     * Returns the frame, or {@code null} when the message is not framed.
+     */
+    static MultiplexFrame decode(byte[] message) {
+        if (message == null || message.length < HEADER_LENGTH) {
+            return null;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (message[i] != MAGIC[i]) {
+                return null;
+            }
+        }
+        return new MultiplexFrame(message[MAGIC.length], readInt(message, MAGIC.length + 1),
+                Arrays.copyOfRange(message, HEADER_LENGTH, message.length));
+    }
+
+    /**
+     * The window carried by a {@link #HELLO} or {@link #HELLO_ACK}, or 0 when the body is malformed.
+     */
+    int window() {
+        return body.length >= 4 ? readInt(body, 0) : 0;
+    }
+
+    private static byte[] intBytes(int value) {
+        byte[] bytes = new byte[4];
+        writeInt(bytes, 0, value);
+        return bytes;
+    }
+
+    private static void writeInt(byte[] target, int offset, int value) {
+        target[offset] = (byte) (value >>> 24);
+        target[offset + 1] = (byte) (value >>> 16);
+        target[offset + 2] = (byte) (value >>> 8);
+        target[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] source, int offset) {
+        return (source[offset] & 0xFF) << 24
+                | (source[offset + 1] & 0xFF) << 16
+                | (source[offset + 2] & 0xFF) << 8
+                | (source[offset + 3] & 0xFF);
+    }
+}
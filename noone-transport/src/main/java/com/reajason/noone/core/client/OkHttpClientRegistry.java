@@ -0,0 +1,127 @@
+package com.reajason.noone.core.client;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.ToString;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide registry of {@link OkHttpClient} instances.
+ * <p>
+ * Every client is derived from one root client via {@link OkHttpClient#newBuilder()}, so all shells share
+ * the same connection pool, dispatcher threads and TLS session cache while still getting their own
+ * proxy, timeout and SSL settings. Clients are cached by those settings.
+ *
+ * @author ReaJason
+ */
+public final class OkHttpClientRegistry {
+
+    private static final OkHttpClientRegistry INSTANCE = new OkHttpClientRegistry(createRoot());
+
+    private final OkHttpClient root;
+    private final ConcurrentMap<Key, OkHttpClient> clients = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    OkHttpClientRegistry(OkHttpClient root) {
+        this.root = root;
+    }
+
+    public static OkHttpClientRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    private static OkHttpClient createRoot() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(256);
+        dispatcher.setMaxRequestsPerHost(64);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(64, 5, TimeUnit.MINUTES))
+                .build();
+    }
+
+    /**
+     * Returns a client for the given settings, deriving and caching a new one from the root client on first use.
+     */
+    public OkHttpClient obtain(ProxyConfig proxy, int connectTimeoutMs,
+                               int readTimeoutMs, int writeTimeoutMs, boolean skipSslVerify) {
+        Key key = new Key(
+                proxy != null ? proxy.getType() : null,
+                proxy != null ? proxy.getHost() : null,
+                proxy != null ? proxy.getPort() : 0,
+                proxy != null ? proxy.getUsername() : null,
+                proxy != null ? proxy.getPassword() : null,
+                connectTimeoutMs, readTimeoutMs, writeTimeoutMs, skipSslVerify);
+        OkHttpClient cached = clients.get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        return clients.computeIfAbsent(key, k -> {
+            misses.incrementAndGet();
+            return OkHttpSupport.configure(root.newBuilder(), proxy,
+                    connectTimeoutMs, readTimeoutMs, writeTimeoutMs, skipSslVerify).build();
+        });
+    }
+
+    public Stats stats() {
+        ConnectionPool pool = root.connectionPool();
+        Dispatcher dispatcher = root.dispatcher();
+        return Stats.builder()
+                .clients(clients.size())
+                .hits(hits.get())
+                .misses(misses.get())
+                .connectionCount(pool.connectionCount())
+                .idleConnectionCount(pool.idleConnectionCount())
+                .runningCalls(dispatcher.runningCallsCount())
+                .queuedCalls(dispatcher.queuedCallsCount())
+                .build();
+    }
+
+    /**
+     * Drops all cached clients and closes idle pooled connections. In-flight calls are not affected.
+     */
+    public void clear() {
+        clients.clear();
+        root.connectionPool().evictAll();
+    }
+
+    @Data
+    @Builder
+    public static class Stats {
+        private int clients;
+        private long hits;
+        private long misses;
+        private int connectionCount;
+        private int idleConnectionCount;
+        private int runningCalls;
+        private int queuedCalls;
+
+        public double getHitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0D : (double) hits / total;
+        }
+    }
+
+    @Data
+    private static final class Key {
+        private final String proxyType;
+        private final String proxyHost;
+        private final int proxyPort;
+        private final String proxyUsername;
+        @ToString.Exclude
+        private final String proxyPassword;
+        private final int connectTimeoutMs;
+        private final int readTimeoutMs;
+        private final int writeTimeoutMs;
+        private final boolean skipSslVerify;
+    }
+}
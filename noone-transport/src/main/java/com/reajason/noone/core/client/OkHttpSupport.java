@@ -5,6 +5,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.X509TrustManager;
 import java.security.cert.X509Certificate;
@@ -17,10 +18,18 @@ public final class OkHttpSupport {
     private OkHttpSupport() {
     }
 
+    /**
+     * Returns a client for the given settings from the shared {@link OkHttpClientRegistry}.
+     */
     public static OkHttpClient build(ProxyConfig proxy, int connectTimeoutMs,
                                      int readTimeoutMs, int writeTimeoutMs, boolean skipSslVerify) {
-        OkHttpClient.Builder builder = new OkHttpClient.Builder()
-                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+        return OkHttpClientRegistry.getInstance()
+                .obtain(proxy, connectTimeoutMs, readTimeoutMs, writeTimeoutMs, skipSslVerify);
+    }
+
+    static OkHttpClient.Builder configure(OkHttpClient.Builder builder, ProxyConfig proxy, int connectTimeoutMs,
+                                          int readTimeoutMs, int writeTimeoutMs, boolean skipSslVerify) {
+        builder.connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
                 .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
                 .writeTimeout(writeTimeoutMs, TimeUnit.MILLISECONDS);
 
@@ -37,36 +46,42 @@ public final class OkHttpSupport {
         }
 
         if (skipSslVerify) {
-            configureInsecureSsl(builder);
+            builder.sslSocketFactory(InsecureSsl.SOCKET_FACTORY, InsecureSsl.TRUST_MANAGER);
+            builder.hostnameVerifier((hostname, session) -> true);
         }
 
-        return builder.build();
+        return builder;
     }
 
-    private static void configureInsecureSsl(OkHttpClient.Builder builder) {
-        try {
-            TrustManager[] trustAllCerts = new TrustManager[]{
-                    new X509TrustManager() {
-                        @Override
-                        public void checkClientTrusted(X509Certificate[] chain, String authType) {
-                        }
-
-                        @Override
-                        public void checkServerTrusted(X509Certificate[] chain, String authType) {
-                        }
-
-                        @Override
-                        public X509Certificate[] getAcceptedIssuers() {
-                            return new X509Certificate[0];
-                        }
-                    }
-            };
-            SSLContext sslContext = SSLContext.getInstance("TLS");
-            sslContext.init(null, trustAllCerts, new java.security.SecureRandom());
-            builder.sslSocketFactory(sslContext.getSocketFactory(), (X509TrustManager) trustAllCerts[0]);
-            builder.hostnameVerifier((hostname, session) -> true);
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to configure insecure SSL", e);
+    /**
+     * Trust-all SSL setup, created once so that every insecure client shares the same
+     * socket factory (and therefore the same TLS session cache and pooled connections).
+     */
+    private static final class InsecureSsl {
+        private static final X509TrustManager TRUST_MANAGER = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        private static final SSLSocketFactory SOCKET_FACTORY = createSocketFactory();
+
+        private static SSLSocketFactory createSocketFactory() {
+            try {
+                SSLContext sslContext = SSLContext.getInstance("TLS");
+                sslContext.init(null, new TrustManager[]{TRUST_MANAGER}, new java.security.SecureRandom());
+                return sslContext.getSocketFactory();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to configure insecure SSL", e);
+            }
         }
     }
 
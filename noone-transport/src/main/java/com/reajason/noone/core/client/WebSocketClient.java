@@ -6,13 +6,19 @@ import lombok.Setter;
 import okhttp3.*;
 import okio.ByteString;
 
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * WebSocket client implementation. Pure transport -- no template engine or traffic transformation.
+ * <p>
+ * By default one request is on the wire at a time. With {@link WebSocketClientConfig#isMultiplex()} the client
+ * offers {@link MultiplexFrame framing} after every handshake; if the shell accepts, up to
+ * {@link WebSocketClientConfig#getMaxInFlight()} requests share the connection and each reply is matched to its
+ * request by id. Shells that do not understand the offer keep the lock-step path, and the client stops offering.
  *
  * @author ReaJason
  */
@@ -28,11 +34,10 @@ public class WebSocketClient implements Client {
     private WebSocketClientConfig config;
 
     private OkHttpClient client;
-    private volatile WebSocket webSocket;
-    private volatile boolean connected;
-    private volatile CompletableFuture<Void> connectFuture;
-    private volatile CompletableFuture<byte[]> pendingResponse;
-    private final Object sendLock = new Object();
+    private volatile Channel channel;
+    private volatile boolean multiplexRejected;
+    // a lock rather than a monitor: a request parked on the handshake must not pin a virtual thread's carrier
+    private final ReentrantLock connectLock = new ReentrantLock();
 
     public WebSocketClient(String url, WebSocketClientConfig config) {
         this.url = url;
@@ -52,62 +57,44 @@ public class WebSocketClient implements Client {
 
     @Override
     public boolean connect() {
-        if (connected && webSocket != null) {
+        connectLock.lock();
+        try {
+            Channel current = channel;
+            if (current != null && current.open) {
+                return true;
+            }
+
+            // published only once ready, so a concurrent request waits on the lock instead of taking the
+            // lock-step path while the multiplex offer is still unanswered
+            Channel next = handshake();
+            if (config.isMultiplex() && !multiplexRejected && !negotiateMultiplex(next)) {
+                next.close(new IOException("WebSocket multiplex offer was not answered"));
+                next = handshake();
+            }
+            channel = next;
             return true;
+        } finally {
+            connectLock.unlock();
         }
+    }
 
-        CompletableFuture<Void> localConnectFuture = new CompletableFuture<>();
-        connectFuture = localConnectFuture;
+    private Channel handshake() {
+        Channel next = new Channel();
         Request.Builder requestBuilder = new Request.Builder().url(url);
         OkHttpSupport.applyRequestHeaders(requestBuilder, config.getRequestHeaders());
-
-        webSocket = client.newWebSocket(requestBuilder.build(), new WebSocketListener() {
-            @Override
-            public void onOpen(WebSocket ws, Response response) {
-                connected = true;
-                localConnectFuture.complete(null);
-            }
-
-            @Override
-            public void onMessage(WebSocket ws, ByteString bytes) {
-                CompletableFuture<byte[]> pending = pendingResponse;
-                if (pending != null && !pending.isDone()) {
-                    pending.complete(bytes.toByteArray());
-                }
-            }
-
-            @Override
-            public void onClosing(WebSocket ws, int code, String reason) {
-                connected = false;
-                ws.close(code, reason);
-            }
-
-            @Override
-            public void onClosed(WebSocket ws, int code, String reason) {
-                connected = false;
-            }
-
-            @Override
-            public void onFailure(WebSocket ws, Throwable t, Response response) {
-                connected = false;
-                localConnectFuture.completeExceptionally(t);
-                CompletableFuture<byte[]> pending = pendingResponse;
-                if (pending != null && !pending.isDone()) {
-                    pending.completeExceptionally(t);
-                }
-            }
-        });
+        next.webSocket = client.newWebSocket(requestBuilder.build(), next);
 
         try {
-            connectFuture.get(config.getConnectTimeoutMs(), TimeUnit.MILLISECONDS);
-            return true;
+            next.opened.get(config.getConnectTimeoutMs(), TimeUnit.MILLISECONDS);
+            return next;
         } catch (TimeoutException e) {
-            disconnect();
+            next.close(e);
             throw new RequestSendException("WebSocket handshake timed out", 1, e);
         } catch (ExecutionException e) {
-            disconnect();
+            next.close(e.getCause());
             throw new RequestSendException("WebSocket handshake failed: " + e.getCause().getMessage(), 1, e.getCause());
         } catch (InterruptedException e) {
+            next.close(e);
             Thread.currentThread().interrupt();
             throw new RequestInterruptedException("WebSocket handshake was interrupted", e);
         }
@@ -115,53 +102,216 @@ public class WebSocketClient implements Client {
 
     @Override
     public void disconnect() {
-        connected = false;
-        WebSocket ws = webSocket;
-        webSocket = null;
-        if (ws != null) {
-            try {
-                ws.close(1000, "disconnect");
-            } catch (Exception ignored) {
+        connectLock.lock();
+        try {
+            Channel current = channel;
+            channel = null;
+            if (current != null) {
+                current.close(new IOException("WebSocket disconnected"));
             }
+        } finally {
+            connectLock.unlock();
         }
     }
 
     @Override
     public boolean isConnected() {
-        return connected;
+        Channel current = channel;
+        return current != null && current.open;
+    }
+
+    /**
+     * Whether the current connection carries several requests at once.
+     */
+    public boolean isMultiplexed() {
+        Channel current = channel;
+        return current != null && current.open && current.window != null;
     }
 
     @Override
     public byte[] send(byte[] payload) {
-        synchronized (sendLock) {
-            return doSend(payload, true);
-        }
+        return doSend(payload, true);
+    }
+
+    /**
+     * Sends without holding a thread while the shell answers: the request waits for its turn on the connection as
+     * a queued future, and the reply completes the returned future. Only connecting still blocks the caller, once
+     * per connection. Cancelling frees a multiplexed request's slot at once, while a lock-step request keeps the
+     * connection until its reply or timeout, so the late reply cannot be taken for the next request's.
+     */
+    @Override
+    public CompletableFuture<byte[]> sendAsync(byte[] payload) {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        sendAsync(payload, response, true);
+        return response;
     }
 
     private byte[] doSend(byte[] payload, boolean allowReconnect) {
-        if (!connected) {
+        Channel current = openChannel();
+        if (current.window != null) {
+            return sendMultiplexed(current, payload, allowReconnect);
+        }
+        try {
+            current.lockStep.acquire(Long.MAX_VALUE);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestInterruptedException("WebSocket send wait was interrupted", e);
+        }
+        try {
+            return sendLockStep(current, payload, allowReconnect);
+        } finally {
+            current.lockStep.release();
+        }
+    }
+
+    private Channel openChannel() {
+        Channel current = channel;
+        if (current == null || !current.open) {
             connect();
+            current = channel;
+            if (current == null) {
+                throw new RequestSendException("WebSocket was disconnected while connecting", 1, null);
+            }
         }
+        return current;
+    }
 
-        pendingResponse = new CompletableFuture<>();
-        boolean sent = webSocket.send(ByteString.of(payload));
-        if (!sent) {
-            if (allowReconnect) {
-                reconnect();
-                return doSend(payload, false);
+    private byte[] sendLockStep(Channel current, byte[] payload, boolean allowReconnect) {
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        current.pendingResponse = response;
+        if (!current.webSocket.send(ByteString.of(payload))) {
+            return retryUnsent(current, payload, allowReconnect);
+        }
+        return awaitResponse(current, response, payload, allowReconnect);
+    }
+
+    private byte[] sendMultiplexed(Channel current, byte[] payload, boolean allowReconnect) {
+        try {
+            if (!current.window.acquire(config.getReadTimeoutMs())) {
+                throw new RequestSendException("Timed out waiting for a free WebSocket request slot", 1, null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestInterruptedException("WebSocket request slot wait was interrupted", e);
+        }
+
+        int id = current.nextId.incrementAndGet();
+        CompletableFuture<byte[]> response = new CompletableFuture<>();
+        current.inFlight.put(id, response);
+        try {
+            if (!current.open || !current.webSocket.send(ByteString.of(MultiplexFrame.data(id, payload)))) {
+                return retryUnsent(current, payload, allowReconnect);
+            }
+            return awaitResponse(current, response, payload, allowReconnect);
+        } finally {
+            // a reply arriving after this point finds no future and is dropped
+            current.inFlight.remove(id);
+            current.window.release();
+        }
+    }
+
+    private void sendAsync(byte[] payload, CompletableFuture<byte[]> response, boolean allowReconnect) {
+        if (response.isDone()) {
+            return;
+        }
+        Channel current;
+        try {
+            current = openChannel();
+        } catch (RuntimeException e) {
+            response.completeExceptionally(e);
+            return;
+        }
+        AsyncGate gate = current.window != null ? current.window : current.lockStep;
+        CompletableFuture<Void> turn = gate.acquire();
+        if (current.window != null) {
+            AsyncSupport.timeout(turn, config.getReadTimeoutMs(), () -> new RequestSendException(
+                    "Timed out waiting for a free WebSocket request slot", 1, null));
+        }
+        AsyncSupport.onCancel(response, () -> turn.cancel(false));
+        turn.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                response.completeExceptionally(failure);
+            } else if (response.isDone()) {
+                gate.release();
+            } else {
+                exchangeAsync(current, gate, payload, response, allowReconnect);
             }
-            throw new RequestSendException("Failed to send WebSocket binary message after reconnect", 2, null);
+        });
+    }
+
+    /**
+     * Sends on a turn already held and gives the turn back once the reply arrived, failed or timed out.
+     */
+    private void exchangeAsync(Channel current, AsyncGate gate, byte[] payload,
+                               CompletableFuture<byte[]> response, boolean allowReconnect) {
+        CompletableFuture<byte[]> reply = new CompletableFuture<>();
+        byte[] message;
+        if (gate == current.window) {
+            int id = current.nextId.incrementAndGet();
+            current.inFlight.put(id, reply);
+            reply.whenComplete((bytes, failure) -> current.inFlight.remove(id));
+            AsyncSupport.onCancel(response, () -> reply.cancel(false));
+            message = MultiplexFrame.data(id, payload);
+        } else {
+            current.pendingResponse = reply;
+            message = payload;
+        }
+        reply.whenComplete((bytes, failure) -> gate.release());
+        AsyncSupport.timeout(reply, config.getReadTimeoutMs(), () -> new RequestSendException(
+                "WebSocket response timed out", 1, new TimeoutException()));
+        reply.whenComplete((bytes, failure) -> {
+            if (failure == null) {
+                response.complete(bytes);
+            } else if (!response.isDone()) {
+                failAsync(current, payload, response, allowReconnect, failure);
+            }
+        });
+        if (!current.open || !current.webSocket.send(ByteString.of(message))) {
+            reply.completeExceptionally(new UnsentException());
+        }
+    }
+
+    private void failAsync(Channel current, byte[] payload, CompletableFuture<byte[]> response,
+                           boolean allowReconnect, Throwable failure) {
+        boolean unsent = failure instanceof UnsentException;
+        if (failure instanceof RequestSendException) {
+            response.completeExceptionally(failure);
+        } else if (allowReconnect && (unsent || !current.open)) {
+            // the handshake blocks, so it must not run on the connection's reader thread
+            AsyncSupport.reconnect(() -> reconnect(current)).whenComplete((ignored, reconnectFailure) -> {
+                if (reconnectFailure != null) {
+                    response.completeExceptionally(reconnectFailure);
+                } else {
+                    sendAsync(payload, response, false);
+                }
+            });
+        } else if (unsent) {
+            response.completeExceptionally(new RequestSendException(
+                    "Failed to send WebSocket binary message after reconnect", 2, null));
+        } else {
+            response.completeExceptionally(new RequestSendException(
+                    "WebSocket message failed: " + failure.getMessage(), 1, failure));
         }
+    }
+
+    private byte[] retryUnsent(Channel current, byte[] payload, boolean allowReconnect) {
+        if (allowReconnect) {
+            reconnect(current);
+            return doSend(payload, false);
+        }
+        throw new RequestSendException("Failed to send WebSocket binary message after reconnect", 2, null);
+    }
 
-        byte[] responseBytes;
+    private byte[] awaitResponse(Channel current, CompletableFuture<byte[]> response,
+                                 byte[] payload, boolean allowReconnect) {
         try {
-            responseBytes = pendingResponse.get(config.getReadTimeoutMs(), TimeUnit.MILLISECONDS);
+            return response.get(config.getReadTimeoutMs(), TimeUnit.MILLISECONDS);
         } catch (TimeoutException e) {
             throw new RequestSendException("WebSocket response timed out", 1, e);
         } catch (ExecutionException e) {
             Throwable cause = e.getCause();
-            if (allowReconnect && !connected) {
-                reconnect();
+            if (allowReconnect && !current.open) {
+                reconnect(current);
                 return doSend(payload, false);
             }
             throw new RequestSendException("WebSocket message failed: " + cause.getMessage(), 1, cause);
@@ -169,12 +319,151 @@ public class WebSocketClient implements Client {
             Thread.currentThread().interrupt();
             throw new RequestInterruptedException("WebSocket response wait was interrupted", e);
         }
+    }
+
+    /**
+     * Offers framing on a fresh connection. Any answer other than an acknowledgement (an older shell replies with
+     * an error) leaves the connection in lock-step mode and stops later offers.
+     *
+     * @return {@code false} when the shell did not answer at all, so the connection must be replaced before its
+     * late reply can be taken for the next response
+     */
+    private boolean negotiateMultiplex(Channel current) {
+        CompletableFuture<byte[]> reply = new CompletableFuture<>();
+        current.pendingResponse = reply;
+        int requested = Math.max(1, config.getMaxInFlight());
+        if (!current.webSocket.send(ByteString.of(MultiplexFrame.hello(requested)))) {
+            return true;
+        }
+        try {
+            MultiplexFrame ack = MultiplexFrame.decode(reply.get(config.getConnectTimeoutMs(), TimeUnit.MILLISECONDS));
+            if (ack != null && ack.type == MultiplexFrame.HELLO_ACK && ack.window() > 0) {
+                current.window = new AsyncGate(Math.min(requested, ack.window()));
+            } else {
+                multiplexRejected = true;
+            }
+            return true;
+        } catch (TimeoutException e) {
+            multiplexRejected = true;
+            return false;
+        } catch (ExecutionException e) {
+            // the connection failed, the next send reconnects and offers again
+            return true;
+        } catch (InterruptedException e) {
+            current.close(e);
+            Thread.currentThread().interrupt();
+            throw new RequestInterruptedException("WebSocket multiplex negotiation was interrupted", e);
+        } finally {
+            current.pendingResponse = null;
+        }
+    }
+
+    private void reconnect(Channel expected) {
+        connectLock.lock();
+        try {
+            // another request may already have replaced the broken connection
+            if (channel == expected) {
+                disconnect();
+            }
+            connect();
+        } finally {
+            connectLock.unlock();
+        }
+    }
 
-        return responseBytes;
+    /**
+     * Marks a request that never reached the shell, so it can be sent again on a new connection.
+     */
+    private static final class UnsentException extends IOException {
+        private UnsentException() {
+            super("WebSocket binary message was not sent");
+        }
     }
 
-    private void reconnect() {
-        disconnect();
-        connect();
+    /**
+     * One WebSocket connection and the requests waiting on it.
+     */
+    private final class Channel extends WebSocketListener {
+        private final CompletableFuture<Void> opened = new CompletableFuture<>();
+        private final Map<Integer, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+        private final AtomicInteger nextId = new AtomicInteger();
+        private volatile WebSocket webSocket;
+        private volatile boolean open;
+        private volatile CompletableFuture<byte[]> pendingResponse;
+        /**
+         * Turns for lock-step requests, one at a time.
+         */
+        private final AsyncGate lockStep = new AsyncGate(1);
+        /**
+         * Set once framing is negotiated; bounds the requests in flight.
+         */
+        private volatile AsyncGate window;
+
+        @Override
+        public void onOpen(WebSocket ws, Response response) {
+            open = true;
+            opened.complete(null);
+        }
+
+        @Override
+        public void onMessage(WebSocket ws, ByteString bytes) {
+            byte[] message = bytes.toByteArray();
+            if (window != null) {
+                MultiplexFrame frame = MultiplexFrame.decode(message);
+                if (frame != null && frame.type == MultiplexFrame.DATA) {
+                    CompletableFuture<byte[]> response = inFlight.get(frame.id);
+                    if (response != null) {
+                        response.complete(frame.body);
+                    }
+                }
+                return;
+            }
+            CompletableFuture<byte[]> pending = pendingResponse;
+            if (pending != null && !pending.isDone()) {
+                pending.complete(message);
+            }
+        }
+
+        @Override
+        public void onClosing(WebSocket ws, int code, String reason) {
+            open = false;
+            ws.close(code, reason);
+            failPending(new IOException("WebSocket closed: " + code + " " + reason));
+        }
+
+        @Override
+        public void onClosed(WebSocket ws, int code, String reason) {
+            open = false;
+            failPending(new IOException("WebSocket closed: " + code + " " + reason));
+        }
+
+        @Override
+        public void onFailure(WebSocket ws, Throwable t, Response response) {
+            open = false;
+            opened.completeExceptionally(t);
+            failPending(t);
+        }
+
+        void close(Throwable reason) {
+            open = false;
+            WebSocket ws = webSocket;
+            if (ws != null) {
+                try {
+                    ws.close(1000, "disconnect");
+                } catch (Exception ignored) {
+                }
+            }
+            failPending(reason);
+        }
+
+        private void failPending(Throwable cause) {
+            CompletableFuture<byte[]> pending = pendingResponse;
+            if (pending != null) {
+                pending.completeExceptionally(cause);
+            }
+            for (CompletableFuture<byte[]> response : inFlight.values()) {
+                response.completeExceptionally(cause);
+            }
+        }
     }
 }
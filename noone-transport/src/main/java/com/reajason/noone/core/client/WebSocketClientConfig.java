@@ -24,4 +24,16 @@ public class WebSocketClientConfig {
 
     @Builder.Default
     private boolean skipSslVerify = false;
+
+    /**
+     * Offer framed mode after the handshake so several requests can share the connection.
+     */
+    @Builder.Default
+    private boolean multiplex = false;
+
+    /**
+     * Upper bound on requests in flight in framed mode; the shell may accept fewer.
+     */
+    @Builder.Default
+    private int maxInFlight = 16;
 }
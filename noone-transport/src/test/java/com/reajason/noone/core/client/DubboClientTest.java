@@ -0,0 +1,81 @@
+package com.reajason.noone.core.client;
+
+import org.apache.dubbo.rpc.service.GenericService;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DubboClientTest {
+
+    @Test
+    void shouldReconnectOnceForConcurrentAsyncFailures() throws Exception {
+        CompletableFuture<Object> broken = new CompletableFuture<>();
+        Queue<String> connectThreads = new ConcurrentLinkedQueue<>();
+        DubboClient client = new FakeDubboClient(connectThreads, broken);
+
+        List<CompletableFuture<byte[]>> replies = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            replies.add(client.sendAsync(("request-" + i).getBytes(StandardCharsets.UTF_8)));
+        }
+        broken.completeExceptionally(new IllegalStateException("channel closed"));
+
+        for (int i = 0; i < replies.size(); i++) {
+            assertEquals("request-" + i, new String(replies.get(i).get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8));
+        }
+        assertEquals(2, connectThreads.size(), "connects: " + connectThreads);
+        assertEquals("noone-transport-reconnect", List.copyOf(connectThreads).get(1));
+    }
+
+    /**
+     * Connects without Dubbo: the first reference fails every invocation once {@code broken} fails, later ones echo.
+     */
+    private static class FakeDubboClient extends DubboClient {
+        private final Queue<String> connectThreads;
+        private final CompletableFuture<Object> broken;
+
+        FakeDubboClient(Queue<String> connectThreads, CompletableFuture<Object> broken) {
+            super("dubbo://127.0.0.1:20880/com.example.ShellService", null);
+            this.connectThreads = connectThreads;
+            this.broken = broken;
+        }
+
+        @Override
+        public boolean connect() {
+            boolean first = connectThreads.isEmpty();
+            connectThreads.add(Thread.currentThread().getName());
+            GenericService service = new GenericService() {
+                @Override
+                public Object $invoke(String method, String[] parameterTypes, Object[] args) {
+                    return args[0];
+                }
+
+                @Override
+                public CompletableFuture<Object> $invokeAsync(String method, String[] parameterTypes, Object[] args) {
+                    return first ? broken.thenApply(ignored -> args[0]) : CompletableFuture.completedFuture(args[0]);
+                }
+            };
+            setField("genericService", service);
+            setField("connected", true);
+            return true;
+        }
+
+        private void setField(String name, Object value) {
+            try {
+                Field field = DubboClient.class.getDeclaredField(name);
+                field.setAccessible(true);
+                field.set(this, value);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
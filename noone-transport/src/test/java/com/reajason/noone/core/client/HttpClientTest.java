@@ -8,6 +8,8 @@ import java.net.ServerSocket;
 import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -173,6 +175,89 @@ class HttpClientTest {
         }
     }
 
+    @Test
+    void shouldSendAsyncAndReportStatusMismatch() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/test", exchange -> {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            exchange.sendResponseHeaders(new String(body, StandardCharsets.UTF_8).equals("fail") ? 500 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        try {
+            HttpClient client = new HttpClient("http://127.0.0.1:" + server.getAddress().getPort() + "/test",
+                    HttpClientConfig.builder().expectedResponseStatusCode(200).build());
+
+            byte[] response = client.sendAsync("hello".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+            assertEquals("hello", new String(response, StandardCharsets.UTF_8));
+
+            ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> client.sendAsync("fail".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(ResponseStatusException.class, error.getCause());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void shouldRetryAsyncUntilAttemptsAreExhausted() throws Exception {
+        int unavailablePort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            unavailablePort = socket.getLocalPort();
+        }
+
+        HttpClient client = new HttpClient(
+                "http://127.0.0.1:" + unavailablePort + "/test",
+                HttpClientConfig.builder()
+                        .connectTimeoutMs(200)
+                        .readTimeoutMs(200)
+                        .maxRetries(2)
+                        .retryDelayMs(1L)
+                        .build()
+        );
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> client.sendAsync("payload".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS));
+        RequestSendException exception = assertInstanceOf(RequestSendException.class, error.getCause());
+        assertEquals(3, exception.getAttempts());
+    }
+
+    @Test
+    void shouldCancelCallInFlightWhenAsyncSendIsCancelled() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        CountDownLatch received = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        server.createContext("/test", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            received.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            HttpClient client = new HttpClient("http://127.0.0.1:" + server.getAddress().getPort() + "/test",
+                    HttpClientConfig.builder().build());
+
+            CompletableFuture<byte[]> response = client.sendAsync("slow".getBytes(StandardCharsets.UTF_8));
+            assertTrue(received.await(5, TimeUnit.SECONDS));
+            assertTrue(response.cancel(true));
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (OkHttpClientRegistry.getInstance().stats().getRunningCalls() > 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, OkHttpClientRegistry.getInstance().stats().getRunningCalls());
+        } finally {
+            release.countDown();
+            server.stop(0);
+        }
+    }
+
     private CapturedRequest capture(HttpClientConfig config, String payload) throws Exception {
         SendResult result = captureAndSend(config, payload, "ok", 200);
         return result.request();
@@ -0,0 +1,57 @@
+package com.reajason.noone.core.client;
+
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OkHttpClientRegistryTest {
+
+    @Test
+    void shouldReuseClientForSameSettings() {
+        OkHttpClientRegistry registry = new OkHttpClientRegistry(new OkHttpClient());
+
+        OkHttpClient first = registry.obtain(null, 1000, 2000, 3000, false);
+        OkHttpClient second = registry.obtain(null, 1000, 2000, 3000, false);
+
+        assertSame(first, second);
+        assertEquals(1, registry.stats().getClients());
+        assertEquals(1, registry.stats().getHits());
+        assertEquals(1, registry.stats().getMisses());
+        assertEquals(0.5D, registry.stats().getHitRate());
+    }
+
+    @Test
+    void shouldDeriveDistinctClientsSharingPoolAndDispatcher() {
+        OkHttpClient root = new OkHttpClient();
+        OkHttpClientRegistry registry = new OkHttpClientRegistry(root);
+        ProxyConfig proxy = ProxyConfig.builder().type("HTTP").host("127.0.0.1").port(8080).build();
+
+        OkHttpClient direct = registry.obtain(null, 1000, 2000, 3000, false);
+        OkHttpClient proxied = registry.obtain(proxy, 1000, 2000, 3000, false);
+        OkHttpClient insecure = registry.obtain(null, 1000, 2000, 3000, true);
+        OkHttpClient otherInsecure = registry.obtain(null, 5000, 2000, 3000, true);
+
+        assertNotSame(direct, proxied);
+        assertNotSame(direct, insecure);
+        assertEquals(4, registry.stats().getClients());
+        assertEquals(2000, direct.readTimeoutMillis());
+        assertNotNull(proxied.proxy());
+        for (OkHttpClient client : new OkHttpClient[]{direct, proxied, insecure, otherInsecure}) {
+            assertSame(root.connectionPool(), client.connectionPool());
+            assertSame(root.dispatcher(), client.dispatcher());
+        }
+        assertSame(insecure.sslSocketFactory(), otherInsecure.sslSocketFactory());
+    }
+
+    @Test
+    void shouldForgetClientsOnClear() {
+        OkHttpClientRegistry registry = new OkHttpClientRegistry(new OkHttpClient());
+        OkHttpClient first = registry.obtain(null, 1000, 2000, 3000, false);
+
+        registry.clear();
+
+        assertEquals(0, registry.stats().getClients());
+        assertNotSame(first, registry.obtain(null, 1000, 2000, 3000, false));
+    }
+}
@@ -1,5 +1,8 @@
 package com.reajason.noone.core.client;
 
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
 import okhttp3.WebSocket;
@@ -8,6 +11,13 @@ import okio.ByteString;
 import org.junit.jupiter.api.Test;
 
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -197,6 +207,306 @@ class WebSocketClientTest {
         }
     }
 
+    @Test
+    void shouldNotBlockFastRequestBehindSlowOneWhenMultiplexed() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            MultiplexShellListener shell = new MultiplexShellListener(32);
+            server.enqueue(new MockResponse.Builder().webSocketUpgrade(shell).build());
+            server.start();
+
+            WebSocketClient client = new WebSocketClient(server.url("/ws").toString(), multiplexConfig(5000));
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<byte[]> slow = executor.submit(() -> client.send("slow".getBytes(StandardCharsets.UTF_8)));
+                shell.awaitRequests(1);
+
+                long start = System.nanoTime();
+                byte[] fast = client.send("fast".getBytes(StandardCharsets.UTF_8));
+                assertEquals("fast", new String(fast, StandardCharsets.UTF_8));
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+                assertFalse(slow.isDone());
+
+                assertEquals("slow", new String(slow.get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8));
+                assertTrue(client.isMultiplexed());
+            } finally {
+                executor.shutdownNow();
+                client.disconnect();
+                shell.close();
+            }
+        }
+    }
+
+    @Test
+    void shouldBoundInFlightRequestsByWindowTheShellAccepts() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            MultiplexShellListener shell = new MultiplexShellListener(2);
+            server.enqueue(new MockResponse.Builder().webSocketUpgrade(shell).build());
+            server.start();
+
+            WebSocketClient client = new WebSocketClient(server.url("/ws").toString(), multiplexConfig(5000));
+            ExecutorService executor = Executors.newFixedThreadPool(6);
+            try {
+                List<Future<byte[]>> responses = new ArrayList<>();
+                for (int i = 0; i < 6; i++) {
+                    String msg = "pause-" + i;
+                    responses.add(executor.submit(() -> client.send(msg.getBytes(StandardCharsets.UTF_8))));
+                }
+                for (int i = 0; i < 6; i++) {
+                    assertEquals("pause-" + i, new String(responses.get(i).get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8));
+                }
+                assertEquals(2, shell.maxInFlight.get());
+            } finally {
+                executor.shutdownNow();
+                client.disconnect();
+                shell.close();
+            }
+        }
+    }
+
+    @Test
+    void shouldTimeOutOnlyTheUnansweredRequestWhenMultiplexed() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            MultiplexShellListener shell = new MultiplexShellListener(32);
+            server.enqueue(new MockResponse.Builder().webSocketUpgrade(shell).build());
+            server.start();
+
+            WebSocketClient client = new WebSocketClient(server.url("/ws").toString(), multiplexConfig(500));
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<byte[]> dropped = executor.submit(() -> client.send("drop".getBytes(StandardCharsets.UTF_8)));
+                shell.awaitRequests(1);
+
+                assertEquals("fast", new String(client.send("fast".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+                ExecutionException error = assertThrows(ExecutionException.class, () -> dropped.get(5, TimeUnit.SECONDS));
+                assertInstanceOf(RequestSendException.class, error.getCause());
+
+                assertEquals("after", new String(client.send("after".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+                assertTrue(client.isMultiplexed());
+            } finally {
+                executor.shutdownNow();
+                client.disconnect();
+                shell.close();
+            }
+        }
+    }
+
+    @Test
+    void shouldFallBackToLockStepWhenShellDoesNotAcknowledgeFraming() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse.Builder()
+                    .webSocketUpgrade(new EchoWebSocketListener())
+                    .build());
+            server.start();
+
+            WebSocketClient client = new WebSocketClient(server.url("/ws").toString(), multiplexConfig(5000));
+
+            byte[] response = client.send("hello".getBytes(StandardCharsets.UTF_8));
+            assertEquals("hello", new String(response, StandardCharsets.UTF_8));
+            assertFalse(client.isMultiplexed());
+
+            client.disconnect();
+        }
+    }
+
+    @Test
+    void shouldAnswerAsyncRequestsInOrderOnLockStepConnection() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            server.enqueue(new MockResponse.Builder()
+                    .webSocketUpgrade(new EchoWebSocketListener())
+                    .build());
+            server.start();
+
+            WebSocketClient client = new WebSocketClient(server.url("/ws").toString(), WebSocketClientConfig.builder()
+                    .connectTimeoutMs(5000)
+                    .readTimeoutMs(5000)
+                    .build());
+
+            // all issued from this thread without waiting, so they queue for the connection as futures
+            List<CompletableFuture<byte[]>> replies = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                replies.add(client.sendAsync(("request-" + i).getBytes(StandardCharsets.UTF_8)));
+            }
+            for (int i = 0; i < replies.size(); i++) {
+                assertEquals("request-" + i, new String(replies.get(i).get(5, TimeUnit.SECONDS), StandardCharsets.UTF_8));
+            }
+            assertEquals("sync", new String(client.send("sync".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+
+            client.disconnect();
+        }
+    }
+
+    @Test
+    void shouldFreeSlotWhenMultiplexedAsyncRequestIsCancelled() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            MultiplexShellListener shell = new MultiplexShellListener(1);
+            server.enqueue(new MockResponse.Builder().webSocketUpgrade(shell).build());
+            server.start();
+
+            WebSocketClient client = new WebSocketClient(server.url("/ws").toString(), multiplexConfig(5000));
+            try {
+                CompletableFuture<byte[]> dropped = client.sendAsync("drop".getBytes(StandardCharsets.UTF_8));
+                shell.awaitRequests(1);
+                assertTrue(client.isMultiplexed());
+                assertTrue(dropped.cancel(true));
+
+                long start = System.nanoTime();
+                byte[] fast = client.sendAsync("fast".getBytes(StandardCharsets.UTF_8)).get(5, TimeUnit.SECONDS);
+                assertEquals("fast", new String(fast, StandardCharsets.UTF_8));
+                assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+            } finally {
+                client.disconnect();
+                shell.close();
+            }
+        }
+    }
+
+    @Test
+    void shouldHoldConcurrentSendUntilMultiplexIsNegotiated() throws Exception {
+        try (MockWebServer server = new MockWebServer()) {
+            MultiplexShellListener shell = new MultiplexShellListener(32, 500);
+            server.enqueue(new MockResponse.Builder().webSocketUpgrade(shell).build());
+            server.start();
+
+            WebSocketClient client = new WebSocketClient(server.url("/ws").toString(), multiplexConfig(5000));
+            ExecutorService executor = Executors.newSingleThreadExecutor();
+            try {
+                Future<Boolean> connected = executor.submit(client::connect);
+                shell.awaitHello();
+
+                // the offer is still unanswered, so this must wait for framing rather than go out in lock-step
+                byte[] response = client.send("first".getBytes(StandardCharsets.UTF_8));
+                assertEquals("first", new String(response, StandardCharsets.UTF_8));
+                assertTrue(connected.get(5, TimeUnit.SECONDS));
+                assertTrue(client.isMultiplexed());
+            } finally {
+                executor.shutdownNow();
+                client.disconnect();
+                shell.close();
+            }
+        }
+    }
+
+    @Test
+    void shouldNotPinCarrierThreadsWhenVirtualThreadsShareConnection() throws Exception {
+        try (MockWebServer server = new MockWebServer();
+             Recording recording = new Recording()) {
+            server.enqueue(new MockResponse.Builder()
+                    .webSocketUpgrade(new EchoWebSocketListener())
+                    .build());
+            server.start();
+
+            WebSocketClient client = new WebSocketClient(
+                    server.url("/ws").toString(),
+                    WebSocketClientConfig.builder()
+                            .connectTimeoutMs(5000)
+                            .readTimeoutMs(10000)
+                            .build()
+            );
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            // every request parks on the shell's reply while it holds the send lock
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<byte[]>> replies = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    byte[] payload = ("request-" + i).getBytes(StandardCharsets.UTF_8);
+                    replies.add(executor.submit(() -> client.send(payload)));
+                }
+                for (int i = 0; i < replies.size(); i++) {
+                    assertEquals("request-" + i, new String(replies.get(i).get(30, TimeUnit.SECONDS), StandardCharsets.UTF_8));
+                }
+            }
+            recording.stop();
+            client.disconnect();
+
+            Path dump = Files.createTempFile("websocket-pinning", ".jfr");
+            try {
+                recording.dump(dump);
+                List<RecordedEvent> pinnedInClient = RecordingFile.readAllEvents(dump).stream()
+                        .filter(event -> event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+                                .map(frame -> frame.getMethod().getType().getName())
+                                .anyMatch(type -> type.equals(WebSocketClient.class.getName())
+                                        || type.startsWith(WebSocketClient.class.getName() + "$")))
+                        .toList();
+                assertTrue(pinnedInClient.isEmpty(), "carrier pinned inside WebSocketClient: " + pinnedInClient);
+            } finally {
+                Files.deleteIfExists(dump);
+            }
+        }
+    }
+
+    private static WebSocketClientConfig multiplexConfig(int readTimeoutMs) {
+        return WebSocketClientConfig.builder()
+                .connectTimeoutMs(5000)
+                .readTimeoutMs(readTimeoutMs)
+                .multiplex(true)
+                .build();
+    }
+
+    /**
+     * Speaks the framed protocol like the WebSocket shell: echoes each body, after 1.5s for "slow", 100ms for
+     * "pause-*", never for "drop".
+     */
+    static class MultiplexShellListener extends WebSocketListener implements AutoCloseable {
+        private final int window;
+        private final long ackDelayMs;
+        private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final Semaphore received = new Semaphore(0);
+        private final CountDownLatch hello = new CountDownLatch(1);
+
+        MultiplexShellListener(int window) {
+            this(window, 0);
+        }
+
+        MultiplexShellListener(int window, long ackDelayMs) {
+            this.window = window;
+            this.ackDelayMs = ackDelayMs;
+        }
+
+        void awaitRequests(int count) throws InterruptedException {
+            assertTrue(received.tryAcquire(count, 5, TimeUnit.SECONDS));
+        }
+
+        void awaitHello() throws InterruptedException {
+            assertTrue(hello.await(5, TimeUnit.SECONDS));
+        }
+
+        @Override
+        public void onMessage(WebSocket webSocket, ByteString bytes) {
+            MultiplexFrame frame = MultiplexFrame.decode(bytes.toByteArray());
+            assertNotNull(frame);
+            if (frame.type == MultiplexFrame.HELLO) {
+                hello.countDown();
+                scheduler.schedule(() -> webSocket.send(ByteString.of(MultiplexFrame.encode(MultiplexFrame.HELLO_ACK, 0,
+                        new byte[]{0, 0, 0, (byte) window}))), ackDelayMs, TimeUnit.MILLISECONDS);
+                return;
+            }
+            String body = new String(frame.body, StandardCharsets.UTF_8);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            received.release();
+            if (body.equals("drop")) {
+                return;
+            }
+            long delay = body.equals("slow") ? 1500 : body.startsWith("pause-") ? 100 : 0;
+            scheduler.schedule(() -> {
+                inFlight.decrementAndGet();
+                webSocket.send(ByteString.of(MultiplexFrame.data(frame.id, frame.body)));
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void onClosing(WebSocket webSocket, int code, String reason) {
+            webSocket.close(code, reason);
+        }
+
+        @Override
+        public void close() {
+            scheduler.shutdownNow();
+        }
+    }
+
     static class EchoWebSocketListener extends WebSocketListener {
         @Override
         public void onMessage(WebSocket webSocket, ByteString bytes) {
@@ -9,7 +9,14 @@ import { useFetcher } from "react-router";
 
 import { Button } from "@/components/ui/button";
 import { Card, CardContent, CardHeader, CardTitle } from "@/components/ui/card";
-import { Field, FieldError, FieldGroup, FieldLabel } from "@/components/ui/field";
+import {
+  Field,
+  FieldContent,
+  FieldDescription,
+  FieldError,
+  FieldGroup,
+  FieldLabel,
+} from "@/components/ui/field";
 import { Input } from "@/components/ui/input";
 import {
   Select,
@@ -19,6 +26,7 @@ import {
   SelectTrigger,
   SelectValue,
 } from "@/components/ui/select";
+import { Switch } from "@/components/ui/switch";
 import { Textarea } from "@/components/ui/textarea";
 import { createProfileFormSchema } from "@/routes/profile/profile-form.shared";
 import {
@@ -553,6 +561,27 @@ export function ProfileForm({
               <FieldError>{fieldError("handshakeHeaders")}</FieldError>
             </Field>
 
+            <Field orientation="horizontal">
+              <Controller
+                name="multiplex"
+                control={control}
+                render={({ field }) => (
+                  <Switch
+                    id="multiplex"
+                    checked={field.value ?? false}
+                    onCheckedChange={field.onChange}
+                  />
+                )}
+              />
+              <FieldContent>
+                <FieldLabel htmlFor="multiplex">Multiplex Requests</FieldLabel>
+                <FieldDescription>
+                  Keep several requests in flight on one connection. Shells generated before this
+                  option fall back to one request at a time.
+                </FieldDescription>
+              </FieldContent>
+            </Field>
+
             <FieldGroup className="grid grid-cols-1 gap-4 md:grid-cols-2">
               <Field>
                 <FieldLabel htmlFor="messageTemplate">Message Template</FieldLabel>
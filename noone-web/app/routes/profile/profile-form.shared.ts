@@ -87,6 +87,7 @@ export const profileFormSchema = z.object({
   subprotocol: z.string().optional(),
   messageFormat: messageFormatSchema.optional(),
   handshakeHeaders: jsonRecordString.optional(),
+  multiplex: z.boolean().optional(),
   requestCompression: z.string(),
   requestEncryption: z.string(),
   requestEncoding: z.string(),
@@ -163,6 +164,7 @@ export function getDefaultValues(profile?: Profile): ProfileFormValues {
     handshakeHeaders: wsConfig?.handshakeHeaders
       ? JSON.stringify(wsConfig.handshakeHeaders, null, 2)
       : "",
+    multiplex: wsConfig?.multiplex ?? false,
     requestCompression: profile?.requestTransformations[0] ?? "None",
     requestEncryption: profile?.requestTransformations[1] ?? "None",
     requestEncoding: profile?.requestTransformations[2] ?? "None",
@@ -303,6 +305,7 @@ function buildWebSocketProtocolConfig(values: ProfileFormValues): WebSocketProto
     messageTemplate: values.messageTemplate || undefined,
     responseTemplate: values.wsResponseTemplate || undefined,
     messageFormat: values.messageFormat,
+    multiplex: values.multiplex || undefined,
   };
 }
 
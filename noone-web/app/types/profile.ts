@@ -66,6 +66,7 @@ export interface WebSocketProtocolConfig {
   messageTemplate?: string;
   responseTemplate?: string;
   messageFormat?: MessageFormat;
+  multiplex?: boolean;
 }
 
 export interface DubboProtocolConfig {
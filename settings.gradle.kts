@@ -32,4 +32,5 @@ include("noone-vul:vul-webapp")
 include("noone-vul:vul-webapp-jakarta")
 
 include("noone-test:server-compatibility")
-include("noone-transport")
\ No newline at end of file
+include("noone-transport")
+include("noone-benchmarks")
\ No newline at end of file